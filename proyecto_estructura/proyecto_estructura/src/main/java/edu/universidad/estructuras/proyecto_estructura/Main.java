@@ -54,9 +54,9 @@ public class Main extends Application {
 
     @Override
     public void stop() throws Exception {
-        // ✨ GUARDAR DATOS AL CERRAR LA APLICACIÓN
+        // ✨ GUARDAR DATOS AL CERRAR LA APLICACIÓN (incluye lo pendiente de la escritura diferida)
         System.out.println("\n=== Guardando datos finales ===");
-        PersistenciaService.getInstance().guardarTodo();
+        PersistenciaService.getInstance().cerrar();
         super.stop();
     }
 
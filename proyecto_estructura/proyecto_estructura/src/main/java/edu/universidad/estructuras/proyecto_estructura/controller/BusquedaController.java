@@ -1,10 +1,17 @@
 package edu.universidad.estructuras.proyecto_estructura.controller;
 
+import edu.universidad.estructuras.proyecto_estructura.model.BitmapComprimido;
 import edu.universidad.estructuras.proyecto_estructura.model.Cancion;
 import edu.universidad.estructuras.proyecto_estructura.model.Usuario;
 import edu.universidad.estructuras.proyecto_estructura.service.CancionService;
+import edu.universidad.estructuras.proyecto_estructura.service.CriterioOrden;
+import edu.universidad.estructuras.proyecto_estructura.service.CursorOrdinales;
+import edu.universidad.estructuras.proyecto_estructura.service.CursorResultados;
+import edu.universidad.estructuras.proyecto_estructura.service.MotorFiltros;
+import edu.universidad.estructuras.proyecto_estructura.service.PaginaCanciones;
 import edu.universidad.estructuras.proyecto_estructura.service.PlaylistService;
 import edu.universidad.estructuras.proyecto_estructura.service.UsuarioService;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -21,9 +28,6 @@ import javafx.stage.Stage;
 
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 
@@ -65,10 +69,16 @@ public class BusquedaController {
     @FXML private Button btnAgregarFavoritos;
     @FXML private Button btnAgregarPlaylist;
 
+    private static final int TAMANO_PAGINA = 100;
+
     private CancionService cancionService;
     private UsuarioService usuarioService;
     private PlaylistService playlistService;
     private ObservableList<Cancion> resultadosObservable;
+    private int siguienteOrdinal = -1; // cursor de la página siguiente del catálogo (-1 si no se está paginando)
+    private CursorResultados busquedaActual; // búsqueda u orden cuyos resultados se están paginando (null si no)
+    private CursorResultados resultadoActual; // resultado completo de la búsqueda u orden mostrado (null si no)
+    private BitmapComprimido filtroActual;    // resultado de los filtros mostrado (null si no)
     private boolean filtrosVisibles = false;
 
     @FXML
@@ -135,6 +145,17 @@ public class BusquedaController {
                 }
             }
         });
+
+        // Al mostrarse la última fila, pedir la siguiente página del catálogo
+        tableResultados.setRowFactory(tabla -> new TableRow<>() {
+            @Override
+            public void updateIndex(int indice) {
+                super.updateIndex(indice);
+                if (hayMasPaginas() && indice >= 0 && indice == tabla.getItems().size() - 1) {
+                    Platform.runLater(() -> cargarSiguientePagina());
+                }
+            }
+        });
     }
 
     private void configurarComboBoxes() {
@@ -159,9 +180,64 @@ public class BusquedaController {
     }
 
     private void cargarTodasLasCanciones() {
-        List<Cancion> canciones = cancionService.obtenerTodasLasCanciones();
+        PaginaCanciones pagina = cancionService.obtenerPagina(0, TAMANO_PAGINA);
+        resultadosObservable = FXCollections.observableArrayList(pagina.getCanciones());
+        tableResultados.setItems(resultadosObservable);
+        siguienteOrdinal = pagina.getSiguienteOrdinal();
+        busquedaActual = null;
+        resultadoActual = null;
+        filtroActual = null;
+        actualizarContador();
+    }
+
+    private boolean hayMasPaginas() {
+        return siguienteOrdinal >= 0 || busquedaActual != null;
+    }
+
+    /**
+     * Agrega a la tabla la siguiente página del catálogo o de la búsqueda, si la hay
+     */
+    private void cargarSiguientePagina() {
+        if (busquedaActual != null) {
+            resultadosObservable.addAll(busquedaActual.tomar(TAMANO_PAGINA));
+            if (!busquedaActual.hasNext()) {
+                busquedaActual = null;
+            }
+            actualizarContador();
+            return;
+        }
+        if (siguienteOrdinal < 0) {
+            return;
+        }
+        PaginaCanciones pagina = cancionService.obtenerPagina(siguienteOrdinal, TAMANO_PAGINA);
+        siguienteOrdinal = pagina.getSiguienteOrdinal();
+        resultadosObservable.addAll(pagina.getCanciones());
+        actualizarContador();
+    }
+
+    /**
+     * Muestra un conjunto de resultados completo (filtros o autocompletado), sin paginar
+     */
+    private void mostrarResultados(List<Cancion> canciones) {
         resultadosObservable = FXCollections.observableArrayList(canciones);
         tableResultados.setItems(resultadosObservable);
+        siguienteOrdinal = -1;
+        busquedaActual = null;
+        resultadoActual = null;
+        filtroActual = null;
+        actualizarContador();
+    }
+
+    /**
+     * Muestra la primera página de un resultado (búsqueda u orden) y pagina el resto
+     */
+    private void mostrarResultados(CursorResultados cursor) {
+        resultadosObservable = FXCollections.observableArrayList(cursor.tomar(TAMANO_PAGINA));
+        tableResultados.setItems(resultadosObservable);
+        siguienteOrdinal = -1;
+        busquedaActual = cursor.hasNext() ? cursor : null;
+        resultadoActual = cursor;
+        filtroActual = null;
         actualizarContador();
     }
 
@@ -173,20 +249,8 @@ public class BusquedaController {
             return;
         }
 
-        // Búsqueda simple por título y artista
-        List<Cancion> resultados = new ArrayList<>();
-        resultados.addAll(cancionService.buscarPorTitulo(busqueda));
-
-        List<Cancion> porArtista = cancionService.buscarPorArtista(busqueda);
-        for (Cancion c : porArtista) {
-            if (!resultados.contains(c)) {
-                resultados.add(c);
-            }
-        }
-
-        resultadosObservable = FXCollections.observableArrayList(resultados);
-        tableResultados.setItems(resultadosObservable);
-        actualizarContador();
+        // Búsqueda por relevancia en título, artista y género, por páginas
+        mostrarResultados(cancionService.abrirBusqueda(busqueda));
     }
 
     @FXML
@@ -203,100 +267,52 @@ public class BusquedaController {
         btnMostrarFiltros.setText(filtrosVisibles ? "▲ Ocultar" : "▼ Mostrar");
     }
 
-    // En BusquedaController.java
-
     @FXML
     private void handleAplicarFiltros() {
-        // Mostrar indicador de carga
-        progressIndicator.setVisible(true);
-        btnAplicarFiltros.setDisable(true);
-
         // Obtener parámetros de filtros
         String generoSeleccionado = comboGenero.getValue();
         String anioMinStr = txtAnioMin.getText().trim();
         String anioMaxStr = txtAnioMax.getText().trim();
         String artistaBusqueda = txtArtista.getText().trim();
+        String duracionMinStr = txtDuracionMin.getText().trim().replace(",", ".");
+        String duracionMaxStr = txtDuracionMax.getText().trim().replace(",", ".");
 
-        // 🔥 USAR THREADS - ExecutorService
-        ExecutorService executor = Executors.newFixedThreadPool(4);
-        List<Future<List<Cancion>>> futures = new ArrayList<>();
+        // Cada filtro es un mapa de bits sobre los ordinales; se combinan con AND
+        MotorFiltros motor = cancionService.getMotorFiltros();
+        BitmapComprimido resultado = motor.todas();
 
-        // Tarea 1: Filtrar por género
-        futures.add(executor.submit(() -> {
+        try {
             if (generoSeleccionado != null && !generoSeleccionado.equals("Todos los géneros")) {
-                return cancionService.buscarPorGenero(generoSeleccionado);
+                resultado = resultado.and(motor.porGenero(generoSeleccionado));
             }
-            return cancionService.obtenerTodasLasCanciones();
-        }));
 
-        // Tarea 2: Filtrar por artista
-        futures.add(executor.submit(() -> {
             if (!artistaBusqueda.isEmpty()) {
-                return cancionService.buscarPorArtista(artistaBusqueda);
+                resultado = resultado.and(motor.porArtista(artistaBusqueda));
             }
-            return new ArrayList<>();
-        }));
 
-        // Tarea 3: Filtrar por año
-        futures.add(executor.submit(() -> {
-            List<Cancion> resultado = new ArrayList<>();
             if (!anioMinStr.isEmpty() || !anioMaxStr.isEmpty()) {
-                try {
-                    int min = anioMinStr.isEmpty() ? 0 : Integer.parseInt(anioMinStr);
-                    int max = anioMaxStr.isEmpty() ? 3000 : Integer.parseInt(anioMaxStr);
-
-                    for (Cancion c : cancionService.obtenerTodasLasCanciones()) {
-                        if (c.getAnio() >= min && c.getAnio() <= max) {
-                            resultado.add(c);
-                        }
-                    }
-                } catch (NumberFormatException e) {
-                    // Manejar error
-                }
+                int min = anioMinStr.isEmpty() ? 0 : Integer.parseInt(anioMinStr);
+                int max = anioMaxStr.isEmpty() ? 3000 : Integer.parseInt(anioMaxStr);
+                resultado = resultado.and(motor.porRangoAnio(min, max));
             }
-            return resultado;
-        }));
-
-        // Combinar resultados en hilo separado
-        new Thread(() -> {
-            try {
-                // Esperar resultados de todos los hilos
-                List<Cancion> porGenero = futures.get(0).get();
-                List<Cancion> porArtista = futures.get(1).get();
-                List<Cancion> porAnio = futures.get(2).get();
-
-                // Aplicar lógica AND/OR
-                Set<Cancion> resultadoFinal = new HashSet<>(porGenero);
-
-                if (!porArtista.isEmpty()) {
-                    resultadoFinal.retainAll(porArtista); // AND
-                }
-
-                if (!porAnio.isEmpty()) {
-                    resultadoFinal.retainAll(porAnio); // AND
-                }
 
-                // Actualizar UI en hilo de JavaFX
-                javafx.application.Platform.runLater(() -> {
-                    resultadosObservable = FXCollections.observableArrayList(resultadoFinal);
-                    tableResultados.setItems(resultadosObservable);
-                    actualizarContador();
+            if (!duracionMinStr.isEmpty() || !duracionMaxStr.isEmpty()) {
+                double min = duracionMinStr.isEmpty() ? 0 : Double.parseDouble(duracionMinStr);
+                double max = duracionMaxStr.isEmpty() ? Double.POSITIVE_INFINITY : Double.parseDouble(duracionMaxStr);
+                resultado = resultado.and(motor.porRangoDuracion(min, max));
+            }
+        } catch (NumberFormatException e) {
+            mostrarError("Formato de número inválido en Año o Duración");
+            return;
+        }
 
-                    progressIndicator.setVisible(false);
-                    btnAplicarFiltros.setDisable(false);
-                    mostrarExito("Filtros aplicados: " + resultadoFinal.size() + " resultados");
-                });
+        // Materializar solo las canciones del resultado
+        CursorOrdinales cursor = cancionService.abrirCursor(resultado);
+        List<Cancion> canciones = cursor.tomar(cursor.getTotal());
+        mostrarResultados(canciones);
+        filtroActual = resultado;
 
-            } catch (Exception e) {
-                javafx.application.Platform.runLater(() -> {
-                    progressIndicator.setVisible(false);
-                    btnAplicarFiltros.setDisable(false);
-                    mostrarError("Error en búsqueda: " + e.getMessage());
-                });
-            } finally {
-                executor.shutdown();
-            }
-        }).start();
+        mostrarExito("Filtros aplicados: " + canciones.size() + " resultados");
     }
 
     @FXML
@@ -318,36 +334,29 @@ public class BusquedaController {
             return;
         }
 
-        List<Cancion> lista = new ArrayList<>(resultadosObservable);
-
+        CriterioOrden criterio;
+        boolean descendente;
         switch (ordenSeleccionado) {
-            case "Título (A-Z)":
-                lista.sort(Comparator.comparing(Cancion::getTitulo));
-                break;
-            case "Título (Z-A)":
-                lista.sort(Comparator.comparing(Cancion::getTitulo).reversed());
-                break;
-            case "Artista (A-Z)":
-                lista.sort(Comparator.comparing(Cancion::getArtista));
-                break;
-            case "Artista (Z-A)":
-                lista.sort(Comparator.comparing(Cancion::getArtista).reversed());
-                break;
-            case "Año (Más reciente)":
-                lista.sort(Comparator.comparing(Cancion::getAnio).reversed());
-                break;
-            case "Año (Más antiguo)":
-                lista.sort(Comparator.comparing(Cancion::getAnio));
-                break;
-            case "Duración (Más larga)":
-                lista.sort(Comparator.comparing(Cancion::getDuracion).reversed());
-                break;
-            case "Duración (Más corta)":
-                lista.sort(Comparator.comparing(Cancion::getDuracion));
-                break;
+            case "Título (A-Z)": criterio = CriterioOrden.TITULO; descendente = false; break;
+            case "Título (Z-A)": criterio = CriterioOrden.TITULO; descendente = true; break;
+            case "Artista (A-Z)": criterio = CriterioOrden.ARTISTA; descendente = false; break;
+            case "Artista (Z-A)": criterio = CriterioOrden.ARTISTA; descendente = true; break;
+            case "Año (Más reciente)": criterio = CriterioOrden.ANIO; descendente = true; break;
+            case "Año (Más antiguo)": criterio = CriterioOrden.ANIO; descendente = false; break;
+            case "Duración (Más larga)": criterio = CriterioOrden.DURACION; descendente = true; break;
+            case "Duración (Más corta)": criterio = CriterioOrden.DURACION; descendente = false; break;
+            default: return;
         }
 
-        resultadosObservable.setAll(lista);
+        // Se ordena el resultado completo con los índices de orden y se muestra su primera
+        // página; las demás se cargan al desplazarse, como las del catálogo
+        if (resultadoActual != null) {
+            mostrarResultados(cancionService.ordenar(resultadoActual, criterio, descendente));
+        } else if (filtroActual != null) {
+            mostrarResultados(cancionService.ordenar(filtroActual, criterio, descendente));
+        } else {
+            mostrarResultados(cancionService.ordenar(cancionService.getMotorFiltros().todas(), criterio, descendente));
+        }
     }
 
     @FXML
@@ -462,7 +471,13 @@ public class BusquedaController {
     }
 
     private void actualizarContador() {
-        lblResultados.setText("Resultados: " + resultadosObservable.size());
+        if (siguienteOrdinal >= 0) {
+            lblResultados.setText("Resultados: " + resultadosObservable.size() + " de " + cancionService.getCantidadCanciones());
+        } else if (busquedaActual != null) {
+            lblResultados.setText("Resultados: " + resultadosObservable.size() + " de " + busquedaActual.getTotal());
+        } else {
+            lblResultados.setText("Resultados: " + resultadosObservable.size());
+        }
     }
 
     private void mostrarError(String mensaje) {
@@ -493,41 +508,48 @@ public class BusquedaController {
      * Configura el autocompletado en tiempo real para el campo de búsqueda
      */
     private void configurarAutocompletado() {
+        // Los tries se construyen en segundo plano al arrancar: avisar mientras no estén listos
+        if (!cancionService.isTriesListos()) {
+            lblBuscando.setText("⏳ Preparando autocompletado...");
+            lblBuscando.setVisible(true);
+            cancionService.getTriesListos().whenComplete((v, error) ->
+                    javafx.application.Platform.runLater(() -> {
+                        lblBuscando.setVisible(false);
+                        lblBuscando.setText("Buscando...");
+                    }));
+        }
+
         // Listener que se activa cada vez que el usuario escribe
         txtBusqueda.textProperty().addListener((observable, oldValue, newValue) -> {
-            if (newValue != null && newValue.length() >= 2) {
+            if (newValue != null && newValue.length() >= 2 && !cancionService.isTriesListos()) {
+                // Sin tries todavía: búsqueda parcial directa sobre el catálogo
+                // (LinkedHashSet: sin repetidas por ID, en el orden en que se encontraron)
+                Set<Cancion> resultados = new LinkedHashSet<>(cancionService.buscarPorTitulo(newValue));
+                resultados.addAll(cancionService.buscarPorArtista(newValue));
+                if (!resultados.isEmpty()) {
+                    mostrarResultados(new ArrayList<>(resultados));
+                }
+            } else if (newValue != null && newValue.length() >= 2) {
                 // Obtener sugerencias del Trie
                 List<String> sugerenciasTitulos = cancionService.autocompletarTitulos(newValue);
                 List<String> sugerenciasArtistas = cancionService.autocompletarArtistas(newValue);
 
-                // Combinar resultados
-                List<Cancion> resultados = new ArrayList<>();
+                // Combinar resultados sin repetidas (Cancion compara por ID), en orden de llegada
+                Set<Cancion> resultados = new LinkedHashSet<>();
 
                 // Buscar por títulos sugeridos
                 for (String titulo : sugerenciasTitulos) {
-                    List<Cancion> cancionesPorTitulo = cancionService.buscarPorTitulo(titulo);
-                    for (Cancion c : cancionesPorTitulo) {
-                        if (!resultados.contains(c)) {
-                            resultados.add(c);
-                        }
-                    }
+                    resultados.addAll(cancionService.buscarPorTitulo(titulo));
                 }
 
                 // Buscar por artistas sugeridos
                 for (String artista : sugerenciasArtistas) {
-                    List<Cancion> cancionesPorArtista = cancionService.buscarPorArtista(artista);
-                    for (Cancion c : cancionesPorArtista) {
-                        if (!resultados.contains(c)) {
-                            resultados.add(c);
-                        }
-                    }
+                    resultados.addAll(cancionService.buscarPorArtista(artista));
                 }
 
                 // Actualizar tabla con resultados
                 if (!resultados.isEmpty()) {
-                    resultadosObservable = FXCollections.observableArrayList(resultados);
-                    tableResultados.setItems(resultadosObservable);
-                    actualizarContador();
+                    mostrarResultados(new ArrayList<>(resultados));
                 }
             } else if (newValue == null || newValue.isEmpty()) {
                 // Si el campo está vacío, mostrar todas las canciones
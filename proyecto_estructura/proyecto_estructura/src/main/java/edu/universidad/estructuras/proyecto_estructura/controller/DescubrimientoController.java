@@ -3,6 +3,11 @@ package edu.universidad.estructuras.proyecto_estructura.controller;
 import edu.universidad.estructuras.proyecto_estructura.model.Cancion;
 import edu.universidad.estructuras.proyecto_estructura.model.Usuario;
 import edu.universidad.estructuras.proyecto_estructura.service.CancionService;
+import edu.universidad.estructuras.proyecto_estructura.service.EstratoMuestreo;
+import edu.universidad.estructuras.proyecto_estructura.service.PeriodoTendencia;
+import edu.universidad.estructuras.proyecto_estructura.service.PopularidadService;
+import edu.universidad.estructuras.proyecto_estructura.service.TendenciasService;
+import edu.universidad.estructuras.proyecto_estructura.service.TipoFaceta;
 import edu.universidad.estructuras.proyecto_estructura.service.UsuarioService;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -21,7 +26,6 @@ import javafx.stage.Stage;
 
 import java.io.IOException;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Controlador para la vista de descubrimiento de música
@@ -35,8 +39,9 @@ public class DescubrimientoController {
     @FXML private ListView<Cancion> listTopPopulares;
     @FXML private Button btnVerMasPopulares;
 
-    // Lanzamientos Recientes
+    // Tendencias
     @FXML private ComboBox<String> comboPeriodo;
+    @FXML private ListView<Cancion> listTendencias;
 
     // Explorar por Género
     @FXML private javafx.scene.layout.FlowPane flowGeneros;
@@ -79,6 +84,7 @@ public class DescubrimientoController {
         cargarGeneros();
         configurarComboBox();
         configurarListViews();
+        cargarTendencias();
 
         // Ocultar paneles por defecto
         panelGeneroSeleccionado.setVisible(false);
@@ -168,6 +174,10 @@ public class DescubrimientoController {
             }
         });
 
+        // Las tendencias usan las mismas celdas que el ranking de populares
+        listTendencias.setCellFactory(listTopPopulares.getCellFactory());
+        listTendencias.setPlaceholder(new Label("Sin actividad en este periodo"));
+
         // Configurar ListView de década
         listDecada.setCellFactory(param -> new ListCell<Cancion>() {
             @Override
@@ -185,36 +195,26 @@ public class DescubrimientoController {
     }
 
     private void configurarComboBox() {
-        comboPeriodo.setItems(FXCollections.observableArrayList(
-                "Último año",
-                "Últimos 3 años",
-                "Últimos 5 años",
-                "Últimos 10 años"
-        ));
-        comboPeriodo.getSelectionModel().selectFirst();
+        ObservableList<String> periodos = FXCollections.observableArrayList();
+        for (PeriodoTendencia periodo : PeriodoTendencia.values()) {
+            periodos.add(periodo.getEtiqueta());
+        }
+        comboPeriodo.setItems(periodos);
+        comboPeriodo.getSelectionModel().select(PeriodoTendencia.SEMANA.getEtiqueta());
     }
 
-    private void cargarTopPopulares() {
-        // Obtener canciones más favoritas
-        Map<String, Integer> conteoFavoritos = new HashMap<>();
-
-        for (Usuario usuario : usuarioService.obtenerTodosLosUsuarios()) {
-            for (Cancion cancion : usuario.getListaFavoritos()) {
-                conteoFavoritos.put(cancion.getId(),
-                        conteoFavoritos.getOrDefault(cancion.getId(), 0) + 1);
-            }
+    private void cargarTendencias() {
+        PeriodoTendencia periodo = PeriodoTendencia.desdeEtiqueta(comboPeriodo.getValue());
+        if (periodo == null) {
+            periodo = PeriodoTendencia.SEMANA;
         }
+        List<Cancion> tendencias = TendenciasService.getInstance().obtenerTendencias(periodo, 10);
+        listTendencias.setItems(FXCollections.observableArrayList(tendencias));
+    }
 
-        // Ordenar por popularidad
-        List<Cancion> todasCanciones = cancionService.obtenerTodasLasCanciones();
-        List<Cancion> populares = todasCanciones.stream()
-                .sorted((c1, c2) -> {
-                    int count1 = conteoFavoritos.getOrDefault(c1.getId(), 0);
-                    int count2 = conteoFavoritos.getOrDefault(c2.getId(), 0);
-                    return Integer.compare(count2, count1);
-                })
-                .limit(10)
-                .collect(Collectors.toList());
+    private void cargarTopPopulares() {
+        // Canciones más favoritas (conteos mantenidos por PopularidadService)
+        List<Cancion> populares = PopularidadService.getInstance().obtenerTopPopulares(10);
 
         listTopPopulares.setItems(FXCollections.observableArrayList(populares));
     }
@@ -222,7 +222,8 @@ public class DescubrimientoController {
     private void cargarGeneros() {
         flowGeneros.getChildren().clear();
 
-        Set<String> generos = cancionService.obtenerGenerosUnicos();
+        // Géneros con su cantidad de canciones, desde los contadores de facetas
+        Map<String, Integer> generos = cancionService.getFacetas().getConteos(TipoFaceta.GENERO);
 
         // Colores para los géneros
         String[] colores = {
@@ -231,14 +232,16 @@ public class DescubrimientoController {
         };
 
         int i = 0;
-        for (String genero : generos) {
-            Button btnGenero = new Button(genero);
+        for (Map.Entry<String, Integer> entrada : generos.entrySet()) {
+            String genero = entrada.getKey();
+            Button btnGenero = new Button(genero + "\n" + entrada.getValue() + " canciones");
             String color = colores[i % colores.length];
             btnGenero.setStyle(
                     "-fx-background-color: " + color + ";" +
                             "-fx-text-fill: white;" +
                             "-fx-font-size: 14;" +
                             "-fx-font-weight: bold;" +
+                            "-fx-text-alignment: center;" +
                             "-fx-pref-width: 150;" +
                             "-fx-pref-height: 60;" +
                             "-fx-background-radius: 8;" +
@@ -249,10 +252,25 @@ public class DescubrimientoController {
             flowGeneros.getChildren().add(btnGenero);
             i++;
         }
+
+        actualizarConteosDecadas();
+    }
+
+    /**
+     * Muestra en cada botón de década cuántas canciones tiene (contadores de facetas)
+     */
+    private void actualizarConteosDecadas() {
+        Button[] botones = {btn1960s, btn1970s, btn1980s, btn1990s, btn2000s, btn2010s, btn2020s};
+        for (int i = 0; i < botones.length; i++) {
+            int cantidad = cancionService.getFacetas().getConteo(TipoFaceta.DECADA, String.valueOf(1960 + i * 10));
+            botones[i].setTooltip(new Tooltip(cantidad + " canciones"));
+        }
     }
 
     private void mostrarCancionesPorGenero(String genero) {
-        List<Cancion> canciones = cancionService.buscarPorGenero(genero);
+        // Lista del género ya ordenada por título, sin recorrer el catálogo
+        List<Cancion> canciones = cancionService.obtenerCancionesDeFaceta(
+                TipoFaceta.GENERO, genero, 0, Integer.MAX_VALUE);
 
         lblGeneroActual.setText(genero);
         lblCantidadGenero.setText(canciones.size() + " canciones");
@@ -287,12 +305,9 @@ public class DescubrimientoController {
     }
 
     private void mostrarCancionesPorDecada(int decadaInicio) {
-        int decadaFin = decadaInicio + 9;
-
-        List<Cancion> canciones = cancionService.obtenerTodasLasCanciones().stream()
-                .filter(c -> c.getAnio() >= decadaInicio && c.getAnio() <= decadaFin)
-                .sorted(Comparator.comparing(Cancion::getAnio))
-                .collect(Collectors.toList());
+        // Lista de la década ya ordenada por año: solo se materializan sus canciones
+        List<Cancion> canciones = cancionService.obtenerCancionesDeFaceta(
+                TipoFaceta.DECADA, String.valueOf(decadaInicio), 0, Integer.MAX_VALUE);
 
         lblDecadaActual.setText("Década de " + decadaInicio);
         listDecada.setItems(FXCollections.observableArrayList(canciones));
@@ -303,17 +318,13 @@ public class DescubrimientoController {
 
     @FXML
     private void handleSorprendeme() {
-        List<Cancion> todasCanciones = cancionService.obtenerTodasLasCanciones();
-        if (todasCanciones.isEmpty()) {
+        // Seleccionar 5 canciones aleatorias de géneros distintos (O(k), sin recorrer el catálogo)
+        List<Cancion> seleccionadas = cancionService.muestrearEstratificado(5, EstratoMuestreo.GENERO);
+        if (seleccionadas.isEmpty()) {
             mostrarAdvertencia("No hay canciones en el catálogo");
             return;
         }
 
-        // Seleccionar 5 canciones aleatorias
-        List<Cancion> aleatorias = new ArrayList<>(todasCanciones);
-        Collections.shuffle(aleatorias);
-        List<Cancion> seleccionadas = aleatorias.stream().limit(5).collect(Collectors.toList());
-
         // Mostrar en panel
         panelAleatorio.getChildren().clear();
 
@@ -349,7 +360,7 @@ public class DescubrimientoController {
 
     @FXML
     private void handleCambioPeriodo() {
-        // Esta funcionalidad se puede expandir para mostrar lanzamientos recientes
+        cargarTendencias();
     }
 
     @FXML
@@ -360,6 +371,7 @@ public class DescubrimientoController {
     @FXML
     private void handleRefrescar() {
         cargarTopPopulares();
+        cargarTendencias();
         cargarGeneros();
         mostrarExito("Contenido actualizado");
     }
@@ -405,6 +417,7 @@ public class DescubrimientoController {
             if (usuario.agregarFavorito(cancion)) {
                 mostrarExito("Canción agregada a favoritos");
                 cargarTopPopulares(); // Actualizar populares
+                cargarTendencias();
             } else {
                 mostrarAdvertencia("La canción ya está en favoritos");
             }
@@ -4,6 +4,8 @@ import edu.universidad.estructuras.proyecto_estructura.model.Cancion;
 import edu.universidad.estructuras.proyecto_estructura.model.Usuario;
 import edu.universidad.estructuras.proyecto_estructura.service.CancionService;
 import edu.universidad.estructuras.proyecto_estructura.service.PlaylistService;
+import edu.universidad.estructuras.proyecto_estructura.service.PopularidadService;
+import edu.universidad.estructuras.proyecto_estructura.service.SnapshotCatalogo;
 import edu.universidad.estructuras.proyecto_estructura.service.UsuarioService;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -74,6 +76,33 @@ public class DescubrimientoSemanalController {
         panelRecomendaciones.setVisible(false);
         panelRecomendaciones.setManaged(false);
         progressIndicator.setVisible(false);
+
+        esperarGrafoSimilitud();
+    }
+
+    /**
+     * Si el grafo de similitud todavía se está construyendo en segundo plano, deshabilita
+     * la generación y muestra el avance; al terminar se habilita sola
+     */
+    private void esperarGrafoSimilitud() {
+        if (cancionService.isGrafoListo()) {
+            return;
+        }
+        String textoBoton = btnGenerar.getText();
+        btnGenerar.setDisable(true);
+        btnGenerar.setText("⏳ Preparando...");
+        progressIndicator.setProgress(cancionService.getProgresoGrafo());
+        progressIndicator.setVisible(true);
+
+        cancionService.observarProgresoGrafo(progreso ->
+                javafx.application.Platform.runLater(() -> progressIndicator.setProgress(progreso)));
+        cancionService.getGrafoListo().whenComplete((v, error) ->
+                javafx.application.Platform.runLater(() -> {
+                    progressIndicator.setVisible(false);
+                    progressIndicator.setProgress(ProgressIndicator.INDETERMINATE_PROGRESS);
+                    btnGenerar.setText(textoBoton);
+                    btnGenerar.setDisable(false);
+                }));
     }
 
     private void configurarTabla() {
@@ -159,6 +188,7 @@ public class DescubrimientoSemanalController {
      * 2. Por cada favorita, encuentra N canciones similares usando Dijkstra
      * 3. Puntúa las canciones según cuántas veces aparecen como similares
      * 4. Retorna las top N canciones con mayor score
+     * Sin favoritos, recomienda una muestra aleatoria ponderada por popularidad.
      */
     @FXML
     private void handleGenerar() {
@@ -167,11 +197,6 @@ public class DescubrimientoSemanalController {
             return;
         }
 
-        if (usuarioActual.getCantidadFavoritos() == 0) {
-            mostrarAdvertencia("Necesitas tener canciones en favoritos para generar recomendaciones");
-            return;
-        }
-
         int cantidadRecomendaciones = (int) sliderCantidad.getValue();
 
         // Mostrar indicador de progreso
@@ -183,31 +208,11 @@ public class DescubrimientoSemanalController {
             try {
                 List<Cancion> favoritos = usuarioActual.getListaFavoritos();
 
-                // Map para contar apariciones (score de similitud)
-                Map<Cancion, Integer> scoreSimilitud = new HashMap<>();
-
-                // Por cada canción favorita, obtener similares
-                for (Cancion favorita : favoritos) {
-                    // Usar Dijkstra para encontrar canciones similares
-                    List<Cancion> similares = cancionService.obtenerCancionesSimilares(
-                            favorita, 15); // Top 15 similares por cada favorita
-
-                    // Incrementar score por cada aparición
-                    for (Cancion similar : similares) {
-                        // No recomendar canciones ya en favoritos
-                        if (!favoritos.contains(similar)) {
-                            scoreSimilitud.put(similar,
-                                    scoreSimilitud.getOrDefault(similar, 0) + 1);
-                        }
-                    }
-                }
-
-                // Ordenar por score (mayor score = más recomendada)
-                List<Cancion> recomendaciones = scoreSimilitud.entrySet().stream()
-                        .sorted(Map.Entry.<Cancion, Integer>comparingByValue().reversed())
-                        .limit(cantidadRecomendaciones)
-                        .map(Map.Entry::getKey)
-                        .collect(Collectors.toList());
+                // Sin favoritos (arranque en frío): lo que más gusta a los demás usuarios, sin
+                // dejar fuera al resto del catálogo (cada canción pesa 1 + sus favoritos)
+                List<Cancion> recomendaciones = favoritos.isEmpty()
+                        ? cancionService.muestrearPorPopularidad(cantidadRecomendaciones)
+                        : recomendarPorSimilitud(favoritos, cantidadRecomendaciones);
 
                 // Actualizar UI en hilo de JavaFX
                 javafx.application.Platform.runLater(() -> {
@@ -215,7 +220,9 @@ public class DescubrimientoSemanalController {
                     tableRecomendaciones.setItems(recomendacionesObservable);
 
                     lblCantidadRecomendaciones.setText(recomendaciones.size() + " recomendaciones");
-                    lblBasadoEn.setText("Basado en " + favoritos.size() + " canciones favoritas");
+                    lblBasadoEn.setText(favoritos.isEmpty()
+                            ? "Selección según los favoritos de la comunidad (aún no tienes favoritos)"
+                            : "Basado en " + favoritos.size() + " canciones favoritas");
 
                     // Mostrar panel de recomendaciones
                     panelRecomendaciones.setVisible(true);
@@ -243,6 +250,47 @@ public class DescubrimientoSemanalController {
         }).start();
     }
 
+    /**
+     * Puntúa las canciones similares a las favoritas (Dijkstra sobre el grafo de similitud)
+     *
+     * @param favoritos Canciones favoritas del usuario
+     * @param cantidadRecomendaciones Cantidad de recomendaciones
+     * @return Canciones con mayor score
+     */
+    private List<Cancion> recomendarPorSimilitud(List<Cancion> favoritos, int cantidadRecomendaciones) {
+        // Map para contar apariciones (score de similitud)
+        Map<Cancion, Integer> scoreSimilitud = new HashMap<>();
+
+        // Todas las búsquedas usan la misma versión del catálogo (snapshot)
+        try (SnapshotCatalogo snapshot = cancionService.abrirSnapshot()) {
+            // Por cada canción favorita, obtener similares
+            for (Cancion favorita : favoritos) {
+                // Usar Dijkstra para encontrar canciones similares
+                List<Cancion> similares = snapshot.obtenerCancionesSimilares(
+                        favorita, 15); // Top 15 similares por cada favorita
+
+                // Incrementar score por cada aparición
+                for (Cancion similar : similares) {
+                    // No recomendar canciones ya en favoritos
+                    if (!favoritos.contains(similar)) {
+                        scoreSimilitud.put(similar,
+                                scoreSimilitud.getOrDefault(similar, 0) + 1);
+                    }
+                }
+            }
+        }
+
+        // Ordenar por score (mayor score = más recomendada); a igual score, la más popular
+        PopularidadService popularidad = PopularidadService.getInstance();
+        return scoreSimilitud.entrySet().stream()
+                .sorted(Map.Entry.<Cancion, Integer>comparingByValue().reversed()
+                        .thenComparing(e -> popularidad.getPopularidad(e.getKey()),
+                                Comparator.reverseOrder()))
+                .limit(cantidadRecomendaciones)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
     @FXML
     private void handleGuardarPlaylist() {
         if (recomendacionesObservable == null || recomendacionesObservable.isEmpty()) {
@@ -293,12 +341,7 @@ public class DescubrimientoSemanalController {
             return;
         }
 
-        int agregadas = 0;
-        for (Cancion cancion : recomendacionesObservable) {
-            if (usuarioActual.agregarFavorito(cancion)) {
-                agregadas++;
-            }
-        }
+        int agregadas = usuarioActual.agregarFavoritos(recomendacionesObservable).getCantidadAplicadas();
 
         if (agregadas > 0) {
             mostrarExito(agregadas + " canciones agregadas a favoritos");
@@ -3,6 +3,7 @@ package edu.universidad.estructuras.proyecto_estructura.controller;
 import edu.universidad.estructuras.proyecto_estructura.model.Cancion;
 import edu.universidad.estructuras.proyecto_estructura.model.Usuario;
 import edu.universidad.estructuras.proyecto_estructura.service.CancionService;
+import edu.universidad.estructuras.proyecto_estructura.service.CriterioOrden;
 import edu.universidad.estructuras.proyecto_estructura.service.PlaylistService;
 import edu.universidad.estructuras.proyecto_estructura.service.UsuarioService;
 import javafx.collections.FXCollections;
@@ -221,33 +222,20 @@ public class FavoritosController {
             return;
         }
 
-        List<Cancion> lista = new ArrayList<>(favoritosObservable);
-
+        CriterioOrden criterio;
+        boolean descendente;
         switch (ordenSeleccionado) {
-            case "Título (A-Z)":
-                lista.sort(Comparator.comparing(Cancion::getTitulo));
-                break;
-            case "Título (Z-A)":
-                lista.sort(Comparator.comparing(Cancion::getTitulo).reversed());
-                break;
-            case "Artista (A-Z)":
-                lista.sort(Comparator.comparing(Cancion::getArtista));
-                break;
-            case "Artista (Z-A)":
-                lista.sort(Comparator.comparing(Cancion::getArtista).reversed());
-                break;
-            case "Año (Más reciente)":
-                lista.sort(Comparator.comparing(Cancion::getAnio).reversed());
-                break;
-            case "Año (Más antiguo)":
-                lista.sort(Comparator.comparing(Cancion::getAnio));
-                break;
-            case "Género":
-                lista.sort(Comparator.comparing(Cancion::getGenero)
-                        .thenComparing(Cancion::getTitulo));
-                break;
+            case "Título (A-Z)": criterio = CriterioOrden.TITULO; descendente = false; break;
+            case "Título (Z-A)": criterio = CriterioOrden.TITULO; descendente = true; break;
+            case "Artista (A-Z)": criterio = CriterioOrden.ARTISTA; descendente = false; break;
+            case "Artista (Z-A)": criterio = CriterioOrden.ARTISTA; descendente = true; break;
+            case "Año (Más reciente)": criterio = CriterioOrden.ANIO; descendente = true; break;
+            case "Año (Más antiguo)": criterio = CriterioOrden.ANIO; descendente = false; break;
+            case "Género": criterio = CriterioOrden.GENERO; descendente = false; break;
+            default: return;
         }
 
+        List<Cancion> lista = cancionService.ordenar(favoritosObservable, criterio, descendente);
         favoritosObservable.setAll(lista);
     }
 
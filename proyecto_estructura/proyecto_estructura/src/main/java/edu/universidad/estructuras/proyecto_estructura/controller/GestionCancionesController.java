@@ -3,8 +3,12 @@ package edu.universidad.estructuras.proyecto_estructura.controller;
 import edu.universidad.estructuras.proyecto_estructura.model.Cancion;
 import edu.universidad.estructuras.proyecto_estructura.model.Usuario;
 import edu.universidad.estructuras.proyecto_estructura.service.CancionService;
+import edu.universidad.estructuras.proyecto_estructura.service.CursorResultados;
+import edu.universidad.estructuras.proyecto_estructura.service.PaginaCanciones;
+import edu.universidad.estructuras.proyecto_estructura.service.ResultadoImportacion;
 import edu.universidad.estructuras.proyecto_estructura.service.UsuarioService;
 import edu.universidad.estructuras.proyecto_estructura.utils.Validaciones;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -48,9 +52,13 @@ public class GestionCancionesController {
     @FXML private TableColumn<Cancion, String> colDuracion;
     @FXML private TableColumn<Cancion, Void> colAcciones;
 
+    private static final int TAMANO_PAGINA = 100;
+
     private CancionService cancionService;
     private UsuarioService usuarioService;
     private ObservableList<Cancion> cancionesObservable;
+    private int siguienteOrdinal = -1; // cursor de la página siguiente del catálogo (-1 si no se está paginando)
+    private CursorResultados busquedaActual; // búsqueda cuyos resultados se están paginando (null si no)
 
     @FXML
     public void initialize() {
@@ -108,12 +116,44 @@ public class GestionCancionesController {
                 }
             }
         });
+
+        // Al mostrarse la última fila, pedir la siguiente página del catálogo
+        tableCanciones.setRowFactory(tabla -> new TableRow<>() {
+            @Override
+            public void updateIndex(int indice) {
+                super.updateIndex(indice);
+                if ((siguienteOrdinal >= 0 || busquedaActual != null) && indice >= 0 && indice == tabla.getItems().size() - 1) {
+                    Platform.runLater(() -> cargarSiguientePagina());
+                }
+            }
+        });
     }
 
     private void cargarCanciones() {
-        List<Cancion> canciones = cancionService.obtenerTodasLasCanciones();
-        cancionesObservable = FXCollections.observableArrayList(canciones);
+        PaginaCanciones pagina = cancionService.obtenerPagina(0, TAMANO_PAGINA);
+        cancionesObservable = FXCollections.observableArrayList(pagina.getCanciones());
         tableCanciones.setItems(cancionesObservable);
+        siguienteOrdinal = pagina.getSiguienteOrdinal();
+        busquedaActual = null;
+    }
+
+    /**
+     * Agrega a la tabla la siguiente página del catálogo o de la búsqueda, si la hay
+     */
+    private void cargarSiguientePagina() {
+        if (busquedaActual != null) {
+            cancionesObservable.addAll(busquedaActual.tomar(TAMANO_PAGINA));
+            if (!busquedaActual.hasNext()) {
+                busquedaActual = null;
+            }
+            return;
+        }
+        if (siguienteOrdinal < 0) {
+            return;
+        }
+        PaginaCanciones pagina = cancionService.obtenerPagina(siguienteOrdinal, TAMANO_PAGINA);
+        siguienteOrdinal = pagina.getSiguienteOrdinal();
+        cancionesObservable.addAll(pagina.getCanciones());
     }
 
     private void actualizarContador() {
@@ -178,17 +218,12 @@ public class GestionCancionesController {
             return;
         }
 
-        List<Cancion> resultados = cancionService.buscarPorTitulo(busqueda);
-        List<Cancion> porArtista = cancionService.buscarPorArtista(busqueda);
-
-        for (Cancion c : porArtista) {
-            if (!resultados.contains(c)) {
-                resultados.add(c);
-            }
-        }
+        CursorResultados cursor = cancionService.abrirBusqueda(busqueda);
 
-        cancionesObservable = FXCollections.observableArrayList(resultados);
+        cancionesObservable = FXCollections.observableArrayList(cursor.tomar(TAMANO_PAGINA));
         tableCanciones.setItems(cancionesObservable);
+        siguienteOrdinal = -1;
+        busquedaActual = cursor.hasNext() ? cursor : null;
     }
 
     @FXML
@@ -203,8 +238,9 @@ public class GestionCancionesController {
         File archivo = fileChooser.showOpenDialog(stage);
 
         if (archivo != null) {
-            int cargadas = cancionService.cargarCancionesMasivamente(archivo.getAbsolutePath());
-            mostrarExito("Se cargaron " + cargadas + " canciones exitosamente");
+            ResultadoImportacion resultado = cancionService.importarCanciones(archivo.getAbsolutePath());
+            mostrarExito(String.format("Se cargaron %d canciones exitosamente (%d duplicadas, %d con error, %.0f filas/s)",
+                    resultado.getCargadas(), resultado.getOmitidas(), resultado.getErrores(), resultado.getFilasPorSegundo()));
             cargarCanciones();
             actualizarContador();
         }
@@ -347,15 +383,9 @@ public class GestionCancionesController {
                             return null;
                         }
                     } else {
-                        // Actualizar canción existente
-                        cancion.setTitulo(titulo);
-                        cancion.setArtista(artista);
-                        cancion.setGenero(genero);
-                        cancion.setAnio(anio);
-                        cancion.setDuracion(duracion);
-                        cancion.setUrlYoutube(urlYoutube);
-
-                        if (cancionService.actualizarCancion(cancion.getId(), titulo, artista, genero, anio, duracion)) {
+                        // Actualizar canción existente: el servicio modifica la canción bajo su lock
+                        // y publica el cambio (con los valores anteriores) para los índices
+                        if (cancionService.actualizarCancion(cancion.getId(), titulo, artista, genero, anio, duracion, urlYoutube)) {
                             mostrarExito("Canción actualizada exitosamente");
                             return cancion;
                         }
@@ -120,9 +120,13 @@ public class LoginController {
 
                 // Intentar registrar
                 if (usuarioService.registrarUsuario(newUsername, newPassword, newNombre)) {
-                    // ✅ GUARDAR INMEDIATAMENTE
-                    PersistenciaService.getInstance().guardarUsuarios();
-                    mostrarExito("Usuario registrado exitosamente. Ahora puede iniciar sesión.");
+                    // ✅ GUARDAR INMEDIATAMENTE (la cuenta debe quedar en disco antes de iniciar sesión)
+                    if (PersistenciaService.getInstance().confirmarCambios()) {
+                        mostrarExito("Usuario registrado exitosamente. Ahora puede iniciar sesión.");
+                    } else {
+                        mostrarError("Usuario registrado, pero todavía no se pudo guardar en disco. " +
+                                "Se seguirá intentando; no cierre la aplicación.");
+                    }
                 } else {
                     mostrarError("El username ya existe");
                 }
@@ -14,6 +14,7 @@ import javafx.scene.control.*;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Optional;
 
 /**
@@ -110,7 +111,6 @@ public class PerfilController {
 
         if (usuarioService.actualizarNombre(usuarioActual.getUsername(), nuevoNombre)) {
             mostrarExito("Nombre actualizado exitosamente");
-            usuarioActual.setNombre(nuevoNombre);
         } else {
             mostrarError("Error al actualizar el nombre");
         }
@@ -239,7 +239,7 @@ public class PerfilController {
 
         Optional<ButtonType> resultado = confirmacion.showAndWait();
         if (resultado.isPresent() && resultado.get() == ButtonType.OK) {
-            usuarioActual.getListaFavoritos().clear();
+            usuarioActual.eliminarFavoritos(new ArrayList<>(usuarioActual.getListaFavoritos()));
             favoritosObservable.clear();
             actualizarContadorFavoritos();
             mostrarExito("Todos los favoritos han sido eliminados");
@@ -199,9 +199,13 @@ public class PerfilPublicoController {
         List<Cancion> favoritosUsuarioActual = usuarioActual.getListaFavoritos();
         List<Cancion> favoritosUsuarioPublico = usuarioPublico.getListaFavoritos();
 
-        // Encontrar canciones en común
-        Set<Cancion> cancionesComunes = new HashSet<>(favoritosUsuarioActual);
-        cancionesComunes.retainAll(favoritosUsuarioPublico);
+        // Encontrar canciones en común (pertenencia en O(1), en el orden de sus favoritos)
+        List<Cancion> cancionesComunes = new ArrayList<>();
+        for (Cancion cancion : favoritosUsuarioPublico) {
+            if (favoritosUsuarioActual.contains(cancion)) {
+                cancionesComunes.add(cancion);
+            }
+        }
 
         if (!cancionesComunes.isEmpty()) {
             listRecomendacionesComunes.setItems(FXCollections.observableArrayList(cancionesComunes));
@@ -209,6 +213,25 @@ public class PerfilPublicoController {
             panelRecomendaciones.setVisible(true);
             panelRecomendaciones.setManaged(true);
         } else {
+            // El grafo de similitud se construye en segundo plano al arrancar
+            if (!cancionService.isGrafoListo()) {
+                listRecomendacionesComunes.setItems(FXCollections.observableArrayList());
+                lblCancionesComunes.setText("⏳ Preparando recomendaciones...");
+                panelRecomendaciones.setVisible(true);
+                panelRecomendaciones.setManaged(true);
+                // whenComplete: se vuelve a cargar también si la construcción falla
+                cancionService.getGrafoListo().whenComplete((v, error) ->
+                        javafx.application.Platform.runLater(this::cargarRecomendaciones));
+                return;
+            }
+            if (cancionService.isGrafoFallido()) {
+                listRecomendacionesComunes.setItems(FXCollections.observableArrayList());
+                lblCancionesComunes.setText("⚠️ No se pudieron preparar las recomendaciones");
+                panelRecomendaciones.setVisible(true);
+                panelRecomendaciones.setManaged(true);
+                return;
+            }
+
             // Buscar canciones similares basadas en sus favoritos
             List<Cancion> recomendacionesBasadasEnEllos = obtenerRecomendacionesBasadasEnSusGustos();
             if (!recomendacionesBasadasEnEllos.isEmpty()) {
@@ -229,7 +252,7 @@ public class PerfilPublicoController {
      */
     private List<Cancion> obtenerRecomendacionesBasadasEnSusGustos() {
         List<Cancion> recomendaciones = new ArrayList<>();
-        Set<Cancion> favoritosActual = new HashSet<>(usuarioActual.getListaFavoritos());
+        List<Cancion> favoritosActual = usuarioActual.getListaFavoritos(); // contains en O(1)
 
         // Por cada favorito del usuario público, buscar similares
         for (Cancion favoritoPublico : usuarioPublico.getListaFavoritos()) {
@@ -4,7 +4,7 @@ import edu.universidad.estructuras.proyecto_estructura.model.Cancion;
 import edu.universidad.estructuras.proyecto_estructura.model.Playlist;
 import edu.universidad.estructuras.proyecto_estructura.model.Usuario;
 import edu.universidad.estructuras.proyecto_estructura.service.CancionService;
-import edu.universidad.estructuras.proyecto_estructura.service.PersistenciaService;
+import edu.universidad.estructuras.proyecto_estructura.service.CriterioOrden;
 import edu.universidad.estructuras.proyecto_estructura.service.PlaylistService;
 import edu.universidad.estructuras.proyecto_estructura.service.UsuarioService;
 import javafx.collections.FXCollections;
@@ -23,7 +23,6 @@ import javafx.stage.Modality;
 import javafx.stage.Stage;
 
 import java.io.IOException;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -194,10 +193,6 @@ public class PlaylistController {
         tableCanciones.setItems(cancionesObservable);
     }
 
-    private void guardarPlaylists() {
-        PersistenciaService.getInstance().guardarPlaylists();
-    }
-
     @FXML
     private void handleNuevaPlaylist() {
         Dialog<Playlist> dialog = new Dialog<>();
@@ -241,7 +236,6 @@ public class PlaylistController {
 
         Optional<Playlist> resultado = dialog.showAndWait();
         if (resultado.isPresent()) {
-            guardarPlaylists();
             mostrarExito("Playlist creada exitosamente");
             cargarPlaylists();
         }
@@ -295,7 +289,6 @@ public class PlaylistController {
 
         Optional<Playlist> resultado = dialog.showAndWait();
         if (resultado.isPresent()) {
-            guardarPlaylists();
             mostrarExito("Playlist actualizada");
             cargarPlaylists();
             mostrarDetallesPlaylist(seleccionada);
@@ -319,7 +312,6 @@ public class PlaylistController {
         Optional<ButtonType> resultado = confirmacion.showAndWait();
         if (resultado.isPresent() && resultado.get() == ButtonType.OK) {
             if (playlistService.eliminarPlaylist(usuarioActual.getUsername(), seleccionada.getId())) {
-                guardarPlaylists();
                 mostrarExito("Playlist eliminada");
                 cargarPlaylists();
             }
@@ -340,7 +332,6 @@ public class PlaylistController {
         );
 
         if (duplicada != null) {
-            guardarPlaylists();
             mostrarExito("Playlist duplicada exitosamente");
             cargarPlaylists();
         }
@@ -353,8 +344,7 @@ public class PlaylistController {
             return;
         }
 
-        List<Cancion> todasCanciones = cancionService.obtenerTodasLasCanciones();
-        List<Cancion> disponibles = todasCanciones.stream()
+        List<Cancion> disponibles = cancionService.obtenerVistaCanciones().stream()
                 .filter(c -> !playlistActual.contieneCancion(c))
                 .collect(Collectors.toList());
 
@@ -374,7 +364,6 @@ public class PlaylistController {
                     usuarioActual.getUsername(),
                     playlistActual.getId(),
                     cancion)) {
-                guardarPlaylists();
                 mostrarExito("Canción agregada");
                 mostrarDetallesPlaylist(playlistActual);
             }
@@ -403,30 +392,33 @@ public class PlaylistController {
         Optional<String> resultado = dialog.showAndWait();
         resultado.ifPresent(criterio -> {
             List<Cancion> canciones = playlistActual.getCanciones();
+            List<Cancion> ordenadas;
 
             switch (criterio) {
                 case "Título (A-Z)":
-                    canciones.sort(Comparator.comparing(Cancion::getTitulo));
+                    ordenadas = cancionService.ordenar(canciones, CriterioOrden.TITULO, false);
                     break;
                 case "Título (Z-A)":
-                    canciones.sort(Comparator.comparing(Cancion::getTitulo).reversed());
+                    ordenadas = cancionService.ordenar(canciones, CriterioOrden.TITULO, true);
                     break;
                 case "Artista (A-Z)":
-                    canciones.sort(Comparator.comparing(Cancion::getArtista));
+                    ordenadas = cancionService.ordenar(canciones, CriterioOrden.ARTISTA, false);
                     break;
                 case "Artista (Z-A)":
-                    canciones.sort(Comparator.comparing(Cancion::getArtista).reversed());
+                    ordenadas = cancionService.ordenar(canciones, CriterioOrden.ARTISTA, true);
                     break;
                 case "Año (Reciente primero)":
-                    canciones.sort(Comparator.comparing(Cancion::getAnio).reversed());
+                    ordenadas = cancionService.ordenar(canciones, CriterioOrden.ANIO, true);
                     break;
                 case "Año (Antiguo primero)":
-                    canciones.sort(Comparator.comparing(Cancion::getAnio));
+                    ordenadas = cancionService.ordenar(canciones, CriterioOrden.ANIO, false);
                     break;
+                default:
+                    return;
             }
 
+            playlistService.reemplazarCanciones(usuarioActual.getUsername(), playlistActual.getId(), ordenadas);
             cancionesObservable.setAll(canciones);
-            guardarPlaylists();
             mostrarExito("Playlist ordenada");
         });
     }
@@ -463,7 +455,6 @@ public class PlaylistController {
                 playlistActual.getId(),
                 indiceActual,
                 indiceActual - 1)) {
-            guardarPlaylists();
             mostrarDetallesPlaylist(playlistActual);
             tableCanciones.getSelectionModel().select(indiceActual - 1);
         }
@@ -481,7 +472,6 @@ public class PlaylistController {
                 playlistActual.getId(),
                 indiceActual,
                 indiceActual + 1)) {
-            guardarPlaylists();
             mostrarDetallesPlaylist(playlistActual);
             tableCanciones.getSelectionModel().select(indiceActual + 1);
         }
@@ -509,7 +499,6 @@ public class PlaylistController {
                     usuarioActual.getUsername(),
                     playlistActual.getId(),
                     cancion)) {
-                guardarPlaylists();
                 mostrarExito("Canción quitada de la playlist");
                 mostrarDetallesPlaylist(playlistActual);
             }
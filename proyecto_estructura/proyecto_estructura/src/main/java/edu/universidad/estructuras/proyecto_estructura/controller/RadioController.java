@@ -4,6 +4,7 @@ package edu.universidad.estructuras.proyecto_estructura.controller;
 import edu.universidad.estructuras.proyecto_estructura.model.Cancion;
 import edu.universidad.estructuras.proyecto_estructura.model.Usuario;
 import edu.universidad.estructuras.proyecto_estructura.service.CancionService;
+import edu.universidad.estructuras.proyecto_estructura.service.SnapshotCatalogo;
 import edu.universidad.estructuras.proyecto_estructura.service.UsuarioService;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -66,6 +67,33 @@ public class RadioController {
         panelResultados.setVisible(false);
         panelResultados.setManaged(false);
         progressIndicator.setVisible(false);
+
+        esperarGrafoSimilitud();
+    }
+
+    /**
+     * Si el grafo de similitud todavía se está construyendo en segundo plano, deshabilita
+     * la generación y muestra el avance; al terminar se habilita sola
+     */
+    private void esperarGrafoSimilitud() {
+        if (cancionService.isGrafoListo()) {
+            return;
+        }
+        String textoBoton = btnGenerar.getText();
+        btnGenerar.setDisable(true);
+        btnGenerar.setText("⏳ Preparando...");
+        progressIndicator.setProgress(cancionService.getProgresoGrafo());
+        progressIndicator.setVisible(true);
+
+        cancionService.observarProgresoGrafo(progreso ->
+                javafx.application.Platform.runLater(() -> progressIndicator.setProgress(progreso)));
+        cancionService.getGrafoListo().whenComplete((v, error) ->
+                javafx.application.Platform.runLater(() -> {
+                    progressIndicator.setVisible(false);
+                    progressIndicator.setProgress(ProgressIndicator.INDETERMINATE_PROGRESS);
+                    btnGenerar.setText(textoBoton);
+                    btnGenerar.setDisable(false);
+                }));
     }
 
     /**
@@ -177,8 +205,11 @@ public class RadioController {
         // Ejecutar generación en un hilo separado para no bloquear la UI
         new Thread(() -> {
             try {
-                // Generar radio usando Dijkstra
-                List<Cancion> similares = cancionService.generarRadio(cancionSemilla, cantidad);
+                // Generar radio usando Dijkstra sobre un snapshot: las ediciones del catálogo no lo alteran
+                List<Cancion> similares;
+                try (SnapshotCatalogo snapshot = cancionService.abrirSnapshot()) {
+                    similares = snapshot.generarRadio(cancionSemilla, cantidad);
+                }
 
                 // Actualizar UI en el hilo de JavaFX
                 javafx.application.Platform.runLater(() -> {
@@ -236,12 +267,7 @@ public class RadioController {
             return;
         }
 
-        int agregadas = 0;
-        for (Cancion cancion : cancionesRadio) {
-            if (usuario.agregarFavorito(cancion)) {
-                agregadas++;
-            }
-        }
+        int agregadas = usuario.agregarFavoritos(cancionesRadio).getCantidadAplicadas();
 
         if (agregadas > 0) {
             mostrarExito(agregadas + " canciones agregadas a favoritos");
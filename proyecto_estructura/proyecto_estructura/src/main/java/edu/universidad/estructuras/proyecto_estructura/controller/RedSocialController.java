@@ -2,7 +2,6 @@ package edu.universidad.estructuras.proyecto_estructura.controller;
 
 
 import edu.universidad.estructuras.proyecto_estructura.model.Usuario;
-import edu.universidad.estructuras.proyecto_estructura.service.PersistenciaService;
 import edu.universidad.estructuras.proyecto_estructura.service.UsuarioService;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -258,8 +257,6 @@ public class RedSocialController {
 
     private void seguir(Usuario usuario) {
         if (usuarioService.seguirUsuario(usuarioActual.getUsername(), usuario.getUsername())) {
-            // ✅ GUARDAR INMEDIATAMENTE
-            PersistenciaService.getInstance().guardarConexionesSociales();
             mostrarExito("Ahora sigues a " + usuario.getUsername());
             cargarDatos();
             handleBuscar();
@@ -276,8 +273,6 @@ public class RedSocialController {
         confirmacion.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
                 if (usuarioService.dejarDeSeguirUsuario(usuarioActual.getUsername(), usuario.getUsername())) {
-                    // ✅ GUARDAR INMEDIATAMENTE
-                    PersistenciaService.getInstance().guardarConexionesSociales();
                     mostrarExito("Dejaste de seguir a " + usuario.getUsername());
                     cargarDatos();
                     handleBuscar();
@@ -2,6 +2,7 @@ package edu.universidad.estructuras.proyecto_estructura.controller;
 
 import edu.universidad.estructuras.proyecto_estructura.model.Cancion;
 import edu.universidad.estructuras.proyecto_estructura.model.Usuario;
+import edu.universidad.estructuras.proyecto_estructura.service.TendenciasService;
 import edu.universidad.estructuras.proyecto_estructura.service.UsuarioService;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
@@ -46,6 +47,7 @@ public class ReproductorYoutubeController {
         this.cancionActual = cancion;
         lblTitulo.setText(cancion.getTitulo());
         lblArtista.setText(cancion.getArtista());
+        TendenciasService.getInstance().registrarReproduccion(cancion);
         cargarYoutube();
     }
 
@@ -0,0 +1,540 @@
+package edu.universidad.estructuras.proyecto_estructura.model;
+
+import java.util.Arrays;
+
+/**
+ * Mapa de bits comprimido para conjuntos de ordinales de canciones.
+ * Divide el rango de enteros en bloques de 65536 valores: cada bloque se guarda
+ * como arreglo ordenado cuando tiene pocos elementos, o como mapa de bits
+ * de 1024 palabras cuando es denso (esquema tipo Roaring).
+ *
+ * Complejidad temporal (b = número de bloques, k = elementos del bloque):
+ * - Agregar / eliminar / contiene: O(log b + log k)
+ * - AND / OR: O(b1 + b2) bloques, cada uno lineal en su tamaño
+ * - Siguiente elemento: O(log b + k)
+ * - Seleccionar el i-ésimo elemento: O(b + 1024)
+ *
+ */
+public class BitmapComprimido {
+    // Por encima de este tamaño un bloque disperso ocupa más que un mapa de bits
+    private static final int LIMITE_DISPERSO = 4096;
+    private static final int PALABRAS_BLOQUE = 1024;
+
+    private char[] claves;    // Parte alta (valor >>> 16) de cada bloque, ordenadas
+    private Bloque[] bloques;
+    private int cantidadBloques;
+
+    /**
+     * Constructor de un mapa de bits vacío
+     */
+    public BitmapComprimido() {
+        this.claves = new char[4];
+        this.bloques = new Bloque[4];
+        this.cantidadBloques = 0;
+    }
+
+    /**
+     * Agrega un valor al conjunto
+     *
+     * @param valor Entero no negativo
+     * @return true si el valor no estaba presente
+     */
+    public boolean agregar(int valor) {
+        char alta = (char) (valor >>> 16);
+        int indice = buscarBloque(alta);
+        if (indice < 0) {
+            indice = -indice - 1;
+            insertarBloque(indice, alta, new Bloque());
+        }
+        return bloques[indice].agregar((char) valor);
+    }
+
+    /**
+     * Elimina un valor del conjunto
+     *
+     * @param valor Entero no negativo
+     * @return true si el valor estaba presente
+     */
+    public boolean eliminar(int valor) {
+        int indice = buscarBloque((char) (valor >>> 16));
+        if (indice < 0) {
+            return false;
+        }
+        boolean eliminado = bloques[indice].eliminar((char) valor);
+        if (eliminado && bloques[indice].cantidad == 0) {
+            quitarBloque(indice);
+        }
+        return eliminado;
+    }
+
+    /**
+     * Verifica si un valor pertenece al conjunto
+     *
+     * @param valor Entero no negativo
+     * @return true si está presente
+     */
+    public boolean contiene(int valor) {
+        int indice = buscarBloque((char) (valor >>> 16));
+        return indice >= 0 && bloques[indice].contiene((char) valor);
+    }
+
+    /**
+     * Obtiene el menor valor del conjunto mayor o igual a desde
+     *
+     * @param desde Valor inicial (inclusive)
+     * @return Siguiente valor, o -1 si no hay más
+     */
+    public int siguiente(int desde) {
+        if (desde < 0) {
+            desde = 0;
+        }
+        char alta = (char) (desde >>> 16);
+        int indice = buscarBloque(alta);
+        int bajaInicial = desde & 0xFFFF;
+        if (indice < 0) {
+            indice = -indice - 1;
+            bajaInicial = 0;
+        }
+
+        for (int i = indice; i < cantidadBloques; i++) {
+            int baja = bloques[i].siguiente(i == indice ? bajaInicial : 0);
+            if (baja >= 0) {
+                return (claves[i] << 16) | baja;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Obtiene el valor que ocupa una posición en orden ascendente (select)
+     *
+     * @param posicion Posición entre 0 y getCardinalidad() - 1
+     * @return Valor en esa posición
+     * @throws IndexOutOfBoundsException Si la posición no existe
+     */
+    public int seleccionar(int posicion) {
+        if (posicion >= 0) {
+            int restante = posicion;
+            for (int i = 0; i < cantidadBloques; i++) {
+                if (restante < bloques[i].cantidad) {
+                    return (claves[i] << 16) | bloques[i].seleccionar(restante);
+                }
+                restante -= bloques[i].cantidad;
+            }
+        }
+        throw new IndexOutOfBoundsException("Posición fuera del conjunto: " + posicion);
+    }
+
+    /**
+     * Intersección (AND) con otro mapa de bits. No modifica los operandos.
+     *
+     * @param otro Otro mapa de bits
+     * @return Nuevo mapa con los valores presentes en ambos
+     */
+    public BitmapComprimido and(BitmapComprimido otro) {
+        BitmapComprimido resultado = new BitmapComprimido();
+        int i = 0;
+        int j = 0;
+
+        while (i < cantidadBloques && j < otro.cantidadBloques) {
+            if (claves[i] < otro.claves[j]) {
+                i++;
+            } else if (claves[i] > otro.claves[j]) {
+                j++;
+            } else {
+                Bloque bloque = bloques[i].and(otro.bloques[j]);
+                if (bloque.cantidad > 0) {
+                    resultado.insertarBloque(resultado.cantidadBloques, claves[i], bloque);
+                }
+                i++;
+                j++;
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Unión (OR) con otro mapa de bits. No modifica los operandos.
+     *
+     * @param otro Otro mapa de bits
+     * @return Nuevo mapa con los valores presentes en alguno de los dos
+     */
+    public BitmapComprimido or(BitmapComprimido otro) {
+        BitmapComprimido resultado = new BitmapComprimido();
+        int i = 0;
+        int j = 0;
+
+        while (i < cantidadBloques || j < otro.cantidadBloques) {
+            if (j >= otro.cantidadBloques || (i < cantidadBloques && claves[i] < otro.claves[j])) {
+                resultado.insertarBloque(resultado.cantidadBloques, claves[i], bloques[i].copiar());
+                i++;
+            } else if (i >= cantidadBloques || claves[i] > otro.claves[j]) {
+                resultado.insertarBloque(resultado.cantidadBloques, otro.claves[j], otro.bloques[j].copiar());
+                j++;
+            } else {
+                resultado.insertarBloque(resultado.cantidadBloques, claves[i], bloques[i].or(otro.bloques[j]));
+                i++;
+                j++;
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Diferencia (AND NOT): valores de este mapa que no están en el otro
+     *
+     * @param otro Mapa de bits a excluir
+     * @return Nuevo mapa con la diferencia
+     */
+    public BitmapComprimido andNot(BitmapComprimido otro) {
+        BitmapComprimido resultado = new BitmapComprimido();
+        int j = 0;
+
+        for (int i = 0; i < cantidadBloques; i++) {
+            while (j < otro.cantidadBloques && otro.claves[j] < claves[i]) {
+                j++;
+            }
+            Bloque bloque = (j < otro.cantidadBloques && otro.claves[j] == claves[i])
+                    ? bloques[i].andNot(otro.bloques[j])
+                    : bloques[i].copiar();
+            if (bloque.cantidad > 0) {
+                resultado.insertarBloque(resultado.cantidadBloques, claves[i], bloque);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Obtiene la cantidad de valores del conjunto
+     *
+     * @return Cardinalidad
+     */
+    public int getCardinalidad() {
+        int total = 0;
+        for (int i = 0; i < cantidadBloques; i++) {
+            total += bloques[i].cantidad;
+        }
+        return total;
+    }
+
+    /**
+     * Verifica si el conjunto está vacío
+     *
+     * @return true si no contiene valores
+     */
+    public boolean estaVacio() {
+        return cantidadBloques == 0;
+    }
+
+    /**
+     * Crea una copia independiente del mapa de bits
+     *
+     * @return Copia
+     */
+    public BitmapComprimido copiar() {
+        BitmapComprimido copia = new BitmapComprimido();
+        for (int i = 0; i < cantidadBloques; i++) {
+            copia.insertarBloque(i, claves[i], bloques[i].copiar());
+        }
+        return copia;
+    }
+
+    /**
+     * Elimina todos los valores
+     */
+    public void limpiar() {
+        this.claves = new char[4];
+        this.bloques = new Bloque[4];
+        this.cantidadBloques = 0;
+    }
+
+    private int buscarBloque(char alta) {
+        return Arrays.binarySearch(claves, 0, cantidadBloques, alta);
+    }
+
+    private void insertarBloque(int indice, char alta, Bloque bloque) {
+        if (cantidadBloques == claves.length) {
+            claves = Arrays.copyOf(claves, cantidadBloques * 2);
+            bloques = Arrays.copyOf(bloques, cantidadBloques * 2);
+        }
+        System.arraycopy(claves, indice, claves, indice + 1, cantidadBloques - indice);
+        System.arraycopy(bloques, indice, bloques, indice + 1, cantidadBloques - indice);
+        claves[indice] = alta;
+        bloques[indice] = bloque;
+        cantidadBloques++;
+    }
+
+    private void quitarBloque(int indice) {
+        System.arraycopy(claves, indice + 1, claves, indice, cantidadBloques - indice - 1);
+        System.arraycopy(bloques, indice + 1, bloques, indice, cantidadBloques - indice - 1);
+        cantidadBloques--;
+        bloques[cantidadBloques] = null;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BitmapComprimido[valores=%d, bloques=%d]", getCardinalidad(), cantidadBloques);
+    }
+
+    /**
+     * Bloque de 65536 valores: arreglo ordenado (disperso) o mapa de bits (denso)
+     */
+    private static final class Bloque {
+        private char[] valores; // Modo disperso (null si es denso)
+        private long[] bits;    // Modo denso (null si es disperso)
+        private int cantidad;
+
+        Bloque() {
+            this.valores = new char[4];
+        }
+
+        private Bloque(char[] valores, long[] bits, int cantidad) {
+            this.valores = valores;
+            this.bits = bits;
+            this.cantidad = cantidad;
+        }
+
+        boolean esDenso() {
+            return bits != null;
+        }
+
+        boolean contiene(char v) {
+            if (esDenso()) {
+                return (bits[v >>> 6] & (1L << v)) != 0;
+            }
+            return Arrays.binarySearch(valores, 0, cantidad, v) >= 0;
+        }
+
+        boolean agregar(char v) {
+            if (esDenso()) {
+                long anterior = bits[v >>> 6];
+                bits[v >>> 6] = anterior | (1L << v);
+                if (anterior != bits[v >>> 6]) {
+                    cantidad++;
+                    return true;
+                }
+                return false;
+            }
+
+            int pos = Arrays.binarySearch(valores, 0, cantidad, v);
+            if (pos >= 0) {
+                return false;
+            }
+            pos = -pos - 1;
+            if (cantidad == LIMITE_DISPERSO) {
+                convertirADenso();
+                return agregar(v);
+            }
+            if (cantidad == valores.length) {
+                valores = Arrays.copyOf(valores, Math.min(LIMITE_DISPERSO, Math.max(4, cantidad * 2)));
+            }
+            System.arraycopy(valores, pos, valores, pos + 1, cantidad - pos);
+            valores[pos] = v;
+            cantidad++;
+            return true;
+        }
+
+        boolean eliminar(char v) {
+            if (esDenso()) {
+                long anterior = bits[v >>> 6];
+                bits[v >>> 6] = anterior & ~(1L << v);
+                if (anterior == bits[v >>> 6]) {
+                    return false;
+                }
+                cantidad--;
+                if (cantidad <= LIMITE_DISPERSO / 2) {
+                    convertirADisperso();
+                }
+                return true;
+            }
+
+            int pos = Arrays.binarySearch(valores, 0, cantidad, v);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(valores, pos + 1, valores, pos, cantidad - pos - 1);
+            cantidad--;
+            return true;
+        }
+
+        int siguiente(int desde) {
+            if (desde > 0xFFFF) {
+                return -1;
+            }
+            if (esDenso()) {
+                int palabra = desde >>> 6;
+                long actual = bits[palabra] & (-1L << desde);
+                while (true) {
+                    if (actual != 0) {
+                        return (palabra << 6) + Long.numberOfTrailingZeros(actual);
+                    }
+                    if (++palabra == PALABRAS_BLOQUE) {
+                        return -1;
+                    }
+                    actual = bits[palabra];
+                }
+            }
+
+            int pos = Arrays.binarySearch(valores, 0, cantidad, (char) desde);
+            if (pos < 0) {
+                pos = -pos - 1;
+            }
+            return pos < cantidad ? valores[pos] : -1;
+        }
+
+        int seleccionar(int posicion) {
+            if (!esDenso()) {
+                return valores[posicion];
+            }
+            int restante = posicion;
+            for (int palabra = 0; palabra < PALABRAS_BLOQUE; palabra++) {
+                int enPalabra = Long.bitCount(bits[palabra]);
+                if (restante < enPalabra) {
+                    long actual = bits[palabra];
+                    for (int j = 0; j < restante; j++) {
+                        actual &= actual - 1;
+                    }
+                    return (palabra << 6) + Long.numberOfTrailingZeros(actual);
+                }
+                restante -= enPalabra;
+            }
+            throw new IndexOutOfBoundsException("Posición fuera del bloque: " + posicion);
+        }
+
+        Bloque and(Bloque otro) {
+            if (esDenso() && otro.esDenso()) {
+                long[] resultado = new long[PALABRAS_BLOQUE];
+                int total = 0;
+                for (int i = 0; i < PALABRAS_BLOQUE; i++) {
+                    resultado[i] = bits[i] & otro.bits[i];
+                    total += Long.bitCount(resultado[i]);
+                }
+                return new Bloque(null, resultado, total).normalizar();
+            }
+            if (esDenso() || otro.esDenso()) {
+                Bloque disperso = esDenso() ? otro : this;
+                Bloque denso = esDenso() ? this : otro;
+                char[] resultado = new char[disperso.cantidad];
+                int total = 0;
+                for (int i = 0; i < disperso.cantidad; i++) {
+                    if (denso.contiene(disperso.valores[i])) {
+                        resultado[total++] = disperso.valores[i];
+                    }
+                }
+                return new Bloque(resultado, null, total);
+            }
+
+            char[] resultado = new char[Math.min(cantidad, otro.cantidad)];
+            int total = 0;
+            int i = 0;
+            int j = 0;
+            while (i < cantidad && j < otro.cantidad) {
+                if (valores[i] < otro.valores[j]) {
+                    i++;
+                } else if (valores[i] > otro.valores[j]) {
+                    j++;
+                } else {
+                    resultado[total++] = valores[i];
+                    i++;
+                    j++;
+                }
+            }
+            return new Bloque(resultado, null, total);
+        }
+
+        Bloque or(Bloque otro) {
+            if (!esDenso() && !otro.esDenso() && cantidad + otro.cantidad <= LIMITE_DISPERSO) {
+                char[] resultado = new char[cantidad + otro.cantidad];
+                int total = 0;
+                int i = 0;
+                int j = 0;
+                while (i < cantidad || j < otro.cantidad) {
+                    if (j >= otro.cantidad || (i < cantidad && valores[i] < otro.valores[j])) {
+                        resultado[total++] = valores[i++];
+                    } else if (i >= cantidad || valores[i] > otro.valores[j]) {
+                        resultado[total++] = otro.valores[j++];
+                    } else {
+                        resultado[total++] = valores[i];
+                        i++;
+                        j++;
+                    }
+                }
+                return new Bloque(resultado, null, total);
+            }
+
+            long[] resultado = comoBits();
+            long[] otrosBits = otro.comoBits();
+            int total = 0;
+            for (int i = 0; i < PALABRAS_BLOQUE; i++) {
+                resultado[i] |= otrosBits[i];
+                total += Long.bitCount(resultado[i]);
+            }
+            return new Bloque(null, resultado, total).normalizar();
+        }
+
+        Bloque andNot(Bloque otro) {
+            if (esDenso()) {
+                long[] resultado = bits.clone();
+                long[] otrosBits = otro.comoBits();
+                int total = 0;
+                for (int i = 0; i < PALABRAS_BLOQUE; i++) {
+                    resultado[i] &= ~otrosBits[i];
+                    total += Long.bitCount(resultado[i]);
+                }
+                return new Bloque(null, resultado, total).normalizar();
+            }
+
+            char[] resultado = new char[cantidad];
+            int total = 0;
+            for (int i = 0; i < cantidad; i++) {
+                if (!otro.contiene(valores[i])) {
+                    resultado[total++] = valores[i];
+                }
+            }
+            return new Bloque(resultado, null, total);
+        }
+
+        Bloque copiar() {
+            return esDenso()
+                    ? new Bloque(null, bits.clone(), cantidad)
+                    : new Bloque(Arrays.copyOf(valores, Math.max(4, cantidad)), null, cantidad);
+        }
+
+        private long[] comoBits() {
+            if (esDenso()) {
+                return bits.clone();
+            }
+            long[] resultado = new long[PALABRAS_BLOQUE];
+            for (int i = 0; i < cantidad; i++) {
+                resultado[valores[i] >>> 6] |= 1L << valores[i];
+            }
+            return resultado;
+        }
+
+        private Bloque normalizar() {
+            if (esDenso() && cantidad <= LIMITE_DISPERSO) {
+                convertirADisperso();
+            }
+            return this;
+        }
+
+        private void convertirADenso() {
+            bits = comoBits();
+            valores = null;
+        }
+
+        private void convertirADisperso() {
+            char[] resultado = new char[Math.max(4, cantidad)];
+            int total = 0;
+            for (int palabra = 0; palabra < PALABRAS_BLOQUE; palabra++) {
+                long actual = bits[palabra];
+                while (actual != 0) {
+                    resultado[total++] = (char) ((palabra << 6) + Long.numberOfTrailingZeros(actual));
+                    actual &= actual - 1;
+                }
+            }
+            valores = resultado;
+            bits = null;
+        }
+    }
+}
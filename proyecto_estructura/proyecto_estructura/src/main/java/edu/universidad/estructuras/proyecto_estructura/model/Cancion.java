@@ -15,6 +15,8 @@ public class Cancion {
     private int anio;
     private double duracion; // En minutos
     private String urlYoutube; // ✨ NUEVO: URL directa al video
+    private int idGenero;  // id en DiccionarioAtributos (sin distinguir mayúsculas)
+    private int idArtista;
 
     /**
      * Constructor completo de Cancion
@@ -30,8 +32,8 @@ public class Cancion {
     public Cancion(String id, String titulo, String artista, String genero, int anio, double duracion, String urlYoutube) {
         this.id = id;
         this.titulo = titulo;
-        this.artista = artista;
-        this.genero = genero;
+        setArtistaInterno(artista);
+        setGeneroInterno(genero);
         this.anio = anio;
         this.duracion = duracion;
         this.urlYoutube = urlYoutube;
@@ -66,7 +68,7 @@ public class Cancion {
     }
 
     public void setArtista(String artista) {
-        this.artista = artista;
+        setArtistaInterno(artista);
     }
 
     public String getGenero() {
@@ -74,7 +76,42 @@ public class Cancion {
     }
 
     public void setGenero(String genero) {
-        this.genero = genero;
+        setGeneroInterno(genero);
+    }
+
+    /**
+     * Id del género en DiccionarioAtributos: dos canciones tienen el mismo género
+     * (ignorando mayúsculas) si y solo si tienen el mismo id
+     */
+    public int getIdGenero() {
+        return idGenero;
+    }
+
+    /**
+     * Id del artista en DiccionarioAtributos (ignorando mayúsculas)
+     */
+    public int getIdArtista() {
+        return idArtista;
+    }
+
+    /**
+     * Obtiene la década de lanzamiento (1975 -> 1970)
+     */
+    public int getDecada() {
+        return (getAnio() / 10) * 10;
+    }
+
+    // Los textos repetidos entre canciones se comparten a través del diccionario
+    private void setArtistaInterno(String artista) {
+        DiccionarioAtributos diccionario = DiccionarioAtributos.getInstance();
+        this.artista = diccionario.internarArtista(artista);
+        this.idArtista = diccionario.idArtista(artista);
+    }
+
+    private void setGeneroInterno(String genero) {
+        DiccionarioAtributos diccionario = DiccionarioAtributos.getInstance();
+        this.genero = diccionario.internarGenero(genero);
+        this.idGenero = diccionario.idGenero(genero);
     }
 
     public int getAnio() {
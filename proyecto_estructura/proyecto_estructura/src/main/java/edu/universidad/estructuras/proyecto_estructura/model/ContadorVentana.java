@@ -0,0 +1,255 @@
+package edu.universidad.estructuras.proyecto_estructura.model;
+
+import java.util.*;
+
+/**
+ * Contador de eventos por clave en una ventana de tiempo deslizante.
+ *
+ * La ventana se divide en un anillo de tamaño fijo de cubetas (buckets), cada una con
+ * los conteos de un intervalo de duración fija. Al avanzar el tiempo, las cubetas que
+ * salen de la ventana se restan de los totales y se reutilizan para el intervalo nuevo,
+ * así que nunca se recorre el historial:
+ * - registrar: O(log n) (actualiza la cubeta, el total y el ranking)
+ * - avanzar: O(eventos de las cubetas vencidas)
+ * - top K: O(K) recorriendo el ranking (TreeSet ordenado por conteo)
+ *
+ * Con una sola cubeta de duración Long.MAX_VALUE la ventana nunca vence (conteo histórico).
+ *
+ */
+public class ContadorVentana {
+    private final long duracionCubeta;
+    private final List<HashMap<String, Integer>> cubetas;
+    private final long[] ranuras; // ranura de tiempo que ocupa cada cubeta del anillo
+    private final HashMap<String, Integer> totales;
+    private final TreeSet<Entrada> ranking;
+    private long ranuraActual;
+
+    /**
+     * Clave del ranking con su total (inmutable: al cambiar el total se reemplaza)
+     */
+    private static final class Entrada implements Comparable<Entrada> {
+        private final String clave;
+        private final int total;
+
+        private Entrada(String clave, int total) {
+            this.clave = clave;
+            this.total = total;
+        }
+
+        @Override
+        public int compareTo(Entrada otra) {
+            int porTotal = Integer.compare(otra.total, total);
+            return porTotal != 0 ? porTotal : clave.compareTo(otra.clave);
+        }
+    }
+
+    /**
+     * Constructor del contador
+     *
+     * @param cantidadCubetas Cubetas del anillo
+     * @param duracionCubeta Milisegundos que cubre cada cubeta
+     */
+    public ContadorVentana(int cantidadCubetas, long duracionCubeta) {
+        if (cantidadCubetas <= 0 || duracionCubeta <= 0) {
+            throw new IllegalArgumentException("La ventana debe tener al menos una cubeta de duración positiva");
+        }
+        this.duracionCubeta = duracionCubeta;
+        this.cubetas = new ArrayList<>(cantidadCubetas);
+        this.ranuras = new long[cantidadCubetas];
+        for (int i = 0; i < cantidadCubetas; i++) {
+            cubetas.add(new HashMap<>());
+            ranuras[i] = i;
+        }
+        this.totales = new HashMap<>();
+        this.ranking = new TreeSet<>();
+        this.ranuraActual = cantidadCubetas - 1;
+    }
+
+    /**
+     * Calcula la ranura de tiempo de un instante
+     *
+     * @param instante Milisegundos desde la época
+     * @return Ranura de tiempo
+     */
+    public long calcularRanura(long instante) {
+        return instante / duracionCubeta;
+    }
+
+    /**
+     * Registra un evento
+     *
+     * @param clave Clave del evento (id de la canción)
+     * @param peso Cantidad a sumar
+     * @param instante Momento del evento (milisegundos desde la época)
+     */
+    public void registrar(String clave, int peso, long instante) {
+        registrarEnRanura(clave, peso, calcularRanura(instante));
+    }
+
+    /**
+     * Registra un conteo en una ranura de tiempo (usado al restaurar el contador).
+     * Los eventos de ranuras que ya salieron de la ventana se ignoran.
+     *
+     * @param clave Clave del evento
+     * @param peso Cantidad a sumar
+     * @param ranura Ranura de tiempo
+     */
+    public void registrarEnRanura(String clave, int peso, long ranura) {
+        if (clave == null || peso <= 0) {
+            return;
+        }
+        if (ranura > ranuraActual) {
+            avanzarHasta(ranura);
+        }
+        int indice = indice(ranura);
+        if (ranuras[indice] != ranura) {
+            return; // Fuera de la ventana
+        }
+        cubetas.get(indice).merge(clave, peso, Integer::sum);
+        cambiarTotal(clave, peso);
+    }
+
+    /**
+     * Vence las cubetas que quedaron fuera de la ventana al llegar a un instante
+     *
+     * @param instante Momento actual (milisegundos desde la época)
+     */
+    public void avanzar(long instante) {
+        long ranura = calcularRanura(instante);
+        if (ranura > ranuraActual) {
+            avanzarHasta(ranura);
+        }
+    }
+
+    private void avanzarHasta(long ranura) {
+        int cantidad = cubetas.size();
+        if (ranura - ranuraActual >= cantidad) {
+            // Toda la ventana vence de una vez
+            for (int i = 0; i < cantidad; i++) {
+                cubetas.get(i).clear();
+            }
+            totales.clear();
+            ranking.clear();
+            for (long r = ranura - cantidad + 1; r <= ranura; r++) {
+                ranuras[indice(r)] = r;
+            }
+        } else {
+            for (long r = ranuraActual + 1; r <= ranura; r++) {
+                int indice = indice(r);
+                for (Map.Entry<String, Integer> vencido : cubetas.get(indice).entrySet()) {
+                    cambiarTotal(vencido.getKey(), -vencido.getValue());
+                }
+                cubetas.get(indice).clear();
+                ranuras[indice] = r;
+            }
+        }
+        ranuraActual = ranura;
+    }
+
+    private int indice(long ranura) {
+        return (int) Math.floorMod(ranura, (long) cubetas.size());
+    }
+
+    private void cambiarTotal(String clave, int delta) {
+        Integer anterior = totales.get(clave);
+        int actual = (anterior != null ? anterior : 0) + delta;
+        if (anterior != null) {
+            ranking.remove(new Entrada(clave, anterior));
+        }
+        if (actual > 0) {
+            totales.put(clave, actual);
+            ranking.add(new Entrada(clave, actual));
+        } else {
+            totales.remove(clave);
+        }
+    }
+
+    /**
+     * Elimina todos los conteos de una clave
+     *
+     * @param clave Clave a eliminar
+     */
+    public void eliminar(String clave) {
+        Integer anterior = totales.remove(clave);
+        if (anterior != null) {
+            ranking.remove(new Entrada(clave, anterior));
+            for (HashMap<String, Integer> cubeta : cubetas) {
+                cubeta.remove(clave);
+            }
+        }
+    }
+
+    /**
+     * Elimina todos los conteos
+     */
+    public void limpiar() {
+        for (HashMap<String, Integer> cubeta : cubetas) {
+            cubeta.clear();
+        }
+        totales.clear();
+        ranking.clear();
+    }
+
+    /**
+     * Obtiene el total de una clave dentro de la ventana (llamar antes a avanzar)
+     *
+     * @param clave Clave a consultar
+     * @return Total de la clave (0 si no tiene eventos)
+     */
+    public int getTotal(String clave) {
+        return totales.getOrDefault(clave, 0);
+    }
+
+    /**
+     * Obtiene las claves con mayor total dentro de la ventana (llamar antes a avanzar)
+     *
+     * @param k Cantidad de claves
+     * @return Hasta k claves, de mayor a menor total
+     */
+    public List<String> obtenerTop(int k) {
+        List<String> top = new ArrayList<>(Math.min(k, ranking.size()));
+        Iterator<Entrada> it = ranking.iterator();
+        while (top.size() < k && it.hasNext()) {
+            top.add(it.next().clave);
+        }
+        return top;
+    }
+
+    /**
+     * Recorre los conteos de cada cubeta (para guardarlos)
+     *
+     * @param visitante Recibe ranura, clave y conteo
+     */
+    public void recorrerCubetas(VisitanteCubeta visitante) {
+        for (int i = 0; i < cubetas.size(); i++) {
+            for (Map.Entry<String, Integer> entrada : cubetas.get(i).entrySet()) {
+                visitante.visitar(ranuras[i], entrada.getKey(), entrada.getValue());
+            }
+        }
+    }
+
+    /**
+     * Recibe el conteo de una clave en una cubeta
+     */
+    @FunctionalInterface
+    public interface VisitanteCubeta {
+        void visitar(long ranura, String clave, int conteo);
+    }
+
+    public int getCantidadClaves() {
+        return totales.size();
+    }
+
+    public int getCantidadCubetas() {
+        return cubetas.size();
+    }
+
+    public long getDuracionCubeta() {
+        return duracionCubeta;
+    }
+
+    @Override
+    public String toString() {
+        return "ContadorVentana[cubetas=" + cubetas.size() + "x" + duracionCubeta + "ms, claves=" + totales.size() + "]";
+    }
+}
@@ -0,0 +1,243 @@
+package edu.universidad.estructuras.proyecto_estructura.model;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Diccionario compartido de atributos de canciones (géneros, artistas, décadas y palabras
+ * de títulos).
+ *
+ * - internar: devuelve una única instancia por valor distinto, de modo que miles de
+ *   canciones de "Rock" o de "Queen" comparten el mismo String.
+ * - normalizar: igual, para la forma en minúsculas y sin espacios en los extremos que usan
+ *   las facetas y el trie de artistas como clave.
+ * - id: asigna un entero por valor sin distinguir mayúsculas, para comparar atributos
+ *   con == en lugar de equalsIgnoreCase (por ejemplo en el grafo de similitud).
+ *
+ * Los valores no se eliminan: el diccionario crece con la cantidad de valores distintos,
+ * no con la cantidad de canciones.
+ *
+ */
+public final class DiccionarioAtributos {
+    private static final DiccionarioAtributos INSTANCIA = new DiccionarioAtributos();
+
+    private final Tabla generos;
+    private final Tabla artistas;
+    private final Tabla palabras;
+    private final ConcurrentHashMap<Integer, String> decadas;      // década -> etiqueta ("1980")
+    private final AtomicLong bytesAhorradosDecadas;
+
+    private DiccionarioAtributos() {
+        this.generos = new Tabla();
+        this.artistas = new Tabla();
+        this.palabras = new Tabla();
+        this.decadas = new ConcurrentHashMap<>();
+        this.bytesAhorradosDecadas = new AtomicLong();
+    }
+
+    /**
+     * Obtiene el diccionario compartido
+     *
+     * @return Instancia única del diccionario
+     */
+    public static DiccionarioAtributos getInstance() {
+        return INSTANCIA;
+    }
+
+    public String internarGenero(String genero) {
+        return generos.internar(genero);
+    }
+
+    public String internarArtista(String artista) {
+        return artistas.internar(artista);
+    }
+
+    public String internarPalabra(String palabra) {
+        return palabras.internar(palabra);
+    }
+
+    /**
+     * Obtiene la forma compartida de un género en minúsculas y sin espacios en los extremos
+     *
+     * @param genero Género
+     * @return Género normalizado ("" si es null)
+     */
+    public String normalizarGenero(String genero) {
+        return generos.normalizar(genero);
+    }
+
+    /**
+     * Obtiene la forma compartida de un artista en minúsculas y sin espacios en los extremos
+     *
+     * @param artista Artista
+     * @return Artista normalizado ("" si es null)
+     */
+    public String normalizarArtista(String artista) {
+        return artistas.normalizar(artista);
+    }
+
+    /**
+     * Comparte un nombre de artista que ya está normalizado (por ejemplo, el de un trie)
+     *
+     * @param artista Artista en minúsculas y sin espacios en los extremos
+     * @return Instancia compartida
+     */
+    public String internarArtistaNormalizado(String artista) {
+        return artistas.internarNormalizada(artista);
+    }
+
+    /**
+     * Obtiene la etiqueta compartida de una década (1980 -> "1980")
+     *
+     * @param decada Primer año de la década
+     * @return Etiqueta de la década
+     */
+    public String internarDecada(int decada) {
+        String etiqueta = decadas.get(decada);
+        if (etiqueta != null) {
+            bytesAhorradosDecadas.addAndGet(Tabla.tamanoEstimado(etiqueta));
+            return etiqueta;
+        }
+        return decadas.computeIfAbsent(decada, String::valueOf);
+    }
+
+    /**
+     * Obtiene el id de un género (sin distinguir mayúsculas ni espacios en los extremos)
+     *
+     * @param genero Género
+     * @return Id del género, o -1 si es null
+     */
+    public int idGenero(String genero) {
+        return generos.id(genero);
+    }
+
+    /**
+     * Obtiene el id de un artista (sin distinguir mayúsculas ni espacios en los extremos)
+     *
+     * @param artista Artista
+     * @return Id del artista, o -1 si es null
+     */
+    public int idArtista(String artista) {
+        return artistas.id(artista);
+    }
+
+    /**
+     * Estima la memoria ahorrada: bytes de los Strings repetidos que se descartaron
+     * en favor de la instancia compartida
+     *
+     * @return Bytes ahorrados (aproximado)
+     */
+    public long getBytesAhorrados() {
+        return generos.bytesAhorrados.get() + artistas.bytesAhorrados.get() + palabras.bytesAhorrados.get()
+                + bytesAhorradosDecadas.get();
+    }
+
+    /**
+     * Obtiene los valores distintos de cada tabla y la memoria ahorrada
+     *
+     * @return Estadísticas del diccionario en este momento
+     */
+    public Estadisticas getEstadisticas() {
+        return new Estadisticas(generos.canonicas.size(), artistas.canonicas.size(), palabras.canonicas.size(),
+                decadas.size(), getBytesAhorrados());
+    }
+
+    @Override
+    public String toString() {
+        Estadisticas estadisticas = getEstadisticas();
+        return String.format("DiccionarioAtributos[generos=%d, artistas=%d, palabras=%d, decadas=%d, ahorro≈%d KB]",
+                estadisticas.getGeneros(), estadisticas.getArtistas(), estadisticas.getPalabras(),
+                estadisticas.getDecadas(), estadisticas.getBytesAhorrados() / 1024);
+    }
+
+    /**
+     * Valores distintos de cada tabla y bytes ahorrados (aproximado)
+     */
+    public static final class Estadisticas {
+        private final int generos;
+        private final int artistas;
+        private final int palabras;
+        private final int decadas;
+        private final long bytesAhorrados;
+
+        private Estadisticas(int generos, int artistas, int palabras, int decadas, long bytesAhorrados) {
+            this.generos = generos;
+            this.artistas = artistas;
+            this.palabras = palabras;
+            this.decadas = decadas;
+            this.bytesAhorrados = bytesAhorrados;
+        }
+
+        public int getGeneros() {
+            return generos;
+        }
+
+        public int getArtistas() {
+            return artistas;
+        }
+
+        public int getPalabras() {
+            return palabras;
+        }
+
+        public int getDecadas() {
+            return decadas;
+        }
+
+        public long getBytesAhorrados() {
+            return bytesAhorrados;
+        }
+    }
+
+    /**
+     * Tabla de un tipo de atributo: instancias canónicas, formas normalizadas e ids
+     */
+    private static final class Tabla {
+        private final ConcurrentHashMap<String, String> canonicas = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, String> normalizadas = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>(); // por forma normalizada
+        private final AtomicInteger siguienteId = new AtomicInteger();
+        private final AtomicLong bytesAhorrados = new AtomicLong();
+
+        String internar(String valor) {
+            return valor == null ? null : compartir(canonicas, valor);
+        }
+
+        String normalizar(String valor) {
+            return valor == null ? "" : internarNormalizada(valor.trim().toLowerCase(Locale.ROOT));
+        }
+
+        String internarNormalizada(String normalizada) {
+            return compartir(normalizadas, normalizada);
+        }
+
+        int id(String valor) {
+            if (valor == null) {
+                return -1;
+            }
+            // La clave es la forma normalizada compartida: no agrega otra copia del texto
+            return ids.computeIfAbsent(normalizar(valor), clave -> siguienteId.getAndIncrement());
+        }
+
+        private String compartir(Map<String, String> instancias, String valor) {
+            String existente = instancias.putIfAbsent(valor, valor);
+            if (existente == null) {
+                return valor;
+            }
+            if (existente != valor) {
+                bytesAhorrados.addAndGet(tamanoEstimado(valor));
+            }
+            return existente;
+        }
+
+        /**
+         * Tamaño aproximado de un String en el heap: objeto String más su arreglo de bytes
+         */
+        private static long tamanoEstimado(String valor) {
+            return 24 + ((16 + valor.length() + 7) & ~7);
+        }
+    }
+}
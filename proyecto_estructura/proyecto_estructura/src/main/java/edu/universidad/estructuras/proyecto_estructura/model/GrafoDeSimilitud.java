@@ -3,6 +3,9 @@ package edu.universidad.estructuras.proyecto_estructura.model;
 
 import edu.universidad.estructuras.proyecto_estructura.model.Cancion;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.*;
 
 /**
@@ -14,9 +17,15 @@ import java.util.*;
  *
  */
 public class GrafoDeSimilitud {
+    // Palabras comunes que no aportan similitud entre títulos
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+            "the", "a", "an", "and", "or", "but", "in", "on", "at", "to", "for",
+            "el", "la", "los", "las", "un", "una", "y", "o", "de", "en"));
+
     // Mapa de adyacencias: Cancion -> Lista de Aristas (conexiones)
     private final Map<String, List<Arista>> adyacencias;
     private final Map<String, Cancion> canciones; // ID -> Canción
+    private final Map<String, Set<String>> palabrasTitulo; // ID -> palabras del título, calculadas una vez
 
     /**
      * Constructor del grafo de similitud
@@ -24,6 +33,7 @@ public class GrafoDeSimilitud {
     public GrafoDeSimilitud() {
         this.adyacencias = new HashMap<>();
         this.canciones = new HashMap<>();
+        this.palabrasTitulo = new HashMap<>();
     }
 
     /**
@@ -38,6 +48,7 @@ public class GrafoDeSimilitud {
         if (!canciones.containsKey(id)) {
             canciones.put(id, cancion);
             adyacencias.put(id, new ArrayList<>());
+            palabrasTitulo.put(id, extraerPalabras(cancion.getTitulo()));
         }
     }
 
@@ -66,6 +77,75 @@ public class GrafoDeSimilitud {
         agregarAristaDirigida(cancion2.getId(), cancion1, peso);
     }
 
+    /**
+     * Agrega una canción nueva conectándola con cada una de las canciones dadas.
+     * Como la canción no estaba en el grafo, las aristas se añaden sin buscar repetidas.
+     * Complejidad: O(k) donde k es la cantidad de canciones dadas
+     *
+     * @param nueva Canción a agregar
+     * @param vecinas Canciones con las que se conecta
+     */
+    public void agregarCancionConectada(Cancion nueva, Collection<Cancion> vecinas) {
+        if (nueva == null) return;
+
+        if (canciones.containsKey(nueva.getId())) {
+            for (Cancion vecina : vecinas) {
+                agregarConexion(nueva, vecina);
+            }
+            return;
+        }
+
+        agregarCancion(nueva);
+        List<Arista> aristasNueva = adyacencias.get(nueva.getId());
+        for (Cancion vecina : vecinas) {
+            if (vecina == null || vecina.equals(nueva)) {
+                continue;
+            }
+            agregarCancion(vecina);
+            double peso = 100 - calcularSimilitud(nueva, vecina);
+            aristasNueva.add(new Arista(vecina, peso));
+            adyacencias.get(vecina.getId()).add(new Arista(nueva, peso));
+        }
+    }
+
+    /**
+     * Agrega una canción conectándola con todas las canciones que ya están en el grafo
+     * (si ya estaba, primero se retiran sus conexiones anteriores)
+     * Complejidad: O(V + E) en el peor caso
+     *
+     * @param cancion Canción a agregar o reconectar
+     */
+    public void conectarConTodas(Cancion cancion) {
+        if (cancion == null) return;
+
+        eliminarCancion(cancion);
+        agregarCancionConectada(cancion, new ArrayList<>(canciones.values()));
+    }
+
+    /**
+     * Elimina una canción y todas sus conexiones
+     * Complejidad: O(E) en el peor caso
+     *
+     * @param cancion Canción a eliminar
+     */
+    public void eliminarCancion(Cancion cancion) {
+        if (cancion == null) return;
+
+        String id = cancion.getId();
+        canciones.remove(id);
+        palabrasTitulo.remove(id);
+        List<Arista> aristas = adyacencias.remove(id);
+        if (aristas == null) {
+            return;
+        }
+        for (Arista arista : aristas) {
+            List<Arista> aristasVecino = adyacencias.get(arista.getDestino().getId());
+            if (aristasVecino != null) {
+                aristasVecino.removeIf(a -> a.getDestino().getId().equals(id));
+            }
+        }
+    }
+
     /**
      * Agrega una arista dirigida con peso específico
      *
@@ -99,25 +179,23 @@ public class GrafoDeSimilitud {
     private double calcularSimilitud(Cancion c1, Cancion c2) {
         double similitud = 0.0;
 
-        // Mismo género: +50%
-        if (c1.getGenero().equalsIgnoreCase(c2.getGenero())) {
+        // Mismo género: +50% (ids del diccionario: sin distinguir mayúsculas)
+        if (c1.getIdGenero() == c2.getIdGenero()) {
             similitud += 50;
         }
 
         // Mismo artista: +30%
-        if (c1.getArtista().equalsIgnoreCase(c2.getArtista())) {
+        if (c1.getIdArtista() == c2.getIdArtista()) {
             similitud += 30;
         }
 
         // Misma década: +20%
-        int decada1 = (c1.getAnio() / 10) * 10;
-        int decada2 = (c2.getAnio() / 10) * 10;
-        if (decada1 == decada2) {
+        if (c1.getDecada() == c2.getDecada()) {
             similitud += 20;
         }
 
         // Si tienen palabras en común en el título: +10%
-        if (titulosSimilares(c1.getTitulo(), c2.getTitulo())) {
+        if (titulosSimilares(c1.getId(), c2.getId())) {
             similitud += 10;
         }
 
@@ -125,27 +203,48 @@ public class GrafoDeSimilitud {
     }
 
     /**
-     * Verifica si dos títulos tienen palabras en común
+     * Verifica si los títulos de dos canciones del grafo tienen palabras en común
      *
-     * @param titulo1 Primer título
-     * @param titulo2 Segundo título
+     * @param id1 ID de la primera canción
+     * @param id2 ID de la segunda canción
      * @return true si tienen palabras en común
      */
-    private boolean titulosSimilares(String titulo1, String titulo2) {
-        Set<String> palabras1 = new HashSet<>(Arrays.asList(
-                titulo1.toLowerCase().split("\\s+")));
-        Set<String> palabras2 = new HashSet<>(Arrays.asList(
-                titulo2.toLowerCase().split("\\s+")));
-
-        // Remover palabras comunes que no aportan similitud
-        Set<String> stopWords = new HashSet<>(Arrays.asList(
-                "the", "a", "an", "and", "or", "but", "in", "on", "at", "to", "for",
-                "el", "la", "los", "las", "un", "una", "y", "o", "de", "en"));
-        palabras1.removeAll(stopWords);
-        palabras2.removeAll(stopWords);
-
-        palabras1.retainAll(palabras2); // Intersección
-        return !palabras1.isEmpty();
+    private boolean titulosSimilares(String id1, String id2) {
+        Set<String> palabras1 = palabrasTitulo.get(id1);
+        Set<String> palabras2 = palabrasTitulo.get(id2);
+        if (palabras1 == null || palabras2 == null) {
+            return false;
+        }
+
+        // Intersección recorriendo el conjunto más pequeño
+        if (palabras1.size() > palabras2.size()) {
+            Set<String> temporal = palabras1;
+            palabras1 = palabras2;
+            palabras2 = temporal;
+        }
+        for (String palabra : palabras1) {
+            if (palabras2.contains(palabra)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Obtiene las palabras de un título, sin palabras comunes
+     *
+     * @param titulo Título de la canción
+     * @return Conjunto de palabras en minúsculas
+     */
+    private static Set<String> extraerPalabras(String titulo) {
+        DiccionarioAtributos diccionario = DiccionarioAtributos.getInstance();
+        Set<String> palabras = new HashSet<>();
+        for (String palabra : titulo.toLowerCase().split("\\s+")) {
+            if (!STOP_WORDS.contains(palabra)) {
+                palabras.add(diccionario.internarPalabra(palabra)); // palabras compartidas entre títulos
+            }
+        }
+        return palabras;
     }
 
     /**
@@ -268,12 +367,103 @@ public class GrafoDeSimilitud {
         return total / 2; // Dividir por 2 porque cada conexión se cuenta dos veces
     }
 
+    /**
+     * Crea una copia independiente del grafo: nuevas listas y aristas, mismas canciones
+     * Complejidad: O(V + E)
+     *
+     * @return Copia del grafo
+     */
+    public GrafoDeSimilitud copiar() {
+        GrafoDeSimilitud copia = new GrafoDeSimilitud();
+        copia.canciones.putAll(canciones);
+        copia.palabrasTitulo.putAll(palabrasTitulo); // los conjuntos no se modifican una vez creados
+        for (Map.Entry<String, List<Arista>> entrada : adyacencias.entrySet()) {
+            List<Arista> aristas = new ArrayList<>(entrada.getValue().size());
+            for (Arista arista : entrada.getValue()) {
+                aristas.add(new Arista(arista.getDestino(), arista.getPeso()));
+            }
+            copia.adyacencias.put(entrada.getKey(), aristas);
+        }
+        return copia;
+    }
+
+    /**
+     * Escribe las adyacencias en formato binario. Cada canción se identifica por su posición
+     * en la lista dada; por cada una se escribe la cantidad de aristas (-1 si no está en el
+     * grafo) y cada arista como (posición destino int, peso float). Los pesos son enteros
+     * entre 0 y 100, así que float los guarda sin pérdida.
+     * Complejidad: O(V + E)
+     *
+     * @param salida Destino de los datos
+     * @param enOrden Canciones del grafo en el orden que se usará al leer
+     * @throws IOException Si falla la escritura
+     */
+    public void escribir(DataOutput salida, List<Cancion> enOrden) throws IOException {
+        Map<String, Integer> posiciones = new HashMap<>(enOrden.size() * 2);
+        for (int i = 0; i < enOrden.size(); i++) {
+            posiciones.put(enOrden.get(i).getId(), i);
+        }
+
+        for (Cancion cancion : enOrden) {
+            List<Arista> aristas = adyacencias.get(cancion.getId());
+            if (aristas == null) {
+                salida.writeInt(-1);
+                continue;
+            }
+            int validas = 0;
+            for (Arista arista : aristas) {
+                if (posiciones.containsKey(arista.getDestino().getId())) {
+                    validas++;
+                }
+            }
+            salida.writeInt(validas);
+            for (Arista arista : aristas) {
+                Integer destino = posiciones.get(arista.getDestino().getId());
+                if (destino != null) {
+                    salida.writeInt(destino);
+                    salida.writeFloat((float) arista.getPeso());
+                }
+            }
+        }
+    }
+
+    /**
+     * Lee un grafo escrito con escribir(), sin recalcular similitudes
+     * Complejidad: O(V + E)
+     *
+     * @param entrada Origen de los datos
+     * @param enOrden Las mismas canciones, en el mismo orden, que al escribir
+     * @return Grafo leído
+     * @throws IOException Si falla la lectura o los datos no son válidos
+     */
+    public static GrafoDeSimilitud leer(DataInput entrada, List<Cancion> enOrden) throws IOException {
+        GrafoDeSimilitud grafo = new GrafoDeSimilitud();
+        for (Cancion cancion : enOrden) {
+            int cantidad = entrada.readInt();
+            if (cantidad < 0) {
+                continue;
+            }
+            grafo.agregarCancion(cancion);
+            ArrayList<Arista> aristas = (ArrayList<Arista>) grafo.adyacencias.get(cancion.getId());
+            aristas.ensureCapacity(cantidad);
+            for (int i = 0; i < cantidad; i++) {
+                int destino = entrada.readInt();
+                if (destino < 0 || destino >= enOrden.size()) {
+                    throw new IOException("Arista hacia una posición inválida: " + destino);
+                }
+                aristas.add(new Arista(enOrden.get(destino), entrada.readFloat()));
+            }
+        }
+        return grafo;
+    }
+
     /**
      * Limpia el grafo
      */
     public void limpiar() {
         adyacencias.clear();
         canciones.clear();
+        palabrasTitulo.clear();
     }
 
     /**
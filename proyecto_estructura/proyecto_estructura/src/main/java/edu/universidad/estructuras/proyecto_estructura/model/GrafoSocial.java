@@ -65,6 +65,46 @@ public class GrafoSocial {
         return true;
     }
 
+    /**
+     * Crea muchas conexiones de una vez (al cargar los datos guardados).
+     * Primero cuenta las conexiones de cada usuario para crear sus conjuntos con el tamaño
+     * final, así no se redimensionan mientras se insertan las aristas.
+     * Complejidad: O(E)
+     *
+     * @param conexiones Pares {usuario1, usuario2}
+     * @return Cantidad de conexiones nuevas creadas
+     */
+    public int conectarTodos(Collection<String[]> conexiones) {
+        Map<String, Integer> grados = new HashMap<>();
+        for (String[] conexion : conexiones) {
+            if (esConexionValida(conexion)) {
+                grados.merge(conexion[0], 1, Integer::sum);
+                grados.merge(conexion[1], 1, Integer::sum);
+            }
+        }
+        for (Map.Entry<String, Integer> grado : grados.entrySet()) {
+            Set<String> actuales = adyacencias.get(grado.getKey());
+            Set<String> conjunto = new HashSet<>((actuales.size() + grado.getValue()) * 4 / 3 + 1);
+            conjunto.addAll(actuales);
+            adyacencias.put(grado.getKey(), conjunto);
+        }
+
+        int creadas = 0;
+        for (String[] conexion : conexiones) {
+            if (esConexionValida(conexion) && adyacencias.get(conexion[0]).add(conexion[1])) {
+                adyacencias.get(conexion[1]).add(conexion[0]);
+                creadas++;
+            }
+        }
+        return creadas;
+    }
+
+    private boolean esConexionValida(String[] conexion) {
+        return conexion.length == 2 && conexion[0] != null && conexion[1] != null
+                && !conexion[0].equals(conexion[1])
+                && usuarios.containsKey(conexion[0]) && usuarios.containsKey(conexion[1]);
+    }
+
     /**
      * Elimina la conexión entre dos usuarios
      * Complejidad: O(1)
@@ -0,0 +1,338 @@
+package edu.universidad.estructuras.proyecto_estructura.model;
+
+import java.text.Normalizer;
+import java.util.*;
+
+/**
+ * Índice invertido con puntuación BM25 por campos (título, artista, género).
+ * Cada término apunta a los ordinales de las canciones que lo contienen junto con
+ * su frecuencia en cada campo; la relevancia combina los campos con pesos distintos
+ * (variante BM25F) y los mejores K resultados se obtienen con un montículo.
+ *
+ * Complejidad temporal:
+ * - Indexar / eliminar: O(t log V) donde t es el número de términos de la canción
+ * - Buscar: O(P log K) donde P es el número de entradas de las listas consultadas
+ * - Buscar todos: O(P + R log R) donde R es el número de documentos encontrados
+ * - Copiar: O(V + N) donde V es el vocabulario y N el número de documentos
+ *
+ * La copia comparte las listas de postings con el original; cada uno copia una lista
+ * la primera vez que la modifica (copia en escritura), así una copia para no alterar
+ * un snapshot solo paga por los términos que cambian después.
+ *
+ */
+public class IndiceInvertido {
+    public static final int CAMPO_TITULO = 0;
+    public static final int CAMPO_ARTISTA = 1;
+    public static final int CAMPO_GENERO = 2;
+    private static final int CANTIDAD_CAMPOS = 3;
+
+    // Un acierto en el título pesa más que uno en el artista, y este más que el género
+    private static final double[] PESOS_CAMPO = {3.0, 2.0, 1.0};
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Las coincidencias por prefijo (búsqueda mientras se escribe) puntúan menos que las exactas
+    private static final double PESO_PREFIJO = 0.7;
+    private static final int MAX_EXPANSIONES_PREFIJO = 50;
+
+    private final TreeMap<String, Map<Integer, int[]>> listas; // término -> ordinal -> frecuencia por campo
+    private final Map<Integer, int[]> longitudes;              // ordinal -> longitud de cada campo
+    private final Map<Integer, Set<String>> terminosPorOrdinal;
+    private final long[] sumaLongitudes;
+    private final Set<Map<Integer, int[]>> propias;            // listas que no comparte con otra copia
+
+    /**
+     * Constructor del índice invertido
+     */
+    public IndiceInvertido() {
+        this.listas = new TreeMap<>();
+        this.longitudes = new HashMap<>();
+        this.terminosPorOrdinal = new HashMap<>();
+        this.sumaLongitudes = new long[CANTIDAD_CAMPOS];
+        this.propias = Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    /**
+     * Indexa (o reindexa) los campos de texto de una canción
+     *
+     * @param ordinal Ordinal de la canción
+     * @param titulo Título
+     * @param artista Artista
+     * @param genero Género
+     */
+    public void indexar(int ordinal, String titulo, String artista, String genero) {
+        eliminar(ordinal);
+
+        String[] campos = {titulo, artista, genero};
+        int[] longitud = new int[CANTIDAD_CAMPOS];
+        Set<String> terminos = new HashSet<>();
+
+        for (int campo = 0; campo < CANTIDAD_CAMPOS; campo++) {
+            List<String> tokens = tokenizar(campos[campo]);
+            longitud[campo] = tokens.size();
+            sumaLongitudes[campo] += tokens.size();
+
+            for (String token : tokens) {
+                listaModificable(token).computeIfAbsent(ordinal, o -> new int[CANTIDAD_CAMPOS])[campo]++;
+                terminos.add(token);
+            }
+        }
+
+        longitudes.put(ordinal, longitud);
+        terminosPorOrdinal.put(ordinal, terminos);
+    }
+
+    /**
+     * Elimina una canción del índice
+     *
+     * @param ordinal Ordinal de la canción
+     */
+    public void eliminar(int ordinal) {
+        Set<String> terminos = terminosPorOrdinal.remove(ordinal);
+        if (terminos == null) {
+            return;
+        }
+
+        for (String termino : terminos) {
+            Map<Integer, int[]> lista = listas.get(termino);
+            if (lista != null && lista.containsKey(ordinal)) {
+                lista = listaModificable(termino);
+                lista.remove(ordinal);
+                if (lista.isEmpty()) {
+                    listas.remove(termino);
+                    propias.remove(lista);
+                }
+            }
+        }
+
+        int[] longitud = longitudes.remove(ordinal);
+        for (int campo = 0; campo < CANTIDAD_CAMPOS; campo++) {
+            sumaLongitudes[campo] -= longitud[campo];
+        }
+    }
+
+    /**
+     * Obtiene la lista de un término para modificarla: la crea si no existe y la copia
+     * si todavía la comparte con otra copia del índice
+     */
+    private Map<Integer, int[]> listaModificable(String termino) {
+        Map<Integer, int[]> lista = listas.get(termino);
+        if (lista == null || !propias.contains(lista)) {
+            // Los int[] se pueden compartir: un documento se reindexa con arreglos nuevos
+            lista = lista == null ? new HashMap<>() : new HashMap<>(lista);
+            listas.put(termino, lista);
+            propias.add(lista);
+        }
+        return lista;
+    }
+
+    /**
+     * Busca los K documentos más relevantes para la consulta
+     *
+     * @param consulta Texto libre
+     * @param k Número máximo de resultados
+     * @return Resultados ordenados de mayor a menor relevancia
+     */
+    public List<Resultado> buscar(String consulta, int k) {
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+
+        // Montículo de mínimos con los K mejores
+        PriorityQueue<Resultado> mejores = new PriorityQueue<>(k + 1);
+        for (Map.Entry<Integer, Double> entrada : puntuar(consulta).entrySet()) {
+            Resultado candidato = new Resultado(entrada.getKey(), entrada.getValue());
+            if (mejores.size() < k) {
+                mejores.offer(candidato);
+            } else if (candidato.compareTo(mejores.peek()) > 0) {
+                mejores.poll();
+                mejores.offer(candidato);
+            }
+        }
+
+        List<Resultado> resultados = new ArrayList<>(mejores);
+        resultados.sort(Collections.reverseOrder());
+        return resultados;
+    }
+
+    /**
+     * Busca todos los documentos que coinciden con la consulta, para recorrerlos por páginas
+     *
+     * @param consulta Texto libre
+     * @return Resultados ordenados de mayor a menor relevancia
+     */
+    public List<Resultado> buscarTodos(String consulta) {
+        Map<Integer, Double> puntajes = puntuar(consulta);
+        List<Resultado> resultados = new ArrayList<>(puntajes.size());
+        for (Map.Entry<Integer, Double> entrada : puntajes.entrySet()) {
+            resultados.add(new Resultado(entrada.getKey(), entrada.getValue()));
+        }
+        resultados.sort(Collections.reverseOrder());
+        return resultados;
+    }
+
+    /**
+     * Acumula el puntaje BM25F de los documentos que aparecen en alguna lista de la consulta
+     */
+    private Map<Integer, Double> puntuar(String consulta) {
+        List<String> tokens = tokenizar(consulta);
+        Map<Integer, Double> puntajes = new HashMap<>();
+        if (tokens.isEmpty() || longitudes.isEmpty()) {
+            return puntajes;
+        }
+
+        int documentos = longitudes.size();
+        double[] longitudPromedio = new double[CANTIDAD_CAMPOS];
+        for (int campo = 0; campo < CANTIDAD_CAMPOS; campo++) {
+            longitudPromedio[campo] = Math.max(1.0, (double) sumaLongitudes[campo] / documentos);
+        }
+
+        for (String token : new LinkedHashSet<>(tokens)) {
+            for (Map.Entry<String, Map<Integer, int[]>> entrada : expandir(token).entrySet()) {
+                double factor = entrada.getKey().equals(token) ? 1.0 : PESO_PREFIJO;
+                Map<Integer, int[]> lista = entrada.getValue();
+                double idf = Math.log(1 + (documentos - lista.size() + 0.5) / (lista.size() + 0.5));
+
+                for (Map.Entry<Integer, int[]> posting : lista.entrySet()) {
+                    double tf = frecuenciaPonderada(posting.getValue(), longitudes.get(posting.getKey()), longitudPromedio);
+                    double puntaje = factor * idf * tf / (K1 + tf);
+                    puntajes.merge(posting.getKey(), puntaje, Double::sum);
+                }
+            }
+        }
+        return puntajes;
+    }
+
+    /**
+     * Combina las frecuencias de cada campo normalizadas por su longitud (BM25F)
+     */
+    private double frecuenciaPonderada(int[] frecuencias, int[] longitud, double[] longitudPromedio) {
+        double tf = 0;
+        for (int campo = 0; campo < CANTIDAD_CAMPOS; campo++) {
+            if (frecuencias[campo] > 0) {
+                double normalizacion = 1 - B + B * longitud[campo] / longitudPromedio[campo];
+                tf += PESOS_CAMPO[campo] * frecuencias[campo] / normalizacion;
+            }
+        }
+        return tf;
+    }
+
+    /**
+     * Obtiene las listas del término exacto y de los términos que empiezan por él
+     */
+    private Map<String, Map<Integer, int[]>> expandir(String token) {
+        Map<String, Map<Integer, int[]>> expansion = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<Integer, int[]>> entrada
+                : listas.subMap(token, true, token + Character.MAX_VALUE, false).entrySet()) {
+            expansion.put(entrada.getKey(), entrada.getValue());
+            if (expansion.size() >= MAX_EXPANSIONES_PREFIJO) {
+                break;
+            }
+        }
+        return expansion;
+    }
+
+    /**
+     * Divide un texto en términos: minúsculas, sin tildes, solo letras y dígitos
+     *
+     * @param texto Texto a dividir
+     * @return Lista de términos
+     */
+    public static List<String> tokenizar(String texto) {
+        List<String> tokens = new ArrayList<>();
+        if (texto == null || texto.isBlank()) {
+            return tokens;
+        }
+
+        String normalizado = Normalizer.normalize(texto.toLowerCase(), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "");
+
+        StringBuilder actual = new StringBuilder();
+        for (int i = 0; i < normalizado.length(); i++) {
+            char c = normalizado.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                actual.append(c);
+            } else if (actual.length() > 0) {
+                tokens.add(actual.toString());
+                actual.setLength(0);
+            }
+        }
+        if (actual.length() > 0) {
+            tokens.add(actual.toString());
+        }
+        return tokens;
+    }
+
+    /**
+     * Obtiene el número de términos distintos del índice
+     *
+     * @return Tamaño del vocabulario
+     */
+    public int getCantidadTerminos() {
+        return listas.size();
+    }
+
+    /**
+     * Crea una copia independiente del índice. Las listas de postings quedan compartidas
+     * y tanto el original como la copia copian una lista antes de modificarla.
+     * Complejidad: O(V + N), sin recorrer las entradas de las listas
+     *
+     * @return Copia del índice
+     */
+    public IndiceInvertido copiar() {
+        IndiceInvertido copia = new IndiceInvertido();
+        copia.listas.putAll(listas);
+        propias.clear();
+        // Las longitudes y los conjuntos de términos no se modifican una vez creados
+        copia.longitudes.putAll(longitudes);
+        copia.terminosPorOrdinal.putAll(terminosPorOrdinal);
+        System.arraycopy(sumaLongitudes, 0, copia.sumaLongitudes, 0, sumaLongitudes.length);
+        return copia;
+    }
+
+    /**
+     * Limpia el índice
+     */
+    public void limpiar() {
+        listas.clear();
+        longitudes.clear();
+        terminosPorOrdinal.clear();
+        propias.clear();
+        Arrays.fill(sumaLongitudes, 0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("IndiceInvertido[documentos=%d, terminos=%d]", longitudes.size(), listas.size());
+    }
+
+    /**
+     * Resultado de una búsqueda: ordinal de la canción y su puntaje de relevancia
+     */
+    public static class Resultado implements Comparable<Resultado> {
+        private final int ordinal;
+        private final double puntaje;
+
+        public Resultado(int ordinal, double puntaje) {
+            this.ordinal = ordinal;
+            this.puntaje = puntaje;
+        }
+
+        public int getOrdinal() {
+            return ordinal;
+        }
+
+        public double getPuntaje() {
+            return puntaje;
+        }
+
+        /**
+         * Compara por puntaje; a igual puntaje gana el ordinal menor (más antiguo)
+         */
+        @Override
+        public int compareTo(Resultado otro) {
+            int comparacion = Double.compare(this.puntaje, otro.puntaje);
+            return comparacion != 0 ? comparacion : Integer.compare(otro.ordinal, this.ordinal);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package edu.universidad.estructuras.proyecto_estructura.model;
+
+import java.util.*;
+
+/**
+ * Índice de trigramas para la búsqueda de texto dentro de una palabra ("een" encuentra
+ * "Queen"). Cada secuencia de tres caracteres de los textos de una canción (en minúsculas)
+ * apunta al mapa de bits de los ordinales que la contienen; los candidatos de una consulta
+ * son la intersección de los mapas de sus trigramas.
+ *
+ * Los candidatos pueden incluir falsos positivos (los trigramas aparecen pero no seguidos),
+ * así que quien consulta debe verificar cada uno; nunca se pierde una coincidencia real.
+ * Consultas de menos de tres caracteres no tienen trigramas y no se resuelven aquí.
+ *
+ * Complejidad temporal:
+ * - Indexar / eliminar: O(L) donde L es la longitud de los textos
+ * - Candidatos: O(q · B) donde q es el número de trigramas de la consulta y B el tamaño
+ *   de sus mapas de bits (se intersecan empezando por el más pequeño)
+ *
+ */
+public class IndiceTrigramas {
+    public static final int LONGITUD_MINIMA = 3;
+
+    private final Map<String, BitmapComprimido> listas;           // trigrama -> ordinales
+    private final Map<Integer, Set<String>> trigramasPorOrdinal;
+
+    /**
+     * Constructor del índice de trigramas
+     */
+    public IndiceTrigramas() {
+        this.listas = new HashMap<>();
+        this.trigramasPorOrdinal = new HashMap<>();
+    }
+
+    /**
+     * Indexa (o reindexa) los textos de una canción
+     *
+     * @param ordinal Ordinal de la canción
+     * @param textos Textos donde buscar (título, artista)
+     */
+    public void indexar(int ordinal, String... textos) {
+        eliminar(ordinal);
+
+        Set<String> trigramas = new HashSet<>();
+        for (String texto : textos) {
+            agregarTrigramas(normalizar(texto), trigramas);
+        }
+        for (String trigrama : trigramas) {
+            listas.computeIfAbsent(trigrama, t -> new BitmapComprimido()).agregar(ordinal);
+        }
+        trigramasPorOrdinal.put(ordinal, trigramas);
+    }
+
+    /**
+     * Elimina una canción del índice
+     *
+     * @param ordinal Ordinal de la canción
+     */
+    public void eliminar(int ordinal) {
+        Set<String> trigramas = trigramasPorOrdinal.remove(ordinal);
+        if (trigramas == null) {
+            return;
+        }
+
+        for (String trigrama : trigramas) {
+            BitmapComprimido lista = listas.get(trigrama);
+            if (lista != null) {
+                lista.eliminar(ordinal);
+                if (lista.estaVacio()) {
+                    listas.remove(trigrama);
+                }
+            }
+        }
+    }
+
+    /**
+     * Obtiene las canciones que podrían contener el texto (hay que verificarlas)
+     *
+     * @param texto Texto buscado
+     * @return Ordinales candidatos, o null si el texto es demasiado corto para el índice
+     */
+    public BitmapComprimido candidatos(String texto) {
+        Set<String> trigramas = new HashSet<>();
+        agregarTrigramas(normalizar(texto), trigramas);
+        if (trigramas.isEmpty()) {
+            return null;
+        }
+
+        List<BitmapComprimido> mapas = new ArrayList<>(trigramas.size());
+        for (String trigrama : trigramas) {
+            BitmapComprimido lista = listas.get(trigrama);
+            if (lista == null) {
+                return new BitmapComprimido();
+            }
+            mapas.add(lista);
+        }
+        mapas.sort(Comparator.comparingInt(BitmapComprimido::getCardinalidad));
+
+        BitmapComprimido resultado = mapas.get(0).copiar();
+        for (int i = 1; i < mapas.size() && !resultado.estaVacio(); i++) {
+            resultado = resultado.and(mapas.get(i));
+        }
+        return resultado;
+    }
+
+    /**
+     * Normaliza un texto como lo compara la búsqueda parcial (minúsculas)
+     *
+     * @param texto Texto a normalizar
+     * @return Texto en minúsculas, sin espacios en los extremos
+     */
+    public static String normalizar(String texto) {
+        return texto == null ? "" : texto.trim().toLowerCase();
+    }
+
+    private static void agregarTrigramas(String texto, Set<String> trigramas) {
+        for (int i = 0; i + LONGITUD_MINIMA <= texto.length(); i++) {
+            trigramas.add(texto.substring(i, i + LONGITUD_MINIMA));
+        }
+    }
+
+    /**
+     * Limpia el índice
+     */
+    public void limpiar() {
+        listas.clear();
+        trigramasPorOrdinal.clear();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("IndiceTrigramas[documentos=%d, trigramas=%d]", trigramasPorOrdinal.size(), listas.size());
+    }
+}
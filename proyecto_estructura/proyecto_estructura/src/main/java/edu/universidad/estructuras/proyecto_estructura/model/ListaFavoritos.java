@@ -0,0 +1,186 @@
+package edu.universidad.estructuras.proyecto_estructura.model;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Lista de canciones favoritas: conserva el orden en que se agregaron y no admite
+ * repetidas. Guarda las canciones en un ArrayList (acceso por posición) y además en
+ * un HashSet, de modo que saber si una canción es favorita no recorre la lista.
+ *
+ * Complejidad temporal (n = cantidad de favoritos):
+ * - contains / esFavorita: O(1)
+ * - add (al final): O(1) amortizado
+ * - get: O(1)
+ * - remove: O(n) (desplaza los elementos siguientes para conservar el orden)
+ *
+ * Se usa como cualquier List (la interfaz la recorre, la copia a listas observables, etc.).
+ *
+ */
+public class ListaFavoritos extends AbstractList<Cancion> implements RandomAccess {
+    private final ArrayList<Cancion> orden;
+    private final HashSet<Cancion> miembros;
+
+    /**
+     * Constructor de una lista vacía
+     */
+    public ListaFavoritos() {
+        this.orden = new ArrayList<>();
+        this.miembros = new HashSet<>();
+    }
+
+    /**
+     * Constructor a partir de otra colección (se omiten las repetidas)
+     *
+     * @param canciones Canciones iniciales en orden
+     */
+    public ListaFavoritos(Collection<Cancion> canciones) {
+        this.orden = new ArrayList<>(canciones.size());
+        this.miembros = new HashSet<>(Math.max(16, canciones.size() * 4 / 3 + 1));
+        // Sin llamar a add(): un método sobrescribible no debe usarse antes de terminar el constructor
+        for (Cancion cancion : canciones) {
+            if (cancion != null && miembros.add(cancion)) {
+                orden.add(cancion);
+            }
+        }
+    }
+
+    @Override
+    public Cancion get(int indice) {
+        return orden.get(indice);
+    }
+
+    @Override
+    public int size() {
+        return orden.size();
+    }
+
+    @Override
+    public boolean contains(Object objeto) {
+        return miembros.contains(objeto);
+    }
+
+    @Override
+    public int indexOf(Object objeto) {
+        return miembros.contains(objeto) ? orden.indexOf(objeto) : -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object objeto) {
+        return indexOf(objeto);
+    }
+
+    /**
+     * Agrega la canción al final si no estaba
+     *
+     * @param cancion Canción a agregar
+     * @return true si se agregó, false si ya estaba
+     */
+    @Override
+    public boolean add(Cancion cancion) {
+        if (cancion == null || !miembros.add(cancion)) {
+            return false;
+        }
+        orden.add(cancion);
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Inserta la canción en una posición
+     *
+     * @throws IllegalArgumentException Si la canción ya está en la lista
+     */
+    @Override
+    public void add(int indice, Cancion cancion) {
+        Objects.requireNonNull(cancion, "La canción no puede ser null");
+        if (indice < 0 || indice > orden.size()) {
+            throw new IndexOutOfBoundsException("Posición fuera de la lista: " + indice);
+        }
+        if (!miembros.add(cancion)) {
+            throw new IllegalArgumentException("La canción ya está en favoritos: " + cancion.getId());
+        }
+        orden.add(indice, cancion);
+        modCount++;
+    }
+
+    /**
+     * Reemplaza la canción de una posición
+     *
+     * @throws IllegalArgumentException Si la nueva canción ya está en otra posición
+     */
+    @Override
+    public Cancion set(int indice, Cancion cancion) {
+        Objects.requireNonNull(cancion, "La canción no puede ser null");
+        Cancion anterior = orden.get(indice);
+        if (!anterior.equals(cancion)) {
+            if (miembros.contains(cancion)) {
+                throw new IllegalArgumentException("La canción ya está en favoritos: " + cancion.getId());
+            }
+            miembros.remove(anterior);
+            miembros.add(cancion);
+        }
+        orden.set(indice, cancion);
+        return anterior;
+    }
+
+    @Override
+    public Cancion remove(int indice) {
+        Cancion eliminada = orden.remove(indice);
+        miembros.remove(eliminada);
+        modCount++;
+        return eliminada;
+    }
+
+    @Override
+    public boolean remove(Object objeto) {
+        if (!miembros.remove(objeto)) {
+            return false;
+        }
+        orden.remove(objeto);
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> canciones) {
+        Objects.requireNonNull(canciones);
+        return removeIf(canciones::contains);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> canciones) {
+        Objects.requireNonNull(canciones);
+        return removeIf(cancion -> !canciones.contains(cancion));
+    }
+
+    /**
+     * Elimina en una sola pasada (O(n)) las canciones que cumplen el predicado
+     */
+    @Override
+    public boolean removeIf(Predicate<? super Cancion> filtro) {
+        boolean eliminadas = orden.removeIf(filtro);
+        if (eliminadas) {
+            miembros.clear();
+            miembros.addAll(orden);
+            modCount++;
+        }
+        return eliminadas;
+    }
+
+    /**
+     * Reordena la lista (las canciones no cambian, solo su posición)
+     */
+    @Override
+    public void sort(Comparator<? super Cancion> comparador) {
+        orden.sort(comparador);
+        modCount++;
+    }
+
+    @Override
+    public void clear() {
+        orden.clear();
+        miembros.clear();
+        modCount++;
+    }
+}
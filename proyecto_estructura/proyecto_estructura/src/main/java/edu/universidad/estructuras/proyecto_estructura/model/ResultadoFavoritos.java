@@ -0,0 +1,109 @@
+package edu.universidad.estructuras.proyecto_estructura.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de agregar o eliminar varias canciones de favoritos en un solo lote:
+ * el estado de cada canción en el mismo orden en que se pidieron.
+ *
+ */
+public class ResultadoFavoritos {
+    private final List<Cancion> canciones;
+    private final List<Estado> estados;
+    private int aplicadas;
+
+    /**
+     * Estado de una canción del lote
+     */
+    public enum Estado {
+        AGREGADA,   // no estaba y se agregó
+        ELIMINADA,  // estaba y se eliminó
+        YA_ESTABA,  // se pidió agregar pero ya era favorita
+        NO_ESTABA,  // se pidió eliminar pero no era favorita
+        INVALIDA    // canción null
+    }
+
+    /**
+     * Constructor de un resultado vacío
+     *
+     * @param capacidad Cantidad esperada de canciones
+     */
+    ResultadoFavoritos(int capacidad) {
+        this.canciones = new ArrayList<>(capacidad);
+        this.estados = new ArrayList<>(capacidad);
+    }
+
+    void registrar(Cancion cancion, Estado estado) {
+        canciones.add(cancion);
+        estados.add(estado);
+        if (estado == Estado.AGREGADA || estado == Estado.ELIMINADA) {
+            aplicadas++;
+        }
+    }
+
+    /**
+     * Obtiene la cantidad de canciones del lote
+     *
+     * @return Cantidad de canciones pedidas
+     */
+    public int getCantidad() {
+        return canciones.size();
+    }
+
+    public Cancion getCancion(int indice) {
+        return canciones.get(indice);
+    }
+
+    public Estado getEstado(int indice) {
+        return estados.get(indice);
+    }
+
+    public List<Estado> getEstados() {
+        return Collections.unmodifiableList(estados);
+    }
+
+    /**
+     * Obtiene la cantidad de canciones que cambiaron la lista de favoritos
+     *
+     * @return Canciones agregadas o eliminadas
+     */
+    public int getCantidadAplicadas() {
+        return aplicadas;
+    }
+
+    /**
+     * Obtiene la cantidad de canciones que no cambiaron nada (ya estaban, no estaban o null)
+     *
+     * @return Canciones omitidas
+     */
+    public int getCantidadOmitidas() {
+        return canciones.size() - aplicadas;
+    }
+
+    /**
+     * Obtiene las canciones que cambiaron la lista de favoritos, en orden
+     *
+     * @return Canciones agregadas o eliminadas
+     */
+    public List<Cancion> getAplicadas() {
+        List<Cancion> resultado = new ArrayList<>(aplicadas);
+        for (int i = 0; i < canciones.size(); i++) {
+            if (estados.get(i) == Estado.AGREGADA || estados.get(i) == Estado.ELIMINADA) {
+                resultado.add(canciones.get(i));
+            }
+        }
+        return resultado;
+    }
+
+    public boolean huboCambios() {
+        return aplicadas > 0;
+    }
+
+    @Override
+    public String toString() {
+        return "ResultadoFavoritos[canciones=" + canciones.size() + ", aplicadas=" + aplicadas +
+                ", omitidas=" + getCantidadOmitidas() + "]";
+    }
+}
@@ -0,0 +1,100 @@
+package edu.universidad.estructuras.proyecto_estructura.model;
+
+import java.util.Random;
+
+/**
+ * Tabla de alias (método de Vose) para muestrear índices con probabilidad
+ * proporcional a su peso.
+ *
+ * Complejidad temporal (n = cantidad de pesos):
+ * - Construir: O(n)
+ * - Muestrear: O(1) (una columna al azar y una moneda sesgada)
+ *
+ */
+public class TablaAlias {
+    private final double[] probabilidad;
+    private final int[] alias;
+    private final long pesoTotal;
+
+    /**
+     * Construye la tabla a partir de pesos enteros
+     *
+     * @param pesos Peso de cada índice (mayor o igual a 0, al menos uno positivo)
+     */
+    public TablaAlias(int[] pesos) {
+        int n = pesos.length;
+        long total = 0;
+        for (int peso : pesos) {
+            if (peso < 0) {
+                throw new IllegalArgumentException("Los pesos no pueden ser negativos");
+            }
+            total += peso;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("Se necesita al menos un peso positivo");
+        }
+
+        this.probabilidad = new double[n];
+        this.alias = new int[n];
+        this.pesoTotal = total;
+
+        // Pesos escalados para que el promedio sea 1; se reparten en pequeños (< 1) y grandes
+        double[] escalados = new double[n];
+        int[] pequenos = new int[n];
+        int[] grandes = new int[n];
+        int cantidadPequenos = 0;
+        int cantidadGrandes = 0;
+        for (int i = 0; i < n; i++) {
+            escalados[i] = (double) pesos[i] * n / total;
+            if (escalados[i] < 1.0) {
+                pequenos[cantidadPequenos++] = i;
+            } else {
+                grandes[cantidadGrandes++] = i;
+            }
+        }
+
+        // Cada columna pequeña se completa con masa de una grande
+        while (cantidadPequenos > 0 && cantidadGrandes > 0) {
+            int pequeno = pequenos[--cantidadPequenos];
+            int grande = grandes[cantidadGrandes - 1];
+            probabilidad[pequeno] = escalados[pequeno];
+            alias[pequeno] = grande;
+            escalados[grande] = (escalados[grande] + escalados[pequeno]) - 1.0;
+            if (escalados[grande] < 1.0) {
+                cantidadGrandes--;
+                pequenos[cantidadPequenos++] = grande;
+            }
+        }
+        // Lo que queda (por redondeo) ocupa su columna completa
+        while (cantidadGrandes > 0) {
+            probabilidad[grandes[--cantidadGrandes]] = 1.0;
+        }
+        while (cantidadPequenos > 0) {
+            probabilidad[pequenos[--cantidadPequenos]] = 1.0;
+        }
+    }
+
+    /**
+     * Muestrea un índice con probabilidad peso[i] / suma de pesos
+     *
+     * @param random Generador de números aleatorios
+     * @return Índice elegido
+     */
+    public int muestrear(Random random) {
+        int columna = random.nextInt(probabilidad.length);
+        return random.nextDouble() < probabilidad[columna] ? columna : alias[columna];
+    }
+
+    public int getCantidad() {
+        return probabilidad.length;
+    }
+
+    public long getPesoTotal() {
+        return pesoTotal;
+    }
+
+    @Override
+    public String toString() {
+        return "TablaAlias[indices=" + probabilidad.length + ", pesoTotal=" + pesoTotal + "]";
+    }
+}
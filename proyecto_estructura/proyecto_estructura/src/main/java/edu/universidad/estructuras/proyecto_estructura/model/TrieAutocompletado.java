@@ -1,7 +1,11 @@
 package edu.universidad.estructuras.proyecto_estructura.model;
 
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.*;
+import java.util.function.UnaryOperator;
 
 /**
  * Árbol de Prefijos (Trie) para autocompletado eficiente de títulos de canciones.
@@ -12,17 +16,32 @@ import java.util.*;
  * - Búsqueda: O(m)
  * - Autocompletado: O(p + n) donde p es la longitud del prefijo y n es el número de resultados
  *
+ * Con un diccionario (por ejemplo el de artistas de DiccionarioAtributos), el nodo final de
+ * cada palabra guarda la instancia compartida del diccionario: las sugerencias devuelven esa
+ * instancia en lugar de armar un String nuevo desde el camino en cada consulta.
+ *
  */
 public class TrieAutocompletado {
     private TrieNode raiz;
     private int cantidadPalabras;
+    private final UnaryOperator<String> diccionario; // null: las palabras se arman desde el camino
 
     /**
      * Constructor del Trie
      */
     public TrieAutocompletado() {
+        this(null);
+    }
+
+    /**
+     * Constructor del Trie con un diccionario de palabras compartidas
+     *
+     * @param diccionario Devuelve la instancia compartida de una palabra ya normalizada
+     */
+    public TrieAutocompletado(UnaryOperator<String> diccionario) {
         this.raiz = new TrieNode();
         this.cantidadPalabras = 0;
+        this.diccionario = diccionario;
     }
 
     /**
@@ -52,6 +71,9 @@ public class TrieAutocompletado {
         // Marcar el final de la palabra
         if (!nodoActual.esFinalDePalabra()) {
             nodoActual.setEsFinalDePalabra(true);
+            if (diccionario != null) {
+                nodoActual.setPalabra(diccionario.apply(palabra));
+            }
             cantidadPalabras++;
         }
 
@@ -163,6 +185,33 @@ public class TrieAutocompletado {
         return eliminarRecursivo(raiz, palabra, 0);
     }
 
+    /**
+     * Retira una inserción de la palabra: descuenta su frecuencia y la elimina del Trie
+     * cuando ya no queda ninguna (por ejemplo, un artista con varias canciones se
+     * conserva hasta que se retira la última)
+     * Complejidad: O(m) donde m es la longitud de la palabra
+     *
+     * @param palabra Palabra a retirar
+     * @return true si la palabra estaba en el Trie
+     */
+    public boolean retirar(String palabra) {
+        if (palabra == null || palabra.trim().isEmpty()) {
+            return false;
+        }
+
+        TrieNode nodo = buscarNodo(palabra.toLowerCase().trim());
+        if (nodo == null || !nodo.esFinalDePalabra()) {
+            return false;
+        }
+        if (nodo.getFrecuencia() > 1) {
+            nodo.setFrecuencia(nodo.getFrecuencia() - 1);
+        } else {
+            nodo.setFrecuencia(0);
+            eliminar(palabra);
+        }
+        return true;
+    }
+
     /**
      * Elimina una palabra de forma recursiva
      *
@@ -179,6 +228,7 @@ public class TrieAutocompletado {
             }
 
             nodoActual.setEsFinalDePalabra(false);
+            nodoActual.setPalabra(null);
             cantidadPalabras--;
 
             // Retornar true si no tiene hijos (se puede eliminar)
@@ -233,7 +283,7 @@ public class TrieAutocompletado {
     private void recolectarPalabras(TrieNode nodo, String prefijo, List<String> resultados) {
         // Si este nodo marca el final de una palabra, agregarla
         if (nodo.esFinalDePalabra()) {
-            resultados.add(prefijo);
+            resultados.add(nodo.getPalabra() != null ? nodo.getPalabra() : prefijo);
         }
 
         // Recorrer todos los hijos recursivamente
@@ -242,6 +292,98 @@ public class TrieAutocompletado {
         }
     }
 
+    /**
+     * Crea una copia profunda e independiente del Trie (conserva las frecuencias)
+     * Complejidad: O(n) donde n es el número de nodos
+     *
+     * @return Copia del Trie
+     */
+    public TrieAutocompletado copiar() {
+        TrieAutocompletado copia = new TrieAutocompletado(diccionario);
+        copia.raiz = copiarNodo(raiz);
+        copia.cantidadPalabras = cantidadPalabras;
+        return copia;
+    }
+
+    private TrieNode copiarNodo(TrieNode nodo) {
+        TrieNode copia = new TrieNode();
+        copia.setEsFinalDePalabra(nodo.esFinalDePalabra());
+        copia.setFrecuencia(nodo.getFrecuencia());
+        copia.setPalabra(nodo.getPalabra());
+        for (Map.Entry<Character, TrieNode> entrada : nodo.getHijos().entrySet()) {
+            copia.getHijos().put(entrada.getKey(), copiarNodo(entrada.getValue()));
+        }
+        return copia;
+    }
+
+    /**
+     * Escribe el Trie en formato binario (recorrido en preorden, conserva las frecuencias)
+     * Complejidad: O(n) donde n es el número de nodos
+     *
+     * @param salida Destino de los datos
+     * @throws IOException Si falla la escritura
+     */
+    public void escribir(DataOutput salida) throws IOException {
+        salida.writeInt(cantidadPalabras);
+        escribirNodo(raiz, salida);
+    }
+
+    private void escribirNodo(TrieNode nodo, DataOutput salida) throws IOException {
+        salida.writeBoolean(nodo.esFinalDePalabra());
+        salida.writeInt(nodo.getFrecuencia());
+        salida.writeInt(nodo.getHijos().size());
+        for (Map.Entry<Character, TrieNode> entrada : nodo.getHijos().entrySet()) {
+            salida.writeChar(entrada.getKey());
+            escribirNodo(entrada.getValue(), salida);
+        }
+    }
+
+    /**
+     * Lee un Trie escrito con escribir(), sin volver a insertar las palabras
+     *
+     * @param entrada Origen de los datos
+     * @return Trie leído
+     * @throws IOException Si falla la lectura o los datos no son válidos
+     */
+    public static TrieAutocompletado leer(DataInput entrada) throws IOException {
+        return leer(entrada, null);
+    }
+
+    /**
+     * Lee un Trie escrito con escribir() y comparte sus palabras a través del diccionario
+     *
+     * @param entrada Origen de los datos
+     * @param diccionario Diccionario de palabras compartidas (null: ninguno)
+     * @return Trie leído
+     * @throws IOException Si falla la lectura o los datos no son válidos
+     */
+    public static TrieAutocompletado leer(DataInput entrada, UnaryOperator<String> diccionario) throws IOException {
+        TrieAutocompletado trie = new TrieAutocompletado(diccionario);
+        trie.cantidadPalabras = entrada.readInt();
+        trie.leerNodo(trie.raiz, new StringBuilder(), entrada);
+        return trie;
+    }
+
+    private void leerNodo(TrieNode nodo, StringBuilder camino, DataInput entrada) throws IOException {
+        nodo.setEsFinalDePalabra(entrada.readBoolean());
+        nodo.setFrecuencia(entrada.readInt());
+        if (nodo.esFinalDePalabra() && diccionario != null) {
+            nodo.setPalabra(diccionario.apply(camino.toString()));
+        }
+        int hijos = entrada.readInt();
+        if (hijos < 0) {
+            throw new IOException("Cantidad de hijos inválida: " + hijos);
+        }
+        for (int i = 0; i < hijos; i++) {
+            TrieNode hijo = new TrieNode();
+            char c = entrada.readChar();
+            nodo.getHijos().put(c, hijo);
+            camino.append(c);
+            leerNodo(hijo, camino, entrada);
+            camino.setLength(camino.length() - 1);
+        }
+    }
+
     /**
      * Limpia todo el Trie
      */
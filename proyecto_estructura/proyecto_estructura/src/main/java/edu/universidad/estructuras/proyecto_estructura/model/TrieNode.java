@@ -13,6 +13,7 @@ public class TrieNode {
     private final Map<Character, TrieNode> hijos;
     private boolean esFinalDePalabra;
     private int frecuencia; // Para ordenar sugerencias por popularidad
+    private String palabra; // Palabra completa compartida (solo en tries con diccionario)
 
     /**
      * Constructor del nodo Trie
@@ -74,4 +75,17 @@ public class TrieNode {
     public void setFrecuencia(int frecuencia) {
         this.frecuencia = frecuencia;
     }
+
+    /**
+     * Obtiene la palabra que termina en este nodo, si el Trie la guarda
+     *
+     * @return Palabra compartida, o null
+     */
+    public String getPalabra() {
+        return palabra;
+    }
+
+    public void setPalabra(String palabra) {
+        this.palabra = palabra;
+    }
 }
@@ -1,21 +1,31 @@
 package edu.universidad.estructuras.proyecto_estructura.model;
 
 
+import edu.universidad.estructuras.proyecto_estructura.service.CargaDiferida;
 import edu.universidad.estructuras.proyecto_estructura.service.PersistenciaService;
+import edu.universidad.estructuras.proyecto_estructura.service.PopularidadService;
+import edu.universidad.estructuras.proyecto_estructura.service.TendenciasService;
+import edu.universidad.estructuras.proyecto_estructura.service.TipoRegistro;
 
-import java.util.LinkedList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Objects;
 
 /**
  * Representa un usuario de la plataforma MusicApp.
- * Almacena información del perfil y lista de canciones favoritas.
+ * Almacena información del perfil y lista de canciones favoritas
+ * (ListaFavoritos: en orden de agregado y con consulta de pertenencia en O(1)).
+ *
+ * Los favoritos de un usuario guardado se leen del almacén en el primer acceso y se
+ * pueden descargar si no se usan (ver CargaDiferida).
  *
  */
 public class Usuario {
     private String username;
     private String password;
     private String nombre;
-    private LinkedList<Cancion> listaFavoritos;
+    private volatile ListaFavoritos listaFavoritos; // null: guardados pero sin cargar
     private TipoUsuario tipoUsuario;
 
     /**
@@ -39,7 +49,7 @@ public class Usuario {
         this.password = password;
         this.nombre = nombre;
         this.tipoUsuario = tipoUsuario;
-        this.listaFavoritos = new LinkedList<>();
+        this.listaFavoritos = new ListaFavoritos();
     }
 
     /**
@@ -78,12 +88,37 @@ public class Usuario {
         this.nombre = nombre;
     }
 
-    public LinkedList<Cancion> getListaFavoritos() {
+    public ListaFavoritos getListaFavoritos() {
+        ListaFavoritos lista = listaFavoritos;
+        CargaDiferida cargaDiferida = PersistenciaService.getInstance().getCargaDiferida();
+        if (lista == null) {
+            // Primer acceso: se leen del almacén de usuarios
+            lista = new ListaFavoritos(cargaDiferida.cargarFavoritos(username));
+            listaFavoritos = lista;
+        } else {
+            cargaDiferida.tocar(username);
+        }
+        return lista;
+    }
+
+    /**
+     * Obtiene los favoritos solo si ya están en memoria (no los carga ni cuenta como uso)
+     *
+     * @return Lista de favoritos, o null si no están cargados
+     */
+    public ListaFavoritos getFavoritosEnMemoria() {
         return listaFavoritos;
     }
 
-    public void setListaFavoritos(LinkedList<Cancion> listaFavoritos) {
-        this.listaFavoritos = listaFavoritos;
+    /**
+     * Descarta los favoritos de memoria: se vuelven a leer del almacén en el siguiente acceso
+     */
+    public void liberarFavoritos() {
+        listaFavoritos = null;
+    }
+
+    public void setListaFavoritos(List<Cancion> listaFavoritos) {
+        this.listaFavoritos = new ListaFavoritos(listaFavoritos);
     }
 
     public TipoUsuario getTipoUsuario() {
@@ -101,10 +136,11 @@ public class Usuario {
      * @return true si se agregó exitosamente, false si ya existía
      */
     public boolean agregarFavorito(Cancion cancion) {
-        if (!listaFavoritos.contains(cancion)) {
-            listaFavoritos.add(cancion);
-            // Auto-guardar
-            PersistenciaService.getInstance().guardarFavoritos();
+        if (getListaFavoritos().add(cancion)) {
+            PopularidadService.getInstance().registrarFavorito(cancion);
+            TendenciasService.getInstance().registrarFavorito(cancion);
+            // Auto-guardar (una línea en el diario de cambios)
+            PersistenciaService.getInstance().anotar(TipoRegistro.FAV_ADD, username, cancion.getId());
             return true;
         }
         return false;
@@ -117,10 +153,66 @@ public class Usuario {
      * @return true si se eliminó exitosamente, false si no existía
      */
     public boolean eliminarFavorito(Cancion cancion) {
-        boolean resultado = listaFavoritos.remove(cancion);
+        boolean resultado = getListaFavoritos().remove(cancion);
         if (resultado) {
-            // Auto-guardar
-            PersistenciaService.getInstance().guardarFavoritos();
+            PopularidadService.getInstance().retirarFavorito(cancion);
+            // Auto-guardar (una línea en el diario de cambios)
+            PersistenciaService.getInstance().anotar(TipoRegistro.FAV_DEL, username, cancion.getId());
+        }
+        return resultado;
+    }
+
+    /**
+     * Agrega varias canciones a favoritos en un solo lote. Cada canción agregada se anota
+     * en el diario de cambios y todas llegan al disco juntas, en una sola escritura.
+     *
+     * @param canciones Canciones a agregar, en orden
+     * @return Estado de cada canción (agregada, ya estaba o inválida)
+     */
+    public ResultadoFavoritos agregarFavoritos(Collection<Cancion> canciones) {
+        ResultadoFavoritos resultado = new ResultadoFavoritos(canciones.size());
+        ListaFavoritos lista = getListaFavoritos();
+        for (Cancion cancion : canciones) {
+            if (cancion == null) {
+                resultado.registrar(null, ResultadoFavoritos.Estado.INVALIDA);
+            } else if (lista.add(cancion)) {
+                PopularidadService.getInstance().registrarFavorito(cancion);
+                TendenciasService.getInstance().registrarFavorito(cancion);
+                PersistenciaService.getInstance().anotar(TipoRegistro.FAV_ADD, username, cancion.getId());
+                resultado.registrar(cancion, ResultadoFavoritos.Estado.AGREGADA);
+            } else {
+                resultado.registrar(cancion, ResultadoFavoritos.Estado.YA_ESTABA);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Elimina varias canciones de favoritos en un solo lote (una sola escritura del diario)
+     *
+     * @param canciones Canciones a eliminar
+     * @return Estado de cada canción (eliminada, no estaba o inválida)
+     */
+    public ResultadoFavoritos eliminarFavoritos(Collection<Cancion> canciones) {
+        ResultadoFavoritos resultado = new ResultadoFavoritos(canciones.size());
+        LinkedHashSet<Cancion> eliminadas = new LinkedHashSet<>();
+        ListaFavoritos lista = getListaFavoritos();
+        for (Cancion cancion : canciones) {
+            if (cancion == null) {
+                resultado.registrar(null, ResultadoFavoritos.Estado.INVALIDA);
+            } else if (lista.contains(cancion) && eliminadas.add(cancion)) {
+                resultado.registrar(cancion, ResultadoFavoritos.Estado.ELIMINADA);
+            } else {
+                resultado.registrar(cancion, ResultadoFavoritos.Estado.NO_ESTABA);
+            }
+        }
+        if (resultado.huboCambios()) {
+            // Una sola pasada sobre la lista en lugar de un remove O(n) por canción
+            lista.removeAll(eliminadas);
+            PopularidadService.getInstance().retirarFavoritos(eliminadas);
+            for (Cancion cancion : eliminadas) {
+                PersistenciaService.getInstance().anotar(TipoRegistro.FAV_DEL, username, cancion.getId());
+            }
         }
         return resultado;
     }
@@ -132,7 +224,7 @@ public class Usuario {
      * @return true si está en favoritos, false en caso contrario
      */
     public boolean esFavorita(Cancion cancion) {
-        return listaFavoritos.contains(cancion);
+        return getListaFavoritos().contains(cancion);
     }
 
     /**
@@ -141,7 +233,7 @@ public class Usuario {
      * @return Cantidad de favoritos
      */
     public int getCantidadFavoritos() {
-        return listaFavoritos.size();
+        return getListaFavoritos().size();
     }
 
     /**
@@ -184,7 +276,8 @@ public class Usuario {
      */
     @Override
     public String toString() {
-        return String.format("Usuario: %s (%s) - %s - %d favoritos",
-                username, nombre, tipoUsuario, listaFavoritos.size());
+        ListaFavoritos lista = listaFavoritos;
+        return String.format("Usuario: %s (%s) - %s - %s favoritos",
+                username, nombre, tipoUsuario, lista != null ? lista.size() : "?");
     }
 }
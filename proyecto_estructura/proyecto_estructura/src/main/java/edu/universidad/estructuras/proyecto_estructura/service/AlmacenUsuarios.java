@@ -0,0 +1,505 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import edu.universidad.estructuras.proyecto_estructura.model.Cancion;
+import edu.universidad.estructuras.proyecto_estructura.model.Playlist;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Almacén de los datos de cada usuario (favoritos, playlists y conexiones sociales) en un
+ * árbol B+ (data/usuarios.arbol).
+ *
+ * Cada dato es una entrada con clave (username, tipo, ítem):
+ * - F: favorito; ítem = ID de la canción, valor = número de orden (los favoritos se leen
+ *   en el orden en que se agregaron).
+ * - P: playlist; ítem = ID de la playlist, valor = nombre, descripción, fecha de creación
+ *   e IDs de sus canciones.
+ * - S: conexión social; ítem = el otro usuario. El grafo social no es dirigido, así que
+ *   cada conexión se guarda en los dos usuarios.
+ * Con el username primero, los datos de un usuario quedan juntos en unas pocas hojas.
+ *
+ * Los cambios llegan como registros del diario de cambios (aplicar()): cada uno actualiza
+ * solo las páginas de sus claves en el buffer pool, y checkpoint() las lleva al disco.
+ * Hasta entonces el diario los cubre, igual que con los demás checkpoints.
+ *
+ */
+final class AlmacenUsuarios implements Closeable {
+    static final int CAPACIDAD_PAGINAS = 256; // 1 MB de buffer pool
+    // La clave más larga es la de una conexión: dos usernames y tres bytes de separación
+    static final int MAXIMO_BYTES_CAMPO = (ArbolBMas.MAXIMO_CLAVE - 3) / 2;
+
+    private static final char FAVORITO = 'F';
+    private static final char PLAYLIST = 'P';
+    private static final char CONEXION = 'S';
+    private static final byte SEPARADOR = 0;
+
+    private final ArbolBMas arbol;
+    private final Map<String, Integer> playlistsPorUsuario; // playlists guardadas de cada usuario
+    private volatile int totalPlaylists;                     // suma de playlistsPorUsuario
+    private long siguienteOrden;
+
+    /**
+     * Lo que la carga necesita del almacén completo, leído en un solo recorrido
+     */
+    static final class Resumen {
+        private final Map<String, Integer> conteosFavoritos = new HashMap<>();
+        private final List<String> idsPlaylists = new ArrayList<>();
+        private final List<String[]> conexiones = new ArrayList<>();
+
+        /**
+         * ID de canción -> cantidad de usuarios que la tienen en favoritos
+         */
+        Map<String, Integer> getConteosFavoritos() {
+            return conteosFavoritos;
+        }
+
+        List<String> getIdsPlaylists() {
+            return idsPlaylists;
+        }
+
+        /**
+         * Pares {usuario, usuario}, cada conexión una vez
+         */
+        List<String[]> getConexiones() {
+            return conexiones;
+        }
+    }
+
+    /**
+     * Playlist guardada, con los IDs de sus canciones
+     */
+    private static final class PlaylistGuardada {
+        private String nombre;
+        private String descripcion;
+        private final String fechaCreacion;
+        private final List<String> canciones;
+
+        private PlaylistGuardada(String nombre, String descripcion, String fechaCreacion, List<String> canciones) {
+            this.nombre = nombre;
+            this.descripcion = descripcion;
+            this.fechaCreacion = fechaCreacion;
+            this.canciones = canciones;
+        }
+
+        private byte[] codificar() {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeUTF(nombre);
+                out.writeUTF(descripcion);
+                out.writeUTF(fechaCreacion);
+                out.writeInt(canciones.size());
+                for (String id : canciones) {
+                    out.writeUTF(id);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // no pasa en memoria
+            }
+            return bytes.toByteArray();
+        }
+
+        private static PlaylistGuardada decodificar(byte[] valor) {
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(valor))) {
+                String nombre = in.readUTF();
+                String descripcion = in.readUTF();
+                String fecha = in.readUTF();
+                int cantidad = in.readInt();
+                List<String> canciones = new ArrayList<>(cantidad);
+                for (int i = 0; i < cantidad; i++) {
+                    canciones.add(in.readUTF());
+                }
+                return new PlaylistGuardada(nombre, descripcion, fecha, canciones);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Playlist dañada en el almacén", e);
+            }
+        }
+    }
+
+    private AlmacenUsuarios(ArbolBMas arbol) {
+        this.arbol = arbol;
+        this.playlistsPorUsuario = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Abre el almacén (lo crea vacío si el archivo no existe)
+     *
+     * @param archivo Archivo del árbol
+     * @return Almacén abierto
+     * @throws IOException Si no se puede abrir
+     */
+    static AlmacenUsuarios abrir(Path archivo) throws IOException {
+        return new AlmacenUsuarios(ArbolBMas.abrir(archivo, CAPACIDAD_PAGINAS));
+    }
+
+    /**
+     * Indica si un username (o el ID que acompaña al username en la clave) entra en una
+     * clave del árbol
+     *
+     * @param campo Username o ID
+     * @return true si ocupa hasta MAXIMO_BYTES_CAMPO bytes en UTF-8
+     */
+    static boolean admiteEnClave(String campo) {
+        return campo.getBytes(StandardCharsets.UTF_8).length <= MAXIMO_BYTES_CAMPO;
+    }
+
+    /**
+     * Indica si un tipo de registro del diario cambia datos de este almacén
+     */
+    static boolean acepta(TipoRegistro tipo) {
+        return switch (tipo) {
+            case FAV_ADD, FAV_DEL, FOLLOW, UNFOLLOW, USUARIO_DEL, PLAYLIST_UPSERT, PLAYLIST_DEL,
+                 PLAYLIST_ADD_SONG, PLAYLIST_DEL_SONG, PLAYLIST_SONGS -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Recorre el almacén completo (al cargar): cuenta los favoritos de cada canción, junta
+     * los IDs de las playlists y las conexiones. Los datos de cada usuario no se decodifican.
+     *
+     * @return Resumen para la carga
+     */
+    synchronized Resumen resumir() {
+        Resumen resumen = new Resumen();
+        long[] maximoOrden = {0};
+        playlistsPorUsuario.clear();
+        totalPlaylists = 0;
+        arbol.recorrer(new byte[0], (clave, valor) -> {
+            String[] partes = separar(clave);
+            switch (partes[1].charAt(0)) {
+                case FAVORITO -> {
+                    resumen.conteosFavoritos.merge(partes[2], 1, Integer::sum);
+                    maximoOrden[0] = Math.max(maximoOrden[0], leerOrden(valor));
+                }
+                case PLAYLIST -> {
+                    resumen.idsPlaylists.add(partes[2]);
+                    playlistsPorUsuario.merge(partes[0], 1, Integer::sum);
+                    totalPlaylists++;
+                }
+                case CONEXION -> {
+                    if (partes[0].compareTo(partes[2]) < 0) {
+                        resumen.conexiones.add(new String[]{partes[0], partes[2]});
+                    }
+                }
+                default -> { }
+            }
+        });
+        siguienteOrden = maximoOrden[0] + 1;
+        return resumen;
+    }
+
+    /**
+     * Aplica un cambio del diario a las páginas del árbol. Todos se pueden aplicar de nuevo
+     * sin efecto, como en la recuperación (ver TipoRegistro).
+     *
+     * @param registro Registro del diario (los tipos que no acepta() se ignoran)
+     */
+    synchronized void aplicar(RegistroDiario registro) {
+        // Username e ítem forman la clave: uno demasiado largo (diarios anteriores a la
+        // validación) se ignora en lugar de fallar en cada reproducción del diario
+        for (int i = 0; i < Math.min(registro.getTipo().getCantidadCampos(), 2); i++) {
+            if (!admiteEnClave(registro.getCampo(i))) {
+                System.err.println("  ✗ " + registro.getTipo() + " con un campo de más de "
+                        + MAXIMO_BYTES_CAMPO + " bytes: no entra en el almacén, se ignora");
+                return;
+            }
+        }
+        String username = registro.getTipo().getCantidadCampos() > 0 ? registro.getCampo(0) : "";
+        switch (registro.getTipo()) {
+            case FAV_ADD -> guardarFavorito(username, registro.getCampo(1));
+            case FAV_DEL -> arbol.eliminar(clave(username, FAVORITO, registro.getCampo(1)));
+            case FOLLOW -> guardarConexion(username, registro.getCampo(1));
+            case UNFOLLOW -> {
+                arbol.eliminar(clave(username, CONEXION, registro.getCampo(1)));
+                arbol.eliminar(clave(registro.getCampo(1), CONEXION, username));
+            }
+            case USUARIO_DEL -> eliminarUsuario(username);
+            case PLAYLIST_UPSERT -> {
+                PlaylistGuardada playlist = leerPlaylist(username, registro.getCampo(1));
+                if (playlist == null) {
+                    playlist = new PlaylistGuardada(registro.getCampo(2), registro.getCampo(3),
+                            registro.getCampo(4), new ArrayList<>());
+                } else {
+                    // Como PlaylistService.restaurarPlaylist(): se conserva la fecha de creación
+                    playlist.nombre = registro.getCampo(2);
+                    playlist.descripcion = registro.getCampo(3);
+                }
+                guardarPlaylist(username, registro.getCampo(1), playlist);
+            }
+            case PLAYLIST_DEL -> {
+                if (arbol.eliminar(clave(username, PLAYLIST, registro.getCampo(1)))) {
+                    playlistsPorUsuario.computeIfPresent(username, (u, cantidad) -> cantidad > 1 ? cantidad - 1 : null);
+                    totalPlaylists--;
+                }
+            }
+            case PLAYLIST_ADD_SONG, PLAYLIST_DEL_SONG, PLAYLIST_SONGS -> {
+                PlaylistGuardada playlist = leerPlaylist(username, registro.getCampo(1));
+                if (playlist == null) {
+                    return;
+                }
+                String campo = registro.getCampo(2);
+                if (registro.getTipo() == TipoRegistro.PLAYLIST_SONGS) {
+                    playlist.canciones.clear();
+                    for (String id : campo.split(",")) {
+                        if (!id.isEmpty()) {
+                            playlist.canciones.add(id);
+                        }
+                    }
+                } else if (registro.getTipo() == TipoRegistro.PLAYLIST_DEL_SONG) {
+                    playlist.canciones.remove(campo);
+                } else if (!playlist.canciones.contains(campo)) {
+                    playlist.canciones.add(campo); // como Playlist.agregarCancion(): sin repetidas
+                }
+                guardarPlaylist(username, registro.getCampo(1), playlist);
+            }
+            default -> { }
+        }
+    }
+
+    private void guardarFavorito(String username, String idCancion) {
+        byte[] clave = clave(username, FAVORITO, idCancion);
+        if (arbol.obtener(clave) == null) {
+            arbol.insertar(clave, escribirOrden(siguienteOrden++));
+        }
+    }
+
+    private void guardarConexion(String usuario1, String usuario2) {
+        arbol.insertar(clave(usuario1, CONEXION, usuario2), new byte[0]);
+        arbol.insertar(clave(usuario2, CONEXION, usuario1), new byte[0]);
+    }
+
+    private void guardarPlaylist(String username, String id, PlaylistGuardada playlist) {
+        if (arbol.insertar(clave(username, PLAYLIST, id), playlist.codificar())) {
+            playlistsPorUsuario.merge(username, 1, Integer::sum);
+            totalPlaylists++;
+        }
+    }
+
+    private PlaylistGuardada leerPlaylist(String username, String id) {
+        byte[] valor = arbol.obtener(clave(username, PLAYLIST, id));
+        return valor != null ? PlaylistGuardada.decodificar(valor) : null;
+    }
+
+    /**
+     * Elimina todos los datos de un usuario y sus conexiones en los demás usuarios
+     */
+    private void eliminarUsuario(String username) {
+        List<byte[]> claves = new ArrayList<>();
+        List<String> conectados = new ArrayList<>();
+        arbol.recorrer(prefijo(username), (clave, valor) -> {
+            claves.add(clave);
+            String[] partes = separar(clave);
+            if (partes[1].charAt(0) == CONEXION) {
+                conectados.add(partes[2]);
+            }
+        });
+        for (String otro : conectados) {
+            arbol.eliminar(clave(otro, CONEXION, username));
+        }
+        for (byte[] clave : claves) {
+            arbol.eliminar(clave);
+        }
+        Integer playlists = playlistsPorUsuario.remove(username);
+        if (playlists != null) {
+            totalPlaylists -= playlists;
+        }
+    }
+
+    /**
+     * Guarda los datos que están en memoria (al migrar desde los archivos anteriores)
+     *
+     * @param favoritos Favoritos de cada usuario, en orden
+     * @param playlists Playlists de cada usuario
+     * @param conexiones Pares {usuario, usuario}
+     */
+    synchronized void importar(Map<String, ? extends List<Cancion>> favoritos,
+                               Map<String, ? extends List<Playlist>> playlists, List<String[]> conexiones) {
+        for (Map.Entry<String, ? extends List<Cancion>> entrada : favoritos.entrySet()) {
+            if (!admiteEnClave(entrada.getKey())) {
+                continue;
+            }
+            for (Cancion cancion : entrada.getValue()) {
+                guardarFavorito(entrada.getKey(), cancion.getId());
+            }
+        }
+        for (Map.Entry<String, ? extends List<Playlist>> entrada : playlists.entrySet()) {
+            if (!admiteEnClave(entrada.getKey())) {
+                continue;
+            }
+            for (Playlist playlist : entrada.getValue()) {
+                List<String> ids = new ArrayList<>();
+                for (Cancion cancion : playlist.getCanciones()) {
+                    ids.add(cancion.getId());
+                }
+                guardarPlaylist(entrada.getKey(), playlist.getId(), new PlaylistGuardada(playlist.getNombre(),
+                        playlist.getDescripcion(), playlist.getFechaCreacion().toString(), ids));
+            }
+        }
+        for (String[] conexion : conexiones) {
+            if (admiteEnClave(conexion[0]) && admiteEnClave(conexion[1])) {
+                guardarConexion(conexion[0], conexion[1]);
+            }
+        }
+    }
+
+    /**
+     * Lee los favoritos de un usuario (solo las hojas de ese usuario)
+     *
+     * @param username Usuario
+     * @return IDs de las canciones en el orden en que se agregaron
+     */
+    List<String> leerFavoritos(String username) {
+        List<long[]> ordenes = new ArrayList<>();
+        List<String> ids = new ArrayList<>();
+        arbol.recorrer(prefijo(username, FAVORITO), (clave, valor) -> {
+            ordenes.add(new long[]{leerOrden(valor), ids.size()});
+            ids.add(separar(clave)[2]);
+        });
+        ordenes.sort(Comparator.comparingLong(orden -> orden[0]));
+        List<String> ordenados = new ArrayList<>(ids.size());
+        for (long[] orden : ordenes) {
+            ordenados.add(ids.get((int) orden[1]));
+        }
+        return ordenados;
+    }
+
+    /**
+     * Lee las playlists de un usuario (solo las hojas de ese usuario)
+     *
+     * @param username Usuario
+     * @return Playlists en orden de ID, con las canciones que siguen en el catálogo
+     */
+    List<Playlist> leerPlaylists(String username) {
+        Map<String, PlaylistGuardada> guardadas = new LinkedHashMap<>();
+        arbol.recorrer(prefijo(username, PLAYLIST), (clave, valor) ->
+                guardadas.put(separar(clave)[2], PlaylistGuardada.decodificar(valor)));
+
+        // Fuera del lock del árbol: el catálogo tiene su propio lock
+        CancionService cancionService = CancionService.getInstance();
+        List<Playlist> playlists = new ArrayList<>(guardadas.size());
+        for (Map.Entry<String, PlaylistGuardada> entrada : guardadas.entrySet()) {
+            PlaylistGuardada guardada = entrada.getValue();
+            Playlist playlist = new Playlist(entrada.getKey(), guardada.nombre, guardada.descripcion, username);
+            try {
+                playlist.setFechaCreacion(LocalDateTime.parse(guardada.fechaCreacion));
+            } catch (DateTimeParseException e) {
+                // Se conserva la fecha actual
+            }
+            for (String id : guardada.canciones) {
+                Cancion cancion = cancionService.obtenerCancion(id);
+                if (cancion != null) {
+                    playlist.getCanciones().add(cancion);
+                }
+            }
+            playlists.add(playlist);
+        }
+        return playlists;
+    }
+
+    /**
+     * Lee los IDs de las playlists de un usuario sin decodificarlas (solo las claves)
+     *
+     * @param username Usuario
+     * @return IDs en orden
+     */
+    List<String> leerIdsPlaylists(String username) {
+        List<String> ids = new ArrayList<>();
+        arbol.recorrer(prefijo(username, PLAYLIST), (clave, valor) -> ids.add(separar(clave)[2]));
+        return ids;
+    }
+
+    /**
+     * Obtiene los usuarios que tienen playlists guardadas
+     */
+    Set<String> getUsuariosConPlaylists() {
+        return new HashSet<>(playlistsPorUsuario.keySet());
+    }
+
+    int getCantidadPlaylists(String username) {
+        return playlistsPorUsuario.getOrDefault(username, 0);
+    }
+
+    /**
+     * Obtiene cuántas playlists hay guardadas en total, sin recorrer el árbol
+     */
+    int getCantidadTotalPlaylists() {
+        return totalPlaylists;
+    }
+
+    /**
+     * Indica si el buffer pool acumula tantas páginas modificadas que conviene un checkpoint
+     */
+    boolean necesitaCheckpoint() {
+        return arbol.getPaginasSucias() > arbol.getCapacidad() / 2;
+    }
+
+    /**
+     * Escribe en disco las páginas modificadas
+     *
+     * @return true si había cambios
+     */
+    synchronized boolean checkpoint() {
+        return arbol.checkpoint();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        arbol.close();
+    }
+
+    private static byte[] clave(String username, char tipo, String item) {
+        byte[] usuario = username.getBytes(StandardCharsets.UTF_8);
+        byte[] resto = item.getBytes(StandardCharsets.UTF_8);
+        byte[] clave = new byte[usuario.length + 3 + resto.length];
+        System.arraycopy(usuario, 0, clave, 0, usuario.length);
+        clave[usuario.length] = SEPARADOR;
+        clave[usuario.length + 1] = (byte) tipo;
+        clave[usuario.length + 2] = SEPARADOR;
+        System.arraycopy(resto, 0, clave, usuario.length + 3, resto.length);
+        return clave;
+    }
+
+    private static byte[] prefijo(String username, char tipo) {
+        return clave(username, tipo, "");
+    }
+
+    private static byte[] prefijo(String username) {
+        byte[] usuario = username.getBytes(StandardCharsets.UTF_8);
+        return Arrays.copyOf(usuario, usuario.length + 1); // termina con SEPARADOR
+    }
+
+    /**
+     * Separa una clave en {username, tipo, ítem}
+     */
+    private static String[] separar(byte[] clave) {
+        int separador = 0;
+        while (clave[separador] != SEPARADOR) {
+            separador++;
+        }
+        return new String[]{
+                new String(clave, 0, separador, StandardCharsets.UTF_8),
+                String.valueOf((char) clave[separador + 1]),
+                new String(clave, separador + 3, clave.length - separador - 3, StandardCharsets.UTF_8)
+        };
+    }
+
+    private static byte[] escribirOrden(long orden) {
+        return ByteBuffer.allocate(Long.BYTES).putLong(orden).array();
+    }
+
+    private static long leerOrden(byte[] valor) {
+        return ByteBuffer.wrap(valor).getLong();
+    }
+
+    @Override
+    public String toString() {
+        return "AlmacenUsuarios[" + arbol + ", lecturas=" + arbol.getLecturas() +
+                ", aciertos=" + arbol.getAciertos() + "]";
+    }
+}
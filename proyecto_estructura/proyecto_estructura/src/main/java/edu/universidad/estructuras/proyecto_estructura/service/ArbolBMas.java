@@ -0,0 +1,506 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Árbol B+ sobre un archivo de páginas (ArchivoPaginas), con claves y valores en bytes.
+ *
+ * Las claves se comparan byte a byte sin signo, así las que empiezan igual quedan juntas
+ * y recorrer(prefijo) lee solo las hojas de ese rango. Las hojas están enlazadas en orden.
+ * Un valor grande (más de MAXIMO_EN_LINEA bytes) va en una cadena de páginas de desborde
+ * y la hoja guarda solo su referencia.
+ *
+ * Cada página es un nodo:
+ * - Hoja: tipo, cantidad, siguiente hoja y las entradas (clave, valor en línea o referencia).
+ * - Interna: tipo, cantidad, primer hijo y las entradas (clave separadora, hijo derecho).
+ *
+ * Un nodo que no entra en su página se divide en dos y sube una clave separadora al padre;
+ * al dividir la raíz el árbol crece un nivel. Al eliminar no se fusionan nodos: una hoja
+ * puede quedar con pocas entradas (o ninguna) y se vuelve a llenar con las inserciones de
+ * su rango.
+ *
+ * Los cambios quedan en las páginas del buffer pool y llegan al disco en checkpoint().
+ * Todos los métodos son sincronizados.
+ *
+ */
+final class ArbolBMas implements Closeable {
+    static final int MAXIMO_CLAVE = 256;
+    static final int MAXIMO_EN_LINEA = 512;
+
+    private static final byte HOJA = 1;
+    private static final byte INTERNA = 2;
+    private static final byte DESBORDE = 3;
+    private static final int CABECERA_NODO = 1 + 2 + 4;      // tipo, cantidad, siguiente/primer hijo
+    private static final int CABECERA_DESBORDE = 1 + 4 + 2;  // tipo, siguiente, bytes usados
+    private static final byte EN_LINEA = 0;
+    private static final byte DESBORDADO = 1;
+
+    private final ArchivoPaginas paginas;
+
+    /**
+     * Nodo leído de su página
+     */
+    private static final class Nodo {
+        private final int pagina;
+        private final boolean hoja;
+        private int siguiente;                    // hoja: siguiente hoja (0 si es la última)
+        private final List<byte[]> claves;
+        private final List<byte[]> celdas;        // hoja: valor en línea o referencia al desborde
+        private final List<Integer> hijos;        // interna: claves.size() + 1 hijos
+
+        private Nodo(int pagina, boolean hoja) {
+            this.pagina = pagina;
+            this.hoja = hoja;
+            this.claves = new ArrayList<>();
+            this.celdas = new ArrayList<>();
+            this.hijos = new ArrayList<>();
+        }
+
+        private int tamano() {
+            int tamano = CABECERA_NODO;
+            for (int i = 0; i < claves.size(); i++) {
+                tamano += tamanoEntrada(i);
+            }
+            return tamano;
+        }
+
+        private int tamanoEntrada(int indice) {
+            return 2 + claves.get(indice).length + (hoja ? 2 + celdas.get(indice).length : 4);
+        }
+    }
+
+    /**
+     * Resultado de dividir un nodo: la clave que sube al padre y el nodo nuevo de la derecha
+     */
+    private static final class Division {
+        private final byte[] separador;
+        private final int derecha;
+
+        private Division(byte[] separador, int derecha) {
+            this.separador = separador;
+            this.derecha = derecha;
+        }
+    }
+
+    private ArbolBMas(ArchivoPaginas paginas) {
+        this.paginas = paginas;
+    }
+
+    /**
+     * Abre un árbol (lo crea vacío si el archivo no existe)
+     *
+     * @param archivo Archivo del árbol
+     * @param capacidad Páginas que se mantienen en el buffer pool
+     * @return Árbol abierto
+     * @throws IOException Si no se puede abrir
+     */
+    static ArbolBMas abrir(Path archivo, int capacidad) throws IOException {
+        ArchivoPaginas paginas = ArchivoPaginas.abrir(archivo, capacidad);
+        ArbolBMas arbol = new ArbolBMas(paginas);
+        if (paginas.getRaiz() == 0) {
+            Nodo raiz = new Nodo(paginas.nueva(), true);
+            arbol.escribirNodo(raiz);
+            paginas.setRaiz(raiz.pagina);
+            paginas.checkpoint();
+        }
+        return arbol;
+    }
+
+    /**
+     * Busca el valor de una clave
+     *
+     * @param clave Clave
+     * @return Valor, o null si la clave no está
+     */
+    synchronized byte[] obtener(byte[] clave) {
+        try {
+            Nodo hoja = buscarHoja(clave);
+            int indice = buscar(hoja.claves, clave);
+            return indice >= 0 ? leerValor(hoja.celdas.get(indice)) : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            paginas.ajustar();
+        }
+    }
+
+    /**
+     * Inserta una clave o reemplaza su valor
+     *
+     * @param clave Clave (hasta MAXIMO_CLAVE bytes)
+     * @param valor Valor
+     * @return true si la clave es nueva
+     */
+    synchronized boolean insertar(byte[] clave, byte[] valor) {
+        if (clave.length == 0 || clave.length > MAXIMO_CLAVE) {
+            throw new IllegalArgumentException("Clave de " + clave.length + " bytes (máximo " + MAXIMO_CLAVE + ")");
+        }
+        try {
+            boolean[] nueva = new boolean[1];
+            Division division = insertar(paginas.getRaiz(), clave, valor, nueva);
+            if (division != null) {
+                // La raíz se dividió: la nueva raíz tiene las dos mitades como hijos
+                Nodo raiz = new Nodo(paginas.nueva(), false);
+                raiz.hijos.add(paginas.getRaiz());
+                raiz.claves.add(division.separador);
+                raiz.hijos.add(division.derecha);
+                escribirNodo(raiz);
+                paginas.setRaiz(raiz.pagina);
+            }
+            return nueva[0];
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            paginas.ajustar();
+        }
+    }
+
+    private Division insertar(int pagina, byte[] clave, byte[] valor, boolean[] nueva) throws IOException {
+        Nodo nodo = leerNodo(pagina);
+        if (nodo.hoja) {
+            int indice = buscar(nodo.claves, clave);
+            if (indice >= 0) {
+                liberarCelda(nodo.celdas.get(indice));
+                nodo.celdas.set(indice, crearCelda(valor));
+            } else {
+                indice = -(indice + 1);
+                nodo.claves.add(indice, clave);
+                nodo.celdas.add(indice, crearCelda(valor));
+                nueva[0] = true;
+            }
+        } else {
+            int hijo = indiceHijo(nodo, clave);
+            Division division = insertar(nodo.hijos.get(hijo), clave, valor, nueva);
+            if (division == null) {
+                return null;
+            }
+            nodo.claves.add(hijo, division.separador);
+            nodo.hijos.add(hijo + 1, division.derecha);
+        }
+
+        if (nodo.tamano() <= ArchivoPaginas.TAMANO_PAGINA) {
+            escribirNodo(nodo);
+            return null;
+        }
+        return dividir(nodo);
+    }
+
+    /**
+     * Divide un nodo que no entra en su página en dos de tamaño parecido
+     */
+    private Division dividir(Nodo nodo) throws IOException {
+        int total = nodo.tamano() - CABECERA_NODO;
+        int acumulado = 0;
+        int corte = 0;
+        while (corte < nodo.claves.size() - 1 && acumulado + nodo.tamanoEntrada(corte) <= total / 2) {
+            acumulado += nodo.tamanoEntrada(corte);
+            corte++;
+        }
+        corte = Math.max(corte, 1);
+
+        Nodo derecha = new Nodo(paginas.nueva(), nodo.hoja);
+        byte[] separador;
+        if (nodo.hoja) {
+            // La primera clave de la derecha se copia al padre
+            mover(nodo.claves, corte, derecha.claves);
+            mover(nodo.celdas, corte, derecha.celdas);
+            separador = derecha.claves.get(0);
+            derecha.siguiente = nodo.siguiente;
+            nodo.siguiente = derecha.pagina;
+        } else {
+            // La clave del corte sube al padre y no queda en ninguna mitad
+            separador = nodo.claves.get(corte);
+            mover(nodo.claves, corte + 1, derecha.claves);
+            mover(nodo.hijos, corte + 1, derecha.hijos);
+            nodo.claves.remove(corte);
+        }
+        escribirNodo(nodo);
+        escribirNodo(derecha);
+        return new Division(separador, derecha.pagina);
+    }
+
+    private static <T> void mover(List<T> origen, int desde, List<T> destino) {
+        List<T> cola = origen.subList(desde, origen.size());
+        destino.addAll(cola);
+        cola.clear();
+    }
+
+    /**
+     * Elimina una clave
+     *
+     * @param clave Clave
+     * @return true si estaba
+     */
+    synchronized boolean eliminar(byte[] clave) {
+        try {
+            Nodo hoja = buscarHoja(clave);
+            int indice = buscar(hoja.claves, clave);
+            if (indice < 0) {
+                return false;
+            }
+            liberarCelda(hoja.celdas.get(indice));
+            hoja.claves.remove(indice);
+            hoja.celdas.remove(indice);
+            escribirNodo(hoja);
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            paginas.ajustar();
+        }
+    }
+
+    /**
+     * Recorre en orden las entradas cuyas claves empiezan con un prefijo. Solo se leen las
+     * hojas de ese rango. La acción no debe modificar el árbol.
+     *
+     * @param prefijo Prefijo de las claves (vacío: todo el árbol)
+     * @param accion Recibe cada clave y su valor
+     */
+    synchronized void recorrer(byte[] prefijo, BiConsumer<byte[], byte[]> accion) {
+        try {
+            Nodo hoja = buscarHoja(prefijo);
+            int indice = buscar(hoja.claves, prefijo);
+            indice = indice >= 0 ? indice : -(indice + 1);
+            while (true) {
+                for (; indice < hoja.claves.size(); indice++) {
+                    byte[] clave = hoja.claves.get(indice);
+                    if (!empiezaCon(clave, prefijo)) {
+                        return;
+                    }
+                    accion.accept(clave, leerValor(hoja.celdas.get(indice)));
+                }
+                if (hoja.siguiente == 0) {
+                    return;
+                }
+                hoja = leerNodo(hoja.siguiente);
+                indice = 0;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            paginas.ajustar();
+        }
+    }
+
+    /**
+     * Escribe en disco las páginas modificadas (ver ArchivoPaginas.checkpoint())
+     *
+     * @return true si había cambios
+     */
+    synchronized boolean checkpoint() {
+        try {
+            return paginas.checkpoint();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Nodo buscarHoja(byte[] clave) throws IOException {
+        Nodo nodo = leerNodo(paginas.getRaiz());
+        while (!nodo.hoja) {
+            nodo = leerNodo(nodo.hijos.get(indiceHijo(nodo, clave)));
+        }
+        return nodo;
+    }
+
+    /**
+     * Hijo de un nodo interno donde está (o iría) una clave: el i tal que
+     * claves[i - 1] <= clave < claves[i]
+     */
+    private static int indiceHijo(Nodo nodo, byte[] clave) {
+        int indice = buscar(nodo.claves, clave);
+        return indice >= 0 ? indice + 1 : -(indice + 1);
+    }
+
+    /**
+     * Búsqueda binaria de una clave
+     *
+     * @return Índice de la clave, o -(punto de inserción) - 1 si no está
+     */
+    private static int buscar(List<byte[]> claves, byte[] clave) {
+        int inicio = 0;
+        int fin = claves.size() - 1;
+        while (inicio <= fin) {
+            int medio = (inicio + fin) >>> 1;
+            int comparacion = Arrays.compareUnsigned(claves.get(medio), clave);
+            if (comparacion < 0) {
+                inicio = medio + 1;
+            } else if (comparacion > 0) {
+                fin = medio - 1;
+            } else {
+                return medio;
+            }
+        }
+        return -(inicio + 1);
+    }
+
+    private static boolean empiezaCon(byte[] clave, byte[] prefijo) {
+        return clave.length >= prefijo.length
+                && Arrays.equals(clave, 0, prefijo.length, prefijo, 0, prefijo.length);
+    }
+
+    private Nodo leerNodo(int pagina) throws IOException {
+        ByteBuffer datos = ByteBuffer.wrap(paginas.leer(pagina));
+        byte tipo = datos.get();
+        if (tipo != HOJA && tipo != INTERNA) {
+            throw new IOException("La página " + pagina + " no es un nodo del árbol (tipo " + tipo + ")");
+        }
+        Nodo nodo = new Nodo(pagina, tipo == HOJA);
+        int cantidad = Short.toUnsignedInt(datos.getShort());
+        int enlace = datos.getInt();
+        if (nodo.hoja) {
+            nodo.siguiente = enlace;
+        } else {
+            nodo.hijos.add(enlace);
+        }
+        for (int i = 0; i < cantidad; i++) {
+            nodo.claves.add(leerBytes(datos));
+            if (nodo.hoja) {
+                nodo.celdas.add(leerBytes(datos));
+            } else {
+                nodo.hijos.add(datos.getInt());
+            }
+        }
+        return nodo;
+    }
+
+    private void escribirNodo(Nodo nodo) throws IOException {
+        byte[] pagina = paginas.leer(nodo.pagina);
+        Arrays.fill(pagina, (byte) 0);
+        ByteBuffer datos = ByteBuffer.wrap(pagina);
+        datos.put(nodo.hoja ? HOJA : INTERNA)
+                .putShort((short) nodo.claves.size())
+                .putInt(nodo.hoja ? nodo.siguiente : nodo.hijos.get(0));
+        for (int i = 0; i < nodo.claves.size(); i++) {
+            escribirBytes(datos, nodo.claves.get(i));
+            if (nodo.hoja) {
+                escribirBytes(datos, nodo.celdas.get(i));
+            } else {
+                datos.putInt(nodo.hijos.get(i + 1));
+            }
+        }
+        paginas.modificada(nodo.pagina);
+    }
+
+    private static byte[] leerBytes(ByteBuffer datos) {
+        byte[] bytes = new byte[Short.toUnsignedInt(datos.getShort())];
+        datos.get(bytes);
+        return bytes;
+    }
+
+    private static void escribirBytes(ByteBuffer datos, byte[] bytes) {
+        datos.putShort((short) bytes.length).put(bytes);
+    }
+
+    /**
+     * Arma la celda de un valor: en línea, o en páginas de desborde si es grande
+     */
+    private byte[] crearCelda(byte[] valor) throws IOException {
+        if (valor.length <= MAXIMO_EN_LINEA) {
+            byte[] celda = new byte[1 + valor.length];
+            celda[0] = EN_LINEA;
+            System.arraycopy(valor, 0, celda, 1, valor.length);
+            return celda;
+        }
+
+        // Se escribe de atrás hacia adelante para conocer la siguiente página de cada una
+        int capacidadDesborde = ArchivoPaginas.TAMANO_PAGINA - CABECERA_DESBORDE;
+        int siguiente = 0;
+        for (int inicio = (valor.length - 1) / capacidadDesborde * capacidadDesborde; inicio >= 0; inicio -= capacidadDesborde) {
+            int numero = paginas.nueva();
+            int usados = Math.min(capacidadDesborde, valor.length - inicio);
+            ByteBuffer.wrap(paginas.leer(numero))
+                    .put(DESBORDE).putInt(siguiente).putShort((short) usados).put(valor, inicio, usados);
+            siguiente = numero;
+        }
+        return ByteBuffer.allocate(1 + 4 + 4).put(DESBORDADO).putInt(siguiente).putInt(valor.length).array();
+    }
+
+    private byte[] leerValor(byte[] celda) throws IOException {
+        if (celda[0] == EN_LINEA) {
+            return Arrays.copyOfRange(celda, 1, celda.length);
+        }
+        ByteBuffer referencia = ByteBuffer.wrap(celda, 1, celda.length - 1);
+        int pagina = referencia.getInt();
+        byte[] valor = new byte[referencia.getInt()];
+        int leidos = 0;
+        while (pagina != 0) {
+            ByteBuffer datos = ByteBuffer.wrap(paginas.leer(pagina));
+            if (datos.get() != DESBORDE) {
+                throw new IOException("La página " + pagina + " no es de desborde");
+            }
+            pagina = datos.getInt();
+            int usados = Short.toUnsignedInt(datos.getShort());
+            datos.get(valor, leidos, usados);
+            leidos += usados;
+        }
+        return valor;
+    }
+
+    private void liberarCelda(byte[] celda) throws IOException {
+        if (celda[0] == EN_LINEA) {
+            return;
+        }
+        int pagina = ByteBuffer.wrap(celda, 1, 4).getInt();
+        while (pagina != 0) {
+            int siguiente = ByteBuffer.wrap(paginas.leer(pagina)).getInt(1);
+            paginas.liberar(pagina);
+            pagina = siguiente;
+        }
+    }
+
+    /**
+     * Obtiene la altura del árbol (1: la raíz es una hoja)
+     */
+    synchronized int getAltura() {
+        try {
+            int altura = 1;
+            Nodo nodo = leerNodo(paginas.getRaiz());
+            while (!nodo.hoja) {
+                nodo = leerNodo(nodo.hijos.get(0));
+                altura++;
+            }
+            return altura;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    synchronized int getPaginasSucias() {
+        return paginas.getPaginasSucias();
+    }
+
+    synchronized int getCapacidad() {
+        return paginas.getCapacidad();
+    }
+
+    synchronized long getLecturas() {
+        return paginas.getLecturas();
+    }
+
+    synchronized long getAciertos() {
+        return paginas.getAciertos();
+    }
+
+    /**
+     * Cierra el árbol (lo no escrito con checkpoint() se pierde)
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        paginas.close();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ArbolBMas[altura=" + getAltura() + ", " + paginas + "]";
+    }
+}
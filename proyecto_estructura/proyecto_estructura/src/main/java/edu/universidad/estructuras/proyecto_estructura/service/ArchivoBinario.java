@@ -0,0 +1,177 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Formato binario anterior de favoritos.dat y playlists.dat. Ya no se escribe (esos datos
+ * están en el almacén de usuarios): solo se lee una vez, para migrarlos, así que es de uso
+ * interno de PersistenciaService.
+ *
+ * Un archivo empieza con la cabecera "EBIN", la versión y el tipo de contenido. Sigue la
+ * tabla de cadenas (usernames, IDs de canciones...) y después los registros. Los enteros
+ * se escriben como varints y una cadena de la tabla se referencia por su índice, así un
+ * username o un ID que se repite miles de veces ocupa uno o dos bytes por aparición.
+ *
+ * Cada registro (la tabla también) va precedido de su longitud y seguido del CRC32 de su
+ * contenido: un registro con el CRC incorrecto termina la lectura y se conservan los
+ * anteriores.
+ *
+ */
+final class ArchivoBinario {
+    static final int VERSION = 1;
+    static final byte TIPO_FAVORITOS = 1;
+    static final byte TIPO_PLAYLISTS = 2;
+
+    private static final byte[] MAGIA = {'E', 'B', 'I', 'N'};
+    private static final int TAMANO_CABECERA = MAGIA.length + 2;
+
+    private ArchivoBinario() {
+    }
+
+    /**
+     * Indica si un archivo tiene el formato binario (si no, es el formato de texto anterior)
+     *
+     * @param archivo Archivo a revisar
+     * @return true si empieza con la cabecera binaria
+     */
+    static boolean esBinario(Path archivo) {
+        try (InputStream in = Files.newInputStream(archivo)) {
+            return Arrays.equals(in.readNBytes(MAGIA.length), MAGIA);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Lee un archivo binario registro por registro
+     */
+    static final class Lector {
+        private final ByteBuffer entrada;
+        private final String[] tabla;
+        private final CRC32 crc;
+        private int finRegistro;
+        private boolean danado;
+
+        /**
+         * Lee el archivo completo, valida la cabecera y carga la tabla de cadenas
+         *
+         * @param archivo Archivo a leer
+         * @param tipo Tipo de contenido esperado
+         */
+        Lector(Path archivo, byte tipo) throws IOException {
+            try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+                long tamano = canal.size();
+                if (tamano > Integer.MAX_VALUE) {
+                    throw new IOException("Archivo demasiado grande: " + archivo);
+                }
+                entrada = ByteBuffer.allocate((int) tamano);
+                while (entrada.hasRemaining() && canal.read(entrada) >= 0) {
+                    // Lee hasta llenar el buffer
+                }
+                entrada.flip();
+            }
+            this.crc = new CRC32();
+
+            byte[] magia = new byte[MAGIA.length];
+            if (entrada.remaining() < TAMANO_CABECERA) {
+                throw new IOException("Cabecera incompleta en " + archivo);
+            }
+            entrada.get(magia);
+            int version = entrada.get();
+            int tipoArchivo = entrada.get();
+            if (!Arrays.equals(magia, MAGIA) || tipoArchivo != tipo) {
+                throw new IOException("No es un archivo binario del tipo esperado: " + archivo);
+            }
+            if (version != VERSION) {
+                throw new IOException("Versión " + version + " no soportada en " + archivo);
+            }
+
+            if (!siguienteRegistro()) {
+                throw new IOException("Tabla de cadenas dañada en " + archivo);
+            }
+            tabla = new String[entero()];
+            for (int i = 0; i < tabla.length; i++) {
+                tabla[i] = cadena();
+            }
+        }
+
+        /**
+         * Avanza al siguiente registro y verifica su CRC
+         *
+         * @return true si hay un registro válido para leer; false al final del archivo
+         *         o si el registro está incompleto o dañado (ver isDanado())
+         */
+        boolean siguienteRegistro() {
+            entrada.position(Math.max(entrada.position(), finRegistro));
+            if (!entrada.hasRemaining()) {
+                return false;
+            }
+            try {
+                long longitud = varint();
+                int inicio = entrada.position();
+                if (longitud > entrada.remaining() - 4) {
+                    danado = true;
+                    return false;
+                }
+                int fin = inicio + (int) longitud;
+                crc.reset();
+                crc.update(entrada.slice(inicio, (int) longitud));
+                if ((int) crc.getValue() != entrada.getInt(fin)) {
+                    danado = true;
+                    return false;
+                }
+                finRegistro = fin + 4;
+                return true;
+            } catch (RuntimeException e) {
+                danado = true;
+                return false;
+            }
+        }
+
+        long varint() {
+            long valor = 0;
+            for (int desplazamiento = 0; desplazamiento < 64; desplazamiento += 7) {
+                byte b = entrada.get();
+                valor |= (long) (b & 0x7F) << desplazamiento;
+                if ((b & 0x80) == 0) {
+                    return valor;
+                }
+            }
+            throw new IllegalStateException("Varint demasiado largo");
+        }
+
+        int entero() {
+            return Math.toIntExact(varint());
+        }
+
+        String cadena() {
+            int longitud = entero();
+            String cadena = new String(entrada.array(), entrada.position(), longitud, StandardCharsets.UTF_8);
+            entrada.position(entrada.position() + longitud);
+            return cadena;
+        }
+
+        /**
+         * Lee el índice de una cadena y la devuelve desde la tabla
+         */
+        String referencia() {
+            return tabla[entero()];
+        }
+
+        /**
+         * Indica si la lectura terminó en un registro incompleto o con el CRC incorrecto
+         */
+        boolean isDanado() {
+            return danado;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import edu.universidad.estructuras.proyecto_estructura.model.Cancion;
+import edu.universidad.estructuras.proyecto_estructura.model.DiccionarioAtributos;
+import edu.universidad.estructuras.proyecto_estructura.model.GrafoDeSimilitud;
+import edu.universidad.estructuras.proyecto_estructura.model.TrieAutocompletado;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Snapshot binario de los índices costosos del catálogo (tries de títulos y artistas y
+ * grafo de similitud), para no reconstruirlos en cada arranque.
+ *
+ * El archivo lleva una suma de verificación (CRC32) del catálogo de origen: todas las
+ * canciones en orden de ordinal con sus atributos. Si al arrancar el catálogo cargado
+ * no produce la misma suma, el snapshot se descarta y los índices se reconstruyen.
+ *
+ * Formato (big-endian):
+ *   cabecera: MAGIC, VERSION (int), suma del catálogo (long), cantidad de canciones (int)
+ *   trie de títulos, trie de artistas, grafo (ver TrieAutocompletado y GrafoDeSimilitud)
+ *   cierre: MAGIC (detecta archivos truncados)
+ *
+ */
+final class ArchivoIndices {
+    private static final int MAGIC = 0x4D494458; // "MIDX"
+    private static final int VERSION = 1;
+
+    private final TrieAutocompletado trieTitulos;
+    private final TrieAutocompletado trieArtistas;
+    private final GrafoDeSimilitud grafoSimilitud;
+
+    private ArchivoIndices(TrieAutocompletado trieTitulos, TrieAutocompletado trieArtistas,
+                           GrafoDeSimilitud grafoSimilitud) {
+        this.trieTitulos = trieTitulos;
+        this.trieArtistas = trieArtistas;
+        this.grafoSimilitud = grafoSimilitud;
+    }
+
+    /**
+     * Calcula la suma de verificación de un catálogo
+     *
+     * @param enOrden Canciones en orden de ordinal
+     * @return Suma CRC32 de los atributos de todas las canciones
+     */
+    static long calcularSuma(List<Cancion> enOrden) {
+        CRC32 suma = new CRC32();
+        StringBuilder fila = new StringBuilder(128);
+        for (Cancion cancion : enOrden) {
+            fila.setLength(0);
+            fila.append(cancion.getId()).append('|')
+                    .append(cancion.getTitulo()).append('|')
+                    .append(cancion.getArtista()).append('|')
+                    .append(cancion.getGenero()).append('|')
+                    .append(cancion.getAnio()).append('|')
+                    .append(cancion.getDuracion()).append('|')
+                    .append(cancion.getUrlYoutube()).append('\n');
+            suma.update(fila.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return suma.getValue();
+    }
+
+    /**
+     * Lee el snapshot si existe y corresponde al catálogo dado
+     *
+     * @param archivo Ruta del snapshot
+     * @param suma Suma de verificación del catálogo cargado
+     * @param enOrden Canciones del catálogo en orden de ordinal
+     * @return Índices leídos, o null si no hay snapshot o está desactualizado
+     * @throws IOException Si el archivo está dañado
+     */
+    static ArchivoIndices leer(Path archivo, long suma, List<Cancion> enOrden) throws IOException {
+        if (!Files.exists(archivo)) {
+            return null;
+        }
+        try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(archivo), 1 << 16))) {
+            if (entrada.readInt() != MAGIC || entrada.readInt() != VERSION) {
+                throw new IOException("Formato de snapshot de índices no reconocido");
+            }
+            if (entrada.readLong() != suma || entrada.readInt() != enOrden.size()) {
+                return null;
+            }
+            TrieAutocompletado titulos = TrieAutocompletado.leer(entrada);
+            TrieAutocompletado artistas = TrieAutocompletado.leer(entrada,
+                    DiccionarioAtributos.getInstance()::internarArtistaNormalizado);
+            GrafoDeSimilitud grafo = GrafoDeSimilitud.leer(entrada, enOrden);
+            if (entrada.readInt() != MAGIC) {
+                throw new IOException("Snapshot de índices incompleto");
+            }
+            return new ArchivoIndices(titulos, artistas, grafo);
+        } catch (EOFException e) {
+            throw new IOException("Snapshot de índices incompleto", e);
+        }
+    }
+
+    /**
+     * Escribe el snapshot de los índices (en un archivo temporal que luego reemplaza al anterior)
+     *
+     * @param archivo Ruta del snapshot
+     * @param suma Suma de verificación del catálogo del que salen los índices
+     * @param enOrden Canciones del catálogo en orden de ordinal
+     * @param trieTitulos Trie de títulos
+     * @param trieArtistas Trie de artistas
+     * @param grafo Grafo de similitud
+     * @throws IOException Si falla la escritura
+     */
+    static void escribir(Path archivo, long suma, List<Cancion> enOrden, TrieAutocompletado trieTitulos,
+                         TrieAutocompletado trieArtistas, GrafoDeSimilitud grafo) throws IOException {
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        if (archivo.getParent() != null) {
+            Files.createDirectories(archivo.getParent());
+        }
+        try (DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(temporal), 1 << 16))) {
+            salida.writeInt(MAGIC);
+            salida.writeInt(VERSION);
+            salida.writeLong(suma);
+            salida.writeInt(enOrden.size());
+            trieTitulos.escribir(salida);
+            trieArtistas.escribir(salida);
+            grafo.escribir(salida, enOrden);
+            salida.writeInt(MAGIC);
+        }
+        Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    TrieAutocompletado getTrieTitulos() {
+        return trieTitulos;
+    }
+
+    TrieAutocompletado getTrieArtistas() {
+        return trieArtistas;
+    }
+
+    GrafoDeSimilitud getGrafoSimilitud() {
+        return grafoSimilitud;
+    }
+}
@@ -0,0 +1,397 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Archivo de páginas de tamaño fijo con su buffer pool y su WAL (write-ahead log).
+ *
+ * Las páginas se leen del disco al pedirlas y quedan en el buffer pool, que descarta las
+ * menos usadas al pasar su capacidad. Una página modificada (sucia) no se descarta ni se
+ * escribe sola: todas las sucias se escriben juntas en checkpoint().
+ *
+ * checkpoint() primero escribe las imágenes de las páginas sucias en el WAL (archivo
+ * ".wal" al lado) con una marca de confirmación y su CRC32, y recién después las escribe
+ * en su lugar. Si se corta a mitad, al abrir se vuelven a copiar las páginas de un WAL
+ * confirmado, o se descarta uno incompleto: el archivo queda siempre en el estado de un
+ * checkpoint completo, nunca con parte de uno.
+ *
+ * La página 0 es la cabecera: "EBPT", versión, tamaño de página, cantidad de páginas,
+ * primera página libre y página raíz (la usa ArbolBMas). Las páginas liberadas forman una
+ * lista y se reutilizan antes de agrandar el archivo.
+ *
+ * No es seguro para hilos: lo usa ArbolBMas con su propio lock.
+ *
+ */
+final class ArchivoPaginas implements Closeable {
+    static final int TAMANO_PAGINA = 4096;
+    static final byte TIPO_LIBRE = 0;
+
+    private static final byte[] MAGIA = {'E', 'B', 'P', 'T'};
+    private static final int VERSION = 1;
+    private static final int CONFIRMACION = -1; // marca de fin de un lote del WAL
+
+    private final Path archivo;
+    private final Path wal;
+    private final FileChannel canal;
+    private final LinkedHashMap<Integer, Pagina> paginas; // orden de acceso: primero la menos usada
+    private final int capacidad;
+    private int cantidadPaginas;
+    private int primeraLibre;
+    private int raiz;
+    private boolean cabeceraSucia;
+    private long lecturas;
+    private long aciertos;
+    private long escrituras;
+    private long checkpoints;
+
+    /**
+     * Página en el buffer pool
+     */
+    private static final class Pagina {
+        private final byte[] datos;
+        private boolean sucia;
+
+        private Pagina(byte[] datos) {
+            this.datos = datos;
+        }
+    }
+
+    private ArchivoPaginas(Path archivo, FileChannel canal, int capacidad) {
+        this.archivo = archivo;
+        this.wal = archivo.resolveSibling(archivo.getFileName() + ".wal");
+        this.canal = canal;
+        this.paginas = new LinkedHashMap<>(16, 0.75f, true);
+        this.capacidad = capacidad;
+    }
+
+    /**
+     * Abre un archivo de páginas (lo crea vacío si no existe) y aplica su WAL pendiente
+     *
+     * @param archivo Archivo
+     * @param capacidad Páginas que se mantienen en el buffer pool
+     * @return Archivo abierto
+     * @throws IOException Si no se puede abrir o no es un archivo de páginas
+     */
+    static ArchivoPaginas abrir(Path archivo, int capacidad) throws IOException {
+        boolean nuevo = !Files.exists(archivo);
+        FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ArchivoPaginas paginas = new ArchivoPaginas(archivo, canal, capacidad);
+        try {
+            if (nuevo) {
+                Files.deleteIfExists(paginas.wal); // de un archivo anterior con el mismo nombre
+                paginas.cantidadPaginas = 1;
+                paginas.cabeceraSucia = true;
+                paginas.checkpoint();
+            } else {
+                paginas.recuperar();
+                paginas.leerCabecera();
+            }
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+        return paginas;
+    }
+
+    /**
+     * Copia en su lugar las páginas de un WAL confirmado (checkpoint interrumpido)
+     */
+    private void recuperar() throws IOException {
+        if (!Files.exists(wal)) {
+            return;
+        }
+        ByteBuffer log = ByteBuffer.wrap(Files.readAllBytes(wal));
+        List<Integer> numeros = new ArrayList<>();
+        List<byte[]> imagenes = new ArrayList<>();
+        CRC32 crc = new CRC32();
+        boolean confirmado = false;
+        while (log.remaining() >= Integer.BYTES) {
+            int numero = log.getInt();
+            if (numero == CONFIRMACION) {
+                confirmado = log.remaining() >= Integer.BYTES + Long.BYTES
+                        && log.getInt() == numeros.size() && log.getLong() == crc.getValue();
+                break;
+            }
+            if (log.remaining() < TAMANO_PAGINA) {
+                break;
+            }
+            byte[] imagen = new byte[TAMANO_PAGINA];
+            log.get(imagen);
+            actualizarCrc(crc, numero, imagen);
+            numeros.add(numero);
+            imagenes.add(imagen);
+        }
+
+        if (confirmado) {
+            for (int i = 0; i < numeros.size(); i++) {
+                escribirPagina(numeros.get(i), imagenes.get(i));
+            }
+            canal.force(true);
+            System.out.println("  ↺ " + archivo.getFileName() + ": " + numeros.size() + " páginas recuperadas del WAL");
+        }
+        Files.delete(wal);
+    }
+
+    private void leerCabecera() throws IOException {
+        ByteBuffer cabecera = ByteBuffer.allocate(TAMANO_PAGINA);
+        leerPagina(0, cabecera.array());
+        byte[] magia = new byte[MAGIA.length];
+        cabecera.get(magia);
+        if (!Arrays.equals(magia, MAGIA) || cabecera.getInt() != VERSION || cabecera.getInt() != TAMANO_PAGINA) {
+            throw new IOException(archivo.getFileName() + " no es un archivo de páginas compatible");
+        }
+        cantidadPaginas = cabecera.getInt();
+        primeraLibre = cabecera.getInt();
+        raiz = cabecera.getInt();
+    }
+
+    private byte[] codificarCabecera() {
+        ByteBuffer cabecera = ByteBuffer.allocate(TAMANO_PAGINA);
+        cabecera.put(MAGIA).putInt(VERSION).putInt(TAMANO_PAGINA)
+                .putInt(cantidadPaginas).putInt(primeraLibre).putInt(raiz);
+        return cabecera.array();
+    }
+
+    /**
+     * Obtiene una página (del buffer pool, o del disco si no está)
+     *
+     * @param numero Número de página
+     * @return Contenido de la página; si se modifica hay que llamar a modificada()
+     */
+    byte[] leer(int numero) throws IOException {
+        if (numero <= 0 || numero >= cantidadPaginas) {
+            throw new IOException("Página fuera del archivo: " + numero);
+        }
+        Pagina pagina = paginas.get(numero);
+        if (pagina != null) {
+            aciertos++;
+            return pagina.datos;
+        }
+        byte[] datos = new byte[TAMANO_PAGINA];
+        leerPagina(numero, datos);
+        lecturas++;
+        paginas.put(numero, new Pagina(datos));
+        return datos;
+    }
+
+    /**
+     * Marca una página como modificada: se escribe en el siguiente checkpoint
+     */
+    void modificada(int numero) {
+        Pagina pagina = paginas.get(numero);
+        if (pagina == null) {
+            throw new IllegalStateException("La página " + numero + " no está en el buffer pool");
+        }
+        pagina.sucia = true;
+    }
+
+    /**
+     * Reserva una página vacía (una liberada, o una nueva al final del archivo)
+     *
+     * @return Número de la página, ya en el buffer pool y marcada como modificada
+     */
+    int nueva() throws IOException {
+        int numero;
+        if (primeraLibre != 0) {
+            numero = primeraLibre;
+            primeraLibre = ByteBuffer.wrap(leer(numero)).getInt(1);
+            Arrays.fill(paginas.get(numero).datos, (byte) 0);
+        } else {
+            numero = cantidadPaginas++;
+            paginas.put(numero, new Pagina(new byte[TAMANO_PAGINA]));
+        }
+        cabeceraSucia = true;
+        modificada(numero);
+        return numero;
+    }
+
+    /**
+     * Devuelve una página a la lista de libres
+     */
+    void liberar(int numero) throws IOException {
+        byte[] datos = leer(numero);
+        Arrays.fill(datos, (byte) 0);
+        datos[0] = TIPO_LIBRE;
+        ByteBuffer.wrap(datos).putInt(1, primeraLibre);
+        primeraLibre = numero;
+        cabeceraSucia = true;
+        modificada(numero);
+    }
+
+    int getRaiz() {
+        return raiz;
+    }
+
+    void setRaiz(int raiz) {
+        this.raiz = raiz;
+        this.cabeceraSucia = true;
+    }
+
+    /**
+     * Descarta del buffer pool las páginas limpias menos usadas hasta volver a la capacidad
+     */
+    void ajustar() {
+        Iterator<Pagina> iterador = paginas.values().iterator();
+        while (paginas.size() > capacidad && iterador.hasNext()) {
+            if (!iterador.next().sucia) {
+                iterador.remove();
+            }
+        }
+    }
+
+    /**
+     * Escribe todas las páginas modificadas: primero en el WAL y después en su lugar
+     *
+     * @return true si había algo que escribir
+     */
+    boolean checkpoint() throws IOException {
+        List<Integer> numeros = new ArrayList<>();
+        List<byte[]> imagenes = new ArrayList<>();
+        for (var entrada : paginas.entrySet()) {
+            if (entrada.getValue().sucia) {
+                numeros.add(entrada.getKey());
+                imagenes.add(entrada.getValue().datos);
+            }
+        }
+        if (numeros.isEmpty() && !cabeceraSucia) {
+            return false;
+        }
+        numeros.add(0);
+        imagenes.add(codificarCabecera());
+
+        // 1. WAL: imágenes de las páginas y la confirmación, en disco antes de tocar el archivo
+        try (FileChannel log = FileChannel.open(wal, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            CRC32 crc = new CRC32();
+            ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + TAMANO_PAGINA);
+            for (int i = 0; i < numeros.size(); i++) {
+                buffer.clear();
+                buffer.putInt(numeros.get(i)).put(imagenes.get(i)).flip();
+                escribirTodo(log, buffer);
+                actualizarCrc(crc, numeros.get(i), imagenes.get(i));
+            }
+            escribirTodo(log, ByteBuffer.allocate(Integer.BYTES * 2 + Long.BYTES)
+                    .putInt(CONFIRMACION).putInt(numeros.size()).putLong(crc.getValue()).flip());
+            log.force(true);
+        }
+
+        // 2. Páginas en su lugar
+        for (int i = 0; i < numeros.size(); i++) {
+            escribirPagina(numeros.get(i), imagenes.get(i));
+        }
+        canal.force(true);
+
+        // 3. El checkpoint está completo en el archivo: el WAL ya no hace falta
+        Files.delete(wal);
+        for (Pagina pagina : paginas.values()) {
+            pagina.sucia = false;
+        }
+        cabeceraSucia = false;
+        escrituras += numeros.size();
+        checkpoints++;
+        ajustar();
+        return true;
+    }
+
+    private void leerPagina(int numero, byte[] destino) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(destino);
+        long posicion = (long) numero * TAMANO_PAGINA;
+        while (buffer.hasRemaining()) {
+            if (canal.read(buffer, posicion + buffer.position()) < 0) {
+                throw new IOException(archivo.getFileName() + " está truncado (página " + numero + ")");
+            }
+        }
+    }
+
+    private void escribirPagina(int numero, byte[] datos) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(datos);
+        long posicion = (long) numero * TAMANO_PAGINA;
+        while (buffer.hasRemaining()) {
+            canal.write(buffer, posicion + buffer.position());
+        }
+    }
+
+    private static void actualizarCrc(CRC32 crc, int numero, byte[] imagen) {
+        crc.update(ByteBuffer.allocate(Integer.BYTES).putInt(numero).array());
+        crc.update(imagen);
+    }
+
+    private static void escribirTodo(FileChannel destino, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            destino.write(buffer);
+        }
+    }
+
+    int getCantidadPaginas() {
+        return cantidadPaginas;
+    }
+
+    int getPaginasEnMemoria() {
+        return paginas.size();
+    }
+
+    int getPaginasSucias() {
+        int sucias = 0;
+        for (Pagina pagina : paginas.values()) {
+            if (pagina.sucia) {
+                sucias++;
+            }
+        }
+        return sucias;
+    }
+
+    int getCapacidad() {
+        return capacidad;
+    }
+
+    /**
+     * Obtiene cuántas páginas se leyeron del disco (fallos del buffer pool)
+     */
+    long getLecturas() {
+        return lecturas;
+    }
+
+    /**
+     * Obtiene cuántas páginas se encontraron en el buffer pool
+     */
+    long getAciertos() {
+        return aciertos;
+    }
+
+    long getEscrituras() {
+        return escrituras;
+    }
+
+    long getCheckpoints() {
+        return checkpoints;
+    }
+
+    /**
+     * Cierra el archivo (lo no escrito con checkpoint() se pierde)
+     */
+    @Override
+    public void close() throws IOException {
+        paginas.clear();
+        canal.close();
+    }
+
+    @Override
+    public String toString() {
+        return "ArchivoPaginas[" + archivo.getFileName() + ", paginas=" + cantidadPaginas +
+                ", enMemoria=" + paginas.size() + "/" + capacidad + ", sucias=" + getPaginasSucias() +
+                ", lecturas=" + lecturas + ", aciertos=" + aciertos + "]";
+    }
+}
@@ -0,0 +1,388 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import edu.universidad.estructuras.proyecto_estructura.model.Cancion;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Flujo de cambios del catálogo (canción agregada, actualizada, eliminada, catálogo vaciado).
+ * CancionService publica cada cambio al confirmarlo; cada estructura derivada (tries, grafo,
+ * índices secundarios, cachés) se suscribe y lo aplica de forma asíncrona en lotes.
+ *
+ * Cada suscripción tiene su propia cola y su propio hilo, así que un suscriptor lento no
+ * retrasa a los demás ni a quien publica. Los eventos llegan en orden de secuencia y el
+ * retraso de cada suscriptor (eventos pendientes y antigüedad del más viejo) se puede consultar.
+ *
+ * Las lecturas ven los cambios de otros hilos cuando su suscriptor los aplica (pueden estar
+ * un poco atrasadas), pero cada hilo puede leer sus propias escrituras: el bus recuerda la
+ * última secuencia que publicó cada hilo y Suscripcion.alcanzar() espera solo hasta ella.
+ * sincronizar() espera a todo lo publicado por cualquier hilo (cierre, checkpoints).
+ *
+ * Si un suscriptor falla al aplicar un lote, el error se registra con su traza y se llama a
+ * la reconstrucción de la suscripción (si la tiene), que rehace la estructura desde el catálogo.
+ *
+ */
+public class BusEventosCatalogo {
+    private static final int TAMANO_LOTE = 256;
+
+    private final CopyOnWriteArrayList<Suscripcion> suscripciones;
+    private final ThreadLocal<long[]> publicadaPorHilo; // última secuencia publicada por cada hilo
+    private long ultimaSecuencia;
+
+    /**
+     * Suscriptor de cambios del catálogo
+     */
+    @FunctionalInterface
+    public interface Suscriptor {
+        /**
+         * Aplica un lote de eventos consecutivos (la lista se reutiliza: no conservarla)
+         *
+         * @param lote Eventos en orden de secuencia
+         */
+        void aplicar(List<EventoCatalogo> lote);
+    }
+
+    BusEventosCatalogo() {
+        this.suscripciones = new CopyOnWriteArrayList<>();
+        this.publicadaPorHilo = ThreadLocal.withInitial(() -> new long[1]);
+    }
+
+    /**
+     * Suscribe una estructura a los cambios publicados a partir de ahora
+     *
+     * @param nombre Nombre del suscriptor (para el retraso y los mensajes)
+     * @param suscriptor Aplica los lotes de eventos
+     * @return Suscripción, que puede cancelarse
+     */
+    public Suscripcion suscribir(String nombre, Suscriptor suscriptor) {
+        return crearSuscripcion(nombre, suscriptor, null, false);
+    }
+
+    /**
+     * Suscribe una estructura que se puede reconstruir si falla al aplicar un lote
+     *
+     * @param nombre Nombre del suscriptor (para el retraso y los mensajes)
+     * @param suscriptor Aplica los lotes de eventos
+     * @param reconstruir Rehace la estructura desde el catálogo (en el hilo de la suscripción)
+     * @return Suscripción, que puede cancelarse
+     */
+    public Suscripcion suscribir(String nombre, Suscriptor suscriptor, Runnable reconstruir) {
+        return crearSuscripcion(nombre, suscriptor, reconstruir, false);
+    }
+
+    /**
+     * Suscribe sin aplicar eventos hasta llamar a reanudar(): los cambios se acumulan en la
+     * cola mientras la estructura se construye
+     */
+    Suscripcion suscribirPausada(String nombre, Suscriptor suscriptor, Runnable reconstruir) {
+        return crearSuscripcion(nombre, suscriptor, reconstruir, true);
+    }
+
+    private synchronized Suscripcion crearSuscripcion(String nombre, Suscriptor suscriptor,
+                                                      Runnable reconstruir, boolean pausada) {
+        Suscripcion suscripcion = new Suscripcion(nombre, suscriptor, reconstruir, ultimaSecuencia, pausada);
+        suscripciones.add(suscripcion);
+        suscripcion.hilo.start();
+        return suscripcion;
+    }
+
+    /**
+     * Publica un cambio a todos los suscriptores (no bloquea)
+     */
+    synchronized EventoCatalogo publicar(EventoCatalogo.Tipo tipo, int epoca, int ordinal,
+                                         Cancion cancion, Cancion antes, Cancion despues) {
+        EventoCatalogo evento = new EventoCatalogo(++ultimaSecuencia, tipo, epoca, ordinal, cancion, antes, despues);
+        List<EventoCatalogo> entrega = List.of(evento);
+        for (Suscripcion suscripcion : suscripciones) {
+            suscripcion.recibir(entrega);
+        }
+        publicadaPorHilo.get()[0] = evento.getSecuencia();
+        return evento;
+    }
+
+    /**
+     * Publica los cambios de un lote (importación) como una sola entrega: reciben secuencias
+     * consecutivas y cada suscriptor los recibe juntos en una llamada a aplicar(), en lugar
+     * de una publicación por canción
+     *
+     * @param tipo Tipo de los cambios
+     * @param epoca Época del catálogo
+     * @param ordinales Ordinal de cada canción
+     * @param canciones Canciones del catálogo
+     * @param despues Copia de cada canción en el momento del cambio
+     */
+    synchronized void publicarLote(EventoCatalogo.Tipo tipo, int epoca, int[] ordinales,
+                                   List<Cancion> canciones, List<Cancion> despues) {
+        if (canciones.isEmpty()) {
+            return;
+        }
+        List<EventoCatalogo> lote = new ArrayList<>(canciones.size());
+        for (int i = 0; i < canciones.size(); i++) {
+            lote.add(new EventoCatalogo(++ultimaSecuencia, tipo, epoca, ordinales[i], canciones.get(i), null, despues.get(i)));
+        }
+        List<EventoCatalogo> entrega = Collections.unmodifiableList(lote);
+        for (Suscripcion suscripcion : suscripciones) {
+            suscripcion.recibir(entrega);
+        }
+        publicadaPorHilo.get()[0] = ultimaSecuencia;
+    }
+
+    /**
+     * Obtiene la última secuencia que publicó el hilo actual
+     *
+     * @return Secuencia, o 0 si el hilo no publicó nada
+     */
+    long getPublicadaPorHiloActual() {
+        return publicadaPorHilo.get()[0];
+    }
+
+    /**
+     * Espera a que los suscriptores activos apliquen todo lo publicado hasta ahora.
+     * No debe llamarse con el lock del catálogo tomado. Desde el hilo de un suscriptor no
+     * espera a esa misma suscripción.
+     *
+     * @param timeoutMilis Espera máxima
+     * @return true si todos quedaron al día
+     */
+    public boolean sincronizar(long timeoutMilis) {
+        long limite = System.currentTimeMillis() + timeoutMilis;
+        boolean alDia = true;
+        for (Suscripcion suscripcion : suscripciones) {
+            if (!suscripcion.pausada && Thread.currentThread() != suscripcion.hilo) {
+                alDia &= suscripcion.esperar(limite);
+            }
+        }
+        return alDia;
+    }
+
+    /**
+     * Obtiene el retraso de cada suscriptor
+     *
+     * @return Nombre del suscriptor -> eventos publicados que aún no aplicó
+     */
+    public Map<String, Long> getRetrasos() {
+        Map<String, Long> retrasos = new LinkedHashMap<>();
+        for (Suscripcion suscripcion : suscripciones) {
+            retrasos.put(suscripcion.nombre, suscripcion.getPendientes());
+        }
+        return retrasos;
+    }
+
+    public List<Suscripcion> getSuscripciones() {
+        return Collections.unmodifiableList(suscripciones);
+    }
+
+    public synchronized long getUltimaSecuencia() {
+        return ultimaSecuencia;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("BusEventosCatalogo[secuencia=").append(getUltimaSecuencia());
+        for (Suscripcion suscripcion : suscripciones) {
+            sb.append(", ").append(suscripcion.nombre).append('=').append(suscripcion.getPendientes())
+                    .append(" (").append(suscripcion.getRetrasoMilis()).append(" ms)");
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * Suscripción de una estructura: cola propia y un hilo daemon que la consume en lotes.
+     * Cada elemento de la cola es una entrega (un evento, o todos los de un lote importado).
+     */
+    public final class Suscripcion {
+        private final String nombre;
+        private final Suscriptor suscriptor;
+        private final Runnable reconstruir;
+        private final LinkedBlockingQueue<List<EventoCatalogo>> cola;
+        private final Object monitor;
+        private final Thread hilo;
+        private volatile long ultimaRecibida;
+        private volatile long ultimaAplicada;
+        private volatile long pendienteDesde; // creación del lote en curso (0 si no hay)
+        private volatile boolean pausada;
+        private volatile boolean activa;
+        private volatile int fallos;
+
+        private Suscripcion(String nombre, Suscriptor suscriptor, Runnable reconstruir,
+                            long secuenciaInicial, boolean pausada) {
+            this.nombre = nombre;
+            this.suscriptor = suscriptor;
+            this.reconstruir = reconstruir;
+            this.cola = new LinkedBlockingQueue<>();
+            this.monitor = new Object();
+            this.ultimaRecibida = secuenciaInicial;
+            this.ultimaAplicada = secuenciaInicial;
+            this.pausada = pausada;
+            this.activa = true;
+            this.hilo = new Thread(this::consumir, "eventos-" + nombre);
+            this.hilo.setDaemon(true);
+        }
+
+        private void recibir(List<EventoCatalogo> entrega) {
+            ultimaRecibida = entrega.get(entrega.size() - 1).getSecuencia();
+            cola.offer(entrega);
+        }
+
+        private void consumir() {
+            List<EventoCatalogo> lote = new ArrayList<>(TAMANO_LOTE);
+            try {
+                while (activa) {
+                    List<EventoCatalogo> primera = cola.take();
+                    synchronized (monitor) {
+                        while (pausada) {
+                            monitor.wait();
+                        }
+                    }
+                    pendienteDesde = primera.get(0).getCreadoNanos();
+                    lote.addAll(primera);
+                    // Un lote importado se aplica entero aunque pase de TAMANO_LOTE
+                    List<EventoCatalogo> siguiente;
+                    while (lote.size() < TAMANO_LOTE && (siguiente = cola.poll()) != null) {
+                        lote.addAll(siguiente);
+                    }
+
+                    try {
+                        suscriptor.aplicar(lote);
+                    } catch (RuntimeException e) {
+                        recuperar(e, lote);
+                    }
+
+                    synchronized (monitor) {
+                        ultimaAplicada = lote.get(lote.size() - 1).getSecuencia();
+                        pendienteDesde = 0;
+                        monitor.notifyAll();
+                    }
+                    lote.clear();
+                }
+            } catch (InterruptedException e) {
+                // Suscripción cancelada
+            }
+        }
+
+        /**
+         * Registra el fallo de un lote y reconstruye la estructura, que quedó sin esos cambios
+         */
+        private void recuperar(RuntimeException error, List<EventoCatalogo> lote) {
+            fallos++;
+            System.err.println("✗✗ El suscriptor " + nombre + " falló al aplicar los eventos "
+                    + lote.get(0).getSecuencia() + "-" + lote.get(lote.size() - 1).getSecuencia()
+                    + (reconstruir != null ? "; reconstruyendo la estructura" : "; la estructura queda desactualizada"));
+            error.printStackTrace();
+            if (reconstruir == null) {
+                return;
+            }
+            try {
+                reconstruir.run();
+                System.out.println("✓ " + nombre + " reconstruido tras el fallo");
+            } catch (RuntimeException e) {
+                System.err.println("✗✗ No se pudo reconstruir " + nombre + ":");
+                e.printStackTrace();
+            }
+        }
+
+        private boolean esperar(long limite) {
+            return esperarHasta(ultimaRecibida, limite);
+        }
+
+        /**
+         * Espera a que la suscripción aplique los eventos hasta una secuencia (la de una
+         * escritura propia, para leerla). No espera si está pausada ni desde su propio hilo.
+         *
+         * @param secuencia Secuencia que debe quedar aplicada
+         * @param timeoutMilis Espera máxima
+         * @return true si la secuencia quedó aplicada
+         */
+        public boolean alcanzar(long secuencia, long timeoutMilis) {
+            if (ultimaAplicada >= secuencia) {
+                return true;
+            }
+            if (pausada || Thread.currentThread() == hilo) {
+                return false;
+            }
+            return esperarHasta(secuencia, System.currentTimeMillis() + timeoutMilis);
+        }
+
+        private boolean esperarHasta(long objetivo, long limite) {
+            synchronized (monitor) {
+                while (ultimaAplicada < objetivo && activa) {
+                    long restante = limite - System.currentTimeMillis();
+                    if (restante <= 0) {
+                        return false;
+                    }
+                    try {
+                        monitor.wait(restante);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Empieza a aplicar los eventos acumulados mientras estaba pausada
+         */
+        public void reanudar() {
+            synchronized (monitor) {
+                pausada = false;
+                monitor.notifyAll();
+            }
+        }
+
+        /**
+         * Deja de recibir eventos y detiene el hilo de la suscripción
+         */
+        public void cancelar() {
+            activa = false;
+            suscripciones.remove(this);
+            hilo.interrupt();
+        }
+
+        public String getNombre() {
+            return nombre;
+        }
+
+        /**
+         * Obtiene la cantidad de eventos publicados que la suscripción aún no aplicó
+         *
+         * @return Eventos pendientes
+         */
+        public long getPendientes() {
+            return ultimaRecibida - ultimaAplicada;
+        }
+
+        /**
+         * Obtiene la antigüedad del evento pendiente más viejo
+         *
+         * @return Milisegundos de retraso (0 si está al día)
+         */
+        public long getRetrasoMilis() {
+            long desde = pendienteDesde;
+            if (desde == 0) {
+                List<EventoCatalogo> siguiente = cola.peek();
+                if (siguiente == null) {
+                    return 0;
+                }
+                desde = siguiente.get(0).getCreadoNanos();
+            }
+            return (System.nanoTime() - desde) / 1_000_000;
+        }
+
+        public boolean isPausada() {
+            return pausada;
+        }
+
+        /**
+         * Obtiene la cantidad de lotes que el suscriptor no pudo aplicar
+         *
+         * @return Lotes fallidos desde que se creó la suscripción
+         */
+        public int getFallos() {
+            return fallos;
+        }
+    }
+}
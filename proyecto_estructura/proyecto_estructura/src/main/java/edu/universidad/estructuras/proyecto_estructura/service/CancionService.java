@@ -1,34 +1,129 @@
 package edu.universidad.estructuras.proyecto_estructura.service;
 
+import edu.universidad.estructuras.proyecto_estructura.model.BitmapComprimido;
 import edu.universidad.estructuras.proyecto_estructura.model.Cancion;
+import edu.universidad.estructuras.proyecto_estructura.model.DiccionarioAtributos;
 import edu.universidad.estructuras.proyecto_estructura.model.GrafoDeSimilitud;
+import edu.universidad.estructuras.proyecto_estructura.model.IndiceInvertido;
+import edu.universidad.estructuras.proyecto_estructura.model.IndiceTrigramas;
 import edu.universidad.estructuras.proyecto_estructura.model.TrieAutocompletado;
 
 import java.io.*;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleConsumer;
 
 /**
  * Servicio para gestión del catálogo de canciones.
  * Carga canciones ÚNICAMENTE desde el archivo canciones.txt
  *
+ * Concurrencia: las lecturas del catálogo no toman locks (mapas concurrentes y una
+ * TablaOrdinales publicada con volatile); sus escrituras se serializan con el lock del
+ * catálogo. Cada grupo de estructuras derivadas tiene su propio CerrojoCatalogo: los índices
+ * secundarios (filtros, facetas, texto y orden), los tries y el grafo. Así el suscriptor
+ * de una estructura solo bloquea las consultas de esa estructura, y un lote de importación
+ * no bloquea ninguna. Orden de los locks cuando se toman varios: catálogo, índices, tries, grafo.
+ *
+ * Versiones: cada escritura publica una VersionCatalogo con los tries, el grafo y el índice
+ * de texto. abrirSnapshot() fija la versión vigente para cómputos largos (radio, descubrimiento),
+ * que la consultan sin locks. Si al escribir la versión vigente está fijada, las estructuras
+ * se copian antes de modificarlas (copy-on-write), así que los escritores no esperan a esos
+ * lectores; la versión antigua se descarta cuando se cierra su último snapshot. El catálogo
+ * y sus ordinales siguen la misma regla, y una canción editada deja en los snapshots
+ * abiertos una copia con sus valores anteriores.
+ *
+ * Eventos: las escrituras solo actualizan el catálogo y sus ordinales, y publican el cambio
+ * en un BusEventosCatalogo. Los tries, el grafo y los índices secundarios (filtros, texto y
+ * orden) son suscriptores que aplican los cambios en lotes desde sus propios hilos, así que
+ * reflejan cada escritura con un pequeño retraso (ver getBusEventos().getRetrasos()).
+ *
+ * Arranque por etapas: el constructor solo carga el catálogo y los índices baratos (filtros,
+ * texto y orden). Los tries y el grafo de similitud (O(n²)) se construyen en hilos de fondo;
+ * getTriesListos() y getGrafoListo() avisan cuando están disponibles. Sus suscripciones
+ * empiezan pausadas: los cambios que llegan mientras tanto esperan en la cola y se aplican
+ * al instalar cada estructura.
+ * Si data/indices.snap corresponde al catálogo cargado (misma suma de verificación), las
+ * estructuras se leen de ese archivo en lugar de reconstruirse; si no, se guarda al terminar.
+ *
  */
 public class CancionService {
-    private static CancionService instance;
-    private final HashMap<String, Cancion> catalogo;
+    private volatile ConcurrentHashMap<String, Cancion> catalogo; // se reemplaza por una copia si un snapshot lo comparte
     private static final String ARCHIVO_CANCIONES = "canciones.txt";
+    private static final String ARCHIVO_INDICES = "data/indices.snap";
+    private static final int FILAS_POR_LOTE_IMPORTACION = 1000;
+    private static final long ESPERA_PROPIAS_MS = 500;
     private int contadorId;
-    private final TrieAutocompletado trieTitulos;
-    private final TrieAutocompletado trieArtistas;
-    private final GrafoDeSimilitud grafoSimilitud;
+    private volatile TrieAutocompletado trieTitulos;   // lock de los tries
+    private volatile TrieAutocompletado trieArtistas;  // lock de los tries
+    private volatile GrafoDeSimilitud grafoSimilitud;  // lock del grafo
+
+    // Ordinales densos: cada canción recibe un entero consecutivo usado por los índices
+    private volatile TablaOrdinales cancionesPorOrdinal; // se reemplaza por una copia si un snapshot la comparte
+    private final ConcurrentHashMap<String, Integer> ordinalPorId;
+    private final HashMap<String, Integer> titulosNormalizados; // título normalizado -> cantidad de canciones
+    private final MotorFiltros motorFiltros;
+    private final FacetasCatalogo facetas;
+    private volatile IndiceInvertido indiceTexto;
+    private final IndiceTrigramas indiceInfijos; // búsqueda dentro de palabras; los snapshots no lo usan
+    private final IndiceOrden indiceOrden;
+    private final CerrojoCatalogo cerrojo;         // catálogo, ordinales y snapshots abiertos
+    private final CerrojoCatalogo cerrojoIndices;  // filtros, facetas, texto y orden
+    private final CerrojoCatalogo cerrojoTries;
+    private final CerrojoCatalogo cerrojoGrafo;
+
+    // Versiones publicadas para snapshots
+    private long numeroVersion; // solo en publicarVersion()
+    private volatile VersionCatalogo versionPublicada;
+    private final ConcurrentHashMap<Long, VersionCatalogo> versionesRetenidas; // versiones con snapshots abiertos
+    private final Set<SnapshotCatalogo> snapshotsAbiertos;
+
+    // Calentamiento en segundo plano de tries y grafo
+    private final CompletableFuture<Void> triesListos;
+    private final CompletableFuture<Void> grafoListo;
+    private final BusEventosCatalogo busEventos;
+    private BusEventosCatalogo.Suscripcion suscripcionIndices;
+    private BusEventosCatalogo.Suscripcion suscripcionTries;
+    private BusEventosCatalogo.Suscripcion suscripcionGrafo;
+    private volatile int epoca; // se incrementa en limpiarCatalogo: descarta eventos y construcciones anteriores
+    private final AtomicInteger progresoGrafo;
+    private volatile int totalGrafo;
+    private final CopyOnWriteArrayList<DoubleConsumer> observadoresProgreso;
 
     /**
      * Constructor privado para patrón Singleton
      */
     private CancionService() {
-        catalogo = new HashMap<>();
+        catalogo = new ConcurrentHashMap<>();
+        cerrojo = new CerrojoCatalogo();
+        cerrojoIndices = new CerrojoCatalogo();
+        cerrojoTries = new CerrojoCatalogo();
+        cerrojoGrafo = new CerrojoCatalogo();
         trieTitulos = new TrieAutocompletado();
-        trieArtistas = new TrieAutocompletado();
+        trieArtistas = nuevoTrieArtistas();
         grafoSimilitud = new GrafoDeSimilitud();
+        cancionesPorOrdinal = new TablaOrdinales();
+        ordinalPorId = new ConcurrentHashMap<>();
+        titulosNormalizados = new HashMap<>();
+        motorFiltros = new MotorFiltros(cerrojoIndices);
+        facetas = new FacetasCatalogo(cerrojoIndices);
+        indiceTexto = new IndiceInvertido();
+        indiceInfijos = new IndiceTrigramas();
+        indiceOrden = new IndiceOrden();
+        versionesRetenidas = new ConcurrentHashMap<>();
+        snapshotsAbiertos = ConcurrentHashMap.newKeySet();
+        triesListos = new CompletableFuture<>();
+        grafoListo = new CompletableFuture<>();
+        progresoGrafo = new AtomicInteger();
+        observadoresProgreso = new CopyOnWriteArrayList<>();
+        busEventos = new BusEventosCatalogo();
         contadorId = 1;
 
         // ✅ CARGAR SOLO DESDE ARCHIVO
@@ -41,7 +136,12 @@ public class CancionService {
             cargarCancionesDesdeArchivo();
         }
 
-        construirGrafoSimilitud();
+        publicarVersion();
+
+        suscripcionIndices = busEventos.suscribir("indices", this::aplicarEnIndices, this::reconstruirIndices);
+        suscripcionTries = busEventos.suscribirPausada("tries", this::aplicarEnTries, this::reconstruirTries);
+        suscripcionGrafo = busEventos.suscribirPausada("grafo", this::aplicarEnGrafo, this::reconstruirGrafoSimilitud);
+        iniciarCalentamiento();
     }
 
     /**
@@ -50,10 +150,15 @@ public class CancionService {
      * @return Instancia de CancionService
      */
     public static CancionService getInstance() {
-        if (instance == null) {
-            instance = new CancionService();
-        }
-        return instance;
+        return Contenedor.INSTANCIA;
+    }
+
+    /**
+     * Inicialización perezosa y segura entre hilos: la JVM crea la instancia
+     * una sola vez, al cargar esta clase en el primer getInstance()
+     */
+    private static final class Contenedor {
+        private static final CancionService INSTANCIA = new CancionService();
     }
 
     /**
@@ -103,27 +208,29 @@ public class CancionService {
      * @return Canción creada, o null si ya existe
      */
     public Cancion agregarCancion(String titulo, String artista, String genero, int anio, double duracion, String urlYoutube) {
-        // ✅ Verificar si ya existe una canción con el mismo título (ignorando mayúsculas/minúsculas)
-        for (Cancion c : catalogo.values()) {
-            if (c.getTitulo().equalsIgnoreCase(titulo.trim())) {
+        cerrojo.bloquearEscritura();
+        try {
+            // ✅ Verificar si ya existe una canción con el mismo título (ignorando mayúsculas/minúsculas)
+            if (titulosNormalizados.containsKey(normalizarTitulo(titulo))) {
                 System.out.println("  ⚠️ Canción duplicada (omitida): " + titulo);
                 return null;
             }
-        }
 
-        String id = generarId();
-        Cancion nuevaCancion = new Cancion(id, titulo, artista, genero, anio, duracion, urlYoutube);
-        catalogo.put(id, nuevaCancion);
+            String id = generarId();
+            Cancion nuevaCancion = new Cancion(id, titulo, artista, genero, anio, duracion, urlYoutube);
+            prepararCatalogo();
+            catalogo.put(id, nuevaCancion);
+            int ordinal = registrarOrdinal(nuevaCancion);
 
-        // Agregar al Trie
-        trieTitulos.insertar(titulo);
-        trieArtistas.insertar(artista);
+            // Tries, grafo e índices se actualizan desde el bus de eventos
+            notificar(EventoCatalogo.Tipo.AGREGADA, ordinal, nuevaCancion, null);
 
-        grafoSimilitud.agregarCancion(nuevaCancion);
-        reconstruirGrafoSimilitud();
-
-        guardarCancionesEnArchivo();
-        return nuevaCancion;
+            // Anotar con el lock tomado: el diario recibe los cambios en el mismo orden que el catálogo
+            anotarCancion(nuevaCancion);
+            return nuevaCancion;
+        } finally {
+            cerrojo.liberarEscritura();
+        }
     }
 
     /**
@@ -137,23 +244,32 @@ public class CancionService {
      * Actualiza una canción existente
      */
     public boolean actualizarCancion(String id, String titulo, String artista, String genero, int anio, double duracion, String urlYoutube) {
-        Cancion cancion = catalogo.get(id);
-        if (cancion != null) {
+        cerrojo.bloquearEscritura();
+        try {
+            Cancion cancion = catalogo.get(id);
+            if (cancion == null) {
+                return false;
+            }
+            Cancion antes = copiar(cancion);
+            prepararCatalogo();
+            congelarEnSnapshots(cancion, antes);
+            olvidarTitulo(cancion.getTitulo());
             cancion.setTitulo(titulo);
             cancion.setArtista(artista);
             cancion.setGenero(genero);
             cancion.setAnio(anio);
             cancion.setDuracion(duracion);
             cancion.setUrlYoutube(urlYoutube);
+            registrarTitulo(titulo);
 
-            // Actualizar en Trie si cambió el título
-            trieTitulos.insertar(titulo);
-            trieArtistas.insertar(artista);
+            // Reindexar, reconectar en el grafo y reemplazar en los tries (título y artista anteriores)
+            notificar(EventoCatalogo.Tipo.ACTUALIZADA, ordinalPorId.get(id), cancion, antes);
 
-            guardarCancionesEnArchivo();
+            anotarCancion(cancion);
             return true;
+        } finally {
+            cerrojo.liberarEscritura();
         }
-        return false;
     }
     public boolean actualizarCancion(String id, String titulo, String artista, String genero, int anio, double duracion) {
         return actualizarCancion(id, titulo, artista, genero, anio, duracion, "");
@@ -162,12 +278,21 @@ public class CancionService {
      * Elimina una canción del catálogo
      */
     public boolean eliminarCancion(String id) {
-        Cancion eliminada = catalogo.remove(id);
-        if (eliminada != null) {
-            guardarCancionesEnArchivo();
+        cerrojo.bloquearEscritura();
+        try {
+            if (!catalogo.containsKey(id)) {
+                return false;
+            }
+            prepararCatalogo();
+            Cancion eliminada = catalogo.remove(id);
+            int ordinal = liberarOrdinal(id);
+            notificar(EventoCatalogo.Tipo.ELIMINADA, ordinal, eliminada, copiar(eliminada));
+
+            PersistenciaService.getInstance().anotar(TipoRegistro.SONG_DEL, id);
             return true;
+        } finally {
+            cerrojo.liberarEscritura();
         }
-        return false;
     }
 
     /**
@@ -178,12 +303,349 @@ public class CancionService {
     }
 
     /**
-     * Obtiene todas las canciones del catálogo
+     * Obtiene una canción por su ordinal denso
+     *
+     * @param ordinal Ordinal de la canción
+     * @return Canción, o null si el ordinal no existe o fue eliminado
+     */
+    public Cancion obtenerPorOrdinal(int ordinal) {
+        return cancionesPorOrdinal.get(ordinal);
+    }
+
+    /**
+     * Obtiene el motor de filtros compuestos del catálogo
+     *
+     * @return Motor de filtros por género, artista, año y duración
+     */
+    public MotorFiltros getMotorFiltros() {
+        esperarPropias(suscripcionIndices);
+        return motorFiltros;
+    }
+
+    /**
+     * Obtiene los contadores de canciones por género, década y artista
+     *
+     * @return Facetas del catálogo
+     */
+    public FacetasCatalogo getFacetas() {
+        esperarPropias(suscripcionIndices);
+        return facetas;
+    }
+
+    /**
+     * Obtiene una porción de las canciones de un género, década o artista, ya ordenadas
+     * (por título en géneros; por año y título en décadas y artistas)
+     *
+     * @param tipo Faceta
+     * @param valor Valor de la faceta (la década como "1980")
+     * @param desde Posición inicial
+     * @param limite Cantidad máxima de canciones
+     * @return Canciones de la porción
+     */
+    public List<Cancion> obtenerCancionesDeFaceta(TipoFaceta tipo, String valor, int desde, int limite) {
+        esperarPropias(suscripcionIndices);
+        return materializarOrdinales(facetas.obtenerPorcion(tipo, valor, desde, limite));
+    }
+
+    /**
+     * Crea un cursor sobre las canciones de un resultado de filtros
+     *
+     * @param resultado Mapa de bits obtenido del motor de filtros
+     * @return Cursor que materializa las canciones bajo demanda
+     */
+    public CursorOrdinales abrirCursor(BitmapComprimido resultado) {
+        return new CursorOrdinales(resultado, this::obtenerPorOrdinal);
+    }
+
+    /**
+     * Abre un snapshot de la versión vigente del catálogo para un cómputo largo.
+     * Las consultas sobre el snapshot no toman locks y las escrituras posteriores no lo
+     * afectan. Debe cerrarse al terminar (try-with-resources).
+     *
+     * Abrirlo es O(1): comparte el catálogo vigente, y la siguiente escritura lo copia antes
+     * de modificarlo (ver prepararCatalogo()).
+     *
+     * @return Snapshot de la versión vigente
+     */
+    public SnapshotCatalogo abrirSnapshot() {
+        cerrojo.bloquearLectura();
+        try {
+            VersionCatalogo version = fijarVersion();
+            SnapshotCatalogo snapshot = new SnapshotCatalogo(version, catalogo, cancionesPorOrdinal, this::cerrarSnapshot);
+            snapshotsAbiertos.add(snapshot);
+            return snapshot;
+        } finally {
+            cerrojo.liberarLectura();
+        }
+    }
+
+    /**
+     * Fija la versión publicada para un lector (con el lock de lectura del catálogo tomado).
+     * Toma también los locks de lectura de índices, tries y grafo: mientras tanto ningún
+     * suscriptor modifica en su lugar una estructura de la versión, y los siguientes ven la
+     * versión fijada y copian la estructura antes de escribir.
+     */
+    private VersionCatalogo fijarVersion() {
+        cerrojoIndices.bloquearLectura();
+        cerrojoTries.bloquearLectura();
+        cerrojoGrafo.bloquearLectura();
+        try {
+            VersionCatalogo version = versionPublicada;
+            version.fijar();
+            versionesRetenidas.put(version.getNumero(), version);
+            return version;
+        } finally {
+            cerrojoGrafo.liberarLectura();
+            cerrojoTries.liberarLectura();
+            cerrojoIndices.liberarLectura();
+        }
+    }
+
+    private void cerrarSnapshot(SnapshotCatalogo snapshot) {
+        snapshotsAbiertos.remove(snapshot);
+        liberarVersion(snapshot.getVersionCatalogo());
+    }
+
+    /**
+     * Antes de modificar el catálogo o sus ordinales (requiere el lock de escritura del catálogo): si algún
+     * snapshot abierto los comparte, los reemplaza por copias y el snapshot se queda con
+     * los anteriores
+     */
+    private void prepararCatalogo() {
+        for (SnapshotCatalogo snapshot : snapshotsAbiertos) {
+            if (snapshot.comparte(catalogo)) {
+                catalogo = new ConcurrentHashMap<>(catalogo);
+                cancionesPorOrdinal = cancionesPorOrdinal.copiar();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Antes de editar una canción en su lugar (después de prepararCatalogo()): los snapshots
+     * abiertos que la ven pasan a ver una copia con sus valores anteriores
+     */
+    private void congelarEnSnapshots(Cancion cancion, Cancion antes) {
+        for (SnapshotCatalogo snapshot : snapshotsAbiertos) {
+            snapshot.congelar(cancion, antes);
+        }
+    }
+
+    /**
+     * Obtiene la cantidad de versiones del catálogo retenidas por snapshots abiertos
+     *
+     * @return Cantidad de versiones retenidas
+     */
+    public int getVersionesRetenidas() {
+        return versionesRetenidas.size();
+    }
+
+    /**
+     * Suelta un lector de la versión; sin lectores, la versión deja de estar retenida
+     */
+    private void liberarVersion(VersionCatalogo version) {
+        if (version.soltar() == 0) {
+            // Si otro snapshot la fijó entretanto, se conserva
+            versionesRetenidas.computeIfPresent(version.getNumero(), (numero, v) -> v.estaFijada() ? v : null);
+        }
+    }
+
+    /**
+     * Antes de modificar una estructura versionada (con su lock de escritura): indica si
+     * alguna versión fijada por un snapshot la usa, y entonces hay que copiarla
+     */
+    private boolean fijadaEnSnapshot(Object estructura) {
+        for (VersionCatalogo version : versionesRetenidas.values()) {
+            if (version.estaFijada() && version.usa(estructura)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Publica las estructuras actuales como nueva versión (con el lock de escritura de la
+     * estructura que cambió)
+     */
+    private synchronized void publicarVersion() {
+        versionPublicada = new VersionCatalogo(++numeroVersion, trieTitulos, trieArtistas,
+                grafoSimilitud, indiceTexto);
+    }
+
+    /**
+     * Obtiene una copia de todas las canciones del catálogo.
+     * Para solo leer o recorrer el catálogo es preferible obtenerVistaCanciones() u obtenerPagina().
      */
     public List<Cancion> obtenerTodasLasCanciones() {
         return new ArrayList<>(catalogo.values());
     }
 
+    /**
+     * Obtiene una vista de solo lectura del catálogo, sin copiarlo.
+     * La vista refleja los cambios posteriores del catálogo.
+     *
+     * @return Colección no modificable con las canciones
+     */
+    public Collection<Cancion> obtenerVistaCanciones() {
+        return Collections.unmodifiableCollection(catalogo.values());
+    }
+
+    /**
+     * Obtiene una página del catálogo en orden de alta, a partir de un ordinal
+     *
+     * @param desdeOrdinal Ordinal inicial (0 para la primera página, luego getSiguienteOrdinal())
+     * @param limite Número máximo de canciones de la página
+     * @return Página de solo lectura con el cursor para continuar
+     */
+    public PaginaCanciones obtenerPagina(int desdeOrdinal, int limite) {
+        TablaOrdinales tabla = cancionesPorOrdinal;
+        List<Cancion> canciones = new ArrayList<>(Math.max(0, Math.min(limite, catalogo.size())));
+        int ordinal = Math.max(0, desdeOrdinal);
+
+        while (ordinal < tabla.size() && canciones.size() < limite) {
+            Cancion cancion = tabla.get(ordinal++);
+            if (cancion != null) {
+                canciones.add(cancion);
+            }
+        }
+
+        // Saltar huecos de canciones eliminadas para saber si realmente quedan más
+        while (ordinal < tabla.size() && tabla.get(ordinal) == null) {
+            ordinal++;
+        }
+        int siguiente = ordinal < tabla.size() ? ordinal : -1;
+
+        return new PaginaCanciones(canciones, siguiente, catalogo.size());
+    }
+
+    /**
+     * Ordena un subconjunto de canciones usando los índices de orden precalculados
+     * (comparación según las reglas del español, sin distinguir mayúsculas).
+     * Las canciones que ya no están en el catálogo quedan al final.
+     *
+     * @param canciones Canciones a ordenar (no se modifica)
+     * @param criterio Criterio de orden
+     * @param descendente true para orden descendente
+     * @return Nueva lista ordenada
+     */
+    public List<Cancion> ordenar(Collection<Cancion> canciones, CriterioOrden criterio, boolean descendente) {
+        Cancion[] entrada = canciones.toArray(new Cancion[0]);
+        int[] ordinales = new int[entrada.length];
+        for (int i = 0; i < entrada.length; i++) {
+            Integer ordinal = ordinalPorId.get(entrada[i].getId());
+            ordinales[i] = ordinal != null ? ordinal : -1;
+        }
+
+        int[] permutacion = cerrojoIndices.leer(() -> indiceOrden.ordenar(ordinales, criterio, descendente));
+        List<Cancion> ordenadas = new ArrayList<>(entrada.length);
+        for (int posicion : permutacion) {
+            ordenadas.add(entrada[posicion]);
+        }
+        return ordenadas;
+    }
+
+    /**
+     * Ordena un resultado completo (todas sus páginas, no solo las consumidas) con los
+     * índices de orden, sin materializar canciones: el cursor devuelto materializa solo
+     * las páginas que se piden.
+     *
+     * @param resultado Resultado a ordenar (no se consume)
+     * @param criterio Criterio de orden
+     * @param descendente true para orden descendente
+     * @return Cursor sobre el resultado ordenado
+     */
+    public CursorResultados ordenar(CursorResultados resultado, CriterioOrden criterio, boolean descendente) {
+        return ordenarOrdinales(resultado.getOrdinales(), criterio, descendente);
+    }
+
+    /**
+     * Ordena un resultado de filtros (ver ordenar(CursorResultados, CriterioOrden, boolean))
+     *
+     * @param resultado Mapa de bits obtenido del motor de filtros
+     * @param criterio Criterio de orden
+     * @param descendente true para orden descendente
+     * @return Cursor sobre el resultado ordenado
+     */
+    public CursorResultados ordenar(BitmapComprimido resultado, CriterioOrden criterio, boolean descendente) {
+        int[] ordinales = new int[resultado.getCardinalidad()];
+        int total = 0;
+        for (int ordinal = resultado.siguiente(0); ordinal >= 0 && total < ordinales.length;
+             ordinal = resultado.siguiente(ordinal + 1)) {
+            ordinales[total++] = ordinal;
+        }
+        return ordenarOrdinales(Arrays.copyOf(ordinales, total), criterio, descendente);
+    }
+
+    private CursorResultados ordenarOrdinales(int[] ordinales, CriterioOrden criterio, boolean descendente) {
+        int[] permutacion = cerrojoIndices.leer(() -> indiceOrden.ordenar(ordinales, criterio, descendente));
+        int[] ordenados = new int[permutacion.length];
+        for (int i = 0; i < permutacion.length; i++) {
+            ordenados[i] = ordinales[permutacion[i]];
+        }
+        return new CursorResultados(ordenados, this::obtenerPorOrdinal);
+    }
+
+    /**
+     * Búsqueda de texto libre ordenada por relevancia (BM25 por campos).
+     * Un término en el título pesa más que en el artista, y este más que en el género;
+     * los términos también coinciden por prefijo, con menor peso que la coincidencia exacta.
+     *
+     * Después de las relevantes van las canciones cuyo título o artista contiene el texto
+     * dentro de una palabra ("een" encuentra "Queen"), como la búsqueda parcial. Esas salen
+     * del índice de trigramas y no de recorrer el catálogo; por eso un texto de menos de
+     * tres caracteres solo encuentra términos completos y prefijos.
+     *
+     * @param consulta Texto a buscar
+     * @param limite Número máximo de resultados
+     * @return Canciones ordenadas de mayor a menor relevancia
+     */
+    public List<Cancion> buscarRelevantes(String consulta, int limite) {
+        return abrirBusqueda(consulta).tomar(limite);
+    }
+
+    /**
+     * Abre la búsqueda por relevancia (ver buscarRelevantes(String, int)) para recorrerla
+     * por páginas: el resultado completo se ordena una vez y cada página solo materializa
+     * sus canciones.
+     *
+     * @param consulta Texto a buscar
+     * @return Cursor sobre los resultados, de mayor a menor relevancia
+     */
+    public CursorResultados abrirBusqueda(String consulta) {
+        esperarPropias(suscripcionIndices);
+        String texto = IndiceTrigramas.normalizar(consulta);
+        List<IndiceInvertido.Resultado> encontrados;
+        BitmapComprimido candidatos;
+        cerrojoIndices.bloquearLectura();
+        try {
+            encontrados = indiceTexto.buscarTodos(consulta);
+            candidatos = indiceInfijos.candidatos(texto);
+        } finally {
+            cerrojoIndices.liberarLectura();
+        }
+
+        int[] ordinales = new int[encontrados.size() + (candidatos == null ? 0 : candidatos.getCardinalidad())];
+        int total = 0;
+        Set<Integer> incluidos = new HashSet<>();
+        for (IndiceInvertido.Resultado resultado : encontrados) {
+            ordinales[total++] = resultado.getOrdinal();
+            incluidos.add(resultado.getOrdinal());
+        }
+
+        // Los trigramas solo descartan: cada candidato se verifica contra el texto
+        TablaOrdinales tabla = cancionesPorOrdinal;
+        for (int ordinal = candidatos == null ? -1 : candidatos.siguiente(0); ordinal >= 0;
+             ordinal = candidatos.siguiente(ordinal + 1)) {
+            Cancion cancion = tabla.get(ordinal);
+            if (cancion != null && !incluidos.contains(ordinal)
+                    && (cancion.getTitulo().toLowerCase().contains(texto)
+                    || cancion.getArtista().toLowerCase().contains(texto))) {
+                ordinales[total++] = ordinal;
+            }
+        }
+        return new CursorResultados(Arrays.copyOf(ordinales, total), this::obtenerPorOrdinal);
+    }
+
     /**
      * Busca canciones por título (búsqueda parcial)
      */
@@ -248,14 +710,92 @@ public class CancionService {
     }
 
     /**
-     * Obtiene todos los géneros únicos del catálogo
+     * Obtiene todos los géneros únicos del catálogo (desde las facetas, sin recorrerlo)
      */
     public Set<String> obtenerGenerosUnicos() {
-        Set<String> generos = new HashSet<>();
-        for (Cancion cancion : catalogo.values()) {
-            generos.add(cancion.getGenero());
+        esperarPropias(suscripcionIndices);
+        return new LinkedHashSet<>(facetas.getConteos(TipoFaceta.GENERO).keySet());
+    }
+
+    /**
+     * Elige canciones al azar, sin repetir, con la misma probabilidad para todas.
+     * Usa los ordinales del motor de filtros: no copia ni baraja el catálogo.
+     *
+     * @param cantidad Cantidad de canciones
+     * @return Hasta cantidad canciones distintas
+     */
+    public List<Cancion> muestrearUniforme(int cantidad) {
+        return materializarOrdinales(motorFiltros.muestrearUniforme(cantidad, ThreadLocalRandom.current()));
+    }
+
+    /**
+     * Elige canciones al azar, sin repetir, con probabilidad proporcional a
+     * 1 + cantidad de usuarios que las tienen en favoritos.
+     *
+     * Cada sorteo es una mezcla: con probabilidad F / (n + F) (F = total de favoritos,
+     * n = canciones) se usa la tabla de alias de PopularidadService y si no, un ordinal
+     * uniforme; así cada canción recibe peso 1 + favoritos sin construir una tabla de n.
+     *
+     * @param cantidad Cantidad de canciones
+     * @return Hasta cantidad canciones distintas
+     */
+    public List<Cancion> muestrearPorPopularidad(int cantidad) {
+        PopularidadService popularidad = PopularidadService.getInstance();
+        Random random = ThreadLocalRandom.current();
+        int totalCanciones = motorFiltros.getCantidadIndexadas();
+        long totalFavoritos = popularidad.getTotalFavoritos();
+        int objetivo = Math.min(cantidad, totalCanciones);
+
+        LinkedHashMap<String, Cancion> elegidas = new LinkedHashMap<>();
+        int intentosRestantes = objetivo * 20 + 100;
+        while (elegidas.size() < objetivo && intentosRestantes-- > 0) {
+            Cancion cancion;
+            if (random.nextDouble() * (totalCanciones + totalFavoritos) < totalFavoritos) {
+                String id = popularidad.muestrearPorPopularidad(random);
+                cancion = id != null ? obtenerCancion(id) : null;
+            } else {
+                int[] ordinal = motorFiltros.muestrearUniforme(1, random);
+                cancion = ordinal.length > 0 ? obtenerPorOrdinal(ordinal[0]) : null;
+            }
+            if (cancion != null) {
+                elegidas.putIfAbsent(cancion.getId(), cancion);
+            }
         }
-        return generos;
+
+        // Si unas pocas canciones concentran casi todos los sorteos, completar de forma uniforme
+        if (elegidas.size() < objetivo) {
+            for (Cancion cancion : muestrearUniforme(objetivo)) {
+                if (elegidas.size() >= objetivo) {
+                    break;
+                }
+                elegidas.putIfAbsent(cancion.getId(), cancion);
+            }
+        }
+        return new ArrayList<>(elegidas.values());
+    }
+
+    /**
+     * Elige canciones al azar repartidas entre géneros o décadas: cada estrato aporta
+     * canciones por turnos, así una muestra pequeña cubre la mayor variedad posible
+     * (útil para sugerencias a usuarios sin favoritos).
+     *
+     * @param cantidad Cantidad de canciones
+     * @param estrato Criterio de reparto
+     * @return Hasta cantidad canciones distintas, en orden aleatorio
+     */
+    public List<Cancion> muestrearEstratificado(int cantidad, EstratoMuestreo estrato) {
+        return materializarOrdinales(motorFiltros.muestrearEstratificado(cantidad, estrato, ThreadLocalRandom.current()));
+    }
+
+    private List<Cancion> materializarOrdinales(int[] ordinales) {
+        List<Cancion> canciones = new ArrayList<>(ordinales.length);
+        for (int ordinal : ordinales) {
+            Cancion cancion = obtenerPorOrdinal(ordinal);
+            if (cancion != null) {
+                canciones.add(cancion);
+            }
+        }
+        return canciones;
     }
 
     /**
@@ -274,188 +814,196 @@ public class CancionService {
      * @return Número de canciones cargadas exitosamente
      */
     public int cargarCancionesMasivamente(String rutaArchivo) {
-        int cancionesCargadas = 0;
-        int cancionesOmitidas = 0;
-        int lineasError = 0;
+        return importarCanciones(rutaArchivo).getCargadas();
+    }
+
+    /**
+     * Importa canciones masivamente en lotes de tamaño fijo:
+     * 1. Lee y valida las filas sin tomar el lock (ImportadorCanciones, en paralelo).
+     * 2. Cada FILAS_POR_LOTE_IMPORTACION filas toma el lock del catálogo, descarta los
+     *    títulos duplicados (índice hash de títulos normalizados, también entre filas del
+     *    mismo archivo), registra las nuevas canciones y publica un evento por cada una;
+     *    los suscriptores las indexan y las conectan en el grafo en lotes.
+     * 3. Anota las canciones nuevas en el diario de cambios.
+     * La memoria usada queda acotada por el tamaño del lote (más los lotes en vuelo del
+     * importador), sin importar el tamaño del archivo. Los lotes ya aplicados se conservan
+     * aunque la lectura falle a mitad del archivo.
+     *
+     * @param rutaArchivo Ruta del archivo (mismo formato que cargarCancionesMasivamente)
+     * @return Resumen de la importación con el rendimiento en filas por segundo
+     */
+    public ResultadoImportacion importarCanciones(String rutaArchivo) {
+        // Toma el lock del catálogo; este método no debe llamarse con el lock tomado
+        long inicio = System.nanoTime();
+        List<Cancion> lote = new ArrayList<>(FILAS_POR_LOTE_IMPORTACION);
+        int[] conteo = new int[2]; // {cargadas, omitidas}
 
         System.out.println("\n=== Carga Masiva de Canciones ===");
         System.out.println("Archivo: " + rutaArchivo);
 
-        try (BufferedReader br = new BufferedReader(new FileReader(rutaArchivo))) {
-            String linea;
-            int numeroLinea = 0;
-
-            while ((linea = br.readLine()) != null) {
-                numeroLinea++;
-                linea = linea.trim();
-
-                // Ignorar líneas vacías y comentarios
-                if (linea.isEmpty() || linea.startsWith("#")) {
-                    continue;
-                }
-
-                String[] partes = linea.split("\\|");
-
-                try {
-                    // Detectar formato automáticamente
-                    boolean tieneID = detectarSiTieneID(partes);
-
-                    String id, titulo, artista, genero, urlYoutube;
-                    int anio;
-                    double duracion;
-
-                    if (tieneID) {
-                        // Formato: ID|Título|Artista|Género|Año|Duración|URL (7 campos) o sin URL (6 campos)
-                        if (partes.length == 7) {
-                            id = partes[0].trim();
-                            titulo = partes[1].trim();
-                            artista = partes[2].trim();
-                            genero = partes[3].trim();
-                            anio = parsearAnio(partes[4].trim(), numeroLinea);
-                            duracion = parsearDuracion(partes[5].trim(), numeroLinea);
-                            urlYoutube = partes[6].trim();
-                        } else if (partes.length == 6) {
-                            id = partes[0].trim();
-                            titulo = partes[1].trim();
-                            artista = partes[2].trim();
-                            genero = partes[3].trim();
-                            anio = parsearAnio(partes[4].trim(), numeroLinea);
-                            duracion = parsearDuracion(partes[5].trim(), numeroLinea);
-                            urlYoutube = "";
-                        } else {
-                            throw new IllegalArgumentException("Formato incorrecto: se esperaban 6 o 7 campos, se encontraron " + partes.length);
-                        }
-                    } else {
-                        // Formato: Título|Artista|Género|Año|Duración|URL (6 campos) o sin URL (5 campos)
-                        if (partes.length == 6) {
-                            titulo = partes[0].trim();
-                            artista = partes[1].trim();
-                            genero = partes[2].trim();
-                            anio = parsearAnio(partes[3].trim(), numeroLinea);
-                            duracion = parsearDuracion(partes[4].trim(), numeroLinea);
-                            urlYoutube = partes[5].trim();
-                        } else if (partes.length == 5) {
-                            titulo = partes[0].trim();
-                            artista = partes[1].trim();
-                            genero = partes[2].trim();
-                            anio = parsearAnio(partes[3].trim(), numeroLinea);
-                            duracion = parsearDuracion(partes[4].trim(), numeroLinea);
-                            urlYoutube = "";
-                        } else {
-                            throw new IllegalArgumentException("Formato incorrecto: se esperaban 5 o 6 campos, se encontraron " + partes.length);
-                        }
-                    }
-
-                    // Validar campos obligatorios
-                    if (titulo.isEmpty() || artista.isEmpty()) {
-                        throw new IllegalArgumentException("Título y artista son obligatorios");
-                    }
-
-                    // Intentar agregar (verifica duplicados internamente)
-                    Cancion resultado = agregarCancion(titulo, artista, genero, anio, duracion, urlYoutube);
-
-                    if (resultado != null) {
-                        cancionesCargadas++;
-                        System.out.println("  ✓ Línea " + numeroLinea + ": " + titulo);
-                    } else {
-                        cancionesOmitidas++;
-                    }
-
-                } catch (Exception e) {
-                    lineasError++;
-                    System.err.println("  ✗ Error línea " + numeroLinea + ": " + e.getMessage());
-                    System.err.println("    Contenido: " + linea);
+        // Lectura y validación en paralelo; las filas llegan en el orden del archivo
+        ImportadorCanciones importador = new ImportadorCanciones(rutaArchivo);
+        try {
+            importador.procesar(fila -> {
+                lote.add(fila);
+                if (lote.size() == FILAS_POR_LOTE_IMPORTACION) {
+                    aplicarLoteImportado(lote, conteo);
                 }
-            }
-
-            System.out.println("\n=== Resumen de Carga ===");
-            System.out.println("✓ Canciones agregadas: " + cancionesCargadas);
-            System.out.println("⚠️ Canciones omitidas (duplicadas): " + cancionesOmitidas);
-            System.out.println("✗ Líneas con error: " + lineasError);
-            System.out.println("📊 Total en catálogo: " + getCantidadCanciones());
-
+            });
         } catch (IOException e) {
             System.err.println("✗ Error al leer archivo: " + e.getMessage());
         }
+        aplicarLoteImportado(lote, conteo);
+        int filasLeidas = importador.getFilasLeidas();
+        int lineasError = importador.getErrores();
 
-        return cancionesCargadas;
-    }
+        int cancionesCargadas = conteo[0];
+        int cancionesOmitidas = conteo[1];
 
-    private int parsearAnio(String anioStr, int numeroLinea) throws NumberFormatException {
-        if (!anioStr.matches("\\d{4}")) {
-            throw new NumberFormatException("Año inválido (debe ser 4 dígitos): '" + anioStr + "'");
-        }
-        return Integer.parseInt(anioStr);
+        ResultadoImportacion resultado = new ResultadoImportacion(filasLeidas, cancionesCargadas,
+                cancionesOmitidas, lineasError, System.nanoTime() - inicio);
+
+        System.out.println("\n=== Resumen de Carga ===");
+        System.out.println("✓ Canciones agregadas: " + cancionesCargadas);
+        System.out.println("⚠️ Canciones omitidas (duplicadas): " + cancionesOmitidas);
+        System.out.println("✗ Líneas con error: " + lineasError);
+        System.out.println("📊 Total en catálogo: " + getCantidadCanciones());
+        System.out.println(String.format("⏱ %d filas en %d ms (%.0f filas/s)",
+                filasLeidas, resultado.getDuracionMilis(), resultado.getFilasPorSegundo()));
+
+        return resultado;
     }
 
-    private double parsearDuracion(String duracionStr, int numeroLinea) throws NumberFormatException {
+    /**
+     * Aplica un lote de filas importadas con un solo lock del catálogo y lo vacía.
+     * Suma en conteo[0] las canciones cargadas y en conteo[1] los títulos duplicados.
+     */
+    private void aplicarLoteImportado(List<Cancion> lote, int[] conteo) {
+        if (lote.isEmpty()) {
+            return;
+        }
+        cerrojo.bloquearEscritura();
         try {
-            // Reemplazar coma por punto para estandarizar
-            duracionStr = duracionStr.replace(",", ".");
+            prepararCatalogo(); // una vez por lote
+            List<Cancion> agregadas = new ArrayList<>(lote.size());
+            int[] ordinales = new int[lote.size()];
+            for (Cancion fila : lote) {
+                if (titulosNormalizados.containsKey(normalizarTitulo(fila.getTitulo()))) {
+                    conteo[1]++;
+                    continue;
+                }
 
-            // Verificar que sea un número válido
-            if (!duracionStr.matches("\\d+\\.\\d+") && !duracionStr.matches("\\d+")) {
-                throw new NumberFormatException("Formato de duración inválido: '" + duracionStr + "'");
+                fila.setId(generarId());
+                catalogo.put(fila.getId(), fila);
+                ordinales[agregadas.size()] = registrarOrdinal(fila);
+                agregadas.add(fila);
             }
+            // Un evento por lote en el bus y un registro por lote en el diario
+            notificarLote(ordinales, agregadas);
+            anotarLote(agregadas);
+            conteo[0] += agregadas.size();
+        } finally {
+            cerrojo.liberarEscritura();
+        }
+        lote.clear();
+    }
 
-            double duracion = Double.parseDouble(duracionStr);
-
-            // Validar que los "segundos" sean < 60
-            if (duracionStr.contains(".")) {
-                String[] partesDuracion = duracionStr.split("\\.");
-                int segundos = Integer.parseInt(partesDuracion[1]);
-
-                // Si los segundos son >= 60, mostrar advertencia
-                if (segundos >= 60) {
-                    System.err.println("    ⚠️ Advertencia línea " + numeroLinea +
-                            ": Segundos >= 60 (" + segundos + "). Formato debe ser MM.SS donde SS < 60");
+    /**
+     * Reaplica un lote importado del diario de cambios (ver restaurarCancion)
+     *
+     * @param lote Canciones del lote, con sus IDs
+     */
+    void restaurarLote(List<Cancion> lote) {
+        cerrojo.bloquearEscritura();
+        try {
+            prepararCatalogo();
+            List<Cancion> agregadas = new ArrayList<>(lote.size());
+            int[] ordinales = new int[lote.size()];
+            for (Cancion datos : lote) {
+                if (catalogo.containsKey(datos.getId())) {
+                    restaurarCancion(datos); // ya estaba en el checkpoint: se actualiza
+                    continue;
                 }
+                catalogo.put(datos.getId(), datos);
+                reservarId(datos.getId());
+                ordinales[agregadas.size()] = registrarOrdinal(datos);
+                agregadas.add(datos);
             }
-
-            return duracion;
-
-        } catch (NumberFormatException e) {
-            throw new NumberFormatException("Error al parsear duración '" + duracionStr + "': " + e.getMessage());
+            notificarLote(ordinales, agregadas);
+        } finally {
+            cerrojo.liberarEscritura();
         }
     }
 
     /**
-     * Detecta automáticamente si el archivo tiene campo ID al inicio
-     * Verifica si el primer campo es un ID (formato C0001, C0002, etc.) o un título de canción
+     * Reaplica una canción del diario de cambios: la actualiza si ya existe o la agrega con su ID
+     *
+     * @param datos Canción tal como quedó después del cambio
      */
-    private boolean detectarSiTieneID(String[] partes) {
-        if (partes.length == 0) {
-            return false;
+    void restaurarCancion(Cancion datos) {
+        if (catalogo.containsKey(datos.getId())) {
+            actualizarCancion(datos.getId(), datos.getTitulo(), datos.getArtista(), datos.getGenero(),
+                    datos.getAnio(), datos.getDuracion(), datos.getUrlYoutube());
+            return;
+        }
+        cerrojo.bloquearEscritura();
+        try {
+            prepararCatalogo();
+            catalogo.put(datos.getId(), datos);
+            reservarId(datos.getId());
+            notificar(EventoCatalogo.Tipo.AGREGADA, registrarOrdinal(datos), datos, null);
+        } finally {
+            cerrojo.liberarEscritura();
         }
+    }
 
-        String primerCampo = partes[0].trim();
+    private static void anotarCancion(Cancion cancion) {
+        String[] campos = new String[TipoRegistro.SONG_UPSERT.getCantidadCampos()];
+        copiarCampos(cancion, campos, 0);
+        PersistenciaService.getInstance().anotar(TipoRegistro.SONG_UPSERT, campos);
+    }
 
-        // Si el primer campo coincide con el patrón de ID (C seguido de dígitos)
-        // o es solo dígitos, probablemente es un ID
-        if (primerCampo.matches("^[A-Z]\\d+$") || primerCampo.matches("^\\d+$")) {
-            return true;
+    /**
+     * Anota un lote importado como un solo registro del diario
+     */
+    private static void anotarLote(List<Cancion> canciones) {
+        if (canciones.isEmpty()) {
+            return;
         }
-
-        // Si tiene 7 campos y el primer campo parece un ID, asumimos que tiene ID
-        if (partes.length == 7 && primerCampo.length() <= 10 &&
-                (primerCampo.matches("^[A-Z0-9]+$"))) {
-            return true;
+        int porCancion = TipoRegistro.SONG_BATCH.getCantidadCampos();
+        String[] campos = new String[canciones.size() * porCancion];
+        for (int i = 0; i < canciones.size(); i++) {
+            copiarCampos(canciones.get(i), campos, i * porCancion);
         }
+        PersistenciaService.getInstance().anotar(TipoRegistro.SONG_BATCH, campos);
+    }
 
-        // Si tiene 6 campos y el primer campo no parece un título largo,
-        // podría ser un ID
-        return partes.length == 6 && primerCampo.length() <= 10 &&
-                !primerCampo.contains(" ");
+    private static void copiarCampos(Cancion cancion, String[] campos, int desde) {
+        campos[desde] = cancion.getId();
+        campos[desde + 1] = cancion.getTitulo();
+        campos[desde + 2] = cancion.getArtista();
+        campos[desde + 3] = cancion.getGenero();
+        campos[desde + 4] = String.valueOf(cancion.getAnio());
+        campos[desde + 5] = String.valueOf(cancion.getDuracion());
+        campos[desde + 6] = cancion.getUrlYoutube();
+    }
 
-        // En cualquier otro caso, asumimos que NO tiene ID
-        // (el primer campo es el título)
+    /**
+     * Escribe canciones.txt completo como checkpoint del diario de cambios
+     * (con el lock de lectura del catálogo: las consultas siguen, los cambios esperan)
+     */
+    void guardarCheckpoint() {
+        cerrojo.leer(() -> {
+            guardarCancionesEnArchivo();
+            return null;
+        });
     }
 
     /**
-     * Guarda las canciones en el archivo de texto
+     * Guarda las canciones en el archivo de texto (primero en un temporal que luego lo reemplaza)
      */
     private void guardarCancionesEnArchivo() {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(ARCHIVO_CANCIONES))) {
+        try (PrintWriter pw = new PrintWriter(new FileWriter(ARCHIVO_CANCIONES + ".tmp"))) {
             pw.println("# Base de Datos de Canciones - MusicApp");
             pw.println("# Formato: ID|Título|Artista|Género|Año|Duración|URL_YouTube");
             pw.println("# La duración está en formato decimal: 3.45 = 3 minutos 45 segundos");
@@ -474,6 +1022,35 @@ public class CancionService {
             }
         } catch (IOException e) {
             System.err.println("Error al guardar canciones: " + e.getMessage());
+            throw new UncheckedIOException(e);
+        }
+        PersistenciaService.reemplazarConTemporal(ARCHIVO_CANCIONES);
+    }
+
+    /**
+     * Registra una canción leída del archivo en el catálogo y los índices
+     * (los tries y el grafo se construyen después, en segundo plano)
+     */
+    private void registrarCancionCargada(Cancion cancion) {
+        String id = cancion.getId();
+        catalogo.put(id, cancion);
+        indexarOrdinal(registrarOrdinal(cancion), cancion);
+        reservarId(id);
+    }
+
+    /**
+     * Avanza el contador para que los IDs nuevos no repitan uno existente
+     */
+    private void reservarId(String id) {
+        if (id.startsWith("C")) {
+            try {
+                int numId = Integer.parseInt(id.substring(1));
+                if (numId >= contadorId) {
+                    contadorId = numId + 1;
+                }
+            } catch (NumberFormatException e) {
+                // ID con otro formato: no afecta al contador
+            }
         }
     }
 
@@ -515,18 +1092,7 @@ public class CancionService {
                         double duracion = Double.parseDouble(duracionStr);
                         String urlYoutube = partes[6].trim();
 
-                        Cancion cancion = new Cancion(id, titulo, artista, genero, anio, duracion, urlYoutube);
-                        catalogo.put(id, cancion);
-
-                        trieTitulos.insertar(titulo);
-                        trieArtistas.insertar(artista);
-
-                        if (id.startsWith("C")) {
-                            int numId = Integer.parseInt(id.substring(1));
-                            if (numId >= contadorId) {
-                                contadorId = numId + 1;
-                            }
-                        }
+                        registrarCancionCargada(new Cancion(id, titulo, artista, genero, anio, duracion, urlYoutube));
                         cargadas++;
                     } catch (NumberFormatException e) {
                         System.err.println("Error al parsear línea: " + linea);
@@ -543,18 +1109,7 @@ public class CancionService {
                         String duracionStr = partes[5].trim().replace(",", ".");
                         double duracion = Double.parseDouble(duracionStr);
 
-                        Cancion cancion = new Cancion(id, titulo, artista, genero, anio, duracion, "");
-                        catalogo.put(id, cancion);
-
-                        trieTitulos.insertar(titulo);
-                        trieArtistas.insertar(artista);
-
-                        if (id.startsWith("C")) {
-                            int numId = Integer.parseInt(id.substring(1));
-                            if (numId >= contadorId) {
-                                contadorId = numId + 1;
-                            }
-                        }
+                        registrarCancionCargada(new Cancion(id, titulo, artista, genero, anio, duracion, ""));
                         cargadas++;
                     } catch (NumberFormatException e) {
                         System.err.println("Error al parsear línea: " + linea);
@@ -573,29 +1128,600 @@ public class CancionService {
      * Limpia el catálogo completo
      */
     public void limpiarCatalogo() {
-        catalogo.clear();
-        guardarCancionesEnArchivo();
+        cerrojo.bloquearEscritura();
+        cerrojoIndices.bloquearEscritura();
+        cerrojoTries.bloquearEscritura();
+        cerrojoGrafo.bloquearEscritura();
+        try {
+            // Estructuras nuevas: las de la versión vigente quedan intactas para sus snapshots
+            trieTitulos = new TrieAutocompletado();
+            trieArtistas = nuevoTrieArtistas();
+            grafoSimilitud = new GrafoDeSimilitud();
+            indiceTexto = new IndiceInvertido();
+            epoca++; // los eventos pendientes de antes del vaciado ya no se aplican
+
+            prepararCatalogo();
+            catalogo.clear();
+            cancionesPorOrdinal = new TablaOrdinales();
+            ordinalPorId.clear();
+            titulosNormalizados.clear();
+            motorFiltros.limpiar();
+            facetas.limpiar();
+            indiceInfijos.limpiar();
+            indiceOrden.limpiar();
+            publicarVersion();
+            notificar(EventoCatalogo.Tipo.VACIADO, -1, null, null);
+
+            PersistenciaService.getInstance().anotar(TipoRegistro.SONG_CLEAR);
+        } finally {
+            cerrojoGrafo.liberarEscritura();
+            cerrojoTries.liberarEscritura();
+            cerrojoIndices.liberarEscritura();
+            cerrojo.liberarEscritura();
+        }
+    }
+
+    /**
+     * Asigna un ordinal denso a la canción (o reutiliza el de su ID)
+     *
+     * @return Ordinal de la canción
+     */
+    private int registrarOrdinal(Cancion cancion) {
+        Integer ordinal = ordinalPorId.get(cancion.getId());
+        if (ordinal == null) {
+            ordinal = cancionesPorOrdinal.agregar(cancion);
+            ordinalPorId.put(cancion.getId(), ordinal);
+        } else {
+            olvidarTitulo(cancionesPorOrdinal.get(ordinal).getTitulo());
+            cancionesPorOrdinal.set(ordinal, cancion);
+        }
+        registrarTitulo(cancion.getTitulo());
+        return ordinal;
+    }
+
+    /**
+     * Normaliza un título para detectar duplicados (sin espacios extremos ni mayúsculas)
+     */
+    private static String normalizarTitulo(String titulo) {
+        return titulo.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private void registrarTitulo(String titulo) {
+        titulosNormalizados.merge(normalizarTitulo(titulo), 1, Integer::sum);
+    }
+
+    private void olvidarTitulo(String titulo) {
+        titulosNormalizados.computeIfPresent(normalizarTitulo(titulo), (t, cantidad) -> cantidad > 1 ? cantidad - 1 : null);
+    }
+
+    /**
+     * Indexa (o reindexa) una canción en el motor de filtros, las facetas y los índices de texto y orden
+     */
+    private void indexarOrdinal(int ordinal, Cancion cancion) {
+        motorFiltros.indexar(ordinal, cancion);
+        facetas.indexar(ordinal, cancion);
+        indiceTexto.indexar(ordinal, cancion.getTitulo(), cancion.getArtista(), cancion.getGenero());
+        indiceInfijos.indexar(ordinal, cancion.getTitulo(), cancion.getArtista());
+        indiceOrden.indexar(ordinal, cancion);
+    }
+
+    /**
+     * Retira una canción de todos los índices secundarios
+     */
+    private void desindexarOrdinal(int ordinal) {
+        motorFiltros.desindexar(ordinal);
+        facetas.desindexar(ordinal);
+        indiceTexto.eliminar(ordinal);
+        indiceInfijos.eliminar(ordinal);
+        indiceOrden.desindexar(ordinal);
+    }
+
+    /**
+     * Libera el ordinal de una canción eliminada
+     *
+     * @return Ordinal liberado, o -1 si la canción no tenía
+     */
+    private int liberarOrdinal(String id) {
+        Integer ordinal = ordinalPorId.remove(id);
+        if (ordinal == null) {
+            return -1;
+        }
+        olvidarTitulo(cancionesPorOrdinal.get(ordinal).getTitulo());
+        cancionesPorOrdinal.set(ordinal, null);
+        return ordinal;
+    }
+
+    /**
+     * Publica un cambio del catálogo en el bus (requiere el lock de escritura del catálogo)
+     */
+    private void notificar(EventoCatalogo.Tipo tipo, int ordinal, Cancion cancion, Cancion antes) {
+        Cancion despues = cancion != null && tipo != EventoCatalogo.Tipo.ELIMINADA ? copiar(cancion) : null;
+        busEventos.publicar(tipo, epoca, ordinal, cancion, antes, despues);
+    }
+
+    /**
+     * Publica las canciones agregadas de un lote como una sola entrega del bus
+     */
+    private void notificarLote(int[] ordinales, List<Cancion> agregadas) {
+        List<Cancion> despues = new ArrayList<>(agregadas.size());
+        for (Cancion cancion : agregadas) {
+            despues.add(copiar(cancion));
+        }
+        busEventos.publicarLote(EventoCatalogo.Tipo.AGREGADA, epoca, ordinales, agregadas, despues);
+    }
+
+    /**
+     * Copia los atributos actuales de una canción (los eventos no dependen de cambios posteriores)
+     */
+    private static Cancion copiar(Cancion cancion) {
+        return new Cancion(cancion.getId(), cancion.getTitulo(), cancion.getArtista(), cancion.getGenero(),
+                cancion.getAnio(), cancion.getDuracion(), cancion.getUrlYoutube());
+    }
+
+    /**
+     * Crea un trie de artistas cuyas palabras son las formas normalizadas del diccionario
+     * (las mismas instancias que usan las facetas)
+     */
+    static TrieAutocompletado nuevoTrieArtistas() {
+        return new TrieAutocompletado(DiccionarioAtributos.getInstance()::internarArtistaNormalizado);
+    }
+
+    /**
+     * Suscriptor de los índices secundarios: indexa o retira cada ordinal del lote
+     */
+    private void aplicarEnIndices(List<EventoCatalogo> lote) {
+        cerrojoIndices.bloquearEscritura();
+        try {
+            if (fijadaEnSnapshot(indiceTexto)) {
+                indiceTexto = indiceTexto.copiar();
+            }
+            for (EventoCatalogo evento : lote) {
+                if (evento.getEpoca() != epoca || evento.getOrdinal() < 0) {
+                    continue;
+                }
+                if (evento.getDespues() != null) {
+                    indexarOrdinal(evento.getOrdinal(), evento.getDespues());
+                } else {
+                    desindexarOrdinal(evento.getOrdinal());
+                }
+            }
+            publicarVersion();
+        } finally {
+            cerrojoIndices.liberarEscritura();
+        }
+    }
+
+    /**
+     * Suscriptor de los tries: retira el título y el artista anteriores e inserta los nuevos
+     */
+    private void aplicarEnTries(List<EventoCatalogo> lote) {
+        cerrojoTries.bloquearEscritura();
+        try {
+            if (fijadaEnSnapshot(trieTitulos)) {
+                trieTitulos = trieTitulos.copiar();
+            }
+            if (fijadaEnSnapshot(trieArtistas)) {
+                trieArtistas = trieArtistas.copiar();
+            }
+            for (EventoCatalogo evento : lote) {
+                if (evento.getEpoca() != epoca) {
+                    continue;
+                }
+                if (evento.getAntes() != null) {
+                    trieTitulos.retirar(evento.getAntes().getTitulo());
+                    trieArtistas.retirar(evento.getAntes().getArtista());
+                }
+                if (evento.getDespues() != null) {
+                    trieTitulos.insertar(evento.getDespues().getTitulo());
+                    trieArtistas.insertar(evento.getDespues().getArtista());
+                }
+            }
+            publicarVersion();
+        } finally {
+            cerrojoTries.liberarEscritura();
+        }
+    }
+
+    /**
+     * Suscriptor del grafo: cada canción del lote se desconecta una sola vez y, si sigue en
+     * el catálogo, se vuelve a conectar con sus atributos actuales
+     */
+    private void aplicarEnGrafo(List<EventoCatalogo> lote) {
+        cerrojoGrafo.bloquearEscritura();
+        try {
+            if (fijadaEnSnapshot(grafoSimilitud)) {
+                grafoSimilitud = grafoSimilitud.copiar();
+            }
+            Map<String, Cancion> tocadas = new LinkedHashMap<>();
+            for (EventoCatalogo evento : lote) {
+                if (evento.getEpoca() == epoca && evento.getCancion() != null) {
+                    tocadas.put(evento.getCancion().getId(), evento.getCancion());
+                }
+            }
+            for (Cancion cancion : tocadas.values()) {
+                grafoSimilitud.eliminarCancion(cancion);
+            }
+            for (Cancion cancion : tocadas.values()) {
+                if (catalogo.get(cancion.getId()) == cancion) {
+                    grafoSimilitud.conectarConTodas(cancion);
+                }
+            }
+            publicarVersion();
+        } finally {
+            cerrojoGrafo.liberarEscritura();
+        }
+    }
+
+    /**
+     * Reconstruye el motor de filtros, las facetas y los índices de texto y orden desde el
+     * catálogo (tras un fallo del suscriptor de índices). Es O(n) con el lock de los índices.
+     */
+    private void reconstruirIndices() {
+        cerrojoIndices.bloquearEscritura();
+        try {
+            TablaOrdinales tabla = cancionesPorOrdinal;
+            indiceTexto = new IndiceInvertido();
+            motorFiltros.limpiar();
+            facetas.limpiar();
+            indiceInfijos.limpiar();
+            indiceOrden.limpiar();
+            for (int ordinal = 0; ordinal < tabla.size(); ordinal++) {
+                Cancion cancion = tabla.get(ordinal);
+                if (cancion != null) {
+                    indexarOrdinal(ordinal, cancion);
+                }
+            }
+            publicarVersion();
+        } finally {
+            cerrojoIndices.liberarEscritura();
+        }
+    }
+
+    /**
+     * Reconstruye los tries de títulos y artistas desde el catálogo (tras un fallo de su
+     * suscriptor). Se construyen sin lock y se instalan al final; corre en el hilo de la
+     * suscripción, así que los cambios que lleguen mientras tanto esperan en su cola.
+     */
+    private void reconstruirTries() {
+        int epocaBase = epoca;
+        TrieAutocompletado titulos = new TrieAutocompletado();
+        TrieAutocompletado artistas = nuevoTrieArtistas();
+        for (Cancion cancion : catalogo.values()) {
+            titulos.insertar(cancion.getTitulo());
+            artistas.insertar(cancion.getArtista());
+        }
+        instalarTries(titulos, artistas, epocaBase);
+    }
+
+    /**
+     * Lee las propias escrituras: si el hilo actual publicó cambios que el suscriptor de la
+     * estructura aún no aplicó, espera a que los aplique (así una búsqueda justo después de
+     * agregar o editar una canción la encuentra). Los cambios de otros hilos no se esperan:
+     * esas lecturas pueden estar un poco atrasadas, pero no bloquean la interfaz.
+     *
+     * Si la espera vence se lee el estado anterior. Con algún lock tomado (o desde un
+     * suscriptor) no espera: esos cambios ya no pueden aplicarse antes de leer.
+     *
+     * @param suscripcion Suscripción de la estructura que se va a leer
+     */
+    private void esperarPropias(BusEventosCatalogo.Suscripcion suscripcion) {
+        long propia = busEventos.getPublicadaPorHiloActual();
+        if (propia == 0 || suscripcion.getPendientes() == 0) {
+            return;
+        }
+        if (!cerrojo.tomadoPorHiloActual() && !cerrojoIndices.tomadoPorHiloActual()
+                && !cerrojoTries.tomadoPorHiloActual() && !cerrojoGrafo.tomadoPorHiloActual()) {
+            suscripcion.alcanzar(propia, ESPERA_PROPIAS_MS);
+        }
+    }
+
+    /**
+     * Obtiene el bus de cambios del catálogo, para suscribir otras estructuras (cachés)
+     * o consultar el retraso de cada suscriptor
+     *
+     * @return Bus de eventos del catálogo
+     */
+    public BusEventosCatalogo getBusEventos() {
+        return busEventos;
+    }
+
+    /**
+     * Lanza la construcción de los tries y del grafo en hilos de fondo (desde el constructor)
+     */
+    private void iniciarCalentamiento() {
+        List<Cancion> base = new ArrayList<>(catalogo.size());
+        for (int ordinal = 0; ordinal < cancionesPorOrdinal.size(); ordinal++) {
+            Cancion cancion = cancionesPorOrdinal.get(ordinal);
+            if (cancion != null) {
+                base.add(cancion);
+            }
+        }
+        String[] titulos = new String[base.size()];
+        String[] artistas = new String[base.size()];
+        for (int i = 0; i < base.size(); i++) {
+            titulos[i] = base.get(i).getTitulo();
+            artistas[i] = base.get(i).getArtista();
+        }
+        totalGrafo = base.size();
+        int epocaBase = epoca;
+
+        long suma = ArchivoIndices.calcularSuma(base);
+
+        hiloDeFondo("cargar-indices").execute(() -> {
+            ArchivoIndices guardados = leerIndicesGuardados(base, suma);
+            if (guardados != null) {
+                CompletableFuture.runAsync(() -> instalarTries(guardados.getTrieTitulos(),
+                                guardados.getTrieArtistas(), epocaBase), Runnable::run)
+                        .whenComplete((v, error) -> completar(triesListos, suscripcionTries, error, "Autocompletado"));
+                CompletableFuture.runAsync(() -> instalarGrafo(guardados.getGrafoSimilitud(), epocaBase), Runnable::run)
+                        .whenComplete((v, error) -> completar(grafoListo, suscripcionGrafo, error, "Grafo de similitud"));
+                return;
+            }
+
+            System.out.println("⏳ Preparando autocompletado y grafo de similitud en segundo plano ("
+                    + base.size() + " canciones)...");
+            CompletableFuture<Void> tries = CompletableFuture
+                    .runAsync(() -> calentarTries(titulos, artistas, epocaBase), hiloDeFondo("calentar-tries"))
+                    .whenComplete((v, error) -> completar(triesListos, suscripcionTries, error, "Autocompletado"));
+            CompletableFuture<Void> grafo = CompletableFuture
+                    .runAsync(() -> calentarGrafo(base, epocaBase), hiloDeFondo("calentar-grafo"))
+                    .whenComplete((v, error) -> completar(grafoListo, suscripcionGrafo, error, "Grafo de similitud"));
+            CompletableFuture.allOf(tries, grafo).thenRun(this::guardarIndices);
+        });
+    }
+
+    /**
+     * Lee data/indices.snap si corresponde al catálogo cargado
+     *
+     * @return Índices guardados, o null si hay que reconstruirlos
+     */
+    private ArchivoIndices leerIndicesGuardados(List<Cancion> base, long suma) {
+        long inicio = System.nanoTime();
+        try {
+            ArchivoIndices guardados = ArchivoIndices.leer(Paths.get(ARCHIVO_INDICES), suma, base);
+            if (guardados != null) {
+                System.out.println("✓ Índices leídos desde " + ARCHIVO_INDICES + " en "
+                        + (System.nanoTime() - inicio) / 1_000_000 + " ms");
+            } else if (Paths.get(ARCHIVO_INDICES).toFile().exists()) {
+                System.out.println("⚠️ " + ARCHIVO_INDICES + " no corresponde al catálogo actual");
+            }
+            return guardados;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("✗ Error al leer " + ARCHIVO_INDICES + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Guarda los tries y el grafo de la versión vigente en data/indices.snap.
+     * La versión se fija como en un snapshot, así que el archivo se escribe sin lock
+     * y las escrituras del catálogo no esperan.
+     */
+    private void guardarIndices() {
+        busEventos.sincronizar(5_000);
+        VersionCatalogo version;
+        List<Cancion> enOrden;
+        long suma;
+        cerrojo.bloquearLectura();
+        try {
+            // Con el lock de lectura del catálogo no se publican eventos; los de los tries y
+            // el grafo ya se aplicaron si no quedan pendientes
+            if (suscripcionTries.getPendientes() > 0 || suscripcionGrafo.getPendientes() > 0) {
+                System.out.println("⚠️ Índices con cambios pendientes: " + ARCHIVO_INDICES + " no se actualiza");
+                return;
+            }
+            version = fijarVersion();
+            TablaOrdinales tabla = cancionesPorOrdinal;
+            enOrden = new ArrayList<>(catalogo.size());
+            for (int ordinal = 0; ordinal < tabla.size(); ordinal++) {
+                Cancion cancion = tabla.get(ordinal);
+                if (cancion != null) {
+                    enOrden.add(cancion);
+                }
+            }
+            suma = ArchivoIndices.calcularSuma(enOrden);
+        } finally {
+            cerrojo.liberarLectura();
+        }
+
+        try {
+            ArchivoIndices.escribir(Paths.get(ARCHIVO_INDICES), suma, enOrden, version.getTrieTitulos(),
+                    version.getTrieArtistas(), version.getGrafoSimilitud());
+            System.out.println("✓ Índices guardados en " + ARCHIVO_INDICES);
+        } catch (IOException e) {
+            System.err.println("✗ Error al guardar " + ARCHIVO_INDICES + ": " + e.getMessage());
+        } finally {
+            liberarVersion(version);
+        }
+    }
+
+    /**
+     * Ejecutor que corre cada tarea en un hilo daemon propio (no impide cerrar la aplicación)
+     */
+    private static Executor hiloDeFondo(String nombre) {
+        return tarea -> {
+            Thread hilo = new Thread(tarea, nombre);
+            hilo.setDaemon(true);
+            hilo.start();
+        };
+    }
+
+    /**
+     * Construye los tries sin lock y los instala
+     */
+    private void calentarTries(String[] titulosBase, String[] artistasBase, int epocaBase) {
+        long inicio = System.nanoTime();
+        TrieAutocompletado titulos = new TrieAutocompletado();
+        TrieAutocompletado artistas = nuevoTrieArtistas();
+        for (int i = 0; i < titulosBase.length; i++) {
+            titulos.insertar(titulosBase[i]);
+            artistas.insertar(artistasBase[i]);
+        }
+        instalarTries(titulos, artistas, epocaBase);
+        System.out.println("✓ Autocompletado listo en " + (System.nanoTime() - inicio) / 1_000_000 + " ms");
+    }
+
+    /**
+     * Instala los tries construidos (salvo que el catálogo se haya vaciado entretanto);
+     * los cambios acumulados en su suscripción se aplican después
+     */
+    private void instalarTries(TrieAutocompletado titulos, TrieAutocompletado artistas, int epocaBase) {
+        cerrojoTries.bloquearEscritura();
+        try {
+            if (epoca == epocaBase) {
+                trieTitulos = titulos;
+                trieArtistas = artistas;
+            }
+            publicarVersion();
+        } finally {
+            cerrojoTries.liberarEscritura();
+        }
+    }
+
+    /**
+     * Construye el grafo sin lock (informando el avance) y lo instala
+     */
+    private void calentarGrafo(List<Cancion> base, int epocaBase) {
+        long inicio = System.nanoTime();
+        GrafoDeSimilitud grafo = new GrafoDeSimilitud();
+        List<Cancion> anteriores = new ArrayList<>(base.size());
+        int paso = Math.max(1, base.size() / 100);
+
+        for (Cancion cancion : base) {
+            grafo.agregarCancionConectada(cancion, anteriores);
+            anteriores.add(cancion);
+            if (progresoGrafo.incrementAndGet() % paso == 0) {
+                notificarProgreso();
+            }
+        }
+        instalarGrafo(grafo, epocaBase);
+        System.out.println("✓ Grafo de similitud listo en " + (System.nanoTime() - inicio) / 1_000_000 + " ms");
+    }
+
+    /**
+     * Instala el grafo construido (salvo que el catálogo se haya vaciado entretanto); las
+     * canciones agregadas, modificadas o eliminadas mientras tanto se reconectan después,
+     * al aplicar los eventos acumulados en su suscripción
+     */
+    private void instalarGrafo(GrafoDeSimilitud grafo, int epocaBase) {
+        reemplazarGrafo(grafo, epocaBase);
+        progresoGrafo.set(totalGrafo);
+        notificarProgreso();
+    }
+
+    private void reemplazarGrafo(GrafoDeSimilitud grafo, int epocaBase) {
+        cerrojoGrafo.bloquearEscritura();
+        try {
+            if (epoca == epocaBase) {
+                grafoSimilitud = grafo;
+            }
+            publicarVersion();
+        } finally {
+            cerrojoGrafo.liberarEscritura();
+        }
+    }
+
+    /**
+     * Reanuda la suscripción de una estructura instalada, completa su aviso y registra
+     * el error si la construcción falló
+     */
+    private void completar(CompletableFuture<Void> aviso, BusEventosCatalogo.Suscripcion suscripcion,
+                           Throwable error, String estructura) {
+        suscripcion.reanudar();
+        if (error != null) {
+            System.err.println("✗ Error al preparar " + estructura + ": " + error.getMessage());
+            aviso.completeExceptionally(error);
+        } else {
+            aviso.complete(null);
+        }
+        if (aviso == grafoListo) {
+            observadoresProgreso.clear();
+        }
+    }
+
+    private void notificarProgreso() {
+        double progreso = getProgresoGrafo();
+        for (DoubleConsumer observador : observadoresProgreso) {
+            observador.accept(progreso);
+        }
+    }
+
+    /**
+     * Aviso que se completa cuando los tries de autocompletado están construidos
+     *
+     * @return Etapa completada al terminar la construcción
+     */
+    public CompletionStage<Void> getTriesListos() {
+        return triesListos;
+    }
+
+    /**
+     * Aviso que se completa cuando el grafo de similitud está construido
+     *
+     * @return Etapa completada al terminar la construcción
+     */
+    public CompletionStage<Void> getGrafoListo() {
+        return grafoListo;
+    }
+
+    public boolean isTriesListos() {
+        return triesListos.isDone();
+    }
+
+    public boolean isGrafoListo() {
+        return grafoListo.isDone();
+    }
+
+    public boolean isGrafoFallido() {
+        return grafoListo.isCompletedExceptionally();
+    }
+
+    /**
+     * Obtiene el avance de la construcción del grafo de similitud
+     *
+     * @return Fracción entre 0 y 1 (1 cuando el grafo está listo)
+     */
+    public double getProgresoGrafo() {
+        if (grafoListo.isDone() || totalGrafo == 0) {
+            return 1.0;
+        }
+        return Math.min(1.0, (double) progresoGrafo.get() / totalGrafo);
+    }
+
+    /**
+     * Registra un observador del avance del grafo (se invoca desde el hilo de fondo,
+     * aproximadamente cada 1%). Se descartan al terminar la construcción.
+     *
+     * @param observador Recibe la fracción construida entre 0 y 1
+     */
+    public void observarProgresoGrafo(DoubleConsumer observador) {
+        if (!grafoListo.isDone()) {
+            observadoresProgreso.add(observador);
+        }
     }
 
     /**
      * Obtiene sugerencias de títulos basadas en un prefijo
      */
     public List<String> autocompletarTitulos(String prefijo) {
-        return trieTitulos.autocompletarConLimite(prefijo, 10);
+        esperarPropias(suscripcionTries);
+        return cerrojoTries.leer(() -> trieTitulos.autocompletarConLimite(prefijo, 10));
     }
 
     /**
      * Obtiene sugerencias de artistas basadas en un prefijo
      */
     public List<String> autocompletarArtistas(String prefijo) {
-        return trieArtistas.autocompletarConLimite(prefijo, 10);
+        esperarPropias(suscripcionTries);
+        return cerrojoTries.leer(() -> trieArtistas.autocompletarConLimite(prefijo, 10));
     }
 
     /**
      * Busca canciones por autocompletado de título
      */
     public List<Cancion> buscarPorAutocompletado(String prefijo) {
-        List<String> sugerencias = trieTitulos.autocompletar(prefijo);
+        esperarPropias(suscripcionTries);
+        List<String> sugerencias = cerrojoTries.leer(() -> trieTitulos.autocompletar(prefijo));
         List<Cancion> resultados = new ArrayList<>();
 
         for (String titulo : sugerencias) {
@@ -611,41 +1737,37 @@ public class CancionService {
     }
 
     /**
-     * Construye el grafo de similitud conectando canciones similares
+     * Reconstruye el grafo de similitud desde el catálogo (tras un fallo de su suscriptor).
+     * La construcción O(n²) no toma locks: el grafo nuevo se instala al final. Corre en el
+     * hilo de la suscripción del grafo, así que los cambios que lleguen mientras tanto
+     * esperan en su cola y después se aplican sobre el grafo nuevo.
      */
-    private void construirGrafoSimilitud() {
-        List<Cancion> todasCanciones = obtenerTodasLasCanciones();
-
-        for (Cancion cancion : todasCanciones) {
-            grafoSimilitud.agregarCancion(cancion);
-        }
+    private void reconstruirGrafoSimilitud() {
+        int epocaBase = epoca;
+        GrafoDeSimilitud grafo = new GrafoDeSimilitud();
+        List<Cancion> anteriores = new ArrayList<>(catalogo.size());
 
-        for (int i = 0; i < todasCanciones.size(); i++) {
-            for (int j = i + 1; j < todasCanciones.size(); j++) {
-                grafoSimilitud.agregarConexion(todasCanciones.get(i), todasCanciones.get(j));
-            }
+        // Cada canción se conecta con las ya agregadas: cada par una sola vez
+        for (Cancion cancion : catalogo.values()) {
+            grafo.agregarCancionConectada(cancion, anteriores);
+            anteriores.add(cancion);
         }
-    }
-
-    /**
-     * Reconstruye el grafo de similitud
-     */
-    public void reconstruirGrafoSimilitud() {
-        grafoSimilitud.limpiar();
-        construirGrafoSimilitud();
+        reemplazarGrafo(grafo, epocaBase);
     }
 
     /**
      * Genera una lista de canciones similares para la función "Radio"
      */
     public List<Cancion> generarRadio(Cancion cancionInicial, int cantidad) {
-        return grafoSimilitud.generarRadio(cancionInicial, cantidad);
+        esperarPropias(suscripcionGrafo);
+        return cerrojoGrafo.leer(() -> grafoSimilitud.generarRadio(cancionInicial, cantidad));
     }
 
     /**
      * Obtiene canciones similares a una dada
      */
     public List<Cancion> obtenerCancionesSimilares(Cancion cancion, int limite) {
-        return grafoSimilitud.encontrarCancionesSimilares(cancion, limite);
+        esperarPropias(suscripcionGrafo);
+        return cerrojoGrafo.leer(() -> grafoSimilitud.encontrarCancionesSimilares(cancion, limite));
     }
 }
\ No newline at end of file
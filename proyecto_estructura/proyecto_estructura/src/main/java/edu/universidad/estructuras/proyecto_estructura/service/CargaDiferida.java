@@ -0,0 +1,197 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import edu.universidad.estructuras.proyecto_estructura.model.Cancion;
+import edu.universidad.estructuras.proyecto_estructura.model.Playlist;
+import edu.universidad.estructuras.proyecto_estructura.model.Usuario;
+
+import java.util.*;
+
+/**
+ * Carga diferida por usuario de los favoritos y las playlists.
+ *
+ * Al iniciar no se lee ningún favorito ni playlist: los de un usuario se leen del almacén
+ * (AlmacenUsuarios, solo las hojas del árbol de ese usuario) la primera vez que se usan:
+ * Usuario.getListaFavoritos() y PlaylistService.obtenerPlaylistsDeUsuario().
+ *
+ * Los usuarios cargados forman una lista LRU. Al pasar la capacidad se descargan los usados
+ * hace más tiempo, así la memoria depende de los usuarios activos y no del total. Cada
+ * cambio ya está en el almacén al anotarse, así que se puede descargar cualquier usuario
+ * salvo el que tiene la sesión iniciada.
+ *
+ */
+public class CargaDiferida {
+    public static final int CAPACIDAD_POR_DEFECTO = 50;
+
+    private final Object lock;
+    private final LinkedHashMap<String, Boolean> activos;        // orden de acceso: primero el menos usado
+    private AlmacenUsuarios almacen;                             // null: todo está en memoria
+    private int capacidad;
+    private long cargas;
+    private long descargas;
+
+    CargaDiferida() {
+        this.lock = new Object();
+        this.activos = new LinkedHashMap<>(16, 0.75f, true);
+        this.capacidad = CAPACIDAD_POR_DEFECTO;
+    }
+
+    /**
+     * Instala el almacén del que se leen los datos de cada usuario (al cargar los datos)
+     */
+    void instalar(AlmacenUsuarios almacen) {
+        synchronized (lock) {
+            this.almacen = almacen;
+        }
+    }
+
+    AlmacenUsuarios getAlmacen() {
+        synchronized (lock) {
+            return almacen;
+        }
+    }
+
+    /**
+     * Lee del almacén los favoritos de un usuario
+     *
+     * @param username Usuario
+     * @return Canciones favoritas en orden (las que ya no están en el catálogo se omiten)
+     */
+    public List<Cancion> cargarFavoritos(String username) {
+        synchronized (lock) {
+            List<Cancion> favoritos = new ArrayList<>();
+            if (almacen != null) {
+                CancionService cancionService = CancionService.getInstance();
+                for (String id : almacen.leerFavoritos(username)) {
+                    Cancion cancion = cancionService.obtenerCancion(id);
+                    if (cancion != null) {
+                        favoritos.add(cancion);
+                    }
+                }
+                cargas++;
+            }
+            activar(username);
+            return favoritos;
+        }
+    }
+
+    /**
+     * Obtiene las playlists de un usuario del mapa de cargadas, o las lee del almacén y las
+     * deja en el mapa. Con el lock, dos hilos que piden a la vez el mismo usuario reciben la
+     * misma lista: nunca se reemplaza una lista que otro hilo ya está modificando.
+     *
+     * @param username Usuario
+     * @param cargadas Playlists en memoria de cada usuario (PlaylistService)
+     * @return Lista del usuario que quedó en el mapa
+     */
+    public List<Playlist> cargarPlaylists(String username, Map<String, List<Playlist>> cargadas) {
+        synchronized (lock) {
+            List<Playlist> playlists = cargadas.computeIfAbsent(username, this::leerPlaylists);
+            // Fuera de computeIfAbsent: descargar otros usuarios modifica el mismo mapa
+            activar(username);
+            return playlists;
+        }
+    }
+
+    private List<Playlist> leerPlaylists(String username) {
+        List<Playlist> playlists = new ArrayList<>();
+        if (almacen != null) {
+            playlists.addAll(almacen.leerPlaylists(username));
+            cargas++;
+        }
+        return playlists;
+    }
+
+    /**
+     * Registra un uso de los datos ya cargados de un usuario
+     *
+     * @param username Usuario
+     */
+    public void tocar(String username) {
+        synchronized (lock) {
+            activar(username);
+        }
+    }
+
+    private void activar(String username) {
+        activos.put(username, Boolean.TRUE);
+        if (activos.size() > capacidad) {
+            descargarMenosUsados(username);
+        }
+    }
+
+    /**
+     * Descarga los usuarios usados hace más tiempo hasta volver a la capacidad
+     *
+     * @param enUso Usuario que se está usando ahora (nunca se descarga)
+     */
+    private void descargarMenosUsados(String enUso) {
+        // Sin almacén, los datos en memoria no se pueden volver a leer
+        if (almacen == null) {
+            return;
+        }
+        UsuarioService usuarioService = UsuarioService.getInstance();
+        PlaylistService playlistService = PlaylistService.getInstance();
+        Usuario sesion = usuarioService.getUsuarioActual();
+
+        Iterator<String> iterador = activos.keySet().iterator();
+        while (activos.size() > capacidad && iterador.hasNext()) {
+            String username = iterador.next();
+            if (username.equals(enUso) || (sesion != null && username.equals(sesion.getUsername()))) {
+                continue;
+            }
+            iterador.remove();
+            Usuario usuario = usuarioService.obtenerUsuario(username);
+            if (usuario != null) {
+                usuario.liberarFavoritos();
+            }
+            playlistService.liberarPlaylists(username);
+            descargas++;
+        }
+    }
+
+    /**
+     * Cambia cuántos usuarios se mantienen cargados
+     *
+     * @param capacidad Cantidad de usuarios
+     */
+    public void setCapacidad(int capacidad) {
+        if (capacidad < 1) {
+            throw new IllegalArgumentException("Capacidad inválida");
+        }
+        synchronized (lock) {
+            this.capacidad = capacidad;
+        }
+    }
+
+    public int getCantidadActivos() {
+        synchronized (lock) {
+            return activos.size();
+        }
+    }
+
+    /**
+     * Obtiene cuántas veces se leyeron datos de un usuario del almacén
+     */
+    public long getCargas() {
+        synchronized (lock) {
+            return cargas;
+        }
+    }
+
+    /**
+     * Obtiene cuántos usuarios se descargaron de memoria
+     */
+    public long getDescargas() {
+        synchronized (lock) {
+            return descargas;
+        }
+    }
+
+    @Override
+    public String toString() {
+        synchronized (lock) {
+            return "CargaDiferida[activos=" + activos.size() + "/" + capacidad + ", cargas=" + cargas +
+                    ", descargas=" + descargas + "]";
+        }
+    }
+}
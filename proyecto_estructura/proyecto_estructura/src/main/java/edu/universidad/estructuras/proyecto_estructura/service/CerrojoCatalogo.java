@@ -0,0 +1,74 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Lock de lectura/escritura de una parte del catálogo: CancionService usa uno para el
+ * catálogo y uno para cada grupo de estructuras derivadas (índices secundarios, tries y
+ * grafo), así que escribir en una no bloquea las consultas de las otras.
+ *
+ * Es un ReentrantReadWriteLock y no un StampedLock: las lecturas se anidan (una consulta
+ * dentro de otra, o dentro de una escritura) y StampedLock no es reentrante, así que una
+ * lectura anidada con un escritor en cola se bloquea para siempre.
+ *
+ * En modo no equitativo un lector nuevo espera si el primero en la cola es un escritor,
+ * así las lecturas que se solapan sin pausa (radio, descubrimiento y búsquedas en otros
+ * hilos) no dejan esperando a una escritura indefinidamente.
+ *
+ * Es reentrante: quien tiene el lock de lectura o de escritura puede volver a pedir el
+ * de lectura, aunque haya un escritor esperando. Lo único que no se puede es pedir el de
+ * escritura teniendo solo el de lectura.
+ *
+ */
+final class CerrojoCatalogo {
+    private final ReentrantReadWriteLock lock;
+
+    CerrojoCatalogo() {
+        this.lock = new ReentrantReadWriteLock();
+    }
+
+    /**
+     * Toma el lock de lectura
+     */
+    void bloquearLectura() {
+        lock.readLock().lock();
+    }
+
+    void liberarLectura() {
+        lock.readLock().unlock();
+    }
+
+    /**
+     * Toma el lock de escritura
+     */
+    void bloquearEscritura() {
+        lock.writeLock().lock();
+    }
+
+    void liberarEscritura() {
+        lock.writeLock().unlock();
+    }
+
+    /**
+     * Indica si el hilo actual tiene el lock de lectura o el de escritura
+     */
+    boolean tomadoPorHiloActual() {
+        return lock.isWriteLockedByCurrentThread() || lock.getReadHoldCount() > 0;
+    }
+
+    /**
+     * Ejecuta una consulta con el lock de lectura
+     *
+     * @param consulta Consulta a ejecutar
+     * @return Resultado de la consulta
+     */
+    <T> T leer(Supplier<T> consulta) {
+        bloquearLectura();
+        try {
+            return consulta.get();
+        } finally {
+            liberarLectura();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+/**
+ * Conjuntos de datos que PersistenciaService guarda, cada uno en su propio archivo
+ * (CANCIONES es canciones.txt, que escribe CancionService)
+ *
+ */
+public enum ConjuntoDatos {
+    USUARIOS,
+    FAVORITOS,
+    PLAYLISTS,
+    CONEXIONES,
+    TENDENCIAS,
+    CANCIONES
+}
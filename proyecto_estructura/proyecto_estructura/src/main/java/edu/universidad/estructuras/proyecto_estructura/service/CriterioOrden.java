@@ -0,0 +1,13 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+/**
+ * Criterios de ordenamiento del catálogo mantenidos por IndiceOrden
+ *
+ */
+public enum CriterioOrden {
+    TITULO,
+    ARTISTA,
+    ANIO,
+    DURACION,
+    GENERO // género y, a igual género, título
+}
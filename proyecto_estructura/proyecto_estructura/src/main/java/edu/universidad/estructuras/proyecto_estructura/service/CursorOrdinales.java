@@ -0,0 +1,83 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import edu.universidad.estructuras.proyecto_estructura.model.BitmapComprimido;
+import edu.universidad.estructuras.proyecto_estructura.model.Cancion;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.IntFunction;
+
+/**
+ * Cursor que recorre en orden los ordinales de un resultado de filtros
+ * y materializa las canciones solo a medida que se consumen.
+ *
+ */
+public class CursorOrdinales implements Iterator<Cancion> {
+    private final BitmapComprimido resultado;
+    private final IntFunction<Cancion> resolver;
+    private int siguiente;
+
+    /**
+     * Constructor del cursor
+     *
+     * @param resultado Mapa de bits con los ordinales a recorrer
+     * @param resolver Función que obtiene la canción de un ordinal
+     */
+    CursorOrdinales(BitmapComprimido resultado, IntFunction<Cancion> resolver) {
+        this.resultado = resultado;
+        this.resolver = resolver;
+        this.siguiente = resultado.siguiente(0);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return siguiente >= 0;
+    }
+
+    @Override
+    public Cancion next() {
+        if (siguiente < 0) {
+            throw new NoSuchElementException();
+        }
+        Cancion cancion = resolver.apply(siguiente);
+        siguiente = resultado.siguiente(siguiente + 1);
+        return cancion;
+    }
+
+    /**
+     * Obtiene el ordinal que devolverá la próxima llamada a next()
+     *
+     * @return Ordinal siguiente, o -1 si el cursor terminó
+     */
+    public int siguienteOrdinal() {
+        return siguiente;
+    }
+
+    /**
+     * Consume hasta n canciones del cursor
+     *
+     * @param n Cantidad máxima de canciones
+     * @return Lista con las canciones consumidas
+     */
+    public List<Cancion> tomar(int n) {
+        List<Cancion> canciones = new ArrayList<>();
+        while (hasNext() && canciones.size() < n) {
+            Cancion cancion = next();
+            if (cancion != null) { // eliminada y aún no retirada de los índices
+                canciones.add(cancion);
+            }
+        }
+        return canciones;
+    }
+
+    /**
+     * Obtiene el número total de resultados del filtro
+     *
+     * @return Cantidad de ordinales en el resultado
+     */
+    public int getTotal() {
+        return resultado.getCardinalidad();
+    }
+}
@@ -0,0 +1,78 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import edu.universidad.estructuras.proyecto_estructura.model.Cancion;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.IntFunction;
+
+/**
+ * Cursor sobre un resultado ya ordenado (por relevancia o por un criterio de orden).
+ * El orden se calcula una sola vez al abrirlo; cada página solo materializa sus
+ * canciones, así que pedir la página k no repite el trabajo de las anteriores.
+ *
+ */
+public class CursorResultados implements Iterator<Cancion> {
+    private final int[] ordinales;
+    private final IntFunction<Cancion> resolver;
+    private int posicion;
+
+    /**
+     * Constructor del cursor
+     *
+     * @param ordinales Ordinales del resultado en el orden en que se recorren
+     * @param resolver Función que obtiene la canción de un ordinal
+     */
+    CursorResultados(int[] ordinales, IntFunction<Cancion> resolver) {
+        this.ordinales = ordinales;
+        this.resolver = resolver;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return posicion < ordinales.length;
+    }
+
+    @Override
+    public Cancion next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return resolver.apply(ordinales[posicion++]);
+    }
+
+    /**
+     * Consume hasta n canciones del cursor
+     *
+     * @param n Cantidad máxima de canciones
+     * @return Lista con las canciones consumidas
+     */
+    public List<Cancion> tomar(int n) {
+        List<Cancion> canciones = new ArrayList<>(Math.max(0, Math.min(n, ordinales.length - posicion)));
+        while (hasNext() && canciones.size() < n) {
+            Cancion cancion = next();
+            if (cancion != null) { // eliminada después de abrir el cursor
+                canciones.add(cancion);
+            }
+        }
+        return canciones;
+    }
+
+    /**
+     * Obtiene el número total de resultados (consumidos o no)
+     *
+     * @return Cantidad de ordinales del resultado
+     */
+    public int getTotal() {
+        return ordinales.length;
+    }
+
+    /**
+     * Ordinales de todo el resultado, consumidos o no (no se modifica)
+     */
+    int[] getOrdinales() {
+        return ordinales;
+    }
+}
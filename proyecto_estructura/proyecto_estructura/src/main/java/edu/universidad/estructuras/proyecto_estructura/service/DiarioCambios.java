@@ -0,0 +1,450 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Diario de cambios de solo anexado (append-only) de todos los datos de la aplicación.
+ *
+ * Cada cambio se anota como un RegistroDiario y queda en disco sin reescribir los archivos
+ * completos. Un hilo daemon escribe los registros pendientes juntos (group commit): todos
+ * los que llegaron mientras se escribía el lote anterior van en una sola escritura y un
+ * solo force() al disco. Quien necesite que un cambio ya esté en disco llama a sincronizar().
+ *
+ * Si un lote no se puede escribir, el segmento vuelve a su tamaño anterior (sin líneas a
+ * medias) y el lote se reintenta con esperas crecientes. Mientras tanto no se confirma nada
+ * y sincronizar() devuelve false sin esperar.
+ *
+ * El diario se divide en segmentos numerados (data/diario-000001.log, ...). Al compactar
+ * se abre un segmento nuevo y los archivos de datos (checkpoints) se reescriben; un segmento
+ * se borra cuando todos los checkpoints se escribieron después de cerrarlo. La recuperación
+ * carga los checkpoints y reaplica los segmentos que quedan, en orden.
+ *
+ */
+public class DiarioCambios {
+    public static final int UMBRAL_COMPACTACION_POR_DEFECTO = 1000;
+
+    private static final String PREFIJO = "diario-";
+    private static final String EXTENSION = ".log";
+    private static final int TAMANO_LOTE = 512;
+    private static final long ESPERA_MAXIMA_REINTENTO_MILIS = 2000;
+    private static final Pendiente FIN = new Pendiente(-1, null); // detiene el hilo del diario
+
+    private final Path directorio;
+    private final Runnable alCompactar;
+    private final LinkedBlockingQueue<Pendiente> cola;
+    private final Object monitor;
+    private final Object lockArchivo;
+    private final Thread hilo;
+    private FileChannel canal;
+    private int segmentoActual;
+    private int umbralCompactacion;
+    private int registrosEnSegmento;
+    private boolean compactacionPedida;
+    private long ultimaSecuencia;
+    private long secuenciaConfirmada;
+    private long lotesEscritos;
+    private IOException error; // último error de escritura, null cuando el último lote se escribió
+    private volatile boolean activo;
+
+    /**
+     * Registro esperando su escritura, con su número de secuencia
+     */
+    private static final class Pendiente {
+        private final long secuencia;
+        private final String linea;
+
+        private Pendiente(long secuencia, String linea) {
+            this.secuencia = secuencia;
+            this.linea = linea;
+        }
+    }
+
+    /**
+     * Constructor del diario (no abre archivos hasta llamar a abrir())
+     *
+     * @param directorio Directorio de los segmentos
+     * @param alCompactar Se llama (en el hilo del diario) cuando el segmento actual
+     *                    acumula suficientes registros para compactar
+     */
+    DiarioCambios(String directorio, Runnable alCompactar) {
+        this.directorio = Paths.get(directorio);
+        this.alCompactar = alCompactar;
+        this.cola = new LinkedBlockingQueue<>();
+        this.monitor = new Object();
+        this.lockArchivo = new Object();
+        this.umbralCompactacion = UMBRAL_COMPACTACION_POR_DEFECTO;
+        this.hilo = new Thread(this::ejecutar, "diario-cambios");
+        this.hilo.setDaemon(true);
+    }
+
+    /**
+     * Reaplica, en orden, los registros de todos los segmentos existentes.
+     * Una línea dañada (escritura interrumpida) termina la lectura de su segmento.
+     *
+     * @param aplicar Aplica cada registro
+     * @return Cantidad de registros reaplicados
+     */
+    int reproducir(Consumer<RegistroDiario> aplicar) {
+        int reaplicados = 0;
+        for (Path segmento : listarSegmentos().values()) {
+            try (BufferedReader br = Files.newBufferedReader(segmento, StandardCharsets.UTF_8)) {
+                String linea;
+                while ((linea = br.readLine()) != null) {
+                    RegistroDiario registro = RegistroDiario.decodificar(linea);
+                    if (registro == null) {
+                        System.err.println("  ✗ Registro dañado en " + segmento.getFileName() + ", se ignora el resto");
+                        break;
+                    }
+                    aplicar.accept(registro);
+                    reaplicados++;
+                }
+            } catch (IOException e) {
+                System.err.println("  ✗ Error al leer " + segmento.getFileName() + ": " + e.getMessage());
+            }
+        }
+        return reaplicados;
+    }
+
+    /**
+     * Abre un segmento nuevo (después de los existentes) y empieza a escribir los registros
+     */
+    void abrir() {
+        if (activo) {
+            return;
+        }
+        synchronized (lockArchivo) {
+            TreeMap<Integer, Path> segmentos = listarSegmentos();
+            abrirSegmento(segmentos.isEmpty() ? 1 : segmentos.lastKey() + 1);
+        }
+        activo = true;
+        hilo.start();
+    }
+
+    /**
+     * Anota un registro (no bloquea: se escribe en el siguiente lote)
+     *
+     * @param registro Registro a anotar
+     * @return Número de secuencia del registro
+     */
+    long anotar(RegistroDiario registro) {
+        String linea = registro.codificar();
+        synchronized (monitor) {
+            long secuencia = ++ultimaSecuencia;
+            cola.offer(new Pendiente(secuencia, linea));
+            return secuencia;
+        }
+    }
+
+    /**
+     * Espera a que todo lo anotado hasta ahora esté en disco
+     *
+     * @param timeoutMilis Espera máxima
+     * @return true si se confirmó a tiempo; false si no, o si el diario no puede escribir
+     */
+    boolean sincronizar(long timeoutMilis) {
+        long limite = System.currentTimeMillis() + timeoutMilis;
+        synchronized (monitor) {
+            long objetivo = ultimaSecuencia;
+            while (secuenciaConfirmada < objetivo && activo && error == null) {
+                long restante = limite - System.currentTimeMillis();
+                if (restante <= 0) {
+                    return false;
+                }
+                try {
+                    monitor.wait(restante);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return secuenciaConfirmada >= objetivo;
+        }
+    }
+
+    /**
+     * Cierra el segmento actual y abre el siguiente (los registros siguientes van al nuevo)
+     *
+     * @return Número del segmento nuevo
+     */
+    int rotar() {
+        synchronized (lockArchivo) {
+            cerrarCanal();
+            abrirSegmento(segmentoActual + 1);
+            return segmentoActual;
+        }
+    }
+
+    /**
+     * Borra los segmentos anteriores a uno (ya incluidos en todos los checkpoints)
+     *
+     * @param segmento Primer segmento que se conserva
+     */
+    void descartarAnteriores(int segmento) {
+        synchronized (lockArchivo) {
+            for (var entrada : listarSegmentos().headMap(Math.min(segmento, segmentoActual)).entrySet()) {
+                try {
+                    Files.deleteIfExists(entrada.getValue());
+                } catch (IOException e) {
+                    System.err.println("  ✗ No se pudo borrar " + entrada.getValue().getFileName() + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Escribe lo pendiente y detiene el hilo del diario (al cerrar la aplicación)
+     */
+    void cerrar() {
+        if (!activo) {
+            return;
+        }
+        cola.offer(FIN);
+        try {
+            hilo.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        activo = false;
+        synchronized (lockArchivo) {
+            cerrarCanal();
+        }
+    }
+
+    /**
+     * Cambia cuántos registros del segmento actual disparan una compactación
+     *
+     * @param umbralCompactacion Cantidad de registros
+     */
+    public void setUmbralCompactacion(int umbralCompactacion) {
+        if (umbralCompactacion < 1) {
+            throw new IllegalArgumentException("Umbral inválido");
+        }
+        synchronized (lockArchivo) {
+            this.umbralCompactacion = umbralCompactacion;
+        }
+    }
+
+    private void ejecutar() {
+        List<Pendiente> lote = new ArrayList<>(TAMANO_LOTE);
+        StringBuilder texto = new StringBuilder();
+        try {
+            boolean terminar = false;
+            while (!terminar) {
+                Pendiente primero = cola.take();
+                if (primero == FIN) {
+                    break;
+                }
+                lote.add(primero);
+                cola.drainTo(lote, TAMANO_LOTE - 1);
+                if (lote.get(lote.size() - 1) == FIN) {
+                    lote.remove(lote.size() - 1);
+                    terminar = true;
+                }
+                for (Pendiente pendiente : lote) {
+                    texto.append(pendiente.linea).append('\n');
+                }
+
+                byte[] bytes = texto.toString().getBytes(StandardCharsets.UTF_8);
+                boolean compactar = false;
+                boolean escrito = false;
+                for (int intento = 1; !escrito; intento++) {
+                    try {
+                        compactar = escribirLote(bytes, lote.size());
+                        escrito = true;
+                    } catch (IOException e) {
+                        synchronized (monitor) {
+                            error = e;
+                            monitor.notifyAll(); // quien espera en sincronizar() deja de esperar
+                        }
+                        System.err.println("✗ Error al escribir el diario de cambios (intento " + intento + "): " + e);
+                        if (terminar) {
+                            break;
+                        }
+                        Thread.sleep(Math.min(ESPERA_MAXIMA_REINTENTO_MILIS, 50L << Math.min(intento, 6)));
+                    }
+                }
+                if (!escrito) {
+                    System.err.println("✗ Diario cerrado con " + lote.size() + " registros sin escribir");
+                    break;
+                }
+
+                synchronized (monitor) {
+                    secuenciaConfirmada = lote.get(lote.size() - 1).secuencia;
+                    lotesEscritos++;
+                    error = null;
+                    monitor.notifyAll();
+                }
+                lote.clear();
+                texto.setLength(0);
+
+                if (compactar) {
+                    alCompactar.run();
+                }
+            }
+        } catch (InterruptedException e) {
+            // Hilo interrumpido: los registros pendientes quedan sin escribir
+        }
+    }
+
+    /**
+     * Escribe un lote al final del segmento actual y lo fuerza al disco. Si falla, deja el
+     * segmento como estaba (o, si no puede recortarlo, pasa a uno nuevo) para reintentar el lote.
+     *
+     * @return true si el segmento llegó al umbral de compactación con este lote
+     */
+    private boolean escribirLote(byte[] bytes, int registros) throws IOException {
+        synchronized (lockArchivo) {
+            if (canal == null) {
+                abrirSiguienteSegmento();
+            }
+            long tamanoAnterior;
+            try {
+                tamanoAnterior = canal.size();
+            } catch (IOException e) {
+                cerrarCanal(); // canal inutilizable: el siguiente intento abre un segmento nuevo
+                throw e;
+            }
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining()) {
+                    canal.write(buffer);
+                }
+                canal.force(false);
+            } catch (IOException e) {
+                try {
+                    canal.truncate(tamanoAnterior);
+                } catch (IOException e2) {
+                    // Puede quedar una línea a medias, que terminaría la lectura del segmento
+                    e.addSuppressed(e2);
+                    cerrarCanal();
+                    try {
+                        abrirSiguienteSegmento();
+                    } catch (IOException e3) {
+                        e.addSuppressed(e3); // se vuelve a intentar abrirlo en el siguiente intento
+                    }
+                }
+                throw e;
+            }
+            registrosEnSegmento += registros;
+            if (registrosEnSegmento >= umbralCompactacion && !compactacionPedida) {
+                compactacionPedida = true;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private void abrirSiguienteSegmento() throws IOException {
+        try {
+            abrirSegmento(segmentoActual + 1);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void abrirSegmento(int numero) {
+        try {
+            Files.createDirectories(directorio);
+            canal = FileChannel.open(rutaSegmento(numero), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            segmentoActual = numero;
+            registrosEnSegmento = 0;
+            compactacionPedida = false;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el diario de cambios", e);
+        }
+    }
+
+    private void cerrarCanal() {
+        if (canal != null) {
+            try {
+                canal.close();
+            } catch (IOException e) {
+                System.err.println("✗ Error al cerrar el diario de cambios: " + e.getMessage());
+            }
+            canal = null;
+        }
+    }
+
+    private Path rutaSegmento(int numero) {
+        return directorio.resolve(String.format("%s%06d%s", PREFIJO, numero, EXTENSION));
+    }
+
+    private TreeMap<Integer, Path> listarSegmentos() {
+        TreeMap<Integer, Path> segmentos = new TreeMap<>();
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio, PREFIJO + "*" + EXTENSION)) {
+            for (Path archivo : archivos) {
+                String nombre = archivo.getFileName().toString();
+                try {
+                    segmentos.put(Integer.parseInt(nombre.substring(PREFIJO.length(),
+                            nombre.length() - EXTENSION.length())), archivo);
+                } catch (NumberFormatException e) {
+                    // Otro archivo con nombre parecido
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // Todavía no hay directorio de datos
+        } catch (IOException e) {
+            System.err.println("✗ Error al listar el diario de cambios: " + e.getMessage());
+        }
+        return segmentos;
+    }
+
+    /**
+     * Obtiene el número del segmento donde se escriben los registros
+     *
+     * @return Número de segmento (0 si el diario no está abierto)
+     */
+    public int getSegmentoActual() {
+        synchronized (lockArchivo) {
+            return segmentoActual;
+        }
+    }
+
+    /**
+     * Obtiene la cantidad de lotes escritos (cada uno con un solo force() al disco)
+     *
+     * @return Lotes escritos
+     */
+    public long getLotesEscritos() {
+        synchronized (monitor) {
+            return lotesEscritos;
+        }
+    }
+
+    /**
+     * Indica si el último lote no se pudo escribir (se sigue reintentando)
+     *
+     * @return true si hay registros que no llegan al disco
+     */
+    public boolean isFallido() {
+        synchronized (monitor) {
+            return error != null;
+        }
+    }
+
+    public long getRegistrosAnotados() {
+        synchronized (monitor) {
+            return ultimaSecuencia;
+        }
+    }
+
+    @Override
+    public String toString() {
+        synchronized (lockArchivo) {
+            return "DiarioCambios[segmento=" + segmentoActual + ", registrosEnSegmento=" + registrosEnSegmento +
+                    ", anotados=" + getRegistrosAnotados() + ", lotes=" + getLotesEscritos() + "]";
+        }
+    }
+}
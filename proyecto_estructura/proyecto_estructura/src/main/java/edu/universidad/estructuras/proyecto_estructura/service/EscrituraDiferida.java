@@ -0,0 +1,213 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Escritura diferida (write-behind) de los archivos de datos.
+ *
+ * Guardar un conjunto solo lo marca como pendiente; un hilo daemon lo escribe después,
+ * cuando pasa el intervalo desde el primer cambio pendiente o cuando se acumulan
+ * suficientes cambios. Varios guardados seguidos del mismo conjunto se juntan en una
+ * sola escritura del archivo, y la interfaz no espera al disco.
+ *
+ * Quien necesite que los datos ya estén en disco llama a vaciar(), que escribe en el
+ * hilo actual lo pendiente. Las escrituras nunca se solapan: el hilo de fondo y vaciar()
+ * se turnan con un mismo lock.
+ *
+ */
+public class EscrituraDiferida {
+    public static final long INTERVALO_MILIS_POR_DEFECTO = 2000;
+    public static final int UMBRAL_CAMBIOS_POR_DEFECTO = 50;
+
+    private final Consumer<ConjuntoDatos> escritor;
+    private final Object monitor;
+    private final Object lockEscritura;
+    private final EnumSet<ConjuntoDatos> pendientes;
+    private final EnumMap<ConjuntoDatos, Integer> escrituras;
+    private final Thread hilo;
+    private long intervaloMilis;
+    private int umbralCambios;
+    private int cambiosPendientes;
+    private long primerCambio;    // System.currentTimeMillis() del cambio pendiente más viejo
+    private long cambiosTotales;
+    private volatile boolean activa;
+
+    /**
+     * Constructor de la escritura diferida (el hilo arranca con iniciar())
+     *
+     * @param escritor Escribe un conjunto de datos completo en su archivo
+     */
+    EscrituraDiferida(Consumer<ConjuntoDatos> escritor) {
+        this.escritor = escritor;
+        this.monitor = new Object();
+        this.lockEscritura = new Object();
+        this.pendientes = EnumSet.noneOf(ConjuntoDatos.class);
+        this.escrituras = new EnumMap<>(ConjuntoDatos.class);
+        this.intervaloMilis = INTERVALO_MILIS_POR_DEFECTO;
+        this.umbralCambios = UMBRAL_CAMBIOS_POR_DEFECTO;
+        this.hilo = new Thread(this::ejecutar, "persistencia-diferida");
+        this.hilo.setDaemon(true);
+    }
+
+    void iniciar() {
+        activa = true;
+        hilo.start();
+    }
+
+    /**
+     * Cambia cuándo se escriben los datos pendientes
+     *
+     * @param intervaloMilis Espera máxima desde el primer cambio pendiente
+     * @param umbralCambios Cantidad de cambios que adelanta la escritura
+     */
+    public void configurar(long intervaloMilis, int umbralCambios) {
+        if (intervaloMilis < 0 || umbralCambios < 1) {
+            throw new IllegalArgumentException("Intervalo o umbral inválido");
+        }
+        synchronized (monitor) {
+            this.intervaloMilis = intervaloMilis;
+            this.umbralCambios = umbralCambios;
+            monitor.notifyAll();
+        }
+    }
+
+    /**
+     * Marca un conjunto de datos como pendiente de escribir (no bloquea)
+     *
+     * @param conjunto Conjunto modificado
+     */
+    public void marcar(ConjuntoDatos conjunto) {
+        synchronized (monitor) {
+            if (cambiosPendientes == 0) {
+                primerCambio = System.currentTimeMillis();
+            }
+            pendientes.add(conjunto);
+            cambiosPendientes++;
+            cambiosTotales++;
+            monitor.notifyAll();
+        }
+    }
+
+    /**
+     * Escribe ya, en el hilo actual, todos los conjuntos pendientes
+     */
+    public void vaciar() {
+        vaciar(EnumSet.allOf(ConjuntoDatos.class));
+    }
+
+    /**
+     * Escribe ya, en el hilo actual, los conjuntos indicados que estén pendientes
+     *
+     * @param conjuntos Conjuntos que deben quedar en disco
+     */
+    public void vaciar(EnumSet<ConjuntoDatos> conjuntos) {
+        synchronized (lockEscritura) {
+            EnumSet<ConjuntoDatos> lote;
+            synchronized (monitor) {
+                lote = EnumSet.copyOf(pendientes);
+                lote.retainAll(conjuntos);
+                if (lote.isEmpty()) {
+                    return;
+                }
+                pendientes.removeAll(lote);
+                cambiosPendientes = pendientes.isEmpty() ? 0 : cambiosPendientes;
+            }
+
+            for (ConjuntoDatos conjunto : lote) {
+                try {
+                    escritor.accept(conjunto);
+                    synchronized (monitor) {
+                        escrituras.merge(conjunto, 1, Integer::sum);
+                    }
+                } catch (RuntimeException e) {
+                    // Error de disco (UncheckedIOException): se reintenta en la siguiente escritura
+                    System.err.println("  ✗ Error al escribir " + conjunto + ", se reintentará: " + e);
+                    marcar(conjunto);
+                }
+            }
+        }
+    }
+
+    /**
+     * Detiene el hilo de fondo y escribe lo pendiente (al cerrar la aplicación)
+     */
+    public void detener() {
+        synchronized (monitor) {
+            activa = false;
+            monitor.notifyAll();
+        }
+        try {
+            hilo.join(intervaloMilis + 5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        vaciar();
+    }
+
+    private void ejecutar() {
+        try {
+            while (activa) {
+                synchronized (monitor) {
+                    while (activa && pendientes.isEmpty()) {
+                        monitor.wait();
+                    }
+                    // Junta los cambios hasta cumplir el intervalo o el umbral
+                    long restante;
+                    while (activa && cambiosPendientes < umbralCambios
+                            && (restante = primerCambio + intervaloMilis - System.currentTimeMillis()) > 0) {
+                        monitor.wait(restante);
+                    }
+                }
+                if (activa) {
+                    vaciar();
+                }
+            }
+        } catch (InterruptedException e) {
+            // Escritura diferida detenida
+        }
+    }
+
+    /**
+     * Indica si hay conjuntos pendientes de escribir
+     *
+     * @return true si algún guardado aún no llegó al disco
+     */
+    public boolean hayPendientes() {
+        synchronized (monitor) {
+            return !pendientes.isEmpty();
+        }
+    }
+
+    /**
+     * Obtiene cuántas veces se escribió cada archivo
+     *
+     * @return Conjunto -> escrituras realizadas
+     */
+    public Map<ConjuntoDatos, Integer> getEscrituras() {
+        synchronized (monitor) {
+            return new EnumMap<>(escrituras);
+        }
+    }
+
+    /**
+     * Obtiene la cantidad de guardados pedidos (cada uno marca un conjunto)
+     *
+     * @return Guardados pedidos desde el inicio
+     */
+    public long getCambiosTotales() {
+        synchronized (monitor) {
+            return cambiosTotales;
+        }
+    }
+
+    @Override
+    public String toString() {
+        synchronized (monitor) {
+            return "EscrituraDiferida[pendientes=" + pendientes + ", cambios=" + cambiosTotales +
+                    ", escrituras=" + escrituras + ", intervalo=" + intervaloMilis + " ms, umbral=" + umbralCambios + "]";
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+/**
+ * Criterios para repartir un muestreo estratificado del catálogo
+ *
+ */
+public enum EstratoMuestreo {
+    GENERO,
+    DECADA
+}
@@ -0,0 +1,86 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import edu.universidad.estructuras.proyecto_estructura.model.Cancion;
+
+/**
+ * Cambio del catálogo publicado por CancionService en el BusEventosCatalogo.
+ *
+ * - cancion: la canción del catálogo (objeto vivo, sus atributos pueden cambiar después)
+ * - antes / despues: copias de los atributos en el momento del cambio; antes es null
+ *   en AGREGADA y despues es null en ELIMINADA
+ * - epoca: se incrementa al vaciar el catálogo; los eventos de épocas anteriores ya no aplican
+ *
+ */
+public final class EventoCatalogo {
+
+    /**
+     * Tipo de cambio
+     */
+    public enum Tipo {
+        AGREGADA,
+        ACTUALIZADA,
+        ELIMINADA,
+        VACIADO
+    }
+
+    private final long secuencia;
+    private final Tipo tipo;
+    private final int epoca;
+    private final int ordinal;
+    private final Cancion cancion;
+    private final Cancion antes;
+    private final Cancion despues;
+    private final long creadoNanos;
+
+    EventoCatalogo(long secuencia, Tipo tipo, int epoca, int ordinal, Cancion cancion, Cancion antes, Cancion despues) {
+        this.secuencia = secuencia;
+        this.tipo = tipo;
+        this.epoca = epoca;
+        this.ordinal = ordinal;
+        this.cancion = cancion;
+        this.antes = antes;
+        this.despues = despues;
+        this.creadoNanos = System.nanoTime();
+    }
+
+    public long getSecuencia() {
+        return secuencia;
+    }
+
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    public int getEpoca() {
+        return epoca;
+    }
+
+    /**
+     * Ordinal denso de la canción (-1 en VACIADO)
+     */
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    public Cancion getCancion() {
+        return cancion;
+    }
+
+    public Cancion getAntes() {
+        return antes;
+    }
+
+    public Cancion getDespues() {
+        return despues;
+    }
+
+    long getCreadoNanos() {
+        return creadoNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("EventoCatalogo[#%d %s %s]", secuencia, tipo,
+                cancion != null ? cancion.getId() : "-");
+    }
+}
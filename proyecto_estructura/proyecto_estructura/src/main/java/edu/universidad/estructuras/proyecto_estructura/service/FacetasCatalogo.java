@@ -0,0 +1,240 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import edu.universidad.estructuras.proyecto_estructura.model.Cancion;
+import edu.universidad.estructuras.proyecto_estructura.model.DiccionarioAtributos;
+
+import java.util.*;
+
+/**
+ * Facetas del catálogo para las pantallas de exploración: por cada género, década y
+ * artista, la cantidad de canciones y la lista de sus ordinales ya ordenada.
+ *
+ * Se mantienen de forma incremental desde CancionService junto con los demás índices
+ * secundarios (con el lock de escritura de esos índices), así que las pantallas se dibujan desde los
+ * contadores y desde porciones de las listas sin recorrer el catálogo:
+ * - Contadores de una faceta: O(v) con v = valores distintos
+ * - Porción de una lista: O(limite); el arreglo ordenado del grupo se precalcula
+ *   recorriendo su TreeSet (O(n) del grupo) la primera vez que se pide tras un cambio
+ *
+ * Las claves de género, artista y década de cada canción son las instancias compartidas
+ * de DiccionarioAtributos, no una copia por canción.
+ *
+ */
+public class FacetasCatalogo {
+    private final EnumMap<TipoFaceta, TreeMap<String, Grupo>> grupos; // clave normalizada -> grupo
+    private final List<Entrada[]> entradasPorOrdinal;
+    private final CerrojoCatalogo cerrojo;
+
+    /**
+     * Constructor de las facetas
+     *
+     * @param cerrojo Lock de los índices secundarios del catálogo
+     */
+    FacetasCatalogo(CerrojoCatalogo cerrojo) {
+        this.cerrojo = cerrojo;
+        this.grupos = new EnumMap<>(TipoFaceta.class);
+        this.entradasPorOrdinal = new ArrayList<>();
+        for (TipoFaceta tipo : TipoFaceta.values()) {
+            grupos.put(tipo, new TreeMap<>());
+        }
+    }
+
+    /**
+     * Agrega (o reubica) una canción en sus grupos de cada faceta
+     *
+     * @param ordinal Ordinal de la canción
+     * @param cancion Canción a indexar
+     */
+    void indexar(int ordinal, Cancion cancion) {
+        desindexar(ordinal);
+
+        DiccionarioAtributos diccionario = DiccionarioAtributos.getInstance();
+        String titulo = normalizar(cancion.getTitulo());
+        String decada = diccionario.internarDecada(calcularDecada(cancion.getAnio()));
+        Entrada[] entradas = new Entrada[TipoFaceta.values().length];
+        entradas[TipoFaceta.GENERO.ordinal()] = new Entrada(diccionario.normalizarGenero(cancion.getGenero()),
+                0, titulo, ordinal);
+        entradas[TipoFaceta.DECADA.ordinal()] = new Entrada(decada, cancion.getAnio(), titulo, ordinal);
+        entradas[TipoFaceta.ARTISTA.ordinal()] = new Entrada(diccionario.normalizarArtista(cancion.getArtista()),
+                cancion.getAnio(), titulo, ordinal);
+
+        while (entradasPorOrdinal.size() <= ordinal) {
+            entradasPorOrdinal.add(null);
+        }
+        entradasPorOrdinal.set(ordinal, entradas);
+
+        agregar(TipoFaceta.GENERO, entradas, cancion.getGenero());
+        agregar(TipoFaceta.DECADA, entradas, decada);
+        agregar(TipoFaceta.ARTISTA, entradas, cancion.getArtista());
+    }
+
+    private void agregar(TipoFaceta tipo, Entrada[] entradas, String etiqueta) {
+        Entrada entrada = entradas[tipo.ordinal()];
+        Grupo grupo = grupos.get(tipo).computeIfAbsent(entrada.clave, k -> new Grupo());
+        grupo.etiqueta = etiqueta != null ? etiqueta.trim() : "";
+        grupo.canciones.add(entrada);
+        grupo.ordenados = null;
+    }
+
+    /**
+     * Retira un ordinal de sus grupos usando las claves con que fue indexado
+     *
+     * @param ordinal Ordinal de la canción
+     */
+    void desindexar(int ordinal) {
+        if (ordinal >= entradasPorOrdinal.size() || entradasPorOrdinal.get(ordinal) == null) {
+            return;
+        }
+
+        Entrada[] entradas = entradasPorOrdinal.get(ordinal);
+        entradasPorOrdinal.set(ordinal, null);
+
+        for (TipoFaceta tipo : TipoFaceta.values()) {
+            Entrada entrada = entradas[tipo.ordinal()];
+            TreeMap<String, Grupo> porClave = grupos.get(tipo);
+            Grupo grupo = porClave.get(entrada.clave);
+            if (grupo != null) {
+                grupo.canciones.remove(entrada);
+                grupo.ordenados = null;
+                if (grupo.canciones.isEmpty()) {
+                    porClave.remove(entrada.clave);
+                }
+            }
+        }
+    }
+
+    /**
+     * Vacía todas las facetas
+     */
+    void limpiar() {
+        for (TreeMap<String, Grupo> porClave : grupos.values()) {
+            porClave.clear();
+        }
+        entradasPorOrdinal.clear();
+    }
+
+    /**
+     * Obtiene la cantidad de canciones de cada valor de una faceta
+     *
+     * @param tipo Faceta
+     * @return Valor (como se muestra) -> cantidad de canciones, en orden de valor
+     */
+    public Map<String, Integer> getConteos(TipoFaceta tipo) {
+        return cerrojo.leer(() -> {
+            Map<String, Integer> conteos = new LinkedHashMap<>();
+            for (Grupo grupo : grupos.get(tipo).values()) {
+                conteos.merge(grupo.etiqueta, grupo.canciones.size(), Integer::sum);
+            }
+            return conteos;
+        });
+    }
+
+    /**
+     * Obtiene la cantidad de canciones con un valor de una faceta
+     *
+     * @param tipo Faceta
+     * @param valor Valor (sin distinguir mayúsculas; la década como "1980")
+     * @return Cantidad de canciones
+     */
+    public int getConteo(TipoFaceta tipo, String valor) {
+        return cerrojo.leer(() -> {
+            Grupo grupo = grupos.get(tipo).get(normalizar(valor));
+            return grupo != null ? grupo.canciones.size() : 0;
+        });
+    }
+
+    /**
+     * Obtiene una porción de la lista ordenada de ordinales de un valor de una faceta
+     *
+     * @param tipo Faceta
+     * @param valor Valor (sin distinguir mayúsculas; la década como "1980")
+     * @param desde Posición inicial
+     * @param limite Cantidad máxima de ordinales
+     * @return Ordinales de la porción
+     */
+    int[] obtenerPorcion(TipoFaceta tipo, String valor, int desde, int limite) {
+        return cerrojo.leer(() -> {
+            Grupo grupo = grupos.get(tipo).get(normalizar(valor));
+            if (grupo == null) {
+                return new int[0];
+            }
+            int[] ordenados = grupo.obtenerOrdenados();
+            int inicio = Math.max(0, Math.min(desde, ordenados.length));
+            int fin = (int) Math.min(ordenados.length, (long) inicio + Math.max(0, limite));
+            return Arrays.copyOfRange(ordenados, inicio, fin);
+        });
+    }
+
+    /**
+     * Calcula la década de un año (1987 -> 1980)
+     *
+     * @param anio Año
+     * @return Primer año de la década
+     */
+    public static int calcularDecada(int anio) {
+        return Math.floorDiv(anio, 10) * 10;
+    }
+
+    private static String normalizar(String texto) {
+        return texto == null ? "" : texto.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Canciones de un valor de una faceta, con su arreglo ordenado precalculado
+     */
+    private static final class Grupo {
+        private final TreeSet<Entrada> canciones = new TreeSet<>();
+        private String etiqueta;
+        private volatile int[] ordenados; // null si hubo cambios desde la última porción
+
+        /**
+         * Con el lock de lectura: dos lectores pueden calcular el arreglo a la vez,
+         * pero ambos obtienen el mismo resultado
+         */
+        int[] obtenerOrdenados() {
+            int[] resultado = ordenados;
+            if (resultado == null) {
+                resultado = new int[canciones.size()];
+                int i = 0;
+                for (Entrada entrada : canciones) {
+                    resultado[i++] = entrada.ordinal;
+                }
+                ordenados = resultado;
+            }
+            return resultado;
+        }
+    }
+
+    /**
+     * Canción dentro de un grupo: se ordena por año (0 en géneros), título y ordinal
+     */
+    private static final class Entrada implements Comparable<Entrada> {
+        private final String clave;
+        private final int anio;
+        private final String titulo;
+        private final int ordinal;
+
+        Entrada(String clave, int anio, String titulo, int ordinal) {
+            this.clave = clave;
+            this.anio = anio;
+            this.titulo = titulo;
+            this.ordinal = ordinal;
+        }
+
+        @Override
+        public int compareTo(Entrada otra) {
+            int comparacion = Integer.compare(anio, otra.anio);
+            if (comparacion == 0) {
+                comparacion = titulo.compareTo(otra.titulo);
+            }
+            return comparacion != 0 ? comparacion : Integer.compare(ordinal, otra.ordinal);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return cerrojo.leer(() -> String.format("FacetasCatalogo[generos=%d, decadas=%d, artistas=%d]",
+                grupos.get(TipoFaceta.GENERO).size(), grupos.get(TipoFaceta.DECADA).size(),
+                grupos.get(TipoFaceta.ARTISTA).size()));
+    }
+}
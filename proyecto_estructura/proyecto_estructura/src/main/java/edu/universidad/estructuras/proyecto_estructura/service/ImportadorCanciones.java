@@ -0,0 +1,432 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import edu.universidad.estructuras.proyecto_estructura.model.Cancion;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * Lector de archivos de carga masiva en tubería (pipeline):
+ *
+ *   lector ──cola acotada──> N analizadores ──cola acotada──> confirmador
+ *
+ * - El lector lee el archivo en lotes de líneas, en un solo hilo.
+ * - Los analizadores validan las filas en paralelo con escáneres de campos escritos
+ *   a mano (sin split ni expresiones regulares).
+ * - El confirmador (el hilo que llama a procesar) reordena los lotes y entrega las
+ *   canciones en el orden del archivo; los errores y advertencias también se
+ *   imprimen en orden.
+ *
+ * Las colas son acotadas y además un semáforo limita los lotes en vuelo, de modo que
+ * si el confirmador se atrasa el lector se detiene (contrapresión) y la memoria usada
+ * no depende del tamaño del archivo.
+ *
+ * Formato: ID|Título|Artista|Género|Año|Duración|URL_YouTube, con ID y URL opcionales.
+ *
+ */
+class ImportadorCanciones {
+    private static final int TAMANO_LOTE = 4096;
+    private static final int LOTES_EN_VUELO_POR_HILO = 4;
+
+    private final String rutaArchivo;
+    private final int hilos;
+    private int filasLeidas;
+    private int errores;
+
+    /**
+     * Constructor del importador
+     *
+     * @param rutaArchivo Ruta del archivo a importar
+     */
+    ImportadorCanciones(String rutaArchivo) {
+        this(rutaArchivo, Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors() - 1)));
+    }
+
+    /**
+     * Constructor del importador con un número de analizadores dado
+     *
+     * @param rutaArchivo Ruta del archivo a importar
+     * @param hilos Cantidad de hilos analizadores
+     */
+    ImportadorCanciones(String rutaArchivo, int hilos) {
+        this.rutaArchivo = rutaArchivo;
+        this.hilos = Math.max(1, hilos);
+    }
+
+    /**
+     * Lee y valida el archivo, entregando las canciones válidas (sin ID) en el orden del archivo
+     *
+     * @param destino Receptor de las canciones válidas
+     * @throws IOException Si el archivo no se puede leer; las filas anteriores ya fueron entregadas
+     */
+    void procesar(Consumer<Cancion> destino) throws IOException {
+        Semaphore enVuelo = new Semaphore(hilos * LOTES_EN_VUELO_POR_HILO);
+        BlockingQueue<Lote> porAnalizar = new ArrayBlockingQueue<>(hilos * 2);
+        BlockingQueue<Lote> analizados = new ArrayBlockingQueue<>(hilos * 2);
+        IOException[] errorLectura = new IOException[1];
+
+        List<Thread> etapas = new ArrayList<>();
+        etapas.add(new Thread(() -> leer(porAnalizar, enVuelo, errorLectura), "importador-lector"));
+        for (int i = 0; i < hilos; i++) {
+            etapas.add(new Thread(() -> analizar(porAnalizar, analizados), "importador-analizador-" + i));
+        }
+        for (Thread etapa : etapas) {
+            etapa.setDaemon(true);
+            etapa.start();
+        }
+
+        try {
+            confirmar(analizados, enVuelo, destino);
+            for (Thread etapa : etapas) {
+                etapa.join();
+            }
+        } catch (InterruptedException e) {
+            for (Thread etapa : etapas) {
+                etapa.interrupt();
+            }
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Importación interrumpida");
+        }
+
+        if (errorLectura[0] != null) {
+            throw errorLectura[0];
+        }
+    }
+
+    /**
+     * Cantidad de filas de datos leídas (sin comentarios ni líneas vacías)
+     */
+    int getFilasLeidas() {
+        return filasLeidas;
+    }
+
+    /**
+     * Cantidad de filas con error de formato
+     */
+    int getErrores() {
+        return errores;
+    }
+
+    // ==================== ETAPAS ====================
+
+    /**
+     * Etapa lectora: agrupa las líneas en lotes numerados
+     */
+    private void leer(BlockingQueue<Lote> porAnalizar, Semaphore enVuelo, IOException[] errorLectura) {
+        int secuencia = 0;
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(
+                new FileInputStream(rutaArchivo), StandardCharsets.UTF_8), 1 << 16)) {
+            int numeroLinea = 0;
+            String[] lineas = new String[TAMANO_LOTE];
+            int cantidad = 0;
+            String linea;
+
+            while ((linea = br.readLine()) != null) {
+                lineas[cantidad++] = linea;
+                if (cantidad == TAMANO_LOTE) {
+                    enVuelo.acquire();
+                    porAnalizar.put(new Lote(secuencia++, numeroLinea + 1, lineas, cantidad));
+                    numeroLinea += cantidad;
+                    lineas = new String[TAMANO_LOTE];
+                    cantidad = 0;
+                }
+            }
+            if (cantidad > 0) {
+                enVuelo.acquire();
+                porAnalizar.put(new Lote(secuencia++, numeroLinea + 1, lineas, cantidad));
+            }
+        } catch (IOException e) {
+            errorLectura[0] = e;
+        } catch (InterruptedException e) {
+            return;
+        }
+
+        // Un fin por analizador
+        try {
+            for (int i = 0; i < hilos; i++) {
+                porAnalizar.put(Lote.FIN);
+            }
+        } catch (InterruptedException ignorada) {
+            // el confirmador ya se detuvo
+        }
+    }
+
+    /**
+     * Etapa analizadora: valida cada línea del lote
+     */
+    private void analizar(BlockingQueue<Lote> porAnalizar, BlockingQueue<Lote> analizados) {
+        try {
+            while (true) {
+                Lote lote = porAnalizar.take();
+                if (lote == Lote.FIN) {
+                    analizados.put(Lote.FIN);
+                    return;
+                }
+                lote.filas = new Fila[lote.cantidad];
+                for (int i = 0; i < lote.cantidad; i++) {
+                    lote.filas[i] = analizarLinea(lote.lineas[i], lote.primeraLinea + i);
+                }
+                lote.lineas = null;
+                analizados.put(lote);
+            }
+        } catch (InterruptedException e) {
+            // importación cancelada
+        }
+    }
+
+    /**
+     * Etapa confirmadora: entrega los lotes en orden de secuencia
+     */
+    private void confirmar(BlockingQueue<Lote> analizados, Semaphore enVuelo, Consumer<Cancion> destino)
+            throws InterruptedException {
+        Map<Integer, Lote> pendientes = new HashMap<>();
+        int siguiente = 0;
+        int finesRecibidos = 0;
+
+        while (finesRecibidos < hilos) {
+            Lote lote = analizados.take();
+            if (lote == Lote.FIN) {
+                finesRecibidos++;
+                continue;
+            }
+            pendientes.put(lote.secuencia, lote);
+
+            while ((lote = pendientes.remove(siguiente)) != null) {
+                for (Fila fila : lote.filas) {
+                    entregar(fila, destino);
+                }
+                siguiente++;
+                enVuelo.release();
+            }
+        }
+    }
+
+    private void entregar(Fila fila, Consumer<Cancion> destino) {
+        if (fila == null) {
+            return; // comentario o línea vacía
+        }
+        filasLeidas++;
+        if (fila.advertencia != null) {
+            System.err.println(fila.advertencia);
+        }
+        if (fila.error != null) {
+            errores++;
+            System.err.println("  ✗ Error línea " + fila.numeroLinea + ": " + fila.error);
+            System.err.println("    Contenido: " + fila.linea);
+            return;
+        }
+        destino.accept(fila.cancion);
+    }
+
+    // ==================== ANÁLISIS DE FILAS ====================
+
+    /**
+     * Valida una línea del archivo
+     *
+     * @param linea Línea leída
+     * @param numeroLinea Número de línea (para los mensajes)
+     * @return Fila analizada, o null si es un comentario o una línea vacía
+     */
+    private static Fila analizarLinea(String linea, int numeroLinea) {
+        linea = linea.trim();
+        if (linea.isEmpty() || linea.charAt(0) == '#') {
+            return null;
+        }
+
+        Fila fila = new Fila(numeroLinea, linea);
+        try {
+            String[] partes = separarCampos(linea);
+            boolean tieneID = tieneID(partes);
+            int desplazamiento = tieneID ? 1 : 0;
+            int campos = partes.length - desplazamiento;
+
+            // Con ID: 7 campos (con URL) o 6 (sin URL); sin ID: 6 o 5. El ID se reasigna al agregar.
+            if (campos != 6 && campos != 5) {
+                throw new IllegalArgumentException(tieneID
+                        ? "Formato incorrecto: se esperaban 6 o 7 campos, se encontraron " + partes.length
+                        : "Formato incorrecto: se esperaban 5 o 6 campos, se encontraron " + partes.length);
+            }
+
+            String titulo = partes[desplazamiento].trim();
+            String artista = partes[desplazamiento + 1].trim();
+            String genero = partes[desplazamiento + 2].trim();
+            int anio = parsearAnio(partes[desplazamiento + 3].trim());
+            double duracion = parsearDuracion(partes[desplazamiento + 4].trim(), fila);
+            String urlYoutube = campos == 6 ? partes[desplazamiento + 5].trim() : "";
+
+            // Validar campos obligatorios
+            if (titulo.isEmpty() || artista.isEmpty()) {
+                throw new IllegalArgumentException("Título y artista son obligatorios");
+            }
+
+            fila.cancion = new Cancion(null, titulo, artista, genero, anio, duracion, urlYoutube);
+        } catch (RuntimeException e) {
+            fila.error = e.getMessage();
+        }
+        return fila;
+    }
+
+    /**
+     * Separa los campos por '|' en una sola pasada. Igual que String.split, descarta
+     * los campos vacíos del final.
+     */
+    private static String[] separarCampos(String linea) {
+        int fin = linea.length();
+        while (fin > 0 && linea.charAt(fin - 1) == '|') {
+            fin--;
+        }
+
+        int cantidad = 1;
+        for (int i = 0; i < fin; i++) {
+            if (linea.charAt(i) == '|') {
+                cantidad++;
+            }
+        }
+
+        String[] campos = new String[cantidad];
+        int inicio = 0;
+        int campo = 0;
+        for (int i = 0; i < fin; i++) {
+            if (linea.charAt(i) == '|') {
+                campos[campo++] = linea.substring(inicio, i);
+                inicio = i + 1;
+            }
+        }
+        campos[campo] = linea.substring(inicio, fin);
+        return campos;
+    }
+
+    /**
+     * Detecta si la fila empieza con un ID (C0001, 0001...) o directamente con el título
+     */
+    private static boolean tieneID(String[] partes) {
+        String primerCampo = partes[0].trim();
+
+        // Una letra mayúscula seguida de dígitos, o solo dígitos
+        if (esLetraYDigitos(primerCampo) || esDigitos(primerCampo, 0)) {
+            return true;
+        }
+
+        // 7 campos y el primero es alfanumérico en mayúsculas
+        if (partes.length == 7 && primerCampo.length() <= 10 && esAlfanumericoMayusculas(primerCampo)) {
+            return true;
+        }
+
+        // 6 campos y el primero no parece un título largo
+        return partes.length == 6 && primerCampo.length() <= 10 && primerCampo.indexOf(' ') < 0;
+    }
+
+    private static int parsearAnio(String anioStr) {
+        if (anioStr.length() != 4 || !esDigitos(anioStr, 0)) {
+            throw new NumberFormatException("Año inválido (debe ser 4 dígitos): '" + anioStr + "'");
+        }
+        return (anioStr.charAt(0) - '0') * 1000 + (anioStr.charAt(1) - '0') * 100
+                + (anioStr.charAt(2) - '0') * 10 + (anioStr.charAt(3) - '0');
+    }
+
+    /**
+     * Valida una duración MM.SS (o MM,SS o MM) y anota una advertencia si SS >= 60
+     */
+    private static double parsearDuracion(String duracionStr, Fila fila) {
+        duracionStr = duracionStr.replace(',', '.');
+        try {
+            int punto = duracionStr.indexOf('.');
+            boolean valida = punto < 0
+                    ? esDigitos(duracionStr, 0)
+                    : punto > 0 && esDigitos(duracionStr.substring(0, punto), 0) && esDigitos(duracionStr, punto + 1);
+            if (!valida) {
+                throw new NumberFormatException("Formato de duración inválido: '" + duracionStr + "'");
+            }
+
+            double duracion = Double.parseDouble(duracionStr);
+
+            if (punto >= 0) {
+                int segundos = Integer.parseInt(duracionStr.substring(punto + 1));
+                if (segundos >= 60) {
+                    fila.advertencia = "    ⚠️ Advertencia línea " + fila.numeroLinea +
+                            ": Segundos >= 60 (" + segundos + "). Formato debe ser MM.SS donde SS < 60";
+                }
+            }
+            return duracion;
+
+        } catch (NumberFormatException e) {
+            throw new NumberFormatException("Error al parsear duración '" + duracionStr + "': " + e.getMessage());
+        }
+    }
+
+    /**
+     * Indica si el texto desde la posición dada es no vacío y solo tiene dígitos ASCII
+     */
+    private static boolean esDigitos(String texto, int desde) {
+        if (desde >= texto.length()) {
+            return false;
+        }
+        for (int i = desde; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean esLetraYDigitos(String texto) {
+        return texto.length() > 1 && texto.charAt(0) >= 'A' && texto.charAt(0) <= 'Z' && esDigitos(texto, 1);
+    }
+
+    private static boolean esAlfanumericoMayusculas(String texto) {
+        if (texto.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (!(c >= 'A' && c <= 'Z') && !(c >= '0' && c <= '9')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ==================== ESTRUCTURAS ====================
+
+    /**
+     * Lote de líneas consecutivas del archivo
+     */
+    private static final class Lote {
+        static final Lote FIN = new Lote(-1, 0, new String[0], 0);
+
+        final int secuencia;
+        final int primeraLinea;
+        final int cantidad;
+        String[] lineas;
+        Fila[] filas;
+
+        Lote(int secuencia, int primeraLinea, String[] lineas, int cantidad) {
+            this.secuencia = secuencia;
+            this.primeraLinea = primeraLinea;
+            this.lineas = lineas;
+            this.cantidad = cantidad;
+        }
+    }
+
+    /**
+     * Resultado de analizar una fila: la canción o el error, y una advertencia opcional
+     */
+    private static final class Fila {
+        final int numeroLinea;
+        final String linea;
+        Cancion cancion;
+        String error;
+        String advertencia;
+
+        Fila(int numeroLinea, String linea) {
+            this.numeroLinea = numeroLinea;
+            this.linea = linea;
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import edu.universidad.estructuras.proyecto_estructura.model.Cancion;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Índices de ordenamiento del catálogo, uno por criterio (título, artista, año,
+ * duración y género). Cada índice es un árbol ordenado de claves precalculadas
+ * (CollationKey para textos, de modo que "Álvaro" y "alvaro" quedan juntos según
+ * las reglas del español) y se mantiene de forma incremental desde CancionService.
+ *
+ * Para ordenar un subconjunto no se compara ningún String:
+ * - Si el subconjunto es grande respecto al catálogo, se recorre el índice en orden
+ *   y se toman las canciones que pertenecen al subconjunto (mezcla, O(N + n)).
+ * - Si es pequeño, se ordenan claves primitivas (rango precalculado, posición) con
+ *   Arrays.sort, o Arrays.parallelSort a partir de cierto tamaño (O(n log n)).
+ *
+ * Los rangos de un criterio se invalidan solo cuando cambia una clave de ese criterio
+ * (editar el título no toca el rango por año si el año es el mismo), y no se recalculan
+ * en cada ordenamiento: mientras estén invalidados, los subconjuntos pequeños se ordenan
+ * comparando directamente las claves del índice, y el recálculo O(N) se hace recién
+ * cuando esas comparaciones ya costaron tanto como él. Así una ráfaga de ediciones
+ * intercalada con ordenamientos no paga un recálculo completo por cada edición.
+ *
+ * Las consultas corren con el lock de lectura, así que varias pueden recalcular los
+ * rangos a la vez: cada una arma su propio arreglo y lo publica en un campo volatile.
+ *
+ */
+public class IndiceOrden {
+    private static final int UMBRAL_PARALELO = 8192;
+    private static final int FACTOR_MEZCLA = 8;
+
+    private final Collator collator;
+    private final EnumMap<CriterioOrden, IndiceCriterio> indices;
+    private final List<Entrada[]> entradasPorOrdinal;
+
+    /**
+     * Constructor de los índices de orden
+     */
+    public IndiceOrden() {
+        this.collator = Collator.getInstance(Locale.forLanguageTag("es"));
+        this.collator.setStrength(Collator.SECONDARY); // ignora mayúsculas, distingue tildes
+        this.indices = new EnumMap<>(CriterioOrden.class);
+        this.entradasPorOrdinal = new ArrayList<>();
+
+        for (CriterioOrden criterio : CriterioOrden.values()) {
+            indices.put(criterio, new IndiceCriterio());
+        }
+    }
+
+    /**
+     * Indexa (o reindexa) una canción bajo su ordinal en todos los criterios
+     *
+     * @param ordinal Ordinal de la canción
+     * @param cancion Canción a indexar
+     */
+    void indexar(int ordinal, Cancion cancion) {
+        CollationKey titulo = clave(cancion.getTitulo());
+        Entrada[] entradas = new Entrada[CriterioOrden.values().length];
+        entradas[CriterioOrden.TITULO.ordinal()] = new Entrada(titulo, null, ordinal);
+        entradas[CriterioOrden.ARTISTA.ordinal()] = new Entrada(clave(cancion.getArtista()), titulo, ordinal);
+        entradas[CriterioOrden.ANIO.ordinal()] = new Entrada(cancion.getAnio(), titulo, ordinal);
+        entradas[CriterioOrden.DURACION.ordinal()] = new Entrada(cancion.getDuracion(), titulo, ordinal);
+        entradas[CriterioOrden.GENERO.ordinal()] = new Entrada(clave(cancion.getGenero()), titulo, ordinal);
+
+        while (entradasPorOrdinal.size() <= ordinal) {
+            entradasPorOrdinal.add(null);
+        }
+        Entrada[] anteriores = entradasPorOrdinal.set(ordinal, entradas);
+
+        for (CriterioOrden criterio : CriterioOrden.values()) {
+            Entrada nueva = entradas[criterio.ordinal()];
+            Entrada anterior = anteriores == null ? null : anteriores[criterio.ordinal()];
+            if (anterior != null && anterior.compareTo(nueva) == 0) {
+                entradas[criterio.ordinal()] = anterior; // misma clave: el índice no cambia
+                continue;
+            }
+            IndiceCriterio indice = indices.get(criterio);
+            if (anterior != null) {
+                indice.arbol.remove(anterior);
+            }
+            indice.arbol.add(nueva);
+            indice.invalidarRangos();
+        }
+    }
+
+    /**
+     * Retira un ordinal de todos los índices usando las claves con que fue indexado
+     *
+     * @param ordinal Ordinal de la canción
+     */
+    void desindexar(int ordinal) {
+        if (ordinal >= entradasPorOrdinal.size() || entradasPorOrdinal.get(ordinal) == null) {
+            return;
+        }
+
+        Entrada[] entradas = entradasPorOrdinal.get(ordinal);
+        entradasPorOrdinal.set(ordinal, null);
+
+        for (CriterioOrden criterio : CriterioOrden.values()) {
+            IndiceCriterio indice = indices.get(criterio);
+            indice.arbol.remove(entradas[criterio.ordinal()]);
+            indice.invalidarRangos();
+        }
+    }
+
+    /**
+     * Vacía todos los índices
+     */
+    void limpiar() {
+        for (IndiceCriterio indice : indices.values()) {
+            indice.arbol.clear();
+            indice.invalidarRangos();
+        }
+        entradasPorOrdinal.clear();
+    }
+
+    /**
+     * Ordena un conjunto de ordinales según un criterio.
+     * Los ordinales negativos (canciones no indexadas) quedan al final en su orden original.
+     *
+     * @param ordinales Ordinales a ordenar (puede haber repetidos)
+     * @param criterio Criterio de orden
+     * @param descendente true para orden descendente
+     * @return Permutación: posiciones del arreglo de entrada en el orden resultante
+     */
+    int[] ordenar(int[] ordinales, CriterioOrden criterio, boolean descendente) {
+        IndiceCriterio indice = indices.get(criterio);
+        if ((long) ordinales.length * FACTOR_MEZCLA >= indice.arbol.size()) {
+            return ordenarPorMezcla(ordinales, indice.arbol, descendente);
+        }
+        int[] rango = indice.obtenerRangos(ordinales.length);
+        if (rango == null) {
+            return ordenarPorClaves(ordinales, criterio, descendente);
+        }
+        return ordenarPorRangos(ordinales, rango, indice.arbol.size() - 1, descendente);
+    }
+
+    /**
+     * Recorre el índice en orden y emite las posiciones de los ordinales del subconjunto
+     */
+    private int[] ordenarPorMezcla(int[] ordinales, TreeSet<Entrada> indice, boolean descendente) {
+        // Listas enlazadas ordinal -> posiciones de entrada, conservando el orden original
+        int[] primera = new int[entradasPorOrdinal.size()];
+        Arrays.fill(primera, -1);
+        int[] siguiente = new int[ordinales.length];
+        for (int i = ordinales.length - 1; i >= 0; i--) {
+            int ordinal = ordinales[i];
+            if (estaIndexado(ordinal)) {
+                siguiente[i] = primera[ordinal];
+                primera[ordinal] = i;
+            }
+        }
+
+        int[] permutacion = new int[ordinales.length];
+        int total = 0;
+        for (Entrada entrada : descendente ? indice.descendingSet() : indice) {
+            for (int i = primera[entrada.ordinal]; i >= 0; i = siguiente[i]) {
+                permutacion[total++] = i;
+            }
+        }
+        for (int i = 0; i < ordinales.length; i++) {
+            if (!estaIndexado(ordinales[i])) {
+                permutacion[total++] = i;
+            }
+        }
+        return permutacion;
+    }
+
+    /**
+     * Ordena claves primitivas (rango << 32 | posición) sin comparar canciones
+     */
+    private int[] ordenarPorRangos(int[] ordinales, int[] rango, int ultimo, boolean descendente) {
+        long[] claves = new long[ordinales.length];
+        for (int i = 0; i < ordinales.length; i++) {
+            int ordinal = ordinales[i];
+            long r = estaIndexado(ordinal) ? (descendente ? ultimo - rango[ordinal] : rango[ordinal]) : Integer.MAX_VALUE;
+            claves[i] = (r << 32) | i;
+        }
+
+        if (claves.length >= UMBRAL_PARALELO) {
+            Arrays.parallelSort(claves);
+        } else {
+            Arrays.sort(claves);
+        }
+
+        int[] permutacion = new int[ordinales.length];
+        for (int i = 0; i < claves.length; i++) {
+            permutacion[i] = (int) claves[i];
+        }
+        return permutacion;
+    }
+
+    /**
+     * Ordena comparando las claves del índice, para cuando los rangos están invalidados.
+     * El orden es estable, así que los ordinales repetidos conservan su orden original.
+     */
+    private int[] ordenarPorClaves(int[] ordinales, CriterioOrden criterio, boolean descendente) {
+        int columna = criterio.ordinal();
+        Integer[] posiciones = new Integer[ordinales.length];
+        for (int i = 0; i < posiciones.length; i++) {
+            posiciones[i] = i;
+        }
+
+        Arrays.sort(posiciones, (a, b) -> {
+            boolean indexadoA = estaIndexado(ordinales[a]);
+            boolean indexadoB = estaIndexado(ordinales[b]);
+            if (!indexadoA || !indexadoB) {
+                return Boolean.compare(!indexadoA, !indexadoB);
+            }
+            int comparacion = entradasPorOrdinal.get(ordinales[a])[columna]
+                    .compareTo(entradasPorOrdinal.get(ordinales[b])[columna]);
+            return descendente ? -comparacion : comparacion;
+        });
+
+        int[] permutacion = new int[ordinales.length];
+        for (int i = 0; i < posiciones.length; i++) {
+            permutacion[i] = posiciones[i];
+        }
+        return permutacion;
+    }
+
+    private boolean estaIndexado(int ordinal) {
+        return ordinal >= 0 && ordinal < entradasPorOrdinal.size() && entradasPorOrdinal.get(ordinal) != null;
+    }
+
+    private CollationKey clave(String texto) {
+        return collator.getCollationKey(texto == null ? "" : texto.trim());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("IndiceOrden[canciones=%d, criterios=%d]",
+                indices.get(CriterioOrden.TITULO).arbol.size(), indices.size());
+    }
+
+    /**
+     * Árbol de un criterio con sus rangos (posición de cada ordinal en el árbol)
+     */
+    private final class IndiceCriterio {
+        private final TreeSet<Entrada> arbol = new TreeSet<>();
+        private volatile int[] rangos; // null mientras estén invalidados
+        private final AtomicLong comparacionesSinRangos = new AtomicLong();
+
+        /**
+         * Se llama con el lock de escritura, después de cambiar el árbol
+         */
+        void invalidarRangos() {
+            rangos = null;
+            comparacionesSinRangos.set(0);
+        }
+
+        /**
+         * Devuelve los rangos vigentes, o null si conviene ordenar comparando claves.
+         * Se recalculan cuando las comparaciones hechas sin rangos desde el último
+         * cambio (unas n log n por ordenamiento) ya igualan el costo de recalcularlos.
+         *
+         * @param cantidad Tamaño del subconjunto a ordenar
+         */
+        int[] obtenerRangos(int cantidad) {
+            int[] rango = rangos;
+            if (rango != null) {
+                return rango;
+            }
+            long costo = (long) cantidad * (64 - Long.numberOfLeadingZeros(cantidad));
+            if (comparacionesSinRangos.addAndGet(costo) < arbol.size()) {
+                return null;
+            }
+
+            rango = new int[entradasPorOrdinal.size()];
+            int posicion = 0;
+            for (Entrada entrada : arbol) {
+                rango[entrada.ordinal] = posicion++;
+            }
+            rangos = rango;
+            return rango;
+        }
+    }
+
+    /**
+     * Clave de un índice: valor principal, título como desempate y ordinal para unicidad
+     */
+    private static final class Entrada implements Comparable<Entrada> {
+        private final Comparable<Object> principal;
+        private final CollationKey desempate;
+        private final int ordinal;
+
+        @SuppressWarnings("unchecked")
+        Entrada(Comparable<?> principal, CollationKey desempate, int ordinal) {
+            this.principal = (Comparable<Object>) principal;
+            this.desempate = desempate;
+            this.ordinal = ordinal;
+        }
+
+        @Override
+        public int compareTo(Entrada otra) {
+            int comparacion = principal.compareTo(otra.principal);
+            if (comparacion == 0 && desempate != null) {
+                comparacion = desempate.compareTo(otra.desempate);
+            }
+            return comparacion != 0 ? comparacion : Integer.compare(ordinal, otra.ordinal);
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import edu.universidad.estructuras.proyecto_estructura.model.BitmapComprimido;
+import edu.universidad.estructuras.proyecto_estructura.model.Cancion;
+
+import java.util.*;
+
+/**
+ * Motor de filtros compuestos sobre el catálogo.
+ * Cada predicado (género, artista, rango de años, rango de duración) se
+ * representa como un BitmapComprimido sobre los ordinales densos de las canciones,
+ * y los filtros se combinan con operaciones AND / OR sin recorrer el catálogo.
+ *
+ * Los índices se mantienen de forma incremental desde CancionService, con el lock de
+ * escritura de los índices secundarios; las consultas públicas toman el de lectura del
+ * mismo CerrojoCatalogo.
+ *
+ * Los mismos mapas de bits sirven para muestrear ordinales al azar sin copiar el
+ * catálogo: se elige una posición y se obtiene el ordinal con BitmapComprimido.seleccionar.
+ *
+ */
+public class MotorFiltros {
+    private final BitmapComprimido activas;
+    private final Map<String, BitmapComprimido> porGenero;   // género normalizado -> ordinales
+    private final Map<String, BitmapComprimido> porArtista;  // artista normalizado -> ordinales
+    private final TreeMap<Integer, BitmapComprimido> porAnio;
+    private final TreeMap<Integer, BitmapComprimido> porDuracion; // centésimas de minuto -> ordinales
+    private final List<ClavesIndexadas> clavesPorOrdinal;
+    private final CerrojoCatalogo cerrojo;
+
+    /**
+     * Constructor del motor de filtros
+     *
+     * @param cerrojo Lock de los índices secundarios del catálogo
+     */
+    MotorFiltros(CerrojoCatalogo cerrojo) {
+        this.cerrojo = cerrojo;
+        this.activas = new BitmapComprimido();
+        this.porGenero = new HashMap<>();
+        this.porArtista = new HashMap<>();
+        this.porAnio = new TreeMap<>();
+        this.porDuracion = new TreeMap<>();
+        this.clavesPorOrdinal = new ArrayList<>();
+    }
+
+    /**
+     * Indexa una canción bajo su ordinal.
+     * Si el ordinal ya estaba indexado, primero retira sus claves anteriores.
+     *
+     * @param ordinal Ordinal denso de la canción
+     * @param cancion Canción a indexar
+     */
+    void indexar(int ordinal, Cancion cancion) {
+        desindexar(ordinal);
+
+        ClavesIndexadas claves = new ClavesIndexadas(
+                normalizar(cancion.getGenero()),
+                normalizar(cancion.getArtista()),
+                cancion.getAnio(),
+                aCentesimas(cancion.getDuracion()));
+
+        while (clavesPorOrdinal.size() <= ordinal) {
+            clavesPorOrdinal.add(null);
+        }
+        clavesPorOrdinal.set(ordinal, claves);
+
+        activas.agregar(ordinal);
+        porGenero.computeIfAbsent(claves.genero, k -> new BitmapComprimido()).agregar(ordinal);
+        porArtista.computeIfAbsent(claves.artista, k -> new BitmapComprimido()).agregar(ordinal);
+        porAnio.computeIfAbsent(claves.anio, k -> new BitmapComprimido()).agregar(ordinal);
+        porDuracion.computeIfAbsent(claves.duracion, k -> new BitmapComprimido()).agregar(ordinal);
+    }
+
+    /**
+     * Retira un ordinal de todos los índices usando las claves con que fue indexado
+     *
+     * @param ordinal Ordinal de la canción
+     */
+    void desindexar(int ordinal) {
+        if (ordinal >= clavesPorOrdinal.size() || clavesPorOrdinal.get(ordinal) == null) {
+            return;
+        }
+
+        ClavesIndexadas claves = clavesPorOrdinal.get(ordinal);
+        clavesPorOrdinal.set(ordinal, null);
+
+        activas.eliminar(ordinal);
+        retirar(porGenero, claves.genero, ordinal);
+        retirar(porArtista, claves.artista, ordinal);
+        retirar(porAnio, claves.anio, ordinal);
+        retirar(porDuracion, claves.duracion, ordinal);
+    }
+
+    /**
+     * Vacía todos los índices
+     */
+    void limpiar() {
+        activas.limpiar();
+        porGenero.clear();
+        porArtista.clear();
+        porAnio.clear();
+        porDuracion.clear();
+        clavesPorOrdinal.clear();
+    }
+
+    /**
+     * Obtiene el conjunto de todas las canciones activas
+     *
+     * @return Copia del mapa de bits de canciones activas
+     */
+    public BitmapComprimido todas() {
+        return cerrojo.leer(activas::copiar);
+    }
+
+    /**
+     * Canciones de un género exacto (sin distinguir mayúsculas)
+     *
+     * @param genero Género buscado
+     * @return Mapa de bits con las canciones del género
+     */
+    public BitmapComprimido porGenero(String genero) {
+        return cerrojo.leer(() -> {
+            BitmapComprimido resultado = porGenero.get(normalizar(genero));
+            return resultado != null ? resultado.copiar() : new BitmapComprimido();
+        });
+    }
+
+    /**
+     * Canciones cuyo artista contiene el texto dado (búsqueda parcial).
+     * Recorre los artistas distintos, no las canciones.
+     *
+     * @param texto Texto a buscar en el nombre del artista
+     * @return Mapa de bits con las canciones de los artistas coincidentes
+     */
+    public BitmapComprimido porArtista(String texto) {
+        String busqueda = normalizar(texto);
+        return cerrojo.leer(() -> {
+            BitmapComprimido resultado = new BitmapComprimido();
+            for (Map.Entry<String, BitmapComprimido> entrada : porArtista.entrySet()) {
+                if (entrada.getKey().contains(busqueda)) {
+                    resultado = resultado.or(entrada.getValue());
+                }
+            }
+            return resultado;
+        });
+    }
+
+    /**
+     * Canciones con año dentro del rango [min, max]
+     *
+     * @param min Año mínimo (inclusive)
+     * @param max Año máximo (inclusive)
+     * @return Mapa de bits con las canciones del rango
+     */
+    public BitmapComprimido porRangoAnio(int min, int max) {
+        return cerrojo.leer(() -> unir(min <= max ? porAnio.subMap(min, true, max, true) : Collections.emptyMap()));
+    }
+
+    /**
+     * Canciones con duración dentro del rango [min, max] en minutos
+     *
+     * @param min Duración mínima (inclusive)
+     * @param max Duración máxima (inclusive)
+     * @return Mapa de bits con las canciones del rango
+     */
+    public BitmapComprimido porRangoDuracion(double min, double max) {
+        int desde = aCentesimas(min);
+        int hasta = aCentesimas(max);
+        return cerrojo.leer(() -> unir(desde <= hasta ? porDuracion.subMap(desde, true, hasta, true) : Collections.emptyMap()));
+    }
+
+    /**
+     * Obtiene la cantidad de canciones indexadas
+     *
+     * @return Número de ordinales activos
+     */
+    public int getCantidadIndexadas() {
+        return cerrojo.leer(activas::getCardinalidad);
+    }
+
+    /**
+     * Muestrea ordinales activos al azar, sin repetir
+     *
+     * @param k Cantidad de ordinales
+     * @param random Generador de números aleatorios
+     * @return Hasta k ordinales distintos
+     */
+    int[] muestrearUniforme(int k, Random random) {
+        return cerrojo.leer(() -> {
+            Estrato estrato = new Estrato();
+            estrato.agregar(activas);
+            List<Integer> elegidos = new ArrayList<>(Math.min(k, estrato.total));
+            estrato.muestrear(k, random, elegidos);
+            return aArreglo(elegidos);
+        });
+    }
+
+    /**
+     * Muestrea ordinales activos repartidos entre estratos (géneros o décadas): cada
+     * estrato recibe una cuota por turnos, en orden aleatorio, y dentro de él se eligen
+     * ordinales al azar sin repetir. Costo O(s + k) con s = cantidad de estratos.
+     *
+     * @param k Cantidad de ordinales
+     * @param criterio Criterio que define los estratos
+     * @param random Generador de números aleatorios
+     * @return Hasta k ordinales distintos, en orden aleatorio
+     */
+    int[] muestrearEstratificado(int k, EstratoMuestreo criterio, Random random) {
+        return cerrojo.leer(() -> {
+            List<Estrato> estratos = new ArrayList<>();
+            if (criterio == EstratoMuestreo.GENERO) {
+                for (BitmapComprimido bitmap : porGenero.values()) {
+                    Estrato estrato = new Estrato();
+                    estrato.agregar(bitmap);
+                    estratos.add(estrato);
+                }
+            } else {
+                Estrato estrato = null;
+                int decadaActual = 0;
+                for (Map.Entry<Integer, BitmapComprimido> entrada : porAnio.entrySet()) {
+                    int decada = Math.floorDiv(entrada.getKey(), 10);
+                    if (estrato == null || decada != decadaActual) {
+                        estrato = new Estrato();
+                        estratos.add(estrato);
+                        decadaActual = decada;
+                    }
+                    estrato.agregar(entrada.getValue());
+                }
+            }
+            Collections.shuffle(estratos, random);
+
+            // Cuotas por turnos: una por estrato en cada vuelta mientras tenga canciones
+            int[] cuotas = new int[estratos.size()];
+            int asignadas = 0;
+            boolean hayLugar = true;
+            while (asignadas < k && hayLugar) {
+                hayLugar = false;
+                for (int i = 0; i < estratos.size() && asignadas < k; i++) {
+                    if (cuotas[i] < estratos.get(i).total) {
+                        cuotas[i]++;
+                        asignadas++;
+                        hayLugar = true;
+                    }
+                }
+            }
+
+            List<Integer> elegidos = new ArrayList<>(asignadas);
+            for (int i = 0; i < estratos.size(); i++) {
+                if (cuotas[i] > 0) {
+                    estratos.get(i).muestrear(cuotas[i], random, elegidos);
+                }
+            }
+            Collections.shuffle(elegidos, random);
+            return aArreglo(elegidos);
+        });
+    }
+
+    private static int[] aArreglo(List<Integer> valores) {
+        int[] arreglo = new int[valores.size()];
+        for (int i = 0; i < arreglo.length; i++) {
+            arreglo[i] = valores.get(i);
+        }
+        return arreglo;
+    }
+
+    private BitmapComprimido unir(Map<Integer, BitmapComprimido> rango) {
+        BitmapComprimido resultado = new BitmapComprimido();
+        for (BitmapComprimido bitmap : rango.values()) {
+            resultado = resultado.or(bitmap);
+        }
+        return resultado;
+    }
+
+    private static <K> void retirar(Map<K, BitmapComprimido> indice, K clave, int ordinal) {
+        BitmapComprimido bitmap = indice.get(clave);
+        if (bitmap != null) {
+            bitmap.eliminar(ordinal);
+            if (bitmap.estaVacio()) {
+                indice.remove(clave);
+            }
+        }
+    }
+
+    private static String normalizar(String texto) {
+        return texto == null ? "" : texto.trim().toLowerCase();
+    }
+
+    /**
+     * Convierte minutos a centésimas de minuto, acotando a int: un rango sin límite
+     * (Double.MAX_VALUE, infinito) no debe desbordar
+     */
+    private static int aCentesimas(double duracion) {
+        long centesimas = Math.round(duracion * 100);
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, centesimas));
+    }
+
+    /**
+     * Claves con las que se indexó cada ordinal, para poder retirarlo
+     * aunque la canción haya sido modificada en memoria
+     */
+    private static final class ClavesIndexadas {
+        private final String genero;
+        private final String artista;
+        private final int anio;
+        private final int duracion;
+
+        ClavesIndexadas(String genero, String artista, int anio, int duracion) {
+            this.genero = genero;
+            this.artista = artista;
+            this.anio = anio;
+            this.duracion = duracion;
+        }
+    }
+
+    /**
+     * Unión de mapas de bits disjuntos (un género, o los años de una década) de la
+     * que se eligen posiciones al azar sin materializar la unión
+     */
+    private static final class Estrato {
+        private final List<BitmapComprimido> partes = new ArrayList<>(1);
+        private final List<Integer> cardinalidades = new ArrayList<>(1);
+        private int total;
+
+        void agregar(BitmapComprimido parte) {
+            int cardinalidad = parte.getCardinalidad();
+            if (cardinalidad > 0) {
+                partes.add(parte);
+                cardinalidades.add(cardinalidad);
+                total += cardinalidad;
+            }
+        }
+
+        int seleccionar(int posicion) {
+            for (int i = 0; i < partes.size(); i++) {
+                if (posicion < cardinalidades.get(i)) {
+                    return partes.get(i).seleccionar(posicion);
+                }
+                posicion -= cardinalidades.get(i);
+            }
+            throw new IndexOutOfBoundsException("Posición fuera del estrato: " + posicion);
+        }
+
+        /**
+         * Agrega hasta k ordinales distintos del estrato con un Fisher-Yates parcial disperso:
+         * el arreglo de posiciones es implícito (la posición i vale i) y solo las que se
+         * intercambian se guardan en un mapa, así cuesta O(k) y no O(total)
+         */
+        void muestrear(int k, Random random, List<Integer> elegidos) {
+            int cantidad = Math.min(k, total);
+            Map<Integer, Integer> intercambiadas = new HashMap<>(cantidad * 2);
+            for (int i = 0; i < cantidad; i++) {
+                int j = i + random.nextInt(total - i);
+                int posicion = intercambiadas.getOrDefault(j, j);
+                // La posición i ya no se vuelve a sortear: basta con mover su valor a j
+                intercambiadas.put(j, intercambiadas.getOrDefault(i, i));
+                elegidos.add(seleccionar(posicion));
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MotorFiltros[canciones=%d, generos=%d, artistas=%d]",
+                getCantidadIndexadas(), porGenero.size(), porArtista.size());
+    }
+}
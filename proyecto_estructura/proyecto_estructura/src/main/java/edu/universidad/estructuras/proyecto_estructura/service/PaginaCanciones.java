@@ -0,0 +1,59 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import edu.universidad.estructuras.proyecto_estructura.model.Cancion;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Página de solo lectura del catálogo obtenida con un cursor por clave (keyset).
+ * La clave es el ordinal de la canción: la siguiente página se pide a partir de
+ * getSiguienteOrdinal(), de modo que las altas y bajas entre páginas no desplazan
+ * ni repiten resultados como ocurriría con un desplazamiento (offset).
+ *
+ */
+public class PaginaCanciones {
+    private final List<Cancion> canciones;
+    private final int siguienteOrdinal;
+    private final int total;
+
+    /**
+     * Constructor de la página
+     *
+     * @param canciones Canciones de la página
+     * @param siguienteOrdinal Ordinal desde el que continúa la siguiente página, o -1 si no hay más
+     * @param total Número total de canciones del catálogo
+     */
+    PaginaCanciones(List<Cancion> canciones, int siguienteOrdinal, int total) {
+        this.canciones = Collections.unmodifiableList(canciones);
+        this.siguienteOrdinal = siguienteOrdinal;
+        this.total = total;
+    }
+
+    public List<Cancion> getCanciones() {
+        return canciones;
+    }
+
+    public int getSiguienteOrdinal() {
+        return siguienteOrdinal;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * Indica si quedan más páginas por leer
+     *
+     * @return true si hay una página siguiente
+     */
+    public boolean hayMas() {
+        return siguienteOrdinal >= 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PaginaCanciones[canciones=%d, siguiente=%d, total=%d]",
+                canciones.size(), siguienteOrdinal, total);
+    }
+}
@@ -0,0 +1,50 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+/**
+ * Periodos de las tendencias mantenidas por TendenciasService, con el anillo de
+ * cubetas de cada ventana (cantidad de cubetas x duración de cada una)
+ *
+ */
+public enum PeriodoTendencia {
+    DIA("Hoy", 24, 60 * 60 * 1000L),                  // 24 cubetas de 1 hora
+    SEMANA("Esta semana", 28, 6 * 60 * 60 * 1000L),   // 28 cubetas de 6 horas
+    MES("Este mes", 30, 24 * 60 * 60 * 1000L),        // 30 cubetas de 1 día
+    HISTORICO("Siempre", 1, Long.MAX_VALUE);          // sin vencimiento
+
+    private final String etiqueta;
+    private final int cantidadCubetas;
+    private final long duracionCubeta;
+
+    PeriodoTendencia(String etiqueta, int cantidadCubetas, long duracionCubeta) {
+        this.etiqueta = etiqueta;
+        this.cantidadCubetas = cantidadCubetas;
+        this.duracionCubeta = duracionCubeta;
+    }
+
+    public String getEtiqueta() {
+        return etiqueta;
+    }
+
+    public int getCantidadCubetas() {
+        return cantidadCubetas;
+    }
+
+    public long getDuracionCubeta() {
+        return duracionCubeta;
+    }
+
+    /**
+     * Busca el periodo con una etiqueta
+     *
+     * @param etiqueta Etiqueta mostrada en la interfaz
+     * @return Periodo, o null si ninguno la tiene
+     */
+    public static PeriodoTendencia desdeEtiqueta(String etiqueta) {
+        for (PeriodoTendencia periodo : values()) {
+            if (periodo.etiqueta.equals(etiqueta)) {
+                return periodo;
+            }
+        }
+        return null;
+    }
+}
@@ -3,31 +3,82 @@ package edu.universidad.estructuras.proyecto_estructura.service;
 import edu.universidad.estructuras.proyecto_estructura.model.*;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 /**
  * Servicio para gestión de persistencia de datos
  * ✅ CORREGIDO: Carga y guarda playlists correctamente
+ *
+ * Cada cambio se anota en el DiarioCambios (una línea al final del diario, sin reescribir
+ * archivos). Los archivos .dat y canciones.txt son checkpoints: se reescriben completos al
+ * compactar el diario, al cerrar la aplicación o al llamar a guardarX(), siempre en segundo
+ * plano con EscrituraDiferida. Al iniciar se cargan los checkpoints y se reaplica el diario.
+ *
+ * Favoritos, playlists y conexiones están en el almacén de usuarios (AlmacenUsuarios, un
+ * árbol B+ paginado en usuarios.arbol): cada cambio se anota en el diario y se aplica en el
+ * momento a las páginas del árbol que toca, y su checkpoint solo escribe esas páginas.
  */
 public class PersistenciaService {
-    private static PersistenciaService instance;
-
     private static final String DIRECTORIO_DATOS = "data";
     private static final String ARCHIVO_USUARIOS = DIRECTORIO_DATOS + "/usuarios.dat";
+    private static final String ARCHIVO_ALMACEN = DIRECTORIO_DATOS + "/usuarios.arbol";
+    // Archivos anteriores al almacén: solo se leen una vez, para migrarlos
     private static final String ARCHIVO_FAVORITOS = DIRECTORIO_DATOS + "/favoritos.dat";
     private static final String ARCHIVO_PLAYLISTS = DIRECTORIO_DATOS + "/playlists.dat";
     private static final String ARCHIVO_CONEXIONES = DIRECTORIO_DATOS + "/conexiones.dat";
+    private static final String ARCHIVO_TENDENCIAS = DIRECTORIO_DATOS + "/tendencias.dat";
+    private static final String EXTENSION_TEMPORAL = ".tmp";
+    private static final long ESPERA_DIARIO_MILIS = 5000;
+
+    // Conjuntos cuyos cambios van al diario (las tendencias son estadísticas y solo se guardan al cerrar)
+    private static final EnumSet<ConjuntoDatos> CONJUNTOS_CON_DIARIO = EnumSet.complementOf(EnumSet.of(ConjuntoDatos.TENDENCIAS));
+
+    private final EscrituraDiferida escrituraDiferida;
+    private final DiarioCambios diario;
+    private final EnumMap<ConjuntoDatos, Integer> segmentoCubierto; // checkpoint escrito con el diario en ese segmento
+    private volatile boolean restaurando;
+    private final CargaDiferida cargaDiferida;
+    private volatile AlmacenUsuarios almacen;
 
     private PersistenciaService() {
         crearDirectorioSiNoExiste();
+        this.segmentoCubierto = new EnumMap<>(ConjuntoDatos.class);
+        this.cargaDiferida = new CargaDiferida();
+        this.diario = new DiarioCambios(DIRECTORIO_DATOS, this::compactar);
+        this.escrituraDiferida = new EscrituraDiferida(this::escribir);
+        this.escrituraDiferida.iniciar();
     }
 
+    /**
+     * Obtiene la instancia única del servicio (Singleton)
+     *
+     * @return Instancia de PersistenciaService
+     */
     public static PersistenciaService getInstance() {
-        if (instance == null) {
-            instance = new PersistenciaService();
-        }
-        return instance;
+        return Contenedor.INSTANCIA;
+    }
+
+    /**
+     * Inicialización perezosa y segura entre hilos: la JVM crea la instancia
+     * una sola vez, al cargar esta clase en el primer getInstance()
+     */
+    private static final class Contenedor {
+        private static final PersistenciaService INSTANCIA = new PersistenciaService();
+    }
+
+    /**
+     * Obtiene la carga diferida por usuario de favoritos y playlists
+     */
+    public CargaDiferida getCargaDiferida() {
+        return cargaDiferida;
     }
 
     private void crearDirectorioSiNoExiste() {
@@ -40,75 +91,412 @@ public class PersistenciaService {
         }
     }
 
+    /**
+     * Guarda todos los conjuntos de datos y espera a que estén en disco
+     */
     public void guardarTodo() {
         System.out.println("\n=== Guardando datos del sistema ===");
-        guardarUsuarios();
-        guardarFavoritos();
-        guardarPlaylists();
-        guardarConexionesSociales();
+        for (ConjuntoDatos conjunto : ConjuntoDatos.values()) {
+            escrituraDiferida.marcar(conjunto);
+        }
+        escrituraDiferida.vaciar();
         System.out.println("=== Datos guardados exitosamente ===\n");
     }
 
+    /**
+     * Anota un cambio en el diario (no bloquea) y, si es de favoritos, playlists o
+     * conexiones, lo aplica a las páginas del almacén. Mientras se cargan los datos no
+     * anota nada.
+     *
+     * @param tipo Tipo de cambio
+     * @param campos Campos del registro
+     */
+    public void anotar(TipoRegistro tipo, String... campos) {
+        if (restaurando) {
+            return;
+        }
+        RegistroDiario registro = new RegistroDiario(tipo, campos);
+        AlmacenUsuarios almacen = this.almacen;
+        if (almacen == null || !AlmacenUsuarios.acepta(tipo)) {
+            diario.anotar(registro);
+            return;
+        }
+        // En el mismo orden en el almacén y en el diario
+        synchronized (almacen) {
+            diario.anotar(registro);
+            almacen.aplicar(registro);
+        }
+        if (almacen.necesitaCheckpoint()) {
+            escrituraDiferida.marcar(ConjuntoDatos.FAVORITOS);
+        }
+    }
+
+    /**
+     * Espera a que todos los cambios anotados estén en el diario en disco
+     * (para cuando el cambio debe ser durable antes de seguir)
+     *
+     * @return true si se confirmaron a tiempo
+     */
+    public boolean confirmarCambios() {
+        return diario.sincronizar(ESPERA_DIARIO_MILIS);
+    }
+
+    /**
+     * Escribe en el momento todos los guardados pendientes
+     */
+    public void sincronizar() {
+        escrituraDiferida.vaciar();
+    }
+
+    /**
+     * Escribe en el momento los guardados pendientes de algunos conjuntos
+     * (para cuando el cambio debe quedar en disco antes de seguir)
+     *
+     * @param conjunto Conjunto a escribir
+     * @param otros Otros conjuntos a escribir
+     */
+    public void sincronizar(ConjuntoDatos conjunto, ConjuntoDatos... otros) {
+        escrituraDiferida.vaciar(EnumSet.of(conjunto, otros));
+    }
+
+    /**
+     * Detiene la escritura en segundo plano y guarda todo (al cerrar la aplicación)
+     */
+    public void cerrar() {
+        // Lo anotado hasta ahora queda en segmentos cerrados que los checkpoints cubren
+        if (diario.getSegmentoActual() > 0) {
+            if (!diario.sincronizar(ESPERA_DIARIO_MILIS)) {
+                System.err.println("  ✗ El diario de cambios tiene registros sin escribir; los checkpoints los incluyen");
+            }
+            diario.rotar();
+        }
+        guardarTodo();
+        escrituraDiferida.detener();
+        diario.cerrar();
+
+        AlmacenUsuarios almacen = this.almacen;
+        if (almacen != null) {
+            this.almacen = null;
+            cargaDiferida.instalar(null);
+            try {
+                almacen.close();
+            } catch (IOException e) {
+                System.err.println("  ✗ Error al cerrar el almacén de usuarios: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Compacta el diario: lo siguiente se anota en un segmento nuevo y se reescriben los
+     * checkpoints en segundo plano; los segmentos anteriores se borran cuando todos estén escritos
+     */
+    private void compactar() {
+        int segmento = diario.rotar();
+        System.out.println("🗜 Compactando diario de cambios (segmento " + segmento + ")");
+        for (ConjuntoDatos conjunto : CONJUNTOS_CON_DIARIO) {
+            escrituraDiferida.marcar(conjunto);
+        }
+    }
+
+    public EscrituraDiferida getEscrituraDiferida() {
+        return escrituraDiferida;
+    }
+
+    public DiarioCambios getDiario() {
+        return diario;
+    }
+
+    public void guardarUsuarios() {
+        escrituraDiferida.marcar(ConjuntoDatos.USUARIOS);
+    }
+
+    public void guardarFavoritos() {
+        escrituraDiferida.marcar(ConjuntoDatos.FAVORITOS);
+    }
+
+    public void guardarPlaylists() {
+        escrituraDiferida.marcar(ConjuntoDatos.PLAYLISTS);
+    }
+
+    public void guardarConexionesSociales() {
+        escrituraDiferida.marcar(ConjuntoDatos.CONEXIONES);
+    }
+
+    public void guardarTendencias() {
+        escrituraDiferida.marcar(ConjuntoDatos.TENDENCIAS);
+    }
+
+    /**
+     * Escribe un conjunto de datos completo en su archivo (lo llama EscrituraDiferida).
+     * Favoritos, playlists y conexiones escriben las páginas modificadas del almacén.
+     */
+    private void escribir(ConjuntoDatos conjunto) {
+        // Lo anotado en segmentos anteriores ya está en memoria, así que este checkpoint lo incluye
+        int segmento = diario.getSegmentoActual();
+        switch (conjunto) {
+            case USUARIOS -> escribirUsuarios();
+            case FAVORITOS, PLAYLISTS, CONEXIONES -> {
+                if (!escribirAlmacen()) {
+                    return;
+                }
+            }
+            case TENDENCIAS -> escribirTendencias();
+            case CANCIONES -> CancionService.getInstance().guardarCheckpoint();
+        }
+
+        if (CONJUNTOS_CON_DIARIO.contains(conjunto)) {
+            int cubierto;
+            synchronized (segmentoCubierto) {
+                segmentoCubierto.put(conjunto, segmento);
+                cubierto = Integer.MAX_VALUE;
+                for (ConjuntoDatos otro : CONJUNTOS_CON_DIARIO) {
+                    cubierto = Math.min(cubierto, segmentoCubierto.getOrDefault(otro, 0));
+                }
+            }
+            diario.descartarAnteriores(cubierto);
+        }
+    }
+
+    /**
+     * Abre el archivo temporal donde se escribe un checkpoint
+     */
+    private static PrintWriter abrirTemporal(String archivo) throws IOException {
+        return new PrintWriter(new FileWriter(archivo + EXTENSION_TEMPORAL));
+    }
+
+    private static Path rutaTemporal(String archivo) {
+        return Paths.get(archivo + EXTENSION_TEMPORAL);
+    }
+
+    /**
+     * Reemplaza un archivo por su temporal ya escrito: un corte a mitad de la escritura
+     * deja el checkpoint anterior intacto
+     *
+     * @param archivo Archivo a reemplazar
+     */
+    static void reemplazarConTemporal(String archivo) {
+        try {
+            Files.move(Paths.get(archivo + EXTENSION_TEMPORAL), Paths.get(archivo),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo reemplazar " + archivo, e);
+        }
+    }
+
+    /**
+     * Carga todos los datos en etapas:
+     * 1. Lectura: los archivos .dat y el resumen del almacén de usuarios se leen en paralelo,
+     *    cada uno en su hilo, mientras este hilo carga el catálogo de canciones. La lectura
+     *    no toca los servicios.
+     * 2. Enlace: con el catálogo listo, lo leído se enlaza en bloque con los servicios
+     *    (IDs de canciones a canciones, conexiones al grafo social...).
+     * 3. Diario: se reaplican los cambios posteriores a los checkpoints.
+     * Así la lectura tarda lo que el archivo más lento y no la suma de todos.
+     */
     public void cargarTodo() {
         System.out.println("\n=== Cargando datos del sistema ===");
+        long inicio = System.nanoTime();
+
+        // Lo que se carga ya está en disco: no se anota en el diario
+        restaurando = true;
+        try {
+            // Etapa 1: lectura en paralelo
+            CompletableFuture<List<Usuario>> usuarios = leerEnParalelo("usuarios", this::leerUsuarios);
+            CompletableFuture<DatosUsuarios> datosUsuarios = leerEnParalelo("almacén", this::leerDatosUsuarios);
+            CompletableFuture<List<String[]>> tendencias = leerEnParalelo("tendencias", this::leerTendencias);
+
+            // 1. Canciones (mientras se leen los archivos)
+            long inicioEtapa = System.nanoTime();
+            CancionService.getInstance();
+            System.out.println("1. Canciones cargadas desde CancionService (" + milis(inicioEtapa) + " ms)");
+            CompletableFuture.allOf(usuarios, datosUsuarios, tendencias).join();
+            System.out.println("⏱ Lectura: " + milis(inicio) + " ms");
+
+            // Etapa 2: enlace
+            inicioEtapa = System.nanoTime();
+
+            // 2. Usuarios
+            aplicarUsuarios(usuarios.join());
+            System.out.println("2. Usuarios cargados: " + UsuarioService.getInstance().getCantidadUsuarios());
+
+            DatosUsuarios datos = datosUsuarios.join();
+            instalarAlmacen(datos.almacen);
+
+            // 3. Favoritos
+            aplicarFavoritos(datos);
+            System.out.println("3. Favoritos cargados");
+
+            // 4. Playlists
+            aplicarPlaylists(datos);
+            System.out.println("4. Playlists cargadas");
+
+            // 5. Conexiones sociales
+            aplicarConexionesSociales(datos.conexiones);
+            System.out.println("5. Conexiones sociales cargadas");
+
+            // 6. Tendencias
+            aplicarTendencias(tendencias.join());
+            System.out.println("6. Tendencias cargadas");
+            System.out.println("⏱ Enlace: " + milis(inicioEtapa) + " ms");
+
+            // Etapa 3: cambios posteriores a los checkpoints
+            inicioEtapa = System.nanoTime();
+            int reaplicados = diario.reproducir(this::aplicarRegistro);
+            System.out.println("7. Diario de cambios: " + reaplicados + " cambios reaplicados");
+            // La interfaz no tiene escrituras propias que esperar: los índices deben
+            // reflejar todo lo reaplicado antes de la primera consulta
+            if (reaplicados > 0 && !CancionService.getInstance().getBusEventos().sincronizar(10_000)) {
+                System.out.println("⚠️ Los índices siguen aplicando cambios del diario");
+            }
+            System.out.println("⏱ Diario: " + milis(inicioEtapa) + " ms");
 
-        // 1. Canciones
-        System.out.println("1. Canciones cargadas desde CancionService");
+            if (datos.migrar) {
+                migrarAlmacen();
+            }
+        } finally {
+            restaurando = false;
+        }
+        diario.abrir();
 
-        // 2. Usuarios
-        cargarUsuarios();
-        System.out.println("2. Usuarios cargados: " + UsuarioService.getInstance().getCantidadUsuarios());
+        System.out.println("=== Datos cargados exitosamente en " + milis(inicio) + " ms ===\n");
+    }
 
-        // 3. Favoritos
-        cargarFavoritos();
-        System.out.println("3. Favoritos cargados");
+    /**
+     * Lee un archivo en un hilo propio e informa cuánto tardó
+     */
+    private static <T> CompletableFuture<T> leerEnParalelo(String nombre, Supplier<T> lectura) {
+        return CompletableFuture.supplyAsync(() -> {
+            long inicio = System.nanoTime();
+            T leido = lectura.get();
+            System.out.println("  ⏱ " + nombre + " leído en " + milis(inicio) + " ms");
+            return leido;
+        }, tarea -> {
+            Thread hilo = new Thread(tarea, "cargar-" + nombre);
+            hilo.setDaemon(true);
+            hilo.start();
+        });
+    }
 
-        // 4. Playlists
-        cargarPlaylists();
-        System.out.println("4. Playlists cargadas");
+    private static long milis(long inicioNanos) {
+        return (System.nanoTime() - inicioNanos) / 1_000_000;
+    }
 
-        // 5. Conexiones sociales
-        cargarConexionesSociales();
-        System.out.println("5. Conexiones sociales cargadas");
+    /**
+     * Reaplica un cambio del diario sobre los datos cargados de los checkpoints. Los de
+     * favoritos, playlists y conexiones se aplican también al almacén: sus páginas pueden no
+     * tener los cambios posteriores al último checkpoint.
+     */
+    private void aplicarRegistro(RegistroDiario registro) {
+        UsuarioService usuarioService = UsuarioService.getInstance();
+        PlaylistService playlistService = PlaylistService.getInstance();
+        CancionService cancionService = CancionService.getInstance();
+
+        switch (registro.getTipo()) {
+            case USUARIO_UPSERT -> usuarioService.restaurarCuenta(registro.getCampo(0), registro.getCampo(1),
+                    registro.getCampo(2), Usuario.TipoUsuario.valueOf(registro.getCampo(3)));
+            case USUARIO_DEL -> usuarioService.eliminarUsuario(registro.getCampo(0));
+            case FAV_ADD, FAV_DEL -> {
+                Usuario usuario = usuarioService.obtenerUsuario(registro.getCampo(0));
+                Cancion cancion = cancionService.obtenerCancion(registro.getCampo(1));
+                if (usuario != null && cancion != null) {
+                    // La popularidad se cargó con los conteos del checkpoint: se ajusta por cada cambio
+                    if (registro.getTipo() == TipoRegistro.FAV_ADD) {
+                        if (usuario.getListaFavoritos().add(cancion)) {
+                            PopularidadService.getInstance().registrarFavorito(cancion);
+                        }
+                    } else if (usuario.getListaFavoritos().remove(cancion)) {
+                        PopularidadService.getInstance().retirarFavorito(cancion);
+                    }
+                }
+            }
+            case FOLLOW -> usuarioService.seguirUsuario(registro.getCampo(0), registro.getCampo(1));
+            case UNFOLLOW -> usuarioService.dejarDeSeguirUsuario(registro.getCampo(0), registro.getCampo(1));
+            case PLAYLIST_UPSERT -> playlistService.restaurarPlaylist(registro.getCampo(0), registro.getCampo(1),
+                    registro.getCampo(2), registro.getCampo(3), registro.getCampo(4));
+            case PLAYLIST_DEL -> playlistService.eliminarPlaylist(registro.getCampo(0), registro.getCampo(1));
+            case PLAYLIST_ADD_SONG, PLAYLIST_DEL_SONG -> {
+                Cancion cancion = cancionService.obtenerCancion(registro.getCampo(2));
+                if (cancion != null && registro.getTipo() == TipoRegistro.PLAYLIST_ADD_SONG) {
+                    playlistService.agregarCancionAPlaylist(registro.getCampo(0), registro.getCampo(1), cancion);
+                } else if (cancion != null) {
+                    playlistService.eliminarCancionDePlaylist(registro.getCampo(0), registro.getCampo(1), cancion);
+                }
+            }
+            case PLAYLIST_SONGS -> {
+                List<Cancion> canciones = new ArrayList<>();
+                for (String id : registro.getCampo(2).split(",")) {
+                    Cancion cancion = cancionService.obtenerCancion(id);
+                    if (cancion != null) {
+                        canciones.add(cancion);
+                    }
+                }
+                playlistService.reemplazarCanciones(registro.getCampo(0), registro.getCampo(1), canciones);
+            }
+            case SONG_UPSERT -> cancionService.restaurarCancion(cancionDelRegistro(registro, 0));
+            case SONG_BATCH -> {
+                int porCancion = TipoRegistro.SONG_BATCH.getCantidadCampos();
+                List<Cancion> lote = new ArrayList<>();
+                for (int desde = 0; desde < registro.getCantidadCampos(); desde += porCancion) {
+                    lote.add(cancionDelRegistro(registro, desde));
+                }
+                cancionService.restaurarLote(lote);
+            }
+            case SONG_DEL -> cancionService.eliminarCancion(registro.getCampo(0));
+            case SONG_CLEAR -> cancionService.limpiarCatalogo();
+        }
 
-        System.out.println("=== Datos cargados exitosamente ===\n");
+        // Después de los servicios: la popularidad se ajusta con los favoritos anteriores al cambio
+        AlmacenUsuarios almacen = this.almacen;
+        if (almacen != null && AlmacenUsuarios.acepta(registro.getTipo())) {
+            almacen.aplicar(registro);
+        }
     }
 
-    public void guardarUsuarios() {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(ARCHIVO_USUARIOS))) {
-            UsuarioService usuarioService = UsuarioService.getInstance();
-            HashMap<String, Usuario> usuarios = usuarioService.getUsuarios();
+    /**
+     * Lee la canción de un registro SONG_UPSERT, o de un grupo de un SONG_BATCH
+     *
+     * @param desde Índice del primer campo de la canción
+     */
+    private static Cancion cancionDelRegistro(RegistroDiario registro, int desde) {
+        return new Cancion(registro.getCampo(desde), registro.getCampo(desde + 1), registro.getCampo(desde + 2),
+                registro.getCampo(desde + 3), Integer.parseInt(registro.getCampo(desde + 4)),
+                Double.parseDouble(registro.getCampo(desde + 5)), registro.getCampo(desde + 6));
+    }
 
+    private void escribirUsuarios() {
+        // Copia tomada con el lock de los cambios: el mapa se sigue modificando desde la interfaz
+        List<String[]> cuentas = UsuarioService.getInstance().copiarCuentas();
+        try (PrintWriter pw = abrirTemporal(ARCHIVO_USUARIOS)) {
             int guardados = 0;
-            for (Usuario usuario : usuarios.values()) {
-                pw.println(String.format("%s|%s|%s|%s",
-                        usuario.getUsername(),
-                        usuario.getPassword(),
-                        usuario.getNombre(),
-                        usuario.getTipoUsuario().toString()
-                ));
+            for (String[] cuenta : cuentas) {
+                pw.println(String.join("|", cuenta));
                 guardados++;
             }
             System.out.println("  ✓ " + guardados + " usuarios guardados");
         } catch (IOException e) {
             System.err.println("  ✗ Error al guardar usuarios: " + e.getMessage());
+            throw new UncheckedIOException(e);
         }
+        reemplazarConTemporal(ARCHIVO_USUARIOS);
     }
 
     public void cargarUsuarios() {
+        aplicarUsuarios(leerUsuarios());
+    }
+
+    /**
+     * Lee usuarios.dat (solo lectura, se puede llamar desde cualquier hilo)
+     */
+    private List<Usuario> leerUsuarios() {
+        List<Usuario> usuarios = new ArrayList<>();
         File archivo = new File(ARCHIVO_USUARIOS);
         if (!archivo.exists()) {
             System.out.println("  ! No hay archivo de usuarios");
-            return;
+            return usuarios;
         }
 
         try (BufferedReader br = new BufferedReader(new FileReader(archivo))) {
-            UsuarioService usuarioService = UsuarioService.getInstance();
-            HashMap<String, Usuario> usuariosTemp = new HashMap<>();
-
             String linea;
-            int cargados = 0;
-
             while ((linea = br.readLine()) != null) {
                 String[] partes = linea.split("\\|");
                 if (partes.length == 4) {
@@ -117,152 +505,270 @@ public class PersistenciaService {
                     String nombre = partes[2];
                     Usuario.TipoUsuario tipo = Usuario.TipoUsuario.valueOf(partes[3]);
 
-                    Usuario usuario = new Usuario(username, password, nombre, tipo);
-                    usuariosTemp.put(username, usuario);
-                    cargados++;
+                    usuarios.add(new Usuario(username, password, nombre, tipo));
                 }
             }
+        } catch (IOException e) {
+            System.err.println("  ✗ Error al cargar usuarios: " + e.getMessage());
+        }
+        return usuarios;
+    }
 
-            if (!usuariosTemp.isEmpty()) {
-                usuarioService.getUsuarios().clear();
-                usuarioService.getUsuarios().putAll(usuariosTemp);
-            }
+    private void aplicarUsuarios(List<Usuario> usuariosLeidos) {
+        UsuarioService usuarioService = UsuarioService.getInstance();
+        if (!usuariosLeidos.isEmpty()) {
+            usuarioService.reemplazarUsuarios(usuariosLeidos);
+        }
 
-            System.out.println("  ✓ " + cargados + " usuarios cargados");
+        System.out.println("  ✓ " + usuariosLeidos.size() + " usuarios cargados");
+    }
 
-        } catch (IOException e) {
-            System.err.println("  ✗ Error al cargar usuarios: " + e.getMessage());
+    /**
+     * Favoritos, playlists y conexiones leídos al iniciar: del almacén de usuarios (solo su
+     * resumen; los datos de cada usuario se leen al usarlos) o, si todavía no existe, de los
+     * archivos anteriores, completos, para migrarlos
+     */
+    private static final class DatosUsuarios {
+        private AlmacenUsuarios almacen;
+        private AlmacenUsuarios.Resumen resumen;
+        private boolean migrar;
+        private final Map<String, List<String>> favoritos = new LinkedHashMap<>();
+        private final List<PlaylistLeida> playlists = new ArrayList<>();
+        private List<String[]> conexiones = new ArrayList<>();
+    }
+
+    /**
+     * Playlist leída de playlists.dat, con los IDs de sus canciones aún sin enlazar
+     */
+    private static final class PlaylistLeida {
+        private final Playlist playlist;
+        private final List<String> idsCanciones;
+
+        private PlaylistLeida(Playlist playlist) {
+            this.playlist = playlist;
+            this.idsCanciones = new ArrayList<>();
         }
     }
 
-    public void guardarFavoritos() {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(ARCHIVO_FAVORITOS))) {
-            UsuarioService usuarioService = UsuarioService.getInstance();
+    /**
+     * Abre el almacén de usuarios, o lee los archivos anteriores si no existe
+     * (solo lectura, se puede llamar desde cualquier hilo)
+     */
+    private DatosUsuarios leerDatosUsuarios() {
+        DatosUsuarios datos = new DatosUsuarios();
+        Path archivo = Paths.get(ARCHIVO_ALMACEN);
+        if (Files.exists(archivo)) {
+            try {
+                datos.almacen = AlmacenUsuarios.abrir(archivo);
+                datos.resumen = datos.almacen.resumir();
+                datos.conexiones = datos.resumen.getConexiones();
+            } catch (IOException | RuntimeException e) {
+                System.err.println("  ✗ Error al abrir el almacén de usuarios: " + e.getMessage());
+            }
+            return datos;
+        }
 
-            int guardados = 0;
-            for (Usuario usuario : usuarioService.getUsuarios().values()) {
-                for (Cancion cancion : usuario.getListaFavoritos()) {
-                    pw.println(String.format("%s|%s",
-                            usuario.getUsername(),
-                            cancion.getId()
-                    ));
-                    guardados++;
-                }
+        System.out.println("  → No hay almacén de usuarios: se leen los archivos anteriores para migrarlos");
+        datos.migrar = true;
+        leerFavoritos(datos.favoritos);
+        leerPlaylists(datos.playlists);
+        datos.conexiones = leerConexionesSociales();
+        return datos;
+    }
+
+    /**
+     * Instala el almacén: desde ahora cada cambio de un usuario se aplica a sus páginas
+     */
+    private void instalarAlmacen(AlmacenUsuarios almacen) {
+        this.almacen = almacen;
+        cargaDiferida.instalar(almacen);
+    }
+
+    /**
+     * Pasa al almacén nuevo los favoritos, playlists y conexiones cargados de los archivos
+     * anteriores y borra esos archivos. El almacén se arma en un temporal: si se corta, la
+     * siguiente carga vuelve a migrar desde los archivos.
+     */
+    private void migrarAlmacen() {
+        UsuarioService usuarioService = UsuarioService.getInstance();
+        Map<String, List<Cancion>> favoritos = new LinkedHashMap<>();
+        for (Usuario usuario : usuarioService.getUsuarios().values()) {
+            favoritos.put(usuario.getUsername(), usuario.getListaFavoritos());
+        }
+
+        Path temporal = rutaTemporal(ARCHIVO_ALMACEN);
+        Path destino = Paths.get(ARCHIVO_ALMACEN);
+        try {
+            Files.deleteIfExists(temporal);
+            try (AlmacenUsuarios nuevo = AlmacenUsuarios.abrir(temporal)) {
+                nuevo.importar(favoritos, PlaylistService.getInstance().getPlaylistsPorUsuario(), conexionesDelGrafo());
+                nuevo.checkpoint();
             }
-            System.out.println("  ✓ " + guardados + " favoritos guardados");
-        } catch (IOException e) {
-            System.err.println("  ✗ Error al guardar favoritos: " + e.getMessage());
+            Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE);
+
+            AlmacenUsuarios almacen = AlmacenUsuarios.abrir(destino);
+            almacen.resumir();
+            instalarAlmacen(almacen);
+            for (String anterior : new String[]{ARCHIVO_FAVORITOS, ARCHIVO_PLAYLISTS, ARCHIVO_CONEXIONES}) {
+                Files.deleteIfExists(Paths.get(anterior));
+            }
+            System.out.println("  ✓ Favoritos, playlists y conexiones migrados a " + destino.getFileName());
+        } catch (IOException | RuntimeException e) {
+            System.err.println("  ✗ Error al crear el almacén de usuarios: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Escribe las páginas modificadas del almacén. Favoritos, playlists y conexiones van en
+     * el mismo árbol: el primero de los tres que se escribe lleva los cambios de todos.
+     *
+     * @return false si no hay almacén (el diario sigue cubriendo los cambios)
+     */
+    private boolean escribirAlmacen() {
+        AlmacenUsuarios almacen = this.almacen;
+        if (almacen == null) {
+            return false;
+        }
+        long inicio = System.nanoTime();
+        if (almacen.checkpoint()) {
+            System.out.println("  ✓ Almacén de usuarios guardado (" + milis(inicio) + " ms)");
         }
+        return true;
     }
 
-    public void cargarFavoritos() {
+    /**
+     * Lee favoritos.dat (formato binario o de texto, anteriores al almacén)
+     */
+    private void leerFavoritos(Map<String, List<String>> favoritos) {
         File archivo = new File(ARCHIVO_FAVORITOS);
         if (!archivo.exists()) {
             System.out.println("  ! No hay archivo de favoritos");
             return;
         }
+        if (!ArchivoBinario.esBinario(archivo.toPath())) {
+            leerFavoritosTexto(archivo, favoritos);
+            return;
+        }
+
+        try {
+            ArchivoBinario.Lector lector = new ArchivoBinario.Lector(archivo.toPath(), ArchivoBinario.TIPO_FAVORITOS);
+            while (lector.siguienteRegistro()) {
+                List<String> ids = favoritos.computeIfAbsent(lector.referencia(), u -> new ArrayList<>());
+                int cantidad = lector.entero();
+                for (int i = 0; i < cantidad; i++) {
+                    ids.add(lector.referencia());
+                }
+            }
+            if (lector.isDanado()) {
+                System.err.println("  ✗ favoritos.dat tiene un registro dañado, se cargó hasta ahí");
+            }
+        } catch (IOException e) {
+            System.err.println("  ✗ Error al cargar favoritos: " + e.getMessage());
+        }
+    }
 
+    /**
+     * Lee favoritos.dat en el formato de texto ("username|idCancion" por línea)
+     */
+    private void leerFavoritosTexto(File archivo, Map<String, List<String>> favoritos) {
         try (BufferedReader br = new BufferedReader(new FileReader(archivo))) {
-            UsuarioService usuarioService = UsuarioService.getInstance();
-            CancionService cancionService = CancionService.getInstance();
             String linea;
-            int cargados = 0;
-            int errores = 0;
-
             while ((linea = br.readLine()) != null) {
                 String[] partes = linea.split("\\|");
                 if (partes.length == 2) {
-                    String username = partes[0];
-                    String cancionId = partes[1];
-
-                    Usuario usuario = usuarioService.obtenerUsuario(username);
-                    Cancion cancion = cancionService.obtenerCancion(cancionId);
-
-                    if (usuario != null && cancion != null) {
-                        usuario.getListaFavoritos().add(cancion);
-                        cargados++;
-                    } else {
-                        errores++;
-                    }
+                    favoritos.computeIfAbsent(partes[0], u -> new ArrayList<>()).add(partes[1]);
                 }
             }
-            System.out.println("  ✓ " + cargados + " favoritos cargados" +
-                    (errores > 0 ? " (" + errores + " errores)" : ""));
         } catch (IOException e) {
             System.err.println("  ✗ Error al cargar favoritos: " + e.getMessage());
         }
     }
 
-    /**
-     * ✅ CORREGIDO: Guarda todas las playlists correctamente
-     */
-    public void guardarPlaylists() {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(ARCHIVO_PLAYLISTS))) {
-            PlaylistService playlistService = PlaylistService.getInstance();
-
-            int playlistsGuardadas = 0;
-            int cancionesGuardadas = 0;
-
-            // Iterar sobre el mapa completo
-            Map<String, List<Playlist>> todasPlaylists = playlistService.getPlaylistsPorUsuario();
-
-            System.out.println("  → Guardando playlists de " + todasPlaylists.size() + " usuarios");
-
-            for (Map.Entry<String, List<Playlist>> entry : todasPlaylists.entrySet()) {
-                String username = entry.getKey();
-                List<Playlist> playlists = entry.getValue();
-
-                System.out.println("  → Usuario: " + username + " tiene " + playlists.size() + " playlists");
-
-                for (Playlist playlist : playlists) {
-                    // Línea de playlist
-                    pw.println(String.format("PLAYLIST|%s|%s|%s|%s|%s",
-                            playlist.getId(),
-                            escapar(playlist.getNombre()),
-                            escapar(playlist.getDescripcion()),
-                            playlist.getUsuarioPropietario(),
-                            playlist.getFechaCreacion().toString()
-                    ));
-                    playlistsGuardadas++;
-
-                    // Líneas de canciones
-                    for (Cancion cancion : playlist.getCanciones()) {
-                        pw.println(String.format("CANCION|%s|%s",
-                                playlist.getId(),
-                                cancion.getId()
-                        ));
-                        cancionesGuardadas++;
-                    }
+    private void aplicarFavoritos(DatosUsuarios datos) {
+        UsuarioService usuarioService = UsuarioService.getInstance();
+        CancionService cancionService = CancionService.getInstance();
+
+        if (datos.resumen != null) {
+            // Los favoritos de cada usuario se leen del almacén al usarlos (CargaDiferida)
+            for (Usuario usuario : usuarioService.getUsuarios().values()) {
+                usuario.liberarFavoritos();
+            }
+            Map<String, Integer> conteos = new HashMap<>();
+            for (Map.Entry<String, Integer> conteo : datos.resumen.getConteosFavoritos().entrySet()) {
+                if (cancionService.obtenerCancion(conteo.getKey()) != null) {
+                    conteos.put(conteo.getKey(), conteo.getValue());
                 }
             }
+            PopularidadService.getInstance().reconstruirConteos(conteos);
+            System.out.println("  ✓ Favoritos en el almacén (se cargan al usarlos)");
+            return;
+        }
 
-            System.out.println("  ✓ " + playlistsGuardadas + " playlists y " +
-                    cancionesGuardadas + " canciones guardadas");
-
-        } catch (IOException e) {
-            System.err.println("  ✗ Error al guardar playlists: " + e.getMessage());
-            e.printStackTrace();
+        int cargados = 0;
+        int errores = 0;
+        for (Map.Entry<String, List<String>> entrada : datos.favoritos.entrySet()) {
+            Usuario usuario = usuarioService.obtenerUsuario(entrada.getKey());
+            for (String cancionId : entrada.getValue()) {
+                Cancion cancion = cancionService.obtenerCancion(cancionId);
+                if (usuario != null && cancion != null) {
+                    usuario.getListaFavoritos().add(cancion);
+                    cargados++;
+                } else {
+                    errores++;
+                }
+            }
         }
+        System.out.println("  ✓ " + cargados + " favoritos cargados" +
+                (errores > 0 ? " (" + errores + " errores)" : ""));
+        PopularidadService.getInstance().reconstruir(usuarioService.obtenerTodosLosUsuarios());
     }
 
     /**
-     * ✅ CORREGIDO: Carga playlists y actualiza el contador de IDs
+     * Lee playlists.dat (formato binario o de texto, anteriores al almacén)
      */
-    public void cargarPlaylists() {
+    private void leerPlaylists(List<PlaylistLeida> playlists) {
         File archivo = new File(ARCHIVO_PLAYLISTS);
         if (!archivo.exists()) {
             System.out.println("  ! No hay archivo de playlists");
             return;
         }
+        if (!ArchivoBinario.esBinario(archivo.toPath())) {
+            leerPlaylistsTexto(archivo, playlists);
+            return;
+        }
 
-        try (BufferedReader br = new BufferedReader(new FileReader(archivo))) {
-            PlaylistService playlistService = PlaylistService.getInstance();
-            CancionService cancionService = CancionService.getInstance();
+        try {
+            ArchivoBinario.Lector lector = new ArchivoBinario.Lector(archivo.toPath(), ArchivoBinario.TIPO_PLAYLISTS);
+            while (lector.siguienteRegistro()) {
+                String propietario = lector.referencia();
+                String id = lector.cadena();
+                Playlist playlist = new Playlist(id, lector.cadena(), lector.cadena(), propietario);
+                long segundos = lector.varint();
+                playlist.setFechaCreacion(LocalDateTime.ofEpochSecond(segundos, lector.entero(), ZoneOffset.UTC));
+
+                PlaylistLeida leida = new PlaylistLeida(playlist);
+                int cantidad = lector.entero();
+                for (int i = 0; i < cantidad; i++) {
+                    leida.idsCanciones.add(lector.referencia());
+                }
+                playlists.add(leida);
+            }
+            if (lector.isDanado()) {
+                System.err.println("  ✗ playlists.dat tiene un registro dañado, se cargó hasta ahí");
+            }
+        } catch (IOException e) {
+            System.err.println("  ✗ Error al cargar playlists: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
 
+    /**
+     * Lee playlists.dat en el formato de texto anterior (líneas PLAYLIST|... y CANCION|...)
+     */
+    private void leerPlaylistsTexto(File archivo, List<PlaylistLeida> playlists) {
+        try (BufferedReader br = new BufferedReader(new FileReader(archivo))) {
             String linea;
-            Map<String, Playlist> playlistsMap = new HashMap<>();
-            int playlistsCargadas = 0;
-            int cancionesCargadas = 0;
+            Map<String, PlaylistLeida> playlistsMap = new HashMap<>();
 
             while ((linea = br.readLine()) != null) {
                 String[] partes = linea.split("\\|");
@@ -284,107 +790,188 @@ public class PersistenciaService {
                         }
                     }
 
-                    playlistsMap.put(id, playlist);
-
-                    // ✅ CRÍTICO: Agregar directamente a la lista del usuario
-                    playlistService.obtenerPlaylistsDeUsuario(propietario).add(playlist);
-
-                    // Actualizar contador de IDs
-                    playlistService.actualizarContadorId(id);
-
-                    playlistsCargadas++;
-                    System.out.println("  → Playlist cargada: " + nombre + " (propietario: " + propietario + ")");
+                    PlaylistLeida leida = new PlaylistLeida(playlist);
+                    playlistsMap.put(id, leida);
+                    playlists.add(leida);
 
                 } else if (partes[0].equals("CANCION") && partes.length == 3) {
-                    String playlistId = partes[1];
-                    String cancionId = partes[2];
-
-                    Playlist playlist = playlistsMap.get(playlistId);
-                    Cancion cancion = cancionService.obtenerCancion(cancionId);
-
-                    if (playlist != null && cancion != null) {
-                        playlist.getCanciones().add(cancion);
-                        cancionesCargadas++;
+                    PlaylistLeida leida = playlistsMap.get(partes[1]);
+                    if (leida != null) {
+                        leida.idsCanciones.add(partes[2]);
                     }
                 }
             }
-
-            System.out.println("  ✓ " + playlistsCargadas + " playlists y " +
-                    cancionesCargadas + " canciones cargadas");
-
         } catch (IOException e) {
             System.err.println("  ✗ Error al cargar playlists: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
-    public void guardarConexionesSociales() {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(ARCHIVO_CONEXIONES))) {
-            UsuarioService usuarioService = UsuarioService.getInstance();
+    private void aplicarPlaylists(DatosUsuarios datos) {
+        PlaylistService playlistService = PlaylistService.getInstance();
+        CancionService cancionService = CancionService.getInstance();
 
-            int guardados = 0;
-            Set<String> conexionesGuardadas = new HashSet<>();
+        if (datos.resumen != null) {
+            // Las playlists de cada usuario se leen del almacén al usarlas (CargaDiferida)
+            List<String> ids = datos.resumen.getIdsPlaylists();
+            for (String id : ids) {
+                playlistService.actualizarContadorId(id);
+            }
+            System.out.println("  ✓ " + ids.size() + " playlists en el almacén (se cargan al usarlas)");
+            return;
+        }
 
-            for (Usuario usuario : usuarioService.getUsuarios().values()) {
-                List<Usuario> seguidos = usuarioService.obtenerSeguidos(usuario.getUsername());
+        List<PlaylistLeida> playlists = datos.playlists;
+        int cancionesCargadas = 0;
+        for (PlaylistLeida leida : playlists) {
+            Playlist playlist = leida.playlist;
+            for (String cancionId : leida.idsCanciones) {
+                Cancion cancion = cancionService.obtenerCancion(cancionId);
+                if (cancion != null) {
+                    playlist.getCanciones().add(cancion);
+                    cancionesCargadas++;
+                }
+            }
 
-                for (Usuario seguido : seguidos) {
-                    String clave1 = usuario.getUsername() + "|" + seguido.getUsername();
-                    String clave2 = seguido.getUsername() + "|" + usuario.getUsername();
+            // ✅ CRÍTICO: Agregar directamente a la lista del usuario
+            playlistService.obtenerPlaylistsDeUsuario(playlist.getUsuarioPropietario()).add(playlist);
 
-                    if (!conexionesGuardadas.contains(clave1) && !conexionesGuardadas.contains(clave2)) {
-                        pw.println(clave1);
-                        conexionesGuardadas.add(clave1);
-                        guardados++;
-                    }
+            // Actualizar contador de IDs
+            playlistService.actualizarContadorId(playlist.getId());
+        }
+
+        System.out.println("  ✓ " + playlists.size() + " playlists y " +
+                cancionesCargadas + " canciones cargadas");
+    }
+
+    /**
+     * Obtiene las conexiones del grafo social, cada par una sola vez (el grafo es no dirigido)
+     *
+     * @return Pares {seguidor, seguido}
+     */
+    private List<String[]> conexionesDelGrafo() {
+        UsuarioService usuarioService = UsuarioService.getInstance();
+        List<String[]> conexiones = new ArrayList<>();
+        Set<String> conexionesGuardadas = new HashSet<>();
+
+        for (Usuario usuario : usuarioService.getUsuarios().values()) {
+            List<Usuario> seguidos = usuarioService.obtenerSeguidos(usuario.getUsername());
+
+            for (Usuario seguido : seguidos) {
+                String clave1 = usuario.getUsername() + "|" + seguido.getUsername();
+                String clave2 = seguido.getUsername() + "|" + usuario.getUsername();
+
+                if (!conexionesGuardadas.contains(clave1) && !conexionesGuardadas.contains(clave2)) {
+                    conexiones.add(new String[]{usuario.getUsername(), seguido.getUsername()});
+                    conexionesGuardadas.add(clave1);
                 }
             }
-            System.out.println("  ✓ " + guardados + " conexiones sociales guardadas");
-        } catch (IOException e) {
-            System.err.println("  ✗ Error al guardar conexiones: " + e.getMessage());
         }
+        return conexiones;
     }
 
-    public void cargarConexionesSociales() {
+    /**
+     * Lee conexiones.dat
+     *
+     * @return Pares {seguidor, seguido}
+     */
+    private List<String[]> leerConexionesSociales() {
+        List<String[]> conexiones = new ArrayList<>();
         File archivo = new File(ARCHIVO_CONEXIONES);
         if (!archivo.exists()) {
             System.out.println("  ! No hay archivo de conexiones sociales");
-            return;
+            return conexiones;
         }
 
         try (BufferedReader br = new BufferedReader(new FileReader(archivo))) {
-            UsuarioService usuarioService = UsuarioService.getInstance();
-            usuarioService.reconstruirGrafoSocial();
-
             String linea;
-            int cargados = 0;
-            int errores = 0;
-
             while ((linea = br.readLine()) != null) {
                 String[] partes = linea.split("\\|");
                 if (partes.length == 2) {
-                    String seguidor = partes[0];
-                    String seguido = partes[1];
-
-                    if (usuarioService.existeUsuario(seguidor) && usuarioService.existeUsuario(seguido)) {
-                        if (usuarioService.seguirUsuario(seguidor, seguido)) {
-                            cargados++;
-                        }
-                    } else {
-                        errores++;
-                    }
+                    conexiones.add(partes);
                 }
             }
-            System.out.println("  ✓ " + cargados + " conexiones sociales cargadas" +
-                    (errores > 0 ? " (" + errores + " errores)" : ""));
         } catch (IOException e) {
             System.err.println("  ✗ Error al cargar conexiones: " + e.getMessage());
         }
+        return conexiones;
     }
 
-    private String escapar(String texto) {
-        if (texto == null) return "";
-        return texto.replace("|", "\\|").replace("\n", "\\n");
+    /**
+     * Inserta todas las conexiones en el grafo social de una vez
+     */
+    private void aplicarConexionesSociales(List<String[]> conexiones) {
+        int cargados = UsuarioService.getInstance().restaurarConexiones(conexiones);
+        int omitidas = conexiones.size() - cargados; // usuario inexistente o conexión repetida
+        System.out.println("  ✓ " + cargados + " conexiones sociales cargadas" +
+                (omitidas > 0 ? " (" + omitidas + " omitidas)" : ""));
+    }
+
+    /**
+     * Guarda las cubetas de las tendencias (periodo|ranura|idCancion|conteo)
+     */
+    private void escribirTendencias() {
+        try (PrintWriter pw = abrirTemporal(ARCHIVO_TENDENCIAS)) {
+            int[] guardados = {0};
+            TendenciasService.getInstance().recorrerCubetas((periodo, ranura, id, conteo) -> {
+                pw.println(String.format("%s|%d|%s|%d", periodo.name(), ranura, id, conteo));
+                guardados[0]++;
+            });
+            System.out.println("  ✓ " + guardados[0] + " conteos de tendencias guardados");
+        } catch (IOException e) {
+            System.err.println("  ✗ Error al guardar tendencias: " + e.getMessage());
+            throw new UncheckedIOException(e);
+        }
+        reemplazarConTemporal(ARCHIVO_TENDENCIAS);
+    }
+
+    public void cargarTendencias() {
+        aplicarTendencias(leerTendencias());
+    }
+
+    /**
+     * Lee tendencias.dat
+     *
+     * @return Líneas separadas en {periodo, ranura, idCancion, conteo}
+     */
+    private List<String[]> leerTendencias() {
+        List<String[]> cubetas = new ArrayList<>();
+        File archivo = new File(ARCHIVO_TENDENCIAS);
+        if (!archivo.exists()) {
+            System.out.println("  ! No hay archivo de tendencias");
+            return cubetas;
+        }
+
+        try (BufferedReader br = new BufferedReader(new FileReader(archivo))) {
+            String linea;
+            while ((linea = br.readLine()) != null) {
+                String[] partes = linea.split("\\|");
+                if (partes.length == 4) {
+                    cubetas.add(partes);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("  ✗ Error al cargar tendencias: " + e.getMessage());
+        }
+        return cubetas;
+    }
+
+    private void aplicarTendencias(List<String[]> cubetas) {
+        TendenciasService tendenciasService = TendenciasService.getInstance();
+        int cargados = 0;
+        int errores = 0;
+
+        for (String[] partes : cubetas) {
+            try {
+                tendenciasService.restaurar(PeriodoTendencia.valueOf(partes[0]),
+                        Long.parseLong(partes[1]), partes[2], Integer.parseInt(partes[3]));
+                cargados++;
+            } catch (IllegalArgumentException e) {
+                errores++;
+            }
+        }
+        System.out.println("  ✓ " + cargados + " conteos de tendencias cargados" +
+                (errores > 0 ? " (" + errores + " errores)" : ""));
     }
 
     private String desescapar(String texto) {
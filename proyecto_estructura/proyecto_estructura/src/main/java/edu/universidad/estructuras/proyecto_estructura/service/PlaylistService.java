@@ -3,21 +3,28 @@ package edu.universidad.estructuras.proyecto_estructura.service;
 import edu.universidad.estructuras.proyecto_estructura.model.Cancion;
 import edu.universidad.estructuras.proyecto_estructura.model.Playlist;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Servicio para gestión de playlists de usuarios
  * CORREGIDO: Las listas ahora se guardan y cargan correctamente
+ *
+ * Cada cambio se anota en el diario de cambios de PersistenciaService.
+ * Las playlists de cada usuario se leen del almacén de usuarios la primera vez que se
+ * piden y se pueden descargar si no se usan (ver CargaDiferida).
  */
 public class PlaylistService {
     private static PlaylistService instance;
 
-    // CRÍTICO: Este mapa almacena las playlists en memoria
+    // CRÍTICO: Este mapa almacena las playlists en memoria (solo las de los usuarios cargados)
     private final Map<String, List<Playlist>> playlistsPorUsuario;
     private int contadorId;
 
     private PlaylistService() {
-        this.playlistsPorUsuario = new HashMap<>();
+        this.playlistsPorUsuario = new ConcurrentHashMap<>(); // CargaDiferida descarga usuarios desde otros hilos
         this.contadorId = 1;
     }
 
@@ -30,16 +37,28 @@ public class PlaylistService {
 
     /**
      * ✅ CORREGIDO: Ahora devuelve la lista que está en el mapa
-     * Si no existe, la crea y la agrega al mapa ANTES de devolverla
+     * Si no existe, la carga del almacén (o la crea vacía) y la agrega al mapa ANTES de devolverla
      */
     public List<Playlist> obtenerPlaylistsDeUsuario(String username) {
         if (username == null) {
             return new ArrayList<>();
         }
 
-        // CRÍTICO: putIfAbsent asegura que la lista está en el mapa
-        playlistsPorUsuario.putIfAbsent(username, new ArrayList<>());
-        return playlistsPorUsuario.get(username);
+        CargaDiferida cargaDiferida = PersistenciaService.getInstance().getCargaDiferida();
+        List<Playlist> playlists = playlistsPorUsuario.get(username);
+        if (playlists == null) {
+            // CRÍTICO: la lista queda en el mapa, así los cambios sobre ella se conservan
+            return cargaDiferida.cargarPlaylists(username, playlistsPorUsuario);
+        }
+        cargaDiferida.tocar(username);
+        return playlists;
+    }
+
+    /**
+     * Descarta de memoria las playlists de un usuario (se vuelven a leer en el siguiente acceso)
+     */
+    void liberarPlaylists(String username) {
+        playlistsPorUsuario.remove(username);
     }
 
     /**
@@ -51,6 +70,7 @@ public class PlaylistService {
 
         // Agregar al mapa
         obtenerPlaylistsDeUsuario(username).add(playlist);
+        anotarPlaylist(playlist);
 
         System.out.println("✓ Playlist creada: " + nombre + " (ID: " + id + ")");
         return playlist;
@@ -64,6 +84,7 @@ public class PlaylistService {
         if (playlist != null) {
             playlist.setNombre(nuevoNombre);
             playlist.setDescripcion(nuevaDescripcion);
+            anotarPlaylist(playlist);
             return true;
         }
         return false;
@@ -74,7 +95,11 @@ public class PlaylistService {
      */
     public boolean eliminarPlaylist(String username, String playlistId) {
         List<Playlist> playlists = obtenerPlaylistsDeUsuario(username);
-        return playlists.removeIf(p -> p.getId().equals(playlistId));
+        if (playlists.removeIf(p -> p.getId().equals(playlistId))) {
+            PersistenciaService.getInstance().anotar(TipoRegistro.PLAYLIST_DEL, username, playlistId);
+            return true;
+        }
+        return false;
     }
 
     /**
@@ -88,6 +113,8 @@ public class PlaylistService {
             Playlist duplicada = original.duplicar(nuevoId, nuevoNombre);
 
             obtenerPlaylistsDeUsuario(username).add(duplicada);
+            anotarPlaylist(duplicada);
+            anotarCanciones(duplicada);
             return duplicada;
         }
         return null;
@@ -98,8 +125,9 @@ public class PlaylistService {
      */
     public boolean agregarCancionAPlaylist(String username, String playlistId, Cancion cancion) {
         Playlist playlist = buscarPlaylist(username, playlistId);
-        if (playlist != null) {
-            return playlist.agregarCancion(cancion);
+        if (playlist != null && playlist.agregarCancion(cancion)) {
+            PersistenciaService.getInstance().anotar(TipoRegistro.PLAYLIST_ADD_SONG, username, playlistId, cancion.getId());
+            return true;
         }
         return false;
     }
@@ -109,8 +137,9 @@ public class PlaylistService {
      */
     public boolean eliminarCancionDePlaylist(String username, String playlistId, Cancion cancion) {
         Playlist playlist = buscarPlaylist(username, playlistId);
-        if (playlist != null) {
-            return playlist.eliminarCancion(cancion);
+        if (playlist != null && playlist.eliminarCancion(cancion)) {
+            PersistenciaService.getInstance().anotar(TipoRegistro.PLAYLIST_DEL_SONG, username, playlistId, cancion.getId());
+            return true;
         }
         return false;
     }
@@ -119,13 +148,64 @@ public class PlaylistService {
      * Mueve una canción a otra posición en la playlist
      */
     public boolean moverCancion(String username, String playlistId, int indiceActual, int indiceNuevo) {
+        Playlist playlist = buscarPlaylist(username, playlistId);
+        if (playlist != null && playlist.moverCancion(indiceActual, indiceNuevo)) {
+            anotarCanciones(playlist);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Reemplaza las canciones de una playlist (por ejemplo, al ordenarla)
+     */
+    public boolean reemplazarCanciones(String username, String playlistId, List<Cancion> canciones) {
         Playlist playlist = buscarPlaylist(username, playlistId);
         if (playlist != null) {
-            return playlist.moverCancion(indiceActual, indiceNuevo);
+            List<Cancion> nuevas = new ArrayList<>(canciones);
+            playlist.getCanciones().clear();
+            playlist.getCanciones().addAll(nuevas);
+            anotarCanciones(playlist);
+            return true;
         }
         return false;
     }
 
+    /**
+     * Reaplica una playlist del diario de cambios: la crea con su ID si no existe
+     * o actualiza su nombre y descripción
+     */
+    void restaurarPlaylist(String username, String playlistId, String nombre, String descripcion, String fechaCreacion) {
+        Playlist playlist = buscarPlaylist(username, playlistId);
+        if (playlist == null) {
+            playlist = new Playlist(playlistId, nombre, descripcion, username);
+            try {
+                playlist.setFechaCreacion(LocalDateTime.parse(fechaCreacion));
+            } catch (DateTimeParseException e) {
+                // Se conserva la fecha actual
+            }
+            obtenerPlaylistsDeUsuario(username).add(playlist);
+            actualizarContadorId(playlistId);
+        } else {
+            playlist.setNombre(nombre);
+            playlist.setDescripcion(descripcion);
+        }
+    }
+
+    private void anotarPlaylist(Playlist playlist) {
+        PersistenciaService.getInstance().anotar(TipoRegistro.PLAYLIST_UPSERT, playlist.getUsuarioPropietario(),
+                playlist.getId(), playlist.getNombre(), playlist.getDescripcion(), playlist.getFechaCreacion().toString());
+    }
+
+    private void anotarCanciones(Playlist playlist) {
+        StringJoiner ids = new StringJoiner(",");
+        for (Cancion cancion : playlist.getCanciones()) {
+            ids.add(cancion.getId());
+        }
+        PersistenciaService.getInstance().anotar(TipoRegistro.PLAYLIST_SONGS, playlist.getUsuarioPropietario(),
+                playlist.getId(), ids.toString());
+    }
+
     /**
      * Busca una playlist por ID
      */
@@ -145,23 +225,47 @@ public class PlaylistService {
     }
 
     /**
-     * Obtiene todos los usuarios que tienen playlists
+     * Obtiene todos los usuarios que tienen playlists (cargadas o guardadas)
      */
     public Set<String> obtenerTodosLosUsuarios() {
-        return playlistsPorUsuario.keySet();
+        Set<String> usuarios = new HashSet<>(playlistsPorUsuario.keySet());
+        AlmacenUsuarios almacen = PersistenciaService.getInstance().getCargaDiferida().getAlmacen();
+        if (almacen != null) {
+            usuarios.addAll(almacen.getUsuariosConPlaylists());
+        }
+        return usuarios;
     }
 
     /**
      * Limpia todas las playlists de un usuario
      */
     public void limpiarPlaylistsDeUsuario(String username) {
-        playlistsPorUsuario.remove(username);
+        List<Playlist> playlists = obtenerPlaylistsDeUsuario(username);
+        for (Playlist playlist : playlists) {
+            PersistenciaService.getInstance().anotar(TipoRegistro.PLAYLIST_DEL, username, playlist.getId());
+        }
+        playlists.clear();
     }
 
     /**
-     * Limpia todas las playlists del sistema
+     * Limpia todas las playlists del sistema (las de usuarios sin cargar no se leen:
+     * basta con sus IDs)
      */
     public void limpiarTodo() {
+        PersistenciaService persistencia = PersistenciaService.getInstance();
+        AlmacenUsuarios almacen = persistencia.getCargaDiferida().getAlmacen();
+        for (String username : obtenerTodosLosUsuarios()) {
+            List<Playlist> cargadas = playlistsPorUsuario.get(username);
+            if (cargadas != null) {
+                for (Playlist playlist : cargadas) {
+                    persistencia.anotar(TipoRegistro.PLAYLIST_DEL, username, playlist.getId());
+                }
+            } else if (almacen != null) {
+                for (String id : almacen.leerIdsPlaylists(username)) {
+                    persistencia.anotar(TipoRegistro.PLAYLIST_DEL, username, id);
+                }
+            }
+        }
         playlistsPorUsuario.clear();
         contadorId = 1;
     }
@@ -170,13 +274,18 @@ public class PlaylistService {
      * Obtiene el número total de playlists en el sistema
      */
     public int getCantidadTotalPlaylists() {
+        AlmacenUsuarios almacen = PersistenciaService.getInstance().getCargaDiferida().getAlmacen();
+        if (almacen != null) {
+            // Cada cambio llega al almacén al anotarse: su conteo ya incluye las cargadas
+            return almacen.getCantidadTotalPlaylists();
+        }
         return playlistsPorUsuario.values().stream()
                 .mapToInt(List::size)
                 .sum();
     }
 
     /**
-     * ✅ NUEVO: Obtiene el mapa completo (para depuración)
+     * ✅ NUEVO: Obtiene el mapa completo (para depuración; solo los usuarios cargados)
      */
     public Map<String, List<Playlist>> getPlaylistsPorUsuario() {
         return playlistsPorUsuario;
@@ -0,0 +1,268 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import edu.universidad.estructuras.proyecto_estructura.model.Cancion;
+import edu.universidad.estructuras.proyecto_estructura.model.TablaAlias;
+import edu.universidad.estructuras.proyecto_estructura.model.Usuario;
+
+import java.util.*;
+
+/**
+ * Servicio de popularidad de las canciones (cuántos usuarios tienen cada canción en favoritos).
+ *
+ * Los conteos se mantienen al agregar o eliminar favoritos, así que no hay que recorrer
+ * las listas de todos los usuarios para saber qué es popular:
+ * - HashMap id -> conteo para consultar la popularidad de una canción en O(1)
+ * - TreeSet ordenado por conteo (mayor primero) y, a igual conteo, por id: el top K
+ *   se lee recorriendo sus primeros K elementos
+ * - TablaAlias sobre los conteos para muestrear canciones según su popularidad en O(1);
+ *   se reconstruye solo al muestrear después de un cambio
+ *
+ * Solo guarda las canciones con al menos un favorito. Se suscribe a los cambios del
+ * catálogo para olvidar las canciones eliminadas.
+ *
+ */
+public class PopularidadService {
+    private final HashMap<String, Integer> conteos;
+    private final TreeSet<Entrada> ranking;
+    private TablaAlias tablaAlias;  // null si hubo cambios desde la última construcción
+    private String[] idsTablaAlias;
+
+    /**
+     * Canción del ranking con su conteo (inmutable: al cambiar el conteo se reemplaza)
+     */
+    private static final class Entrada implements Comparable<Entrada> {
+        private final String id;
+        private final int conteo;
+
+        private Entrada(String id, int conteo) {
+            this.id = id;
+            this.conteo = conteo;
+        }
+
+        @Override
+        public int compareTo(Entrada otra) {
+            int porConteo = Integer.compare(otra.conteo, conteo);
+            return porConteo != 0 ? porConteo : id.compareTo(otra.id);
+        }
+    }
+
+    /**
+     * Constructor privado para patrón Singleton
+     */
+    private PopularidadService() {
+        this.conteos = new HashMap<>();
+        this.ranking = new TreeSet<>();
+        CancionService.getInstance().getBusEventos().suscribir("popularidad", this::aplicarCambios);
+    }
+
+    private static class Holder {
+        private static final PopularidadService INSTANCE = new PopularidadService();
+    }
+
+    /**
+     * Obtiene la instancia única del servicio (Singleton)
+     *
+     * @return Instancia de PopularidadService
+     */
+    public static PopularidadService getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Registra que un usuario agregó una canción a favoritos
+     *
+     * @param cancion Canción agregada
+     */
+    public synchronized void registrarFavorito(Cancion cancion) {
+        if (cancion != null && cancion.getId() != null) {
+            cambiarConteo(cancion.getId(), 1);
+        }
+    }
+
+    /**
+     * Registra que un usuario eliminó una canción de favoritos
+     *
+     * @param cancion Canción eliminada
+     */
+    public synchronized void retirarFavorito(Cancion cancion) {
+        if (cancion != null && cancion.getId() != null) {
+            cambiarConteo(cancion.getId(), -1);
+        }
+    }
+
+    /**
+     * Registra que un usuario eliminó todas estas canciones de favoritos
+     *
+     * @param canciones Canciones eliminadas
+     */
+    public synchronized void retirarFavoritos(Collection<Cancion> canciones) {
+        for (Cancion cancion : canciones) {
+            retirarFavorito(cancion);
+        }
+    }
+
+    /**
+     * Recalcula todos los conteos a partir de los favoritos de los usuarios (al cargar los datos)
+     *
+     * @param usuarios Usuarios del sistema
+     */
+    public synchronized void reconstruir(Collection<Usuario> usuarios) {
+        Map<String, Integer> nuevos = new HashMap<>();
+        for (Usuario usuario : usuarios) {
+            for (Cancion cancion : usuario.getListaFavoritos()) {
+                nuevos.merge(cancion.getId(), 1, Integer::sum);
+            }
+        }
+        reconstruirConteos(nuevos);
+    }
+
+    /**
+     * Recalcula todo a partir de conteos ya hechos (al cargar los datos sin leer los
+     * favoritos de cada usuario)
+     *
+     * @param nuevos ID de canción -> cantidad de usuarios que la tienen en favoritos
+     */
+    public synchronized void reconstruirConteos(Map<String, Integer> nuevos) {
+        tablaAlias = null;
+        conteos.clear();
+        ranking.clear();
+        conteos.putAll(nuevos);
+        for (Map.Entry<String, Integer> entrada : conteos.entrySet()) {
+            ranking.add(new Entrada(entrada.getKey(), entrada.getValue()));
+        }
+        System.out.println("⭐ Popularidad calculada: " + conteos.size() + " canciones en favoritos");
+    }
+
+    private void cambiarConteo(String id, int delta) {
+        tablaAlias = null;
+        Integer anterior = conteos.get(id);
+        int actual = (anterior != null ? anterior : 0) + delta;
+        if (anterior != null) {
+            ranking.remove(new Entrada(id, anterior));
+        }
+        if (actual > 0) {
+            conteos.put(id, actual);
+            ranking.add(new Entrada(id, actual));
+        } else {
+            conteos.remove(id);
+        }
+    }
+
+    /**
+     * Aplica los cambios del catálogo: una canción eliminada deja de contar como popular
+     */
+    private synchronized void aplicarCambios(List<EventoCatalogo> lote) {
+        tablaAlias = null;
+        for (EventoCatalogo evento : lote) {
+            if (evento.getTipo() == EventoCatalogo.Tipo.VACIADO) {
+                conteos.clear();
+                ranking.clear();
+            } else if (evento.getTipo() == EventoCatalogo.Tipo.ELIMINADA) {
+                Integer anterior = conteos.remove(evento.getAntes().getId());
+                if (anterior != null) {
+                    ranking.remove(new Entrada(evento.getAntes().getId(), anterior));
+                }
+            }
+        }
+    }
+
+    /**
+     * Obtiene cuántos usuarios tienen una canción en favoritos
+     *
+     * @param cancion Canción a consultar
+     * @return Cantidad de usuarios (0 si nadie la tiene)
+     */
+    public synchronized int getPopularidad(Cancion cancion) {
+        if (cancion == null || cancion.getId() == null) {
+            return 0;
+        }
+        return conteos.getOrDefault(cancion.getId(), 0);
+    }
+
+    /**
+     * Obtiene las canciones más populares. Si hay menos de k canciones en favoritos,
+     * completa con otras canciones del catálogo (popularidad 0).
+     *
+     * @param k Cantidad de canciones
+     * @return Hasta k canciones, de mayor a menor popularidad
+     */
+    public List<Cancion> obtenerTopPopulares(int k) {
+        CancionService cancionService = CancionService.getInstance();
+        List<Cancion> top = new ArrayList<>(k);
+        Set<String> incluidas = new HashSet<>();
+
+        synchronized (this) {
+            Iterator<Entrada> it = ranking.iterator();
+            while (top.size() < k && it.hasNext()) {
+                Cancion cancion = cancionService.obtenerCancion(it.next().id);
+                if (cancion != null) {
+                    top.add(cancion);
+                    incluidas.add(cancion.getId());
+                }
+            }
+        }
+
+        if (top.size() < k) {
+            for (Cancion cancion : cancionService.obtenerVistaCanciones()) {
+                if (top.size() >= k) {
+                    break;
+                }
+                if (!incluidas.contains(cancion.getId())) {
+                    top.add(cancion);
+                }
+            }
+        }
+        return top;
+    }
+
+    /**
+     * Muestrea una canción con probabilidad proporcional a su cantidad de favoritos
+     *
+     * @param random Generador de números aleatorios
+     * @return ID de la canción, o null si ninguna canción está en favoritos
+     */
+    public synchronized String muestrearPorPopularidad(Random random) {
+        TablaAlias tabla = obtenerTablaAlias();
+        return tabla != null ? idsTablaAlias[tabla.muestrear(random)] : null;
+    }
+
+    /**
+     * Obtiene la suma de los conteos de todas las canciones
+     *
+     * @return Cantidad total de favoritos
+     */
+    public synchronized long getTotalFavoritos() {
+        TablaAlias tabla = obtenerTablaAlias();
+        return tabla != null ? tabla.getPesoTotal() : 0;
+    }
+
+    private TablaAlias obtenerTablaAlias() {
+        if (tablaAlias == null && !conteos.isEmpty()) {
+            String[] ids = new String[conteos.size()];
+            int[] pesos = new int[conteos.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> entrada : conteos.entrySet()) {
+                ids[i] = entrada.getKey();
+                pesos[i++] = entrada.getValue();
+            }
+            idsTablaAlias = ids;
+            tablaAlias = new TablaAlias(pesos);
+        }
+        return tablaAlias;
+    }
+
+    /**
+     * Obtiene la cantidad de canciones con al menos un favorito
+     *
+     * @return Cantidad de canciones
+     */
+    public synchronized int getCantidadCanciones() {
+        return conteos.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "PopularidadService[canciones=" + conteos.size() +
+                ", top=" + (ranking.isEmpty() ? "-" : ranking.first().id + " (" + ranking.first().conteo + ")") + "]";
+    }
+}
@@ -0,0 +1,135 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Registro del diario de cambios: un tipo y sus campos.
+ *
+ * Se escribe como una línea "crc|TIPO|campo|campo..." donde crc es el CRC32 (hexadecimal)
+ * del resto de la línea. Los campos escapan '%', '|' y los saltos de línea, así que una
+ * línea nunca se parte; una línea con el CRC incorrecto es la cola de una escritura
+ * interrumpida y se descarta.
+ *
+ */
+public class RegistroDiario {
+    private final TipoRegistro tipo;
+    private final String[] campos;
+
+    /**
+     * Constructor del registro
+     *
+     * @param tipo Tipo de registro
+     * @param campos Campos (tantos como indica el tipo; null se guarda como vacío)
+     */
+    public RegistroDiario(TipoRegistro tipo, String... campos) {
+        if (!tipo.admiteCampos(campos.length)) {
+            throw new IllegalArgumentException(tipo + " necesita " + tipo.getCantidadCampos() + " campos");
+        }
+        this.tipo = tipo;
+        this.campos = campos.clone();
+    }
+
+    public TipoRegistro getTipo() {
+        return tipo;
+    }
+
+    public String getCampo(int indice) {
+        return campos[indice] != null ? campos[indice] : "";
+    }
+
+    /**
+     * Cantidad de campos del registro (varía en los tipos por grupos)
+     */
+    public int getCantidadCampos() {
+        return campos.length;
+    }
+
+    /**
+     * Convierte el registro en una línea del diario (sin el salto de línea)
+     *
+     * @return Línea con su CRC
+     */
+    String codificar() {
+        StringBuilder sb = new StringBuilder(tipo.name());
+        for (int i = 0; i < campos.length; i++) {
+            sb.append('|');
+            escapar(getCampo(i), sb);
+        }
+        String cuerpo = sb.toString();
+        return Long.toHexString(crc(cuerpo)) + "|" + cuerpo;
+    }
+
+    /**
+     * Lee un registro de una línea del diario
+     *
+     * @param linea Línea leída
+     * @return Registro, o null si la línea está incompleta o dañada
+     */
+    static RegistroDiario decodificar(String linea) {
+        int separador = linea.indexOf('|');
+        if (separador <= 0) {
+            return null;
+        }
+        String cuerpo = linea.substring(separador + 1);
+        try {
+            if (Long.parseLong(linea.substring(0, separador), 16) != crc(cuerpo)) {
+                return null;
+            }
+            String[] partes = cuerpo.split("\\|", -1);
+            TipoRegistro tipo = TipoRegistro.valueOf(partes[0]);
+            if (!tipo.admiteCampos(partes.length - 1)) {
+                return null;
+            }
+            String[] campos = new String[partes.length - 1];
+            for (int i = 0; i < campos.length; i++) {
+                campos[i] = desescapar(partes[i + 1]);
+            }
+            return new RegistroDiario(tipo, campos);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static long crc(String texto) {
+        CRC32 crc = new CRC32();
+        crc.update(texto.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    private static void escapar(String texto, StringBuilder sb) {
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '%' -> sb.append("%25");
+                case '|' -> sb.append("%7C");
+                case '\n' -> sb.append("%0A");
+                case '\r' -> sb.append("%0D");
+                default -> sb.append(c);
+            }
+        }
+    }
+
+    private static String desescapar(String texto) {
+        if (texto.indexOf('%') < 0) {
+            return texto;
+        }
+        StringBuilder sb = new StringBuilder(texto.length());
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == '%' && i + 2 < texto.length()) {
+                sb.append((char) Integer.parseInt(texto.substring(i + 1, i + 3), 16));
+                i += 2;
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return tipo + Arrays.toString(campos);
+    }
+}
@@ -0,0 +1,66 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+/**
+ * Resumen de una importación masiva de canciones: filas leídas, agregadas, omitidas
+ * por duplicadas y con error, junto con el tiempo total y el rendimiento en filas por segundo.
+ *
+ */
+public class ResultadoImportacion {
+    private final int filasLeidas;
+    private final int cargadas;
+    private final int omitidas;
+    private final int errores;
+    private final long duracionNanos;
+
+    /**
+     * Constructor del resultado
+     *
+     * @param filasLeidas Filas de datos leídas (sin comentarios ni líneas vacías)
+     * @param cargadas Canciones agregadas al catálogo
+     * @param omitidas Filas omitidas por título duplicado
+     * @param errores Filas con error de formato
+     * @param duracionNanos Duración total de la importación en nanosegundos
+     */
+    ResultadoImportacion(int filasLeidas, int cargadas, int omitidas, int errores, long duracionNanos) {
+        this.filasLeidas = filasLeidas;
+        this.cargadas = cargadas;
+        this.omitidas = omitidas;
+        this.errores = errores;
+        this.duracionNanos = duracionNanos;
+    }
+
+    public int getFilasLeidas() {
+        return filasLeidas;
+    }
+
+    public int getCargadas() {
+        return cargadas;
+    }
+
+    public int getOmitidas() {
+        return omitidas;
+    }
+
+    public int getErrores() {
+        return errores;
+    }
+
+    public long getDuracionMilis() {
+        return duracionNanos / 1_000_000;
+    }
+
+    /**
+     * Obtiene el rendimiento de la importación
+     *
+     * @return Filas procesadas por segundo
+     */
+    public double getFilasPorSegundo() {
+        return duracionNanos > 0 ? filasLeidas * 1_000_000_000.0 / duracionNanos : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ResultadoImportacion[filas=%d, cargadas=%d, omitidas=%d, errores=%d, %d ms, %.0f filas/s]",
+                filasLeidas, cargadas, omitidas, errores, getDuracionMilis(), getFilasPorSegundo());
+    }
+}
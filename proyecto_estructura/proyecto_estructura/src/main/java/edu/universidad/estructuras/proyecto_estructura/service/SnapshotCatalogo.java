@@ -0,0 +1,173 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import edu.universidad.estructuras.proyecto_estructura.model.Cancion;
+import edu.universidad.estructuras.proyecto_estructura.model.IndiceInvertido;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Vista consistente del catálogo en una versión fija, para cómputos largos en segundo plano
+ * (radio, descubrimiento semanal). Las consultas no toman locks y las escrituras que ocurran
+ * mientras el snapshot está abierto no lo afectan ni esperan por él.
+ *
+ * Debe cerrarse al terminar (try-with-resources) para que la versión pueda liberarse.
+ *
+ * El catálogo y sus ordinales se comparten con el catálogo vivo hasta la siguiente
+ * escritura, que los copia antes de modificarlos. Los objetos Cancion también se comparten
+ * (los usan favoritos y playlists): antes de editar una, CancionService deja en el snapshot
+ * una copia con sus valores anteriores. Una Cancion obtenida del snapshot antes de esa
+ * edición es el objeto vivo y sí la refleja.
+ *
+ */
+public class SnapshotCatalogo implements AutoCloseable {
+    private final VersionCatalogo version;
+    private final ConcurrentHashMap<String, Cancion> canciones; // solo cambia al congelar una canción
+    private final TablaOrdinales cancionesPorOrdinal;           // ordinal -> canción (para el ID)
+    private final Consumer<SnapshotCatalogo> alCerrar;
+    private final AtomicBoolean cerrado;
+
+    SnapshotCatalogo(VersionCatalogo version, ConcurrentHashMap<String, Cancion> canciones,
+                     TablaOrdinales cancionesPorOrdinal, Consumer<SnapshotCatalogo> alCerrar) {
+        this.version = version;
+        this.canciones = canciones;
+        this.cancionesPorOrdinal = cancionesPorOrdinal;
+        this.alCerrar = alCerrar;
+        this.cerrado = new AtomicBoolean(false);
+    }
+
+    /**
+     * Obtiene el número de versión del catálogo que ve este snapshot
+     *
+     * @return Número de versión
+     */
+    public long getVersion() {
+        return version.getNumero();
+    }
+
+    VersionCatalogo getVersionCatalogo() {
+        return version;
+    }
+
+    /**
+     * Indica si el snapshot usa este mapa del catálogo (entonces no se puede modificar)
+     */
+    boolean comparte(Map<String, Cancion> catalogo) {
+        return canciones == catalogo;
+    }
+
+    /**
+     * Reemplaza una canción que se va a editar por la copia de sus valores anteriores,
+     * si el snapshot todavía ve el objeto vivo
+     *
+     * @param viva Canción del catálogo vivo
+     * @param copia Copia con los valores anteriores a la edición
+     */
+    void congelar(Cancion viva, Cancion copia) {
+        // Por identidad: equals() compara IDs y la copia de una edición anterior es igual
+        canciones.computeIfPresent(viva.getId(), (id, actual) -> actual == viva ? copia : actual);
+    }
+
+    /**
+     * Devuelve la canción tal como la ve este snapshot (la copia congelada si fue editada)
+     */
+    private Cancion enVersion(Cancion cancion) {
+        return cancion == null ? null : canciones.getOrDefault(cancion.getId(), cancion);
+    }
+
+    private List<Cancion> enVersion(List<Cancion> lista) {
+        List<Cancion> resultado = new ArrayList<>(lista.size());
+        for (Cancion cancion : lista) {
+            resultado.add(enVersion(cancion));
+        }
+        return resultado;
+    }
+
+    /**
+     * Obtiene una canción por su ID en esta versión
+     *
+     * @param id ID de la canción
+     * @return Canción, o null si no existía en esta versión
+     */
+    public Cancion obtenerCancion(String id) {
+        return canciones.get(id);
+    }
+
+    /**
+     * Obtiene las canciones de esta versión
+     *
+     * @return Colección no modificable
+     */
+    public Collection<Cancion> getCanciones() {
+        return Collections.unmodifiableCollection(canciones.values());
+    }
+
+    public int getCantidadCanciones() {
+        return canciones.size();
+    }
+
+    /**
+     * Genera una radio (Dijkstra) sobre el grafo de esta versión
+     *
+     * @param cancionInicial Canción semilla
+     * @param cantidad Cantidad de canciones
+     * @return Canciones similares
+     */
+    public List<Cancion> generarRadio(Cancion cancionInicial, int cantidad) {
+        return enVersion(version.getGrafoSimilitud().generarRadio(cancionInicial, cantidad));
+    }
+
+    /**
+     * Obtiene canciones similares sobre el grafo de esta versión
+     *
+     * @param cancion Canción de referencia
+     * @param limite Número máximo de resultados
+     * @return Canciones similares ordenadas por similitud
+     */
+    public List<Cancion> obtenerCancionesSimilares(Cancion cancion, int limite) {
+        return enVersion(version.getGrafoSimilitud().encontrarCancionesSimilares(cancion, limite));
+    }
+
+    public List<String> autocompletarTitulos(String prefijo) {
+        return version.getTrieTitulos().autocompletarConLimite(prefijo, 10);
+    }
+
+    public List<String> autocompletarArtistas(String prefijo) {
+        return version.getTrieArtistas().autocompletarConLimite(prefijo, 10);
+    }
+
+    /**
+     * Búsqueda por relevancia sobre el índice de texto de esta versión
+     *
+     * @param consulta Texto a buscar
+     * @param limite Número máximo de resultados
+     * @return Canciones ordenadas de mayor a menor relevancia
+     */
+    public List<Cancion> buscarRelevantes(String consulta, int limite) {
+        List<Cancion> resultados = new ArrayList<>();
+        for (IndiceInvertido.Resultado resultado : version.getIndiceTexto().buscar(consulta, limite)) {
+            Cancion cancion = cancionesPorOrdinal.get(resultado.getOrdinal());
+            if (cancion != null) {
+                resultados.add(enVersion(cancion));
+            }
+        }
+        return resultados;
+    }
+
+    /**
+     * Libera la versión. Llamadas repetidas no tienen efecto.
+     */
+    @Override
+    public void close() {
+        if (cerrado.compareAndSet(false, true)) {
+            alCerrar.accept(this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SnapshotCatalogo[version=%d, canciones=%d]", getVersion(), canciones.size());
+    }
+}
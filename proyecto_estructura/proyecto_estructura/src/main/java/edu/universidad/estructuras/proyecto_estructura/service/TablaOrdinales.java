@@ -0,0 +1,88 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import edu.universidad.estructuras.proyecto_estructura.model.Cancion;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Tabla ordinal -> canción del catálogo (null si la canción fue eliminada).
+ *
+ * Las lecturas no toman locks: el arreglo y el tamaño se publican como volatile, y al
+ * crecer se publica primero el arreglo nuevo y después el tamaño, así que quien ve un
+ * ordinal dentro del tamaño lo ve en el arreglo. Las escrituras deben estar serializadas
+ * (CancionService las hace con el lock del catálogo).
+ *
+ */
+final class TablaOrdinales {
+    private volatile AtomicReferenceArray<Cancion> canciones;
+    private volatile int tamano;
+
+    TablaOrdinales() {
+        this(new AtomicReferenceArray<>(16), 0);
+    }
+
+    private TablaOrdinales(AtomicReferenceArray<Cancion> canciones, int tamano) {
+        this.canciones = canciones;
+        this.tamano = tamano;
+    }
+
+    /**
+     * Obtiene la canción de un ordinal
+     *
+     * @param ordinal Ordinal
+     * @return Canción, o null si el ordinal no existe o fue eliminado
+     */
+    Cancion get(int ordinal) {
+        if (ordinal < 0 || ordinal >= tamano) {
+            return null;
+        }
+        return canciones.get(ordinal);
+    }
+
+    /**
+     * Cantidad de ordinales asignados (incluidos los de canciones eliminadas)
+     */
+    int size() {
+        return tamano;
+    }
+
+    /**
+     * Asigna el siguiente ordinal a una canción
+     *
+     * @return Ordinal asignado
+     */
+    int agregar(Cancion cancion) {
+        int ordinal = tamano;
+        AtomicReferenceArray<Cancion> actual = canciones;
+        if (ordinal == actual.length()) {
+            AtomicReferenceArray<Cancion> mayor = new AtomicReferenceArray<>(actual.length() * 2);
+            for (int i = 0; i < ordinal; i++) {
+                mayor.lazySet(i, actual.get(i));
+            }
+            canciones = mayor;
+            actual = mayor;
+        }
+        actual.set(ordinal, cancion);
+        tamano = ordinal + 1;
+        return ordinal;
+    }
+
+    /**
+     * Reemplaza la canción de un ordinal existente (null al eliminarla)
+     */
+    void set(int ordinal, Cancion cancion) {
+        canciones.set(ordinal, cancion);
+    }
+
+    /**
+     * Copia la tabla (para que un snapshot conserve la anterior)
+     */
+    TablaOrdinales copiar() {
+        int cantidad = tamano;
+        AtomicReferenceArray<Cancion> copia = new AtomicReferenceArray<>(Math.max(16, canciones.length()));
+        for (int i = 0; i < cantidad; i++) {
+            copia.lazySet(i, canciones.get(i));
+        }
+        return new TablaOrdinales(copia, cantidad);
+    }
+}
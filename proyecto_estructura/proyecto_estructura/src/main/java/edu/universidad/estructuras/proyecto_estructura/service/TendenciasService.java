@@ -0,0 +1,183 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import edu.universidad.estructuras.proyecto_estructura.model.Cancion;
+import edu.universidad.estructuras.proyecto_estructura.model.ContadorVentana;
+
+import java.util.*;
+
+/**
+ * Servicio de tendencias: canciones con más actividad (favoritos agregados y
+ * reproducciones) en el último día, semana, mes o desde siempre.
+ *
+ * Cada evento se suma al momento de ocurrir en un ContadorVentana por periodo
+ * (anillo de cubetas de tamaño fijo), así que las tendencias de cualquier periodo
+ * se leen en O(K) sin recorrer el historial. Las cubetas se guardan con los demás
+ * datos en PersistenciaService.
+ *
+ */
+public class TendenciasService {
+    static final int PESO_FAVORITO = 2;
+    static final int PESO_REPRODUCCION = 1;
+
+    private final EnumMap<PeriodoTendencia, ContadorVentana> contadores;
+
+    /**
+     * Constructor privado para patrón Singleton
+     */
+    private TendenciasService() {
+        this.contadores = new EnumMap<>(PeriodoTendencia.class);
+        for (PeriodoTendencia periodo : PeriodoTendencia.values()) {
+            contadores.put(periodo, new ContadorVentana(periodo.getCantidadCubetas(), periodo.getDuracionCubeta()));
+        }
+        CancionService.getInstance().getBusEventos().suscribir("tendencias", this::aplicarCambios);
+    }
+
+    private static class Holder {
+        private static final TendenciasService INSTANCE = new TendenciasService();
+    }
+
+    /**
+     * Obtiene la instancia única del servicio (Singleton)
+     *
+     * @return Instancia de TendenciasService
+     */
+    public static TendenciasService getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Registra que un usuario agregó una canción a favoritos
+     *
+     * @param cancion Canción agregada
+     */
+    public void registrarFavorito(Cancion cancion) {
+        registrar(cancion, PESO_FAVORITO, System.currentTimeMillis());
+    }
+
+    /**
+     * Registra una reproducción de una canción
+     *
+     * @param cancion Canción reproducida
+     */
+    public void registrarReproduccion(Cancion cancion) {
+        registrar(cancion, PESO_REPRODUCCION, System.currentTimeMillis());
+    }
+
+    /**
+     * Registra un evento con peso en todos los periodos
+     *
+     * @param cancion Canción del evento
+     * @param peso Peso del evento
+     * @param instante Momento del evento (milisegundos desde la época)
+     */
+    public synchronized void registrar(Cancion cancion, int peso, long instante) {
+        if (cancion == null || cancion.getId() == null) {
+            return;
+        }
+        for (ContadorVentana contador : contadores.values()) {
+            contador.registrar(cancion.getId(), peso, instante);
+        }
+    }
+
+    /**
+     * Obtiene las canciones en tendencia de un periodo
+     *
+     * @param periodo Periodo a consultar
+     * @param k Cantidad de canciones
+     * @return Hasta k canciones, de mayor a menor actividad en el periodo
+     */
+    public List<Cancion> obtenerTendencias(PeriodoTendencia periodo, int k) {
+        List<String> ids;
+        synchronized (this) {
+            ContadorVentana contador = contadores.get(periodo);
+            contador.avanzar(System.currentTimeMillis());
+            // Algunas canciones del ranking pueden haberse eliminado: pedir un margen
+            ids = contador.obtenerTop(k * 2);
+        }
+
+        CancionService cancionService = CancionService.getInstance();
+        List<Cancion> tendencias = new ArrayList<>(k);
+        for (String id : ids) {
+            if (tendencias.size() >= k) {
+                break;
+            }
+            Cancion cancion = cancionService.obtenerCancion(id);
+            if (cancion != null) {
+                tendencias.add(cancion);
+            }
+        }
+        return tendencias;
+    }
+
+    /**
+     * Obtiene la actividad de una canción en un periodo
+     *
+     * @param periodo Periodo a consultar
+     * @param cancion Canción a consultar
+     * @return Suma de los pesos de sus eventos en el periodo
+     */
+    public synchronized int getActividad(PeriodoTendencia periodo, Cancion cancion) {
+        if (cancion == null || cancion.getId() == null) {
+            return 0;
+        }
+        ContadorVentana contador = contadores.get(periodo);
+        contador.avanzar(System.currentTimeMillis());
+        return contador.getTotal(cancion.getId());
+    }
+
+    /**
+     * Recorre las cubetas de todos los periodos (para guardarlas)
+     *
+     * @param visitante Recibe periodo, ranura, id de canción y conteo
+     */
+    synchronized void recorrerCubetas(VisitanteTendencia visitante) {
+        for (Map.Entry<PeriodoTendencia, ContadorVentana> entrada : contadores.entrySet()) {
+            PeriodoTendencia periodo = entrada.getKey();
+            entrada.getValue().recorrerCubetas((ranura, id, conteo) -> visitante.visitar(periodo, ranura, id, conteo));
+        }
+    }
+
+    /**
+     * Restaura el conteo guardado de una cubeta
+     */
+    synchronized void restaurar(PeriodoTendencia periodo, long ranura, String id, int conteo) {
+        contadores.get(periodo).registrarEnRanura(id, conteo, ranura);
+    }
+
+    /**
+     * Recibe el conteo de una canción en una cubeta de un periodo
+     */
+    @FunctionalInterface
+    interface VisitanteTendencia {
+        void visitar(PeriodoTendencia periodo, long ranura, String id, int conteo);
+    }
+
+    /**
+     * Aplica los cambios del catálogo: una canción eliminada sale de las tendencias
+     */
+    private synchronized void aplicarCambios(List<EventoCatalogo> lote) {
+        for (EventoCatalogo evento : lote) {
+            if (evento.getTipo() == EventoCatalogo.Tipo.VACIADO) {
+                for (ContadorVentana contador : contadores.values()) {
+                    contador.limpiar();
+                }
+            } else if (evento.getTipo() == EventoCatalogo.Tipo.ELIMINADA) {
+                for (ContadorVentana contador : contadores.values()) {
+                    contador.eliminar(evento.getAntes().getId());
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder("TendenciasService[");
+        for (Map.Entry<PeriodoTendencia, ContadorVentana> entrada : contadores.entrySet()) {
+            if (sb.length() > "TendenciasService[".length()) {
+                sb.append(", ");
+            }
+            sb.append(entrada.getKey()).append('=').append(entrada.getValue().getCantidadClaves());
+        }
+        return sb.append(']').toString();
+    }
+}
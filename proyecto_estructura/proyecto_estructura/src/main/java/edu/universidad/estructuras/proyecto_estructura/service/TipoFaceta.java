@@ -0,0 +1,11 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+/**
+ * Facetas del catálogo mantenidas por FacetasCatalogo
+ *
+ */
+public enum TipoFaceta {
+    GENERO,  // canciones ordenadas por título
+    DECADA,  // canciones ordenadas por año y, a igual año, por título
+    ARTISTA  // canciones ordenadas por año y, a igual año, por título
+}
@@ -0,0 +1,57 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+/**
+ * Tipos de registro del diario de cambios, con la cantidad de campos de cada uno.
+ * Los tipos por grupos llevan uno o más grupos de esa cantidad de campos en un solo registro.
+ *
+ * Todos se pueden volver a aplicar sin efecto (agregar algo que ya está, eliminar algo
+ * que no está, fijar un valor que ya tiene): así la recuperación puede reaplicar el
+ * diario sobre un checkpoint que ya incluye parte de sus cambios.
+ *
+ */
+public enum TipoRegistro {
+    USUARIO_UPSERT(4),    // username, password, nombre, tipo
+    USUARIO_DEL(1),       // username
+    FAV_ADD(2),           // username, idCancion
+    FAV_DEL(2),           // username, idCancion
+    FOLLOW(2),            // seguidor, seguido
+    UNFOLLOW(2),          // seguidor, seguido
+    PLAYLIST_UPSERT(5),   // propietario, idPlaylist, nombre, descripcion, fechaCreacion
+    PLAYLIST_DEL(2),      // propietario, idPlaylist
+    PLAYLIST_ADD_SONG(3), // propietario, idPlaylist, idCancion
+    PLAYLIST_DEL_SONG(3), // propietario, idPlaylist, idCancion
+    PLAYLIST_SONGS(3),    // propietario, idPlaylist, ids de las canciones en orden separados por coma
+    SONG_UPSERT(7),       // id, titulo, artista, genero, anio, duracion, urlYoutube
+    SONG_DEL(1),          // id
+    SONG_CLEAR(0),        // catálogo vaciado
+    SONG_BATCH(7, true);  // lote importado: un grupo de campos de SONG_UPSERT por canción
+
+    private final int cantidadCampos;
+    private final boolean porGrupos;
+
+    TipoRegistro(int cantidadCampos) {
+        this(cantidadCampos, false);
+    }
+
+    TipoRegistro(int cantidadCampos, boolean porGrupos) {
+        this.cantidadCampos = cantidadCampos;
+        this.porGrupos = porGrupos;
+    }
+
+    /**
+     * Cantidad de campos del registro (de cada grupo, en los tipos por grupos)
+     */
+    public int getCantidadCampos() {
+        return cantidadCampos;
+    }
+
+    /**
+     * Indica si un registro de este tipo puede tener esa cantidad de campos
+     *
+     * @param cantidad Cantidad de campos del registro
+     * @return true si es la del tipo, o un múltiplo positivo en los tipos por grupos
+     */
+    public boolean admiteCampos(int cantidad) {
+        return porGrupos ? cantidad > 0 && cantidad % cantidadCampos == 0 : cantidad == cantidadCampos;
+    }
+}
@@ -2,10 +2,13 @@ package edu.universidad.estructuras.proyecto_estructura.service;
 
 
 
+import edu.universidad.estructuras.proyecto_estructura.model.Cancion;
 import edu.universidad.estructuras.proyecto_estructura.model.GrafoSocial;
+import edu.universidad.estructuras.proyecto_estructura.model.ResultadoFavoritos;
 import edu.universidad.estructuras.proyecto_estructura.model.Usuario;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 
@@ -13,6 +16,10 @@ import java.util.List;
  * Servicio para gestión de usuarios del sistema.
  * Mantiene un HashMap para acceso O(1) a los usuarios.
  *
+ * Los cambios del HashMap y de los datos de cuenta se hacen con el lock del propio mapa
+ * (synchronized (usuarios)); el checkpoint de usuarios.dat copia las cuentas con ese lock
+ * (copiarCuentas()) y las escribe en su hilo sin recorrer el mapa.
+ *
  */
 public class UsuarioService {
     private static UsuarioService instance;
@@ -92,17 +99,21 @@ public class UsuarioService {
      * @param username Nombre de usuario
      * @param password Contraseña
      * @param nombre Nombre completo
-     * @return true si se registró exitosamente, false si el username ya existe
+     * @return true si se registró exitosamente, false si el username ya existe o no entra
+     *         en las claves del almacén de usuarios
      */
     public boolean registrarUsuario(String username, String password, String nombre) {
-        if (usuarios.containsKey(username)) {
+        if (usuarios.containsKey(username) || !AlmacenUsuarios.admiteEnClave(username)) {
             return false;
         }
         Usuario nuevoUsuario = new Usuario(username, password, nombre);
-        usuarios.put(username, nuevoUsuario);
+        synchronized (usuarios) {
+            usuarios.put(username, nuevoUsuario);
+        }
 
         // ✅ NUEVO: Agregar al grafo social
         grafoSocial.agregarUsuario(nuevoUsuario);
+        anotarUsuario(nuevoUsuario);
 
         return true;
     }
@@ -169,7 +180,10 @@ public class UsuarioService {
     public boolean actualizarPassword(String username, String nuevaPassword) {
         Usuario usuario = usuarios.get(username);
         if (usuario != null) {
-            usuario.setPassword(nuevaPassword);
+            synchronized (usuarios) {
+                usuario.setPassword(nuevaPassword);
+            }
+            anotarUsuario(usuario);
             return true;
         }
         return false;
@@ -185,12 +199,39 @@ public class UsuarioService {
     public boolean actualizarNombre(String username, String nuevoNombre) {
         Usuario usuario = usuarios.get(username);
         if (usuario != null) {
-            usuario.setNombre(nuevoNombre);
+            synchronized (usuarios) {
+                usuario.setNombre(nuevoNombre);
+            }
+            anotarUsuario(usuario);
             return true;
         }
         return false;
     }
 
+    /**
+     * Agrega varias canciones a los favoritos de un usuario guardando una sola vez
+     *
+     * @param username Nombre de usuario
+     * @param canciones Canciones a agregar
+     * @return Estado de cada canción, o null si el usuario no existe
+     */
+    public ResultadoFavoritos agregarFavoritos(String username, Collection<Cancion> canciones) {
+        Usuario usuario = usuarios.get(username);
+        return usuario != null ? usuario.agregarFavoritos(canciones) : null;
+    }
+
+    /**
+     * Elimina varias canciones de los favoritos de un usuario guardando una sola vez
+     *
+     * @param username Nombre de usuario
+     * @param canciones Canciones a eliminar
+     * @return Estado de cada canción, o null si el usuario no existe
+     */
+    public ResultadoFavoritos eliminarFavoritos(String username, Collection<Cancion> canciones) {
+        Usuario usuario = usuarios.get(username);
+        return usuario != null ? usuario.eliminarFavoritos(canciones) : null;
+    }
+
     /**
      * Obtiene el HashMap de todos los usuarios
      *
@@ -200,6 +241,61 @@ public class UsuarioService {
         return usuarios;
     }
 
+    /**
+     * Reemplaza todos los usuarios por los leídos de usuarios.dat (al iniciar)
+     *
+     * @param usuariosLeidos Usuarios del checkpoint
+     */
+    void reemplazarUsuarios(List<Usuario> usuariosLeidos) {
+        synchronized (usuarios) {
+            usuarios.clear();
+            for (Usuario usuario : usuariosLeidos) {
+                usuarios.put(usuario.getUsername(), usuario);
+            }
+        }
+    }
+
+    /**
+     * Crea o actualiza la cuenta de un usuario con los datos de un registro del diario
+     *
+     * @param username Nombre de usuario
+     * @param password Contraseña
+     * @param nombre Nombre completo
+     * @param tipo Tipo de usuario
+     */
+    void restaurarCuenta(String username, String password, String nombre, Usuario.TipoUsuario tipo) {
+        Usuario usuario = usuarios.get(username);
+        if (usuario == null) {
+            if (!registrarUsuario(username, password, nombre)) {
+                System.err.println("  ✗ Usuario del diario con username inválido, se ignora: " + username);
+                return;
+            }
+            usuario = usuarios.get(username);
+        }
+        synchronized (usuarios) {
+            usuario.setPassword(password);
+            usuario.setNombre(nombre);
+            usuario.setTipoUsuario(tipo);
+        }
+    }
+
+    /**
+     * Copia los datos de cuenta de todos los usuarios con el lock de los cambios
+     * (para escribir el checkpoint desde otro hilo)
+     *
+     * @return Username, contraseña, nombre y tipo de cada usuario
+     */
+    List<String[]> copiarCuentas() {
+        synchronized (usuarios) {
+            List<String[]> cuentas = new ArrayList<>(usuarios.size());
+            for (Usuario usuario : usuarios.values()) {
+                cuentas.add(new String[]{usuario.getUsername(), usuario.getPassword(),
+                        usuario.getNombre(), usuario.getTipoUsuario().toString()});
+            }
+            return cuentas;
+        }
+    }
+
     /**
      * Obtiene la cantidad total de usuarios registrados
      *
@@ -225,11 +321,16 @@ public class UsuarioService {
             return false;
         }
 
-        Usuario eliminado = usuarios.remove(username);
+        Usuario eliminado;
+        synchronized (usuarios) {
+            eliminado = usuarios.remove(username);
+        }
 
         if (eliminado != null) {
             // ✅ NUEVO: Eliminar del grafo social
             grafoSocial.eliminarUsuario(username);
+            PopularidadService.getInstance().retirarFavoritos(eliminado.getListaFavoritos());
+            PersistenciaService.getInstance().anotar(TipoRegistro.USUARIO_DEL, username);
             return true;
         }
 
@@ -253,7 +354,11 @@ public class UsuarioService {
      * @return true si se realizó la acción exitosamente
      */
     public boolean seguirUsuario(String seguidor, String seguido) {
-        return grafoSocial.conectarUsuarios(seguidor, seguido);
+        if (grafoSocial.conectarUsuarios(seguidor, seguido)) {
+            PersistenciaService.getInstance().anotar(TipoRegistro.FOLLOW, seguidor, seguido);
+            return true;
+        }
+        return false;
     }
 
     /**
@@ -264,7 +369,16 @@ public class UsuarioService {
      * @return true si se realizó la acción exitosamente
      */
     public boolean dejarDeSeguirUsuario(String seguidor, String seguido) {
-        return grafoSocial.desconectarUsuarios(seguidor, seguido);
+        if (grafoSocial.desconectarUsuarios(seguidor, seguido)) {
+            PersistenciaService.getInstance().anotar(TipoRegistro.UNFOLLOW, seguidor, seguido);
+            return true;
+        }
+        return false;
+    }
+
+    private static void anotarUsuario(Usuario usuario) {
+        PersistenciaService.getInstance().anotar(TipoRegistro.USUARIO_UPSERT, usuario.getUsername(),
+                usuario.getPassword(), usuario.getNombre(), usuario.getTipoUsuario().name());
     }
 
     /**
@@ -343,6 +457,18 @@ public class UsuarioService {
         return resultados;
     }
 
+    /**
+     * Reconstruye el grafo social con todas las conexiones guardadas de una vez
+     * (al cargar los datos; no se anotan en el diario)
+     *
+     * @param conexiones Pares {seguidor, seguido}
+     * @return Cantidad de conexiones creadas
+     */
+    public int restaurarConexiones(List<String[]> conexiones) {
+        reconstruirGrafoSocial();
+        return grafoSocial.conectarTodos(conexiones);
+    }
+
     public void reconstruirGrafoSocial() {
         // Limpiar grafo existente
         grafoSocial.limpiar();
@@ -0,0 +1,87 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import edu.universidad.estructuras.proyecto_estructura.model.GrafoDeSimilitud;
+import edu.universidad.estructuras.proyecto_estructura.model.IndiceInvertido;
+import edu.universidad.estructuras.proyecto_estructura.model.TrieAutocompletado;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Versión publicada de las estructuras del catálogo (tries, grafo e índice de texto).
+ * Mientras algún snapshot la tenga fijada (lectores > 0), CancionService no modifica
+ * esas estructuras: antes de escribir en una la copia (copy-on-write) y publica una versión
+ * nueva. Una estructura que no cambió sigue compartida entre versiones.
+ *
+ */
+final class VersionCatalogo {
+    private final long numero;
+    private final TrieAutocompletado trieTitulos;
+    private final TrieAutocompletado trieArtistas;
+    private final GrafoDeSimilitud grafoSimilitud;
+    private final IndiceInvertido indiceTexto;
+    private final AtomicInteger lectores;
+
+    VersionCatalogo(long numero, TrieAutocompletado trieTitulos, TrieAutocompletado trieArtistas,
+                    GrafoDeSimilitud grafoSimilitud, IndiceInvertido indiceTexto) {
+        this.numero = numero;
+        this.trieTitulos = trieTitulos;
+        this.trieArtistas = trieArtistas;
+        this.grafoSimilitud = grafoSimilitud;
+        this.indiceTexto = indiceTexto;
+        this.lectores = new AtomicInteger();
+    }
+
+    /**
+     * Registra un lector de esta versión
+     *
+     * @return Número de lectores tras registrarlo
+     */
+    int fijar() {
+        return lectores.incrementAndGet();
+    }
+
+    /**
+     * Libera un lector de esta versión
+     *
+     * @return Número de lectores restantes
+     */
+    int soltar() {
+        return lectores.decrementAndGet();
+    }
+
+    boolean estaFijada() {
+        return lectores.get() > 0;
+    }
+
+    /**
+     * Indica si la versión incluye esta estructura (comparando identidad)
+     */
+    boolean usa(Object estructura) {
+        return estructura == trieTitulos || estructura == trieArtistas
+                || estructura == grafoSimilitud || estructura == indiceTexto;
+    }
+
+    long getNumero() {
+        return numero;
+    }
+
+    int getLectores() {
+        return lectores.get();
+    }
+
+    TrieAutocompletado getTrieTitulos() {
+        return trieTitulos;
+    }
+
+    TrieAutocompletado getTrieArtistas() {
+        return trieArtistas;
+    }
+
+    GrafoDeSimilitud getGrafoSimilitud() {
+        return grafoSimilitud;
+    }
+
+    IndiceInvertido getIndiceTexto() {
+        return indiceTexto;
+    }
+}
@@ -0,0 +1,98 @@
+package edu.universidad.estructuras.proyecto_estructura.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContadorVentanaTest {
+    // Ventana de 3 cubetas de 10 ms: un evento cuenta hasta que pasan 3 ranuras
+    private final ContadorVentana contador = new ContadorVentana(3, 10);
+
+    @Test
+    void eventosVencenAlSalirDeLaVentana() {
+        contador.registrar("a", 1, 0);
+        contador.registrar("a", 2, 15);
+        contador.registrar("b", 1, 25);
+        assertEquals(3, contador.getTotal("a"));
+
+        contador.avanzar(30); // vence la ranura 0
+        assertEquals(2, contador.getTotal("a"));
+        assertEquals(1, contador.getTotal("b"));
+
+        contador.avanzar(45); // vence la ranura 1
+        assertEquals(0, contador.getTotal("a"));
+        assertEquals(List.of("b"), contador.obtenerTop(5));
+    }
+
+    @Test
+    void saltoMayorQueLaVentanaLaVaciaCompleta() {
+        contador.registrar("a", 5, 0);
+        contador.registrar("b", 1, 20);
+
+        contador.avanzar(1_000);
+
+        assertEquals(0, contador.getCantidadClaves());
+        assertTrue(contador.obtenerTop(3).isEmpty());
+        contador.registrar("c", 1, 1_000);
+        assertEquals(List.of("c"), contador.obtenerTop(3));
+    }
+
+    @Test
+    void topOrdenadoPorTotalYDespuesPorClave() {
+        contador.registrar("b", 2, 0);
+        contador.registrar("a", 2, 0);
+        contador.registrar("c", 5, 0);
+        contador.registrar("d", 1, 0);
+
+        assertEquals(List.of("c", "a", "b"), contador.obtenerTop(3));
+
+        contador.registrar("d", 5, 5);
+        assertEquals(List.of("d", "c", "a", "b"), contador.obtenerTop(10));
+    }
+
+    @Test
+    void eventoDeUnaRanuraVencidaSeIgnora() {
+        contador.avanzar(100); // ventana = ranuras 8, 9 y 10
+        contador.registrarEnRanura("a", 3, 7);
+        contador.registrarEnRanura("b", 3, 8);
+
+        assertEquals(0, contador.getTotal("a"));
+        assertEquals(3, contador.getTotal("b"));
+    }
+
+    @Test
+    void recorrerCubetasPermiteRestaurarElContador() {
+        contador.registrar("a", 1, 0);
+        contador.registrar("a", 2, 12);
+        contador.registrar("b", 4, 25);
+
+        ContadorVentana restaurado = new ContadorVentana(3, 10);
+        List<long[]> visitas = new ArrayList<>();
+        contador.recorrerCubetas((ranura, clave, conteo) -> {
+            visitas.add(new long[]{ranura, conteo});
+            restaurado.registrarEnRanura(clave, conteo, ranura);
+        });
+
+        assertEquals(3, visitas.size());
+        assertEquals(3, restaurado.getTotal("a"));
+        assertEquals(4, restaurado.getTotal("b"));
+        restaurado.avanzar(30);
+        assertEquals(2, restaurado.getTotal("a"));
+    }
+
+    @Test
+    void eliminarQuitaLaClaveDeTodasLasCubetas() {
+        contador.registrar("a", 1, 0);
+        contador.registrar("a", 1, 15);
+        contador.registrar("b", 1, 15);
+
+        contador.eliminar("a");
+        contador.avanzar(30);
+
+        assertEquals(0, contador.getTotal("a"));
+        assertEquals(List.of("b"), contador.obtenerTop(5));
+    }
+}
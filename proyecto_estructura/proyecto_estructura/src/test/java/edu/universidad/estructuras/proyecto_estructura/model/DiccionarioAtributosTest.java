@@ -0,0 +1,80 @@
+package edu.universidad.estructuras.proyecto_estructura.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiccionarioAtributosTest {
+    // El diccionario es compartido por todo el proceso: cada prueba usa valores propios
+    private final DiccionarioAtributos diccionario = DiccionarioAtributos.getInstance();
+
+    @Test
+    void valoresIgualesCompartenInstancia() {
+        String primero = diccionario.internarGenero(new String("Synthwave Prueba"));
+        String segundo = diccionario.internarGenero(new String("Synthwave Prueba"));
+
+        assertSame(primero, segundo);
+        assertSame(diccionario.normalizarGenero(" SYNTHWAVE prueba "), diccionario.normalizarGenero("synthwave Prueba"));
+        assertEquals(diccionario.idGenero("Synthwave Prueba"), diccionario.idGenero(" synthwave prueba"));
+        assertNotEquals(diccionario.idGenero("Synthwave Prueba"), diccionario.idGenero("Vaporwave Prueba"));
+        assertEquals(-1, diccionario.idGenero(null));
+    }
+
+    @Test
+    void decadasCompartenEtiqueta() {
+        String etiqueta = diccionario.internarDecada(1870);
+
+        assertEquals("1870", etiqueta);
+        assertSame(etiqueta, diccionario.internarDecada(1870));
+    }
+
+    @Test
+    void estadisticasReflejanValoresYAhorro() {
+        DiccionarioAtributos.Estadisticas antes = diccionario.getEstadisticas();
+        diccionario.internarArtista(new String("Artista Estadisticas"));
+        diccionario.internarArtista(new String("Artista Estadisticas"));
+        diccionario.internarDecada(1860);
+        diccionario.internarDecada(1860);
+        DiccionarioAtributos.Estadisticas despues = diccionario.getEstadisticas();
+
+        assertEquals(antes.getArtistas() + 1, despues.getArtistas());
+        assertEquals(antes.getDecadas() + 1, despues.getDecadas());
+        assertTrue(despues.getBytesAhorrados() > antes.getBytesAhorrados());
+    }
+
+    @Test
+    void trieDeArtistasDevuelveLaInstanciaDelDiccionario() throws IOException {
+        TrieAutocompletado trie = new TrieAutocompletado(diccionario::internarArtistaNormalizado);
+        trie.insertar("Banda Trie Prueba");
+        trie.insertar("Banda Trie Otra");
+        String compartida = diccionario.normalizarArtista("Banda Trie Prueba");
+
+        assertSame(compartida, trie.autocompletar("banda trie p").get(0));
+        assertSame(compartida, trie.copiar().autocompletar("banda trie p").get(0));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        trie.escribir(new DataOutputStream(bytes));
+        TrieAutocompletado leido = TrieAutocompletado.leer(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())),
+                diccionario::internarArtistaNormalizado);
+        assertSame(compartida, leido.autocompletar("banda trie p").get(0));
+        assertEquals(2, leido.autocompletar("banda").size());
+    }
+
+    @Test
+    void trieSinDiccionarioArmaLasPalabrasDesdeElCamino() {
+        TrieAutocompletado trie = new TrieAutocompletado();
+        trie.insertar("Hola");
+        trie.insertar("Hola Mundo");
+        trie.eliminar("hola");
+
+        assertEquals(List.of("hola mundo"), trie.autocompletar("ho"));
+    }
+}
@@ -0,0 +1,100 @@
+package edu.universidad.estructuras.proyecto_estructura.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndiceInvertidoTest {
+    private IndiceInvertido indice;
+
+    @BeforeEach
+    void crearIndice() {
+        indice = new IndiceInvertido();
+        indice.indexar(0, "Rock Lobster", "The B-52s", "New Wave");
+        indice.indexar(1, "Love Song", "Rock Band", "Pop");
+        indice.indexar(2, "Jailhouse Blues", "Elvis", "Rock");
+    }
+
+    @Test
+    void tituloPesaMasQueArtistaYGenero() {
+        List<IndiceInvertido.Resultado> resultados = indice.buscar("rock", 10);
+
+        assertEquals(0, resultados.get(0).getOrdinal());
+        assertEquals(1, resultados.get(1).getOrdinal());
+        assertEquals(2, resultados.get(2).getOrdinal());
+    }
+
+    @Test
+    void prefijoPuntuaMenosQueTerminoExacto() {
+        IndiceInvertido otro = new IndiceInvertido();
+        otro.indexar(0, "Rockaway Beach", "Ramones", "Punk");
+        otro.indexar(1, "Rock Beach", "Ramones", "Punk");
+
+        List<IndiceInvertido.Resultado> resultados = otro.buscarTodos("rock");
+
+        assertEquals(2, resultados.size());
+        assertEquals(1, resultados.get(0).getOrdinal()); // "rockaway" solo coincide por prefijo
+    }
+
+    @Test
+    void buscarLimitaAlosKMejoresEnElMismoOrden() {
+        List<IndiceInvertido.Resultado> todos = indice.buscarTodos("rock");
+        List<IndiceInvertido.Resultado> dos = indice.buscar("rock", 2);
+
+        assertEquals(2, dos.size());
+        assertEquals(todos.get(0).getOrdinal(), dos.get(0).getOrdinal());
+        assertEquals(todos.get(1).getOrdinal(), dos.get(1).getOrdinal());
+    }
+
+    @Test
+    void sinTildesNiMayusculas() {
+        indice.indexar(4, "Canción Única", "Álvaro", "Balada");
+
+        assertEquals(4, indice.buscar("CANCION unica", 1).get(0).getOrdinal());
+    }
+
+    @Test
+    void copiaEsIndependiente() {
+        IndiceInvertido copia = indice.copiar();
+        indice.eliminar(0);
+
+        assertEquals(2, indice.buscarTodos("rock").size());
+        assertEquals(3, copia.buscarTodos("rock").size());
+    }
+
+    @Test
+    void cambiosEnLaCopiaNoAlteranElOriginal() {
+        IndiceInvertido copia = indice.copiar();
+        copia.indexar(1, "Love Song", "Solo Band", "Pop"); // deja de tener "rock"
+        copia.indexar(3, "Rock Around the Clock", "Bill Haley", "Rock");
+        copia.eliminar(2);
+
+        assertEquals(Set.of(0, 1, 2), ordinales(indice.buscarTodos("rock")));
+        assertEquals(Set.of(0, 3), ordinales(copia.buscarTodos("rock")));
+        assertTrue(indice.buscarTodos("clock").isEmpty());
+    }
+
+    @Test
+    void originalYCopiaSiguenIndependientesTrasVariasCopias() {
+        IndiceInvertido primera = indice.copiar();
+        indice.indexar(3, "Rock Steady", "Aretha", "Soul");
+        IndiceInvertido segunda = indice.copiar();
+        indice.eliminar(3);
+        primera.eliminar(0);
+
+        assertEquals(3, indice.buscarTodos("rock").size());
+        assertEquals(2, primera.buscarTodos("rock").size());
+        assertEquals(4, segunda.buscarTodos("rock").size());
+        assertEquals(3, segunda.buscar("steady", 1).get(0).getOrdinal());
+        assertTrue(indice.buscarTodos("steady").isEmpty());
+    }
+
+    private static Set<Integer> ordinales(List<IndiceInvertido.Resultado> resultados) {
+        return resultados.stream().map(IndiceInvertido.Resultado::getOrdinal).collect(Collectors.toSet());
+    }
+}
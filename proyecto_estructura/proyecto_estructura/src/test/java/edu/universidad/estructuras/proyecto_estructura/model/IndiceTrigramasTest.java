@@ -0,0 +1,48 @@
+package edu.universidad.estructuras.proyecto_estructura.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndiceTrigramasTest {
+    private IndiceTrigramas indice;
+
+    @BeforeEach
+    void crearIndice() {
+        indice = new IndiceTrigramas();
+        indice.indexar(0, "Bohemian Rhapsody", "Queen");
+        indice.indexar(1, "Green Day", "Green Day");
+        indice.indexar(2, "Thriller", "Michael Jackson");
+    }
+
+    @Test
+    void encuentraTextoDentroDeUnaPalabra() {
+        BitmapComprimido candidatos = indice.candidatos("EEN");
+
+        assertTrue(candidatos.contiene(0));
+        assertTrue(candidatos.contiene(1));
+        assertFalse(candidatos.contiene(2));
+    }
+
+    @Test
+    void trigramaInexistenteNoDaCandidatos() {
+        assertTrue(indice.candidatos("xyz").estaVacio());
+    }
+
+    @Test
+    void textoCortoNoSeResuelveConTrigramas() {
+        assertNull(indice.candidatos("ee"));
+        assertNull(indice.candidatos("   "));
+    }
+
+    @Test
+    void reindexarYEliminarActualizanLasListas() {
+        indice.indexar(0, "Under Pressure", "David Bowie");
+        assertFalse(indice.candidatos("queen").contiene(0));
+        assertTrue(indice.candidatos("pressure").contiene(0));
+
+        indice.eliminar(1);
+        assertTrue(indice.candidatos("green").estaVacio());
+    }
+}
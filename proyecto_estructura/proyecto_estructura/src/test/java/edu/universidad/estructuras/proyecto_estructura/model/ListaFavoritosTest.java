@@ -0,0 +1,87 @@
+package edu.universidad.estructuras.proyecto_estructura.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ListaFavoritosTest {
+    private static Cancion cancion(String id) {
+        return new Cancion(id, "Título " + id, "Artista", "Rock", 2000, 3.0, "");
+    }
+
+    @Test
+    void conservaElOrdenSinRepetidas() {
+        ListaFavoritos favoritos = new ListaFavoritos(List.of(cancion("A"), cancion("B"), cancion("A"), cancion("C")));
+        assertEquals(3, favoritos.size());
+        assertTrue(favoritos.add(cancion("D")));
+        assertFalse(favoritos.add(cancion("B")));
+        assertFalse(favoritos.add(null));
+
+        assertEquals(List.of(cancion("A"), cancion("B"), cancion("C"), cancion("D")), favoritos);
+        assertEquals(2, favoritos.indexOf(cancion("C")));
+        assertEquals(-1, favoritos.indexOf(cancion("Z")));
+    }
+
+    @Test
+    void pertenenciaSigueALasEliminaciones() {
+        ListaFavoritos favoritos = new ListaFavoritos(List.of(cancion("A"), cancion("B"), cancion("C")));
+        assertTrue(favoritos.remove(cancion("B")));
+        assertFalse(favoritos.remove(cancion("B")));
+        assertFalse(favoritos.contains(cancion("B")));
+
+        assertEquals(cancion("A"), favoritos.remove(0));
+        assertFalse(favoritos.contains(cancion("A")));
+        assertEquals(List.of(cancion("C")), favoritos);
+
+        // Se puede volver a agregar lo que se quitó
+        assertTrue(favoritos.add(cancion("A")));
+        assertEquals(List.of(cancion("C"), cancion("A")), favoritos);
+    }
+
+    @Test
+    void insertarOReemplazarRepetidaFalla() {
+        ListaFavoritos favoritos = new ListaFavoritos(List.of(cancion("A"), cancion("B")));
+        assertThrows(IllegalArgumentException.class, () -> favoritos.add(0, cancion("B")));
+        assertThrows(IllegalArgumentException.class, () -> favoritos.set(0, cancion("B")));
+        assertThrows(IndexOutOfBoundsException.class, () -> favoritos.add(5, cancion("C")));
+
+        favoritos.add(1, cancion("C"));
+        assertEquals(cancion("A"), favoritos.set(0, cancion("D")));
+        assertEquals(List.of(cancion("D"), cancion("C"), cancion("B")), favoritos);
+        assertFalse(favoritos.contains(cancion("A")));
+        assertTrue(favoritos.contains(cancion("D")));
+
+        // Reemplazar una canción por sí misma no cambia nada
+        favoritos.set(1, cancion("C"));
+        assertEquals(3, favoritos.size());
+    }
+
+    @Test
+    void eliminacionesMasivasActualizanLaPertenencia() {
+        ListaFavoritos favoritos = new ListaFavoritos(List.of(cancion("A"), cancion("B"), cancion("C"), cancion("D")));
+        assertTrue(favoritos.removeAll(Set.of(cancion("B"), cancion("D"))));
+        assertEquals(List.of(cancion("A"), cancion("C")), favoritos);
+        assertFalse(favoritos.contains(cancion("D")));
+
+        assertTrue(favoritos.retainAll(Set.of(cancion("C"))));
+        assertEquals(List.of(cancion("C")), favoritos);
+        assertFalse(favoritos.retainAll(Set.of(cancion("C"))));
+
+        favoritos.clear();
+        assertTrue(favoritos.isEmpty());
+        assertFalse(favoritos.contains(cancion("C")));
+    }
+
+    @Test
+    void ordenarNoCambiaLasCanciones() {
+        ListaFavoritos favoritos = new ListaFavoritos(List.of(cancion("C"), cancion("A"), cancion("B")));
+        favoritos.sort(Comparator.comparing(Cancion::getId));
+        assertEquals(List.of(cancion("A"), cancion("B"), cancion("C")), favoritos);
+        assertTrue(favoritos.contains(cancion("C")));
+        assertFalse(favoritos.add(cancion("A")));
+    }
+}
@@ -0,0 +1,44 @@
+package edu.universidad.estructuras.proyecto_estructura.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TablaAliasTest {
+
+    @Test
+    void frecuenciasProporcionalesAlPeso() {
+        int[] pesos = {1, 0, 3, 6};
+        TablaAlias tabla = new TablaAlias(pesos);
+        Random random = new Random(42);
+        int sorteos = 200_000;
+        int[] conteos = new int[pesos.length];
+        for (int i = 0; i < sorteos; i++) {
+            conteos[tabla.muestrear(random)]++;
+        }
+
+        assertEquals(0, conteos[1]);
+        for (int i = 0; i < pesos.length; i++) {
+            double esperado = (double) pesos[i] / tabla.getPesoTotal();
+            assertEquals(esperado, (double) conteos[i] / sorteos, 0.01);
+        }
+    }
+
+    @Test
+    void unSoloPesoPositivoSiempreSale() {
+        TablaAlias tabla = new TablaAlias(new int[]{0, 0, 5, 0});
+        Random random = new Random(7);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(2, tabla.muestrear(random));
+        }
+    }
+
+    @Test
+    void pesosInvalidos() {
+        assertThrows(IllegalArgumentException.class, () -> new TablaAlias(new int[]{1, -1}));
+        assertThrows(IllegalArgumentException.class, () -> new TablaAlias(new int[]{0, 0}));
+        assertThrows(IllegalArgumentException.class, () -> new TablaAlias(new int[0]));
+    }
+}
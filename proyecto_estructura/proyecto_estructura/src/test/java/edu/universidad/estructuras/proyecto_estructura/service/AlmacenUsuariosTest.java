@@ -0,0 +1,125 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlmacenUsuariosTest {
+    // Un segmento del diario tal como lo reproduce la recuperación
+    private static final List<RegistroDiario> SEGMENTO = List.of(
+            new RegistroDiario(TipoRegistro.FAV_ADD, "ana", "C1"),
+            new RegistroDiario(TipoRegistro.FAV_ADD, "ana", "C2"),
+            new RegistroDiario(TipoRegistro.FAV_DEL, "ana", "C1"),
+            new RegistroDiario(TipoRegistro.FAV_ADD, "ana", "C1"),
+            new RegistroDiario(TipoRegistro.FAV_ADD, "beto", "C2"),
+            new RegistroDiario(TipoRegistro.FOLLOW, "ana", "beto"),
+            new RegistroDiario(TipoRegistro.FOLLOW, "beto", "carla"),
+            new RegistroDiario(TipoRegistro.UNFOLLOW, "beto", "carla"),
+            new RegistroDiario(TipoRegistro.PLAYLIST_UPSERT, "ana", "PL0001", "Rock", "", "2024-01-01T10:00"),
+            new RegistroDiario(TipoRegistro.PLAYLIST_SONGS, "ana", "PL0001", "C1,C2"),
+            new RegistroDiario(TipoRegistro.PLAYLIST_DEL_SONG, "ana", "PL0001", "C1"),
+            new RegistroDiario(TipoRegistro.PLAYLIST_UPSERT, "beto", "PL0002", "Pop", "", "2024-01-02T10:00"),
+            new RegistroDiario(TipoRegistro.PLAYLIST_DEL, "beto", "PL0002"));
+
+    private Path directorio;
+    private Path archivo;
+
+    @BeforeEach
+    void crearDirectorio() throws IOException {
+        directorio = Files.createTempDirectory("almacen");
+        archivo = directorio.resolve("usuarios.db");
+    }
+
+    @AfterEach
+    void borrarDirectorio() throws IOException {
+        try (Stream<Path> archivos = Files.walk(directorio)) {
+            for (Path ruta : archivos.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(ruta);
+            }
+        }
+    }
+
+    @Test
+    void segmentoAplicadoDosVeces() throws IOException {
+        try (AlmacenUsuarios almacen = AlmacenUsuarios.abrir(archivo)) {
+            almacen.resumir();
+            SEGMENTO.forEach(almacen::aplicar);
+            comprobarContenido(almacen);
+            almacen.checkpoint();
+        }
+
+        // El checkpoint ya tiene el segmento y la recuperación lo vuelve a aplicar
+        try (AlmacenUsuarios almacen = AlmacenUsuarios.abrir(archivo)) {
+            almacen.resumir();
+            SEGMENTO.forEach(almacen::aplicar);
+            comprobarContenido(almacen);
+        }
+    }
+
+    @Test
+    void usernameDemasiadoLargoSeIgnora() throws IOException {
+        String largo = "u".repeat(AlmacenUsuarios.MAXIMO_BYTES_CAMPO + 1);
+        assertTrue(AlmacenUsuarios.admiteEnClave("u".repeat(AlmacenUsuarios.MAXIMO_BYTES_CAMPO)));
+        assertFalse(AlmacenUsuarios.admiteEnClave(largo));
+
+        try (AlmacenUsuarios almacen = AlmacenUsuarios.abrir(archivo)) {
+            almacen.resumir();
+            assertDoesNotThrow(() -> almacen.aplicar(new RegistroDiario(TipoRegistro.FAV_ADD, largo, "C1")));
+            assertDoesNotThrow(() -> almacen.aplicar(new RegistroDiario(TipoRegistro.FOLLOW, "ana", largo)));
+            almacen.aplicar(new RegistroDiario(TipoRegistro.FAV_ADD, "ana", "C1"));
+
+            AlmacenUsuarios.Resumen resumen = almacen.resumir();
+            assertEquals(1, (int) resumen.getConteosFavoritos().get("C1"));
+            assertTrue(resumen.getConexiones().isEmpty());
+        }
+    }
+
+    @Test
+    void totalDePlaylistsSinRecorrerElArbol() throws IOException {
+        try (AlmacenUsuarios almacen = AlmacenUsuarios.abrir(archivo)) {
+            almacen.resumir();
+            almacen.aplicar(new RegistroDiario(TipoRegistro.PLAYLIST_UPSERT, "ana", "PL0001", "Rock", "", "2024-01-01T10:00"));
+            almacen.aplicar(new RegistroDiario(TipoRegistro.PLAYLIST_UPSERT, "ana", "PL0002", "Pop", "", "2024-01-01T10:00"));
+            almacen.aplicar(new RegistroDiario(TipoRegistro.PLAYLIST_UPSERT, "beto", "PL0003", "Jazz", "", "2024-01-01T10:00"));
+            almacen.aplicar(new RegistroDiario(TipoRegistro.PLAYLIST_UPSERT, "ana", "PL0001", "Rock 2", "", "2024-01-01T10:00"));
+            assertEquals(3, almacen.getCantidadTotalPlaylists());
+            assertEquals(List.of("PL0001", "PL0002"), almacen.leerIdsPlaylists("ana"));
+
+            almacen.aplicar(new RegistroDiario(TipoRegistro.PLAYLIST_DEL, "ana", "PL0002"));
+            almacen.aplicar(new RegistroDiario(TipoRegistro.PLAYLIST_DEL, "ana", "PL0002"));
+            assertEquals(2, almacen.getCantidadTotalPlaylists());
+
+            almacen.aplicar(new RegistroDiario(TipoRegistro.USUARIO_DEL, "ana"));
+            assertEquals(1, almacen.getCantidadTotalPlaylists());
+            assertTrue(almacen.leerIdsPlaylists("ana").isEmpty());
+
+            almacen.resumir();
+            assertEquals(1, almacen.getCantidadTotalPlaylists());
+        }
+    }
+
+    private static void comprobarContenido(AlmacenUsuarios almacen) {
+        assertEquals(List.of("C2", "C1"), almacen.leerFavoritos("ana"));
+        assertEquals(List.of("C2"), almacen.leerFavoritos("beto"));
+        assertTrue(almacen.leerFavoritos("carla").isEmpty());
+
+        AlmacenUsuarios.Resumen resumen = almacen.resumir();
+        assertEquals(1, (int) resumen.getConteosFavoritos().get("C1"));
+        assertEquals(2, (int) resumen.getConteosFavoritos().get("C2"));
+        assertEquals(List.of("PL0001"), resumen.getIdsPlaylists());
+        assertEquals(1, almacen.getCantidadPlaylists("ana"));
+        assertEquals(0, almacen.getCantidadPlaylists("beto"));
+        assertEquals(1, almacen.getCantidadTotalPlaylists());
+        assertEquals(1, resumen.getConexiones().size());
+        assertArrayEquals(new String[]{"ana", "beto"}, resumen.getConexiones().get(0));
+    }
+}
@@ -0,0 +1,132 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArbolBMasTest {
+    private static final int CLAVES = 3000;
+
+    private Path directorio;
+    private Path archivo;
+
+    @BeforeEach
+    void crearDirectorio() throws IOException {
+        directorio = Files.createTempDirectory("arbol");
+        archivo = directorio.resolve("arbol.db");
+    }
+
+    @AfterEach
+    void borrarDirectorio() throws IOException {
+        try (Stream<Path> archivos = Files.walk(directorio)) {
+            for (Path ruta : archivos.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(ruta);
+            }
+        }
+    }
+
+    @Test
+    void divisionesYRecorridoPorPrefijo() throws IOException {
+        try (ArbolBMas arbol = ArbolBMas.abrir(archivo, 64)) {
+            // En orden inverso para que las divisiones no sean siempre en la hoja de la derecha
+            for (int i = CLAVES - 1; i >= 0; i--) {
+                assertTrue(arbol.insertar(clave(i), valor(i)));
+            }
+            assertTrue(arbol.getAltura() >= 3, "Altura " + arbol.getAltura());
+            comprobarContenido(arbol);
+            arbol.checkpoint();
+        }
+
+        try (ArbolBMas arbol = ArbolBMas.abrir(archivo, 64)) {
+            comprobarContenido(arbol);
+        }
+    }
+
+    @Test
+    void reemplazarYEliminarValorGrande() throws IOException {
+        byte[] clave = texto("grande");
+        try (ArbolBMas arbol = ArbolBMas.abrir(archivo, 16)) {
+            assertTrue(arbol.insertar(clave, relleno(10_000, (byte) 1)));
+            assertFalse(arbol.insertar(clave, relleno(12_000, (byte) 2)));
+            arbol.checkpoint();
+            long tamano = Files.size(archivo);
+
+            // Cada reemplazo libera las páginas del valor anterior y las vuelve a usar
+            for (int i = 3; i < 10; i++) {
+                assertFalse(arbol.insertar(clave, relleno(12_000, (byte) i)));
+                arbol.checkpoint();
+                assertArrayEquals(relleno(12_000, (byte) i), arbol.obtener(clave));
+            }
+            assertEquals(tamano, Files.size(archivo));
+
+            assertTrue(arbol.eliminar(clave));
+            assertNull(arbol.obtener(clave));
+            assertFalse(arbol.eliminar(clave));
+            assertTrue(arbol.insertar(texto("otra"), relleno(12_000, (byte) 7)));
+            arbol.checkpoint();
+            assertEquals(tamano, Files.size(archivo));
+        }
+
+        try (ArbolBMas arbol = ArbolBMas.abrir(archivo, 16)) {
+            assertNull(arbol.obtener(clave));
+            assertArrayEquals(relleno(12_000, (byte) 7), arbol.obtener(texto("otra")));
+        }
+    }
+
+    @Test
+    void claveDemasiadoLarga() throws IOException {
+        try (ArbolBMas arbol = ArbolBMas.abrir(archivo, 16)) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> arbol.insertar(new byte[ArbolBMas.MAXIMO_CLAVE + 1], new byte[0]));
+            assertDoesNotThrow(() -> arbol.insertar(relleno(ArbolBMas.MAXIMO_CLAVE, (byte) 'a'), new byte[0]));
+        }
+    }
+
+    private static void comprobarContenido(ArbolBMas arbol) {
+        for (int i = 0; i < CLAVES; i++) {
+            assertArrayEquals(valor(i), arbol.obtener(clave(i)));
+        }
+        assertNull(arbol.obtener(clave(CLAVES)));
+
+        // "k01" son exactamente las claves 1000..1999, en orden
+        List<byte[]> claves = new ArrayList<>();
+        arbol.recorrer(texto("k01"), (clave, valor) -> claves.add(clave));
+        assertEquals(1000, claves.size());
+        for (int i = 0; i < claves.size(); i++) {
+            assertArrayEquals(clave(1000 + i), claves.get(i));
+        }
+    }
+
+    private static byte[] clave(int i) {
+        // Claves largas: pocas por página, para que el árbol tenga varios niveles
+        byte[] clave = Arrays.copyOf(texto(String.format("k%05d", i)), 200);
+        Arrays.fill(clave, 6, clave.length, (byte) '.');
+        return clave;
+    }
+
+    private static byte[] valor(int i) {
+        return texto("v" + i);
+    }
+
+    private static byte[] relleno(int longitud, byte valor) {
+        byte[] datos = new byte[longitud];
+        Arrays.fill(datos, valor);
+        return datos;
+    }
+
+    private static byte[] texto(String texto) {
+        return texto.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,127 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArchivoBinarioTest {
+    private Path archivo;
+
+    @BeforeEach
+    void crearArchivo() throws IOException {
+        archivo = Files.createTempFile("favoritos", ".dat");
+    }
+
+    @AfterEach
+    void borrarArchivo() throws IOException {
+        Files.deleteIfExists(archivo);
+    }
+
+    @Test
+    void leeTablaYRegistrosDeFavoritos() throws IOException {
+        Files.write(archivo, favoritosDeEjemplo());
+
+        assertTrue(ArchivoBinario.esBinario(archivo));
+        ArchivoBinario.Lector lector = new ArchivoBinario.Lector(archivo, ArchivoBinario.TIPO_FAVORITOS);
+
+        assertTrue(lector.siguienteRegistro());
+        assertEquals("ana", lector.referencia());
+        assertEquals(List.of("C1", "C2"), List.of(referencias(lector)));
+
+        assertTrue(lector.siguienteRegistro());
+        assertEquals("beto", lector.referencia());
+        assertEquals(List.of("C2"), List.of(referencias(lector)));
+
+        assertFalse(lector.siguienteRegistro());
+        assertFalse(lector.isDanado());
+    }
+
+    @Test
+    void registroConCrcIncorrectoTerminaLaLectura() throws IOException {
+        byte[] datos = favoritosDeEjemplo();
+        datos[datos.length - 6] ^= 0x01; // contenido del último registro
+        Files.write(archivo, datos);
+
+        ArchivoBinario.Lector lector = new ArchivoBinario.Lector(archivo, ArchivoBinario.TIPO_FAVORITOS);
+        assertTrue(lector.siguienteRegistro());
+        assertEquals("ana", lector.referencia());
+        assertFalse(lector.siguienteRegistro());
+        assertTrue(lector.isDanado());
+    }
+
+    @Test
+    void registroIncompletoSeMarcaDanado() throws IOException {
+        byte[] datos = favoritosDeEjemplo();
+        Files.write(archivo, Arrays.copyOf(datos, datos.length - 2));
+
+        ArchivoBinario.Lector lector = new ArchivoBinario.Lector(archivo, ArchivoBinario.TIPO_FAVORITOS);
+        assertTrue(lector.siguienteRegistro());
+        assertFalse(lector.siguienteRegistro());
+        assertTrue(lector.isDanado());
+    }
+
+    @Test
+    void tipoDistintoOTextoNoSeLeenComoBinario() throws IOException {
+        Files.write(archivo, favoritosDeEjemplo());
+        assertThrows(IOException.class, () -> new ArchivoBinario.Lector(archivo, ArchivoBinario.TIPO_PLAYLISTS));
+
+        Files.writeString(archivo, "ana|C1\n");
+        assertFalse(ArchivoBinario.esBinario(archivo));
+    }
+
+    private static String[] referencias(ArchivoBinario.Lector lector) {
+        String[] ids = new String[lector.entero()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = lector.referencia();
+        }
+        return ids;
+    }
+
+    /**
+     * favoritos.dat como lo escribía la versión anterior: tabla {ana, beto, C1, C2} y un
+     * registro por usuario con referencias a la tabla
+     */
+    private static byte[] favoritosDeEjemplo() {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        salida.writeBytes(new byte[]{'E', 'B', 'I', 'N', ArchivoBinario.VERSION, ArchivoBinario.TIPO_FAVORITOS});
+
+        List<Integer> tabla = new ArrayList<>(List.of(4));
+        for (String cadena : new String[]{"ana", "beto", "C1", "C2"}) {
+            byte[] bytes = cadena.getBytes(StandardCharsets.UTF_8);
+            tabla.add(bytes.length);
+            for (byte b : bytes) {
+                tabla.add(b & 0xFF);
+            }
+        }
+        registro(salida, tabla);
+        registro(salida, List.of(0, 2, 2, 3));
+        registro(salida, List.of(1, 1, 3));
+        return salida.toByteArray();
+    }
+
+    // Todos los valores de prueba caben en un byte de varint
+    private static void registro(ByteArrayOutputStream salida, List<Integer> valores) {
+        byte[] contenido = new byte[valores.size()];
+        for (int i = 0; i < contenido.length; i++) {
+            contenido[i] = (byte) (int) valores.get(i);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(contenido);
+        salida.write(contenido.length);
+        salida.writeBytes(contenido);
+        salida.writeBytes(ByteBuffer.allocate(4).putInt((int) crc.getValue()).array());
+    }
+}
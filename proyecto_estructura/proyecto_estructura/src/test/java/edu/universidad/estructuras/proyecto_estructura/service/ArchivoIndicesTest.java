@@ -0,0 +1,105 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import edu.universidad.estructuras.proyecto_estructura.model.Cancion;
+import edu.universidad.estructuras.proyecto_estructura.model.GrafoDeSimilitud;
+import edu.universidad.estructuras.proyecto_estructura.model.TrieAutocompletado;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArchivoIndicesTest {
+    private final List<Cancion> catalogo = List.of(
+            new Cancion("C1", "Bohemian Rhapsody", "Queen", "Rock", 1975, 5.55, ""),
+            new Cancion("C2", "Under Pressure", "Queen", "Rock", 1981, 4.08, ""),
+            new Cancion("C3", "Imagine", "John Lennon", "Pop", 1971, 3.03, ""));
+
+    private Path directorio;
+    private Path archivo;
+
+    @BeforeEach
+    void crearDirectorio() throws IOException {
+        directorio = Files.createTempDirectory("indices");
+        archivo = directorio.resolve("indices.bin");
+    }
+
+    @AfterEach
+    void borrarDirectorio() throws IOException {
+        try (Stream<Path> archivos = Files.walk(directorio)) {
+            for (Path ruta : archivos.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(ruta);
+            }
+        }
+    }
+
+    private long escribirCatalogo() throws IOException {
+        TrieAutocompletado titulos = new TrieAutocompletado();
+        TrieAutocompletado artistas = new TrieAutocompletado();
+        GrafoDeSimilitud grafo = new GrafoDeSimilitud();
+        for (Cancion cancion : catalogo) {
+            titulos.insertar(cancion.getTitulo());
+            artistas.insertar(cancion.getArtista());
+            grafo.agregarCancion(cancion);
+        }
+        grafo.agregarConexion(catalogo.get(0), catalogo.get(1));
+
+        long suma = ArchivoIndices.calcularSuma(catalogo);
+        ArchivoIndices.escribir(archivo, suma, catalogo, titulos, artistas, grafo);
+        return suma;
+    }
+
+    @Test
+    void snapshotSeLeeIgualQueSeEscribio() throws IOException {
+        long suma = escribirCatalogo();
+        assertFalse(Files.exists(directorio.resolve("indices.bin.tmp")));
+
+        ArchivoIndices indices = ArchivoIndices.leer(archivo, suma, catalogo);
+
+        assertNotNull(indices);
+        assertEquals(List.of("bohemian rhapsody"), indices.getTrieTitulos().autocompletar("boh"));
+        assertEquals(2, indices.getTrieArtistas().getCantidadPalabras());
+        assertTrue(indices.getTrieArtistas().buscar("john lennon"));
+        assertEquals(3, indices.getGrafoSimilitud().getCantidadCanciones());
+        assertEquals(1, indices.getGrafoSimilitud().obtenerConexiones(catalogo.get(0)).size());
+        assertTrue(indices.getGrafoSimilitud().obtenerConexiones(catalogo.get(2)).isEmpty());
+    }
+
+    @Test
+    void catalogoCambiadoDescartaElSnapshot() throws IOException {
+        long suma = escribirCatalogo();
+
+        List<Cancion> editado = List.of(catalogo.get(0), catalogo.get(1),
+                new Cancion("C3", "Imagine", "John Lennon", "Pop", 1972, 3.03, ""));
+        long otraSuma = ArchivoIndices.calcularSuma(editado);
+        assertNotEquals(suma, otraSuma);
+        assertNull(ArchivoIndices.leer(archivo, otraSuma, editado));
+        assertNull(ArchivoIndices.leer(archivo, suma, catalogo.subList(0, 2)));
+    }
+
+    @Test
+    void sinSnapshotNoHayIndices() throws IOException {
+        assertNull(ArchivoIndices.leer(archivo, 0, catalogo));
+    }
+
+    @Test
+    void archivoTruncadoOAjenoFalla() throws IOException {
+        long suma = escribirCatalogo();
+        byte[] bytes = Files.readAllBytes(archivo);
+
+        Files.write(archivo, Arrays.copyOf(bytes, bytes.length - 2));
+        assertThrows(IOException.class, () -> ArchivoIndices.leer(archivo, suma, catalogo));
+
+        bytes[0] ^= 0x7F;
+        Files.write(archivo, bytes);
+        assertThrows(IOException.class, () -> ArchivoIndices.leer(archivo, suma, catalogo));
+    }
+}
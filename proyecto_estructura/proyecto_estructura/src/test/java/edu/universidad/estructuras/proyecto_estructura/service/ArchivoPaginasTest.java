@@ -0,0 +1,110 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArchivoPaginasTest {
+    private static final int TAMANO = ArchivoPaginas.TAMANO_PAGINA;
+
+    private Path directorio;
+    private Path archivo;
+    private Path wal;
+    private int pagina;
+
+    @BeforeEach
+    void crearArchivo() throws IOException {
+        directorio = Files.createTempDirectory("paginas");
+        archivo = directorio.resolve("paginas.db");
+        wal = directorio.resolve("paginas.db.wal");
+        try (ArchivoPaginas paginas = ArchivoPaginas.abrir(archivo, 8)) {
+            pagina = paginas.nueva();
+            Arrays.fill(paginas.leer(pagina), (byte) 'A');
+            paginas.checkpoint();
+        }
+    }
+
+    @AfterEach
+    void borrarDirectorio() throws IOException {
+        try (Stream<Path> archivos = Files.walk(directorio)) {
+            for (Path ruta : archivos.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(ruta);
+            }
+        }
+    }
+
+    @Test
+    void paginaLiberadaSeReutiliza() throws IOException {
+        try (ArchivoPaginas paginas = ArchivoPaginas.abrir(archivo, 8)) {
+            paginas.liberar(pagina);
+            paginas.checkpoint();
+        }
+        try (ArchivoPaginas paginas = ArchivoPaginas.abrir(archivo, 8)) {
+            int cantidad = paginas.getCantidadPaginas();
+            assertEquals(pagina, paginas.nueva());
+            assertEquals(cantidad, paginas.getCantidadPaginas());
+            assertEquals(0, paginas.leer(pagina)[10]);
+            assertEquals(cantidad, paginas.nueva()); // sin libres: al final del archivo
+        }
+    }
+
+    @Test
+    void walConfirmadoSeAplica() throws IOException {
+        escribirWal(true, false);
+
+        try (ArchivoPaginas paginas = ArchivoPaginas.abrir(archivo, 8)) {
+            assertEquals('B', paginas.leer(pagina)[0]);
+            assertEquals('B', paginas.leer(pagina)[TAMANO - 1]);
+        }
+        assertFalse(Files.exists(wal));
+    }
+
+    @Test
+    void walSinConfirmarSeDescarta() throws IOException {
+        escribirWal(false, false);
+
+        try (ArchivoPaginas paginas = ArchivoPaginas.abrir(archivo, 8)) {
+            assertEquals('A', paginas.leer(pagina)[0]);
+        }
+        assertFalse(Files.exists(wal));
+    }
+
+    @Test
+    void walConCrcIncorrectoSeDescarta() throws IOException {
+        escribirWal(true, true);
+
+        try (ArchivoPaginas paginas = ArchivoPaginas.abrir(archivo, 8)) {
+            assertEquals('A', paginas.leer(pagina)[0]);
+        }
+        assertFalse(Files.exists(wal));
+    }
+
+    /**
+     * Deja un WAL como el de un checkpoint interrumpido antes de escribir la página en su lugar
+     */
+    private void escribirWal(boolean confirmado, boolean crcIncorrecto) throws IOException {
+        byte[] imagen = new byte[TAMANO];
+        Arrays.fill(imagen, (byte) 'B');
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(Integer.BYTES).putInt(pagina).array());
+        crc.update(imagen);
+
+        ByteBuffer log = ByteBuffer.allocate(Integer.BYTES + TAMANO + Integer.BYTES * 2 + Long.BYTES);
+        log.putInt(pagina).put(imagen);
+        if (confirmado) {
+            log.putInt(-1).putInt(1).putLong(crcIncorrecto ? crc.getValue() + 1 : crc.getValue());
+        }
+        Files.write(wal, Arrays.copyOf(log.array(), log.position()));
+    }
+}
@@ -0,0 +1,123 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import edu.universidad.estructuras.proyecto_estructura.model.Cancion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BusEventosCatalogoTest {
+    private BusEventosCatalogo bus;
+    private final List<BusEventosCatalogo.Suscripcion> creadas = new ArrayList<>();
+
+    @BeforeEach
+    void crearBus() {
+        bus = new BusEventosCatalogo();
+    }
+
+    @AfterEach
+    void cancelarSuscripciones() {
+        for (BusEventosCatalogo.Suscripcion suscripcion : creadas) {
+            suscripcion.cancelar();
+        }
+    }
+
+    @Test
+    void eventosLleganEnOrdenDeSecuencia() {
+        List<Long> secuencias = new ArrayList<>();
+        creadas.add(bus.suscribir("orden", lote -> {
+            for (EventoCatalogo evento : lote) {
+                secuencias.add(evento.getSecuencia());
+            }
+        }));
+
+        for (int i = 0; i < 1000; i++) {
+            publicar(i);
+        }
+
+        assertTrue(bus.sincronizar(5_000));
+        assertEquals(1000, secuencias.size());
+        for (int i = 0; i < secuencias.size(); i++) {
+            assertEquals(i + 1, (long) secuencias.get(i));
+        }
+    }
+
+    @Test
+    void hiloLeeSusPropiasEscriturasYNoLasDeOtros() throws Exception {
+        CountDownLatch liberar = new CountDownLatch(1);
+        BusEventosCatalogo.Suscripcion lenta = bus.suscribir("lenta", lote -> {
+            try {
+                liberar.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        creadas.add(lenta);
+
+        // Otro hilo publica: este hilo no tiene escrituras propias que esperar
+        Thread otro = new Thread(() -> publicar(1));
+        otro.start();
+        otro.join();
+        assertEquals(0, bus.getPublicadaPorHiloActual());
+
+        publicar(2);
+        long propia = bus.getPublicadaPorHiloActual();
+        assertEquals(2, propia);
+        assertFalse(lenta.alcanzar(propia, 50)); // vence: se leería el estado anterior
+
+        liberar.countDown();
+        assertTrue(lenta.alcanzar(propia, 5_000));
+    }
+
+    @Test
+    void pausadaNoSeEsperaYAplicaAlReanudar() {
+        AtomicInteger aplicados = new AtomicInteger();
+        BusEventosCatalogo.Suscripcion pausada = bus.suscribirPausada("pausada", lote -> aplicados.addAndGet(lote.size()), null);
+        creadas.add(pausada);
+
+        publicar(1);
+        publicar(2);
+        assertFalse(pausada.alcanzar(bus.getPublicadaPorHiloActual(), 1_000));
+        assertEquals(0, aplicados.get());
+
+        pausada.reanudar();
+        assertTrue(pausada.alcanzar(bus.getPublicadaPorHiloActual(), 5_000));
+        assertEquals(2, aplicados.get());
+    }
+
+    @Test
+    void falloDelSuscriptorReconstruyeYSigue() {
+        AtomicInteger reconstrucciones = new AtomicInteger();
+        AtomicLong ultima = new AtomicLong();
+        creadas.add(bus.suscribir("fragil", lote -> {
+            for (EventoCatalogo evento : lote) {
+                if (evento.getOrdinal() == 1) {
+                    throw new IllegalStateException("fallo de prueba");
+                }
+                ultima.set(evento.getSecuencia());
+            }
+        }, reconstrucciones::incrementAndGet));
+
+        publicar(1);
+        assertTrue(bus.sincronizar(5_000));
+        publicar(2);
+        assertTrue(bus.sincronizar(5_000));
+
+        assertEquals(1, reconstrucciones.get());
+        assertEquals(2, ultima.get());
+        assertEquals(0L, (long) bus.getRetrasos().get("fragil"));
+    }
+
+    private void publicar(int ordinal) {
+        Cancion cancion = new Cancion("C" + ordinal, "Título " + ordinal, "Artista", "Rock", 2000, 3.0, "");
+        bus.publicar(EventoCatalogo.Tipo.AGREGADA, 0, ordinal, cancion, null, cancion);
+    }
+}
@@ -0,0 +1,78 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import edu.universidad.estructuras.proyecto_estructura.model.Playlist;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CargaDiferidaTest {
+
+    @Test
+    void listaYaCargadaNoSeReemplaza() {
+        CargaDiferida cargaDiferida = new CargaDiferida();
+        Map<String, List<Playlist>> cargadas = new ConcurrentHashMap<>();
+        List<Playlist> existente = new ArrayList<>();
+        existente.add(new Playlist("PL0001", "Rock", "", "ana"));
+        cargadas.put("ana", existente);
+
+        assertSame(existente, cargaDiferida.cargarPlaylists("ana", cargadas));
+        assertEquals(1, cargadas.get("ana").size());
+        assertEquals(1, cargaDiferida.getCantidadActivos());
+    }
+
+    @Test
+    void hilosQueCarganElMismoUsuarioRecibenLaMismaLista() throws Exception {
+        CargaDiferida cargaDiferida = new CargaDiferida();
+        Map<String, List<Playlist>> cargadas = new ConcurrentHashMap<>();
+        int hilos = 8;
+        CountDownLatch salida = new CountDownLatch(1);
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        try {
+            List<Future<List<Playlist>>> resultados = new ArrayList<>();
+            for (int i = 0; i < hilos; i++) {
+                resultados.add(ejecutor.submit(() -> {
+                    salida.await();
+                    List<Playlist> playlists = cargaDiferida.cargarPlaylists("ana", cargadas);
+                    // Un cambio hecho sobre una lista reemplazada se perdería
+                    synchronized (playlists) {
+                        playlists.add(new Playlist("PL" + Thread.currentThread().getName(), "x", "", "ana"));
+                    }
+                    return playlists;
+                }));
+            }
+            salida.countDown();
+            List<Playlist> primera = resultados.get(0).get();
+            for (Future<List<Playlist>> resultado : resultados) {
+                assertSame(primera, resultado.get());
+            }
+            assertSame(primera, cargadas.get("ana"));
+            assertEquals(hilos, primera.size());
+        } finally {
+            ejecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    void sinAlmacenNoSeDescargaNada() {
+        CargaDiferida cargaDiferida = new CargaDiferida();
+        cargaDiferida.setCapacidad(2);
+        Map<String, List<Playlist>> cargadas = new ConcurrentHashMap<>();
+        for (String username : List.of("ana", "beto", "carla")) {
+            cargaDiferida.cargarPlaylists(username, cargadas);
+        }
+
+        // Lo que está en memoria no se puede volver a leer: se conserva aunque pase la capacidad
+        assertEquals(3, cargadas.size());
+        assertEquals(0L, cargaDiferida.getDescargas());
+        assertEquals(0L, cargaDiferida.getCargas());
+    }
+}
@@ -0,0 +1,82 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CerrojoCatalogoTest {
+
+    @Test
+    void lecturaAnidadaConEscritorEsperando() throws Exception {
+        CerrojoCatalogo cerrojo = new CerrojoCatalogo();
+        Thread escritor = new Thread(() -> {
+            cerrojo.bloquearEscritura();
+            cerrojo.liberarEscritura();
+        });
+
+        String resultado = cerrojo.leer(() -> {
+            escritor.start();
+            esperarEnCola(escritor);
+            return cerrojo.leer(() -> "anidada");
+        });
+
+        escritor.join(2000);
+        assertEquals("anidada", resultado);
+        assertFalse(escritor.isAlive());
+    }
+
+    @Test
+    void lecturaDentroDeEscritura() {
+        CerrojoCatalogo cerrojo = new CerrojoCatalogo();
+        cerrojo.bloquearEscritura();
+        try {
+            assertEquals(1, (int) cerrojo.leer(() -> 1));
+        } finally {
+            cerrojo.liberarEscritura();
+        }
+    }
+
+    @Test
+    void escritorAvanzaConLecturasContinuas() throws Exception {
+        CerrojoCatalogo cerrojo = new CerrojoCatalogo();
+        AtomicBoolean leyendo = new AtomicBoolean(true);
+        for (int i = 0; i < 6; i++) {
+            Thread lector = new Thread(() -> {
+                while (leyendo.get()) {
+                    cerrojo.leer(() -> {
+                        Thread.onSpinWait();
+                        return null;
+                    });
+                }
+            });
+            lector.setDaemon(true);
+            lector.start();
+        }
+
+        CountDownLatch escrituras = new CountDownLatch(100);
+        Thread escritor = new Thread(() -> {
+            for (int i = 0; i < 100; i++) {
+                cerrojo.bloquearEscritura();
+                cerrojo.liberarEscritura();
+                escrituras.countDown();
+            }
+        });
+        escritor.start();
+        try {
+            assertTrue(escrituras.await(10, TimeUnit.SECONDS), "El escritor quedó esperando");
+        } finally {
+            leyendo.set(false);
+        }
+    }
+
+    private static void esperarEnCola(Thread escritor) {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (escritor.getState() != Thread.State.WAITING && System.nanoTime() < limite) {
+            Thread.onSpinWait();
+        }
+    }
+}
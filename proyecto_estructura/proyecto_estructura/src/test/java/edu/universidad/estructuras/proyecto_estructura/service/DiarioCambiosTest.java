@@ -0,0 +1,131 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiarioCambiosTest {
+    private Path directorio;
+
+    @BeforeEach
+    void crearDirectorio() throws IOException {
+        directorio = Files.createTempDirectory("diario");
+    }
+
+    @AfterEach
+    void borrarDirectorio() throws IOException {
+        try (Stream<Path> archivos = Files.walk(directorio)) {
+            for (Path ruta : archivos.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(ruta);
+            }
+        }
+    }
+
+    private static RegistroDiario favorito(int i) {
+        return new RegistroDiario(TipoRegistro.FAV_ADD, "ana", "C" + i);
+    }
+
+    private List<String> reproducir() {
+        List<String> ids = new ArrayList<>();
+        new DiarioCambios(directorio.toString(), () -> { }).reproducir(registro -> ids.add(registro.getCampo(1)));
+        return ids;
+    }
+
+    @Test
+    void registrosEncoladosJuntosVanEnUnSoloLote() {
+        DiarioCambios diario = new DiarioCambios(directorio.toString(), () -> { });
+        // Anotados antes de arrancar el hilo: el primer lote los toma todos
+        for (int i = 0; i < 300; i++) {
+            diario.anotar(favorito(i));
+        }
+        diario.abrir();
+        try {
+            assertTrue(diario.sincronizar(5000));
+            assertEquals(1L, diario.getLotesEscritos());
+            assertEquals(300L, diario.getRegistrosAnotados());
+            assertFalse(diario.isFallido());
+        } finally {
+            diario.cerrar();
+        }
+
+        List<String> ids = reproducir();
+        assertEquals(300, ids.size());
+        assertEquals("C0", ids.get(0));
+        assertEquals("C299", ids.get(299));
+    }
+
+    @Test
+    void segmentosSeReproducenEnOrdenYSeDescartan() {
+        DiarioCambios diario = new DiarioCambios(directorio.toString(), () -> { });
+        diario.abrir();
+        try {
+            diario.anotar(favorito(1));
+            assertTrue(diario.sincronizar(5000));
+            assertEquals(2, diario.rotar());
+            diario.anotar(favorito(2));
+            assertTrue(diario.sincronizar(5000));
+        } finally {
+            diario.cerrar();
+        }
+        assertEquals(List.of("C1", "C2"), reproducir());
+
+        diario.descartarAnteriores(2);
+        assertEquals(List.of("C2"), reproducir());
+    }
+
+    @Test
+    void umbralPideUnaSolaCompactacionPorSegmento() throws InterruptedException {
+        AtomicInteger compactaciones = new AtomicInteger();
+        CountDownLatch pedida = new CountDownLatch(1);
+        DiarioCambios diario = new DiarioCambios(directorio.toString(), () -> {
+            compactaciones.incrementAndGet();
+            pedida.countDown();
+        });
+        diario.setUmbralCompactacion(3);
+        diario.abrir();
+        try {
+            for (int i = 0; i < 6; i++) {
+                diario.anotar(favorito(i));
+                assertTrue(diario.sincronizar(5000));
+            }
+            assertTrue(pedida.await(5, TimeUnit.SECONDS));
+            assertEquals(1, compactaciones.get());
+        } finally {
+            diario.cerrar();
+        }
+        assertThrows(IllegalArgumentException.class, () -> diario.setUmbralCompactacion(0));
+    }
+
+    @Test
+    void lineaDanadaTerminaLaLecturaDeSuSegmento() throws IOException {
+        String linea = favorito(1).codificar() + "\n";
+        Files.writeString(directorio.resolve("diario-000001.log"),
+                linea + "FAV_ADD|ana|C2|basura\n" + favorito(3).codificar() + "\n", StandardCharsets.UTF_8);
+        Files.writeString(directorio.resolve("diario-000002.log"), favorito(4).codificar() + "\n", StandardCharsets.UTF_8);
+
+        assertEquals(List.of("C1", "C4"), reproducir());
+    }
+
+    @Test
+    void sincronizarSinAbrirNoEspera() {
+        DiarioCambios diario = new DiarioCambios(directorio.toString(), () -> { });
+        diario.anotar(favorito(1));
+        long inicio = System.currentTimeMillis();
+        assertFalse(diario.sincronizar(5000));
+        assertTrue(System.currentTimeMillis() - inicio < 1000);
+    }
+}
@@ -0,0 +1,116 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EscrituraDiferidaTest {
+
+    @Test
+    void guardadosSeguidosSeJuntanEnUnaEscritura() {
+        List<ConjuntoDatos> escritos = new ArrayList<>();
+        EscrituraDiferida escritura = new EscrituraDiferida(escritos::add); // sin hilo: solo vaciar()
+
+        for (int i = 0; i < 20; i++) {
+            escritura.marcar(ConjuntoDatos.FAVORITOS);
+        }
+        escritura.marcar(ConjuntoDatos.USUARIOS);
+        assertTrue(escritura.hayPendientes());
+        assertTrue(escritos.isEmpty());
+
+        escritura.vaciar();
+        assertEquals(2, escritos.size());
+        assertTrue(escritos.containsAll(List.of(ConjuntoDatos.FAVORITOS, ConjuntoDatos.USUARIOS)));
+        assertEquals(Integer.valueOf(1), escritura.getEscrituras().get(ConjuntoDatos.FAVORITOS));
+        assertEquals(21L, escritura.getCambiosTotales());
+        assertFalse(escritura.hayPendientes());
+
+        escritura.vaciar(); // nada pendiente, nada que escribir
+        assertEquals(2, escritos.size());
+    }
+
+    @Test
+    void vaciarSoloLosConjuntosPedidos() {
+        List<ConjuntoDatos> escritos = new ArrayList<>();
+        EscrituraDiferida escritura = new EscrituraDiferida(escritos::add);
+        escritura.marcar(ConjuntoDatos.PLAYLISTS);
+        escritura.marcar(ConjuntoDatos.CONEXIONES);
+
+        escritura.vaciar(EnumSet.of(ConjuntoDatos.PLAYLISTS));
+        assertEquals(List.of(ConjuntoDatos.PLAYLISTS), escritos);
+        assertTrue(escritura.hayPendientes());
+
+        escritura.vaciar();
+        assertEquals(List.of(ConjuntoDatos.PLAYLISTS, ConjuntoDatos.CONEXIONES), escritos);
+    }
+
+    @Test
+    void errorDeDiscoDejaElConjuntoPendiente() {
+        int[] intentos = {0};
+        EscrituraDiferida escritura = new EscrituraDiferida(conjunto -> {
+            if (intentos[0]++ == 0) {
+                throw new UncheckedIOException(new IOException("disco lleno"));
+            }
+        });
+        escritura.marcar(ConjuntoDatos.TENDENCIAS);
+
+        escritura.vaciar();
+        assertTrue(escritura.hayPendientes());
+        assertNull(escritura.getEscrituras().get(ConjuntoDatos.TENDENCIAS));
+
+        escritura.vaciar();
+        assertFalse(escritura.hayPendientes());
+        assertEquals(Integer.valueOf(1), escritura.getEscrituras().get(ConjuntoDatos.TENDENCIAS));
+    }
+
+    @Test
+    void elUmbralAdelantaLaEscrituraDeFondo() throws InterruptedException {
+        List<ConjuntoDatos> escritos = new CopyOnWriteArrayList<>();
+        EscrituraDiferida escritura = new EscrituraDiferida(escritos::add);
+        escritura.configurar(60_000, 5); // el intervalo no llega durante la prueba
+        escritura.iniciar();
+        try {
+            for (int i = 0; i < 4; i++) {
+                escritura.marcar(ConjuntoDatos.USUARIOS);
+            }
+            Thread.sleep(100);
+            assertTrue(escritos.isEmpty());
+
+            escritura.marcar(ConjuntoDatos.USUARIOS);
+            long limite = System.currentTimeMillis() + 5000;
+            while (escritos.isEmpty() && System.currentTimeMillis() < limite) {
+                Thread.sleep(10);
+            }
+            assertEquals(List.of(ConjuntoDatos.USUARIOS), escritos);
+        } finally {
+            escritura.detener();
+        }
+    }
+
+    @Test
+    void detenerEscribeLoPendiente() {
+        List<ConjuntoDatos> escritos = new CopyOnWriteArrayList<>();
+        EscrituraDiferida escritura = new EscrituraDiferida(escritos::add);
+        escritura.configurar(60_000, 1000);
+        escritura.iniciar();
+        escritura.marcar(ConjuntoDatos.FAVORITOS);
+
+        escritura.detener();
+        assertEquals(List.of(ConjuntoDatos.FAVORITOS), escritos);
+        assertFalse(escritura.hayPendientes());
+    }
+
+    @Test
+    void configuracionInvalidaSeRechaza() {
+        EscrituraDiferida escritura = new EscrituraDiferida(conjunto -> { });
+        assertThrows(IllegalArgumentException.class, () -> escritura.configurar(-1, 5));
+        assertThrows(IllegalArgumentException.class, () -> escritura.configurar(100, 0));
+    }
+}
@@ -0,0 +1,73 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import edu.universidad.estructuras.proyecto_estructura.model.Cancion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FacetasCatalogoTest {
+    private FacetasCatalogo facetas;
+
+    @BeforeEach
+    void crearFacetas() {
+        facetas = new FacetasCatalogo(new CerrojoCatalogo());
+        facetas.indexar(0, new Cancion("C1", "Zombie", "The Cranberries", "Rock", 1994, 5.0, ""));
+        facetas.indexar(1, new Cancion("C2", "Linger", "The Cranberries", "rock ", 1993, 4.5, ""));
+        facetas.indexar(2, new Cancion("C3", "Africa", "Toto", "Pop", 1982, 4.9, ""));
+        facetas.indexar(3, new Cancion("C4", "Dreams", "The Cranberries", "Rock", 1993, 4.3, ""));
+    }
+
+    @Test
+    void conteosAgrupanSinDistinguirMayusculas() {
+        Map<String, Integer> generos = facetas.getConteos(TipoFaceta.GENERO);
+
+        assertEquals(2, generos.size());
+        assertEquals(3, facetas.getConteo(TipoFaceta.GENERO, "ROCK"));
+        assertEquals(1, facetas.getConteo(TipoFaceta.GENERO, "pop"));
+        assertEquals(3, facetas.getConteo(TipoFaceta.DECADA, "1990"));
+        assertEquals(1, facetas.getConteo(TipoFaceta.DECADA, "1980"));
+        assertEquals(3, facetas.getConteo(TipoFaceta.ARTISTA, "the cranberries"));
+    }
+
+    @Test
+    void porcionesOrdenadasPorAnioYTitulo() {
+        // 1993 Dreams, 1993 Linger, 1994 Zombie
+        assertArrayEquals(new int[]{3, 1, 0}, facetas.obtenerPorcion(TipoFaceta.ARTISTA, "The Cranberries", 0, 10));
+        assertArrayEquals(new int[]{1, 0}, facetas.obtenerPorcion(TipoFaceta.ARTISTA, "The Cranberries", 1, 2));
+        assertEquals(0, facetas.obtenerPorcion(TipoFaceta.ARTISTA, "The Cranberries", 5, 2).length);
+        assertEquals(0, facetas.obtenerPorcion(TipoFaceta.ARTISTA, "Nadie", 0, 2).length);
+        // Los géneros ordenan solo por título
+        assertArrayEquals(new int[]{3, 1, 0}, facetas.obtenerPorcion(TipoFaceta.GENERO, "rock", 0, 10));
+    }
+
+    @Test
+    void reindexarMueveLaCancionDeGrupo() {
+        facetas.obtenerPorcion(TipoFaceta.GENERO, "rock", 0, 10); // deja el arreglo calculado
+        facetas.indexar(1, new Cancion("C2", "Linger", "The Cranberries", "Pop", 2001, 4.5, ""));
+
+        assertEquals(2, facetas.getConteo(TipoFaceta.GENERO, "rock"));
+        assertArrayEquals(new int[]{2, 1}, facetas.obtenerPorcion(TipoFaceta.GENERO, "pop", 0, 10));
+        assertEquals(1, facetas.getConteo(TipoFaceta.DECADA, "2000"));
+        assertArrayEquals(new int[]{3, 0, 1}, facetas.obtenerPorcion(TipoFaceta.ARTISTA, "the cranberries", 0, 10));
+    }
+
+    @Test
+    void desindexarBorraLosGruposVacios() {
+        facetas.desindexar(2);
+        facetas.desindexar(2);
+
+        assertFalse(facetas.getConteos(TipoFaceta.GENERO).containsKey("Pop"));
+        assertEquals(0, facetas.getConteo(TipoFaceta.DECADA, "1980"));
+        assertEquals(1, facetas.getConteos(TipoFaceta.ARTISTA).size());
+    }
+
+    @Test
+    void decadaDeAniosNegativosOLimite() {
+        assertEquals(1980, FacetasCatalogo.calcularDecada(1989));
+        assertEquals(1990, FacetasCatalogo.calcularDecada(1990));
+        assertEquals(-10, FacetasCatalogo.calcularDecada(-1));
+    }
+}
@@ -0,0 +1,103 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import edu.universidad.estructuras.proyecto_estructura.model.Cancion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImportadorCancionesTest {
+    private Path archivo;
+
+    @BeforeEach
+    void crearArchivo() throws IOException {
+        archivo = Files.createTempFile("importar", ".txt");
+    }
+
+    @AfterEach
+    void borrarArchivo() throws IOException {
+        Files.deleteIfExists(archivo);
+    }
+
+    private List<Cancion> importar(ImportadorCanciones importador, String contenido) throws IOException {
+        Files.writeString(archivo, contenido, StandardCharsets.UTF_8);
+        List<Cancion> canciones = new ArrayList<>();
+        importador.procesar(canciones::add);
+        return canciones;
+    }
+
+    @Test
+    void variosLotesLleganEnElOrdenDelArchivo() throws IOException {
+        // Más de dos lotes de 4096 líneas, repartidos entre varios analizadores
+        StringBuilder contenido = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            contenido.append("Canción ").append(i).append("|Artista|Rock|2000|3.30\n");
+        }
+        ImportadorCanciones importador = new ImportadorCanciones(archivo.toString(), 4);
+
+        List<Cancion> canciones = importar(importador, contenido.toString());
+
+        assertEquals(10_000, canciones.size());
+        for (int i = 0; i < canciones.size(); i++) {
+            assertEquals("Canción " + i, canciones.get(i).getTitulo());
+        }
+        assertEquals(10_000, importador.getFilasLeidas());
+        assertEquals(0, importador.getErrores());
+    }
+
+    @Test
+    void formatosConYSinIdNiUrl() throws IOException {
+        ImportadorCanciones importador = new ImportadorCanciones(archivo.toString(), 2);
+        List<Cancion> canciones = importar(importador, String.join("\n",
+                "# comentario",
+                "",
+                "C0001|Bohemian Rhapsody|Queen|Rock|1975|5.55|https://youtu.be/fJ9rUzIMcZQ",
+                "C0002|Imagine|John Lennon|Rock|1971|3,03",
+                "Hotel California|Eagles|Rock|1976|6.30|https://youtu.be/09839DpTctU",
+                "Yesterday|The Beatles|Pop|1965|2"));
+
+        assertEquals(4, canciones.size());
+        assertNull(canciones.get(0).getId()); // el ID se reasigna al agregar
+        assertEquals("Queen", canciones.get(0).getArtista());
+        assertEquals("https://youtu.be/fJ9rUzIMcZQ", canciones.get(0).getUrlYoutube());
+        assertEquals(3.03, canciones.get(1).getDuracion(), 1e-9);
+        assertEquals("", canciones.get(1).getUrlYoutube());
+        assertEquals("Hotel California", canciones.get(2).getTitulo());
+        assertEquals(1965, canciones.get(3).getAnio());
+        assertEquals(4, importador.getFilasLeidas());
+    }
+
+    @Test
+    void filasInvalidasSeCuentanYSeOmiten() throws IOException {
+        ImportadorCanciones importador = new ImportadorCanciones(archivo.toString(), 1);
+        List<Cancion> canciones = importar(importador, String.join("\n",
+                "Uno|Artista|Rock|2000|3.00",
+                "Dos|Artista|Rock|20|3.00",          // año de dos dígitos
+                "Tres|Artista|Rock|2000|tres",       // duración no numérica
+                "|Artista|Rock|2000|3.00",           // sin título
+                "Cuatro|Rock|2000",                  // faltan campos
+                "Cinco|Artista|Rock|2000|3.75"));    // segundos >= 60: solo advertencia
+
+        assertEquals(List.of("Uno", "Cinco"), canciones.stream().map(Cancion::getTitulo).toList());
+        assertEquals(6, importador.getFilasLeidas());
+        assertEquals(4, importador.getErrores());
+    }
+
+    @Test
+    void archivoInexistenteLanzaLaExcepcionDeLectura() throws IOException {
+        Files.delete(archivo);
+        ImportadorCanciones importador = new ImportadorCanciones(archivo.toString(), 2);
+        List<Cancion> canciones = new ArrayList<>();
+
+        assertThrows(IOException.class, () -> importador.procesar(canciones::add));
+        assertTrue(canciones.isEmpty());
+    }
+}
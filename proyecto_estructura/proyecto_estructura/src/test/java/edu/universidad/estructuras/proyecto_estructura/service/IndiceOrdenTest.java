@@ -0,0 +1,90 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import edu.universidad.estructuras.proyecto_estructura.model.Cancion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndiceOrdenTest {
+    private static final int CANTIDAD = 200;
+
+    private IndiceOrden indice;
+
+    @BeforeEach
+    void crearIndice() {
+        indice = new IndiceOrden();
+        for (int i = 0; i < CANTIDAD; i++) {
+            // Años desordenados y repetidos para que el desempate por título cuente
+            indice.indexar(i, new Cancion("C" + i, "Título " + i, "Artista", "Rock", 1950 + (i * 37) % 60, 3.0, ""));
+        }
+    }
+
+    @Test
+    void subconjuntoPequenoSigueElOrdenDelCatalogo() {
+        int[] todos = new int[CANTIDAD];
+        for (int i = 0; i < CANTIDAD; i++) {
+            todos[i] = i;
+        }
+        int[] subconjunto = {150, 3, 77, 42, 199};
+
+        int[] esperado = ordenSegun(aplicar(todos, indice.ordenar(todos, CriterioOrden.ANIO, false)), subconjunto);
+
+        // Recién indexado, sin rangos: compara claves
+        assertArrayEquals(esperado, aplicar(subconjunto, indice.ordenar(subconjunto, CriterioOrden.ANIO, false)));
+
+        // Tras suficientes ordenamientos se calculan los rangos y el resultado no cambia
+        for (int i = 0; i < CANTIDAD; i++) {
+            indice.ordenar(subconjunto, CriterioOrden.ANIO, false);
+        }
+        assertArrayEquals(esperado, aplicar(subconjunto, indice.ordenar(subconjunto, CriterioOrden.ANIO, false)));
+    }
+
+    @Test
+    void edicionSeVeAunqueHubieraRangosCalculados() {
+        int[] subconjunto = {10, 20, 30};
+        for (int i = 0; i < CANTIDAD; i++) {
+            indice.ordenar(subconjunto, CriterioOrden.ANIO, false);
+        }
+
+        indice.indexar(30, new Cancion("C30", "Título 30", "Artista", "Rock", 1900, 3.0, ""));
+        assertEquals(30, aplicar(subconjunto, indice.ordenar(subconjunto, CriterioOrden.ANIO, false))[0]);
+
+        // Cambiar solo el título no debe alterar el orden por año
+        indice.indexar(30, new Cancion("C30", "Otro título", "Artista", "Rock", 1900, 3.0, ""));
+        assertEquals(30, aplicar(subconjunto, indice.ordenar(subconjunto, CriterioOrden.ANIO, false))[0]);
+        assertEquals(30, aplicar(subconjunto, indice.ordenar(subconjunto, CriterioOrden.ANIO, true))[2]);
+    }
+
+    @Test
+    void repetidosConservanOrdenYNoIndexadosVanAlFinal() {
+        indice.desindexar(5);
+        int[] subconjunto = {5, 1, -1, 1, 0};
+
+        int[] permutacion = indice.ordenar(subconjunto, CriterioOrden.TITULO, false);
+
+        // "Título 0" < "Título 1"; el ordinal 1 repetido mantiene sus posiciones 1 y 3
+        assertArrayEquals(new int[]{4, 1, 3, 0, 2}, permutacion);
+    }
+
+    private static int[] aplicar(int[] ordinales, int[] permutacion) {
+        int[] resultado = new int[permutacion.length];
+        for (int i = 0; i < permutacion.length; i++) {
+            resultado[i] = ordinales[permutacion[i]];
+        }
+        return resultado;
+    }
+
+    private static int[] ordenSegun(int[] ordenCompleto, int[] subconjunto) {
+        int[] resultado = new int[subconjunto.length];
+        int total = 0;
+        for (int ordinal : ordenCompleto) {
+            for (int buscado : subconjunto) {
+                if (ordinal == buscado) {
+                    resultado[total++] = ordinal;
+                }
+            }
+        }
+        return resultado;
+    }
+}
@@ -0,0 +1,108 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import edu.universidad.estructuras.proyecto_estructura.model.BitmapComprimido;
+import edu.universidad.estructuras.proyecto_estructura.model.Cancion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MotorFiltrosTest {
+    private MotorFiltros motor;
+
+    @BeforeEach
+    void crearMotor() {
+        motor = new MotorFiltros(new CerrojoCatalogo());
+        motor.indexar(0, new Cancion("C1", "Corta", "A", "Rock", 1990, 2.10, ""));
+        motor.indexar(1, new Cancion("C2", "Media", "B", "Pop", 2000, 3.45, ""));
+        motor.indexar(2, new Cancion("C3", "Larga", "C", "Jazz", 2010, 9.30, ""));
+    }
+
+    @Test
+    void rangoDuracionSoloConMinimo() {
+        BitmapComprimido resultado = motor.porRangoDuracion(3.0, Double.POSITIVE_INFINITY);
+
+        assertEquals(2, resultado.getCardinalidad());
+        assertTrue(resultado.contiene(1));
+        assertTrue(resultado.contiene(2));
+    }
+
+    @Test
+    void rangoDuracionConMaximoSinLimite() {
+        // El valor que usaba la búsqueda para "sin máximo"
+        BitmapComprimido resultado = motor.porRangoDuracion(3.0, Double.MAX_VALUE / 100);
+
+        assertEquals(2, resultado.getCardinalidad());
+    }
+
+    @Test
+    void rangoDuracionSoloConMaximo() {
+        BitmapComprimido resultado = motor.porRangoDuracion(0, 3.45);
+
+        assertEquals(2, resultado.getCardinalidad());
+        assertTrue(resultado.contiene(0));
+        assertTrue(resultado.contiene(1));
+        assertFalse(resultado.contiene(2));
+    }
+
+    @Test
+    void rangoAnioSoloConMinimoOMaximo() {
+        assertEquals(2, motor.porRangoAnio(2000, 3000).getCardinalidad());
+        assertEquals(1, motor.porRangoAnio(0, 1995).getCardinalidad());
+    }
+
+    @Test
+    void muestraUniformeSinRepetidos() {
+        for (int i = 3; i < 1000; i++) {
+            motor.indexar(i, new Cancion("C" + (i + 1), "T" + i, "A", "Rock", 1990, 3.0, ""));
+        }
+        Random random = new Random(1);
+
+        int[] muestra = motor.muestrearUniforme(600, random);
+        Set<Integer> distintos = new HashSet<>();
+        for (int ordinal : muestra) {
+            assertTrue(ordinal >= 0 && ordinal < 1000);
+            distintos.add(ordinal);
+        }
+        assertEquals(600, muestra.length);
+        assertEquals(600, distintos.size());
+
+        // Con k = 1 todas las posiciones pueden salir
+        int[] conteos = new int[1000];
+        for (int i = 0; i < 20_000; i++) {
+            conteos[motor.muestrearUniforme(1, random)[0]]++;
+        }
+        for (int conteo : conteos) {
+            assertTrue(conteo > 0);
+        }
+    }
+
+    @Test
+    void muestraMayorQueElCatalogoDevuelveTodas() {
+        int[] muestra = motor.muestrearUniforme(10, new Random(3));
+
+        assertEquals(3, muestra.length);
+        assertEquals(Set.of(0, 1, 2), Set.of(muestra[0], muestra[1], muestra[2]));
+    }
+
+    @Test
+    void muestraEstratificadaCubreCadaGenero() {
+        motor.indexar(3, new Cancion("C4", "Otra", "D", "Rock", 1995, 3.0, ""));
+        motor.indexar(4, new Cancion("C5", "Otra mas", "E", "Rock", 1996, 3.0, ""));
+
+        for (int semilla = 0; semilla < 20; semilla++) {
+            int[] muestra = motor.muestrearEstratificado(3, EstratoMuestreo.GENERO, new Random(semilla));
+            Set<Integer> ordinales = new HashSet<>();
+            for (int ordinal : muestra) {
+                ordinales.add(ordinal);
+            }
+            assertEquals(3, ordinales.size());
+            assertTrue(ordinales.contains(1)); // único Pop
+            assertTrue(ordinales.contains(2)); // único Jazz
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package edu.universidad.estructuras.proyecto_estructura.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegistroDiarioTest {
+
+    @Test
+    void loteSeCodificaYSeLeeConTodosSusGrupos() {
+        RegistroDiario lote = new RegistroDiario(TipoRegistro.SONG_BATCH,
+                "C1", "Uno", "Artista", "Rock", "2001", "180", "",
+                "C2", "Dos|con barra", "Artista", "Pop", "2002", "200", "https://youtu.be/x");
+
+        RegistroDiario leido = RegistroDiario.decodificar(lote.codificar());
+
+        assertNotNull(leido);
+        assertEquals(TipoRegistro.SONG_BATCH, leido.getTipo());
+        assertEquals(14, leido.getCantidadCampos());
+        assertEquals("C2", leido.getCampo(7));
+        assertEquals("Dos|con barra", leido.getCampo(8));
+        assertEquals("https://youtu.be/x", leido.getCampo(13));
+    }
+
+    @Test
+    void loteConGrupoIncompletoSeRechaza() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new RegistroDiario(TipoRegistro.SONG_BATCH, "C1", "Uno", "Artista"));
+        assertThrows(IllegalArgumentException.class,
+                () -> new RegistroDiario(TipoRegistro.SONG_BATCH));
+
+        String completo = new RegistroDiario(TipoRegistro.SONG_UPSERT,
+                "C1", "Uno", "Artista", "Rock", "2001", "180", "").codificar();
+        // Mismo cuerpo con el tipo cambiado: el CRC ya no coincide y la línea se descarta
+        assertNull(RegistroDiario.decodificar(completo.replace("SONG_UPSERT", "SONG_BATCH")));
+    }
+
+    @Test
+    void tiposSimplesExigenLaCantidadExacta() {
+        assertTrue(TipoRegistro.SONG_UPSERT.admiteCampos(7));
+        assertFalse(TipoRegistro.SONG_UPSERT.admiteCampos(14));
+        assertTrue(TipoRegistro.SONG_BATCH.admiteCampos(14));
+        assertFalse(TipoRegistro.SONG_BATCH.admiteCampos(8));
+    }
+}